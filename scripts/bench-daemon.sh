@@ -0,0 +1,43 @@
+#!/bin/bash
+# Compares the latency of an atlas command run in a fresh JVM (cold) with the same command forwarded to a
+# resident `atlas daemon` (warm).
+#
+# Usage: scripts/bench-daemon.sh <atlas executable> [iterations] [command...]
+#   e.g. scripts/bench-daemon.sh ./atlas 20 clusters list
+
+ATLAS=${1:?"usage: $0 <atlas executable> [iterations] [command...]"}
+shift
+ITERATIONS=${1:-10}
+shift
+COMMAND=("$@")
+[ ${#COMMAND[@]} -eq 0 ] && COMMAND=(clusters list)
+
+measure() {
+    local start end total=0
+    for i in $(seq "$ITERATIONS"); do
+        start=$(date +%s%N)
+        "$ATLAS" "${COMMAND[@]}" > /dev/null 2>&1
+        end=$(date +%s%N)
+        total=$((total + (end - start) / 1000000))
+    done
+    echo $((total / ITERATIONS))
+}
+
+export ATLAS_NO_DAEMON=1
+cold=$(measure)
+unset ATLAS_NO_DAEMON
+
+"$ATLAS" daemon > /dev/null 2>&1 &
+for i in $(seq 50); do
+    [ -f "$HOME/.atlas-daemon" ] && break
+    sleep 0.1
+done
+# first forwarded call pays for class loading, connection setup and cache warm-up in the daemon
+"$ATLAS" "${COMMAND[@]}" > /dev/null 2>&1
+warm=$(measure)
+"$ATLAS" daemon stop > /dev/null
+
+echo "command:    atlas ${COMMAND[*]}"
+echo "iterations: $ITERATIONS"
+echo "cold (new JVM per call): ${cold} ms/call"
+echo "warm (daemon):           ${warm} ms/call"
@@ -0,0 +1,47 @@
+#!/bin/bash
+# Measures the startup cost of an atlas command in a fresh JVM: the average wall time per call and the average
+# time from launch until the first API request is sent.  When an AppCDS archive (<atlas>.jsa) is present the
+# command is measured with and without it.
+#
+# Usage: scripts/bench-startup.sh <atlas executable> [iterations] [command...]
+#   e.g. scripts/bench-startup.sh ./atlas 20 clusters list
+
+ATLAS=${1:?"usage: $0 <atlas executable> [iterations] [command...]"}
+shift
+ITERATIONS=${1:-10}
+shift
+COMMAND=("$@")
+[ ${#COMMAND[@]} -eq 0 ] && COMMAND=(clusters list)
+
+export ATLAS_NO_DAEMON=1
+export java_args="-Dorg.slf4j.simpleLogger.log.com.mongodb.atlas.cli.http.AtlasHttpClient=debug"
+
+measure() {
+    local start end first total=0 ttfr=0 requests=0
+    for i in $(seq "$ITERATIONS"); do
+        start=$(date +%s%3N)
+        first=$("$ATLAS" "${COMMAND[@]}" 2>&1 > /dev/null < /dev/null | \
+            sed -n 's/.*First request sent at \([0-9]*\) ms since the epoch.*/\1/p')
+        end=$(date +%s%3N)
+        total=$((total + end - start))
+        if [ -n "$first" ]; then
+            ttfr=$((ttfr + first - start))
+            requests=$((requests + 1))
+        fi
+    done
+    if [ "$requests" -gt 0 ]; then
+        echo "$((total / ITERATIONS)) ms/call, first request after $((ttfr / requests)) ms"
+    else
+        echo "$((total / ITERATIONS)) ms/call, no request sent"
+    fi
+}
+
+echo "command:    atlas ${COMMAND[*]}"
+echo "iterations: $ITERATIONS"
+if [ -r "$ATLAS.jsa" ]; then
+    echo "with CDS archive:    $(measure)"
+    export ATLAS_NO_CDS=1
+    echo "without CDS archive: $(measure)"
+else
+    echo "$(measure)"
+fi
@@ -1,9 +1,46 @@
-#!/bin/sh
+#!/bin/bash
 MYSELF=`which "$0" 2>/dev/null`
 [ $? -gt 0 -a -f "$0" ] && MYSELF="./$0"
+
+# Forward the command to a running `atlas daemon` when there is one; config prompts on stdin, batch reads stdin
+# and its own file, exporter runs until stopped, and daemon manages the daemon itself, so these always run
+# in-process.
+DAEMON_FILE="$HOME/.atlas-daemon"
+forward() {
+    local port token line code=1
+    read -r port token < "$DAEMON_FILE" || return 1
+    { exec 3<>"/dev/tcp/127.0.0.1/$port"; } 2>/dev/null || return 1
+    {
+        printf '%s\n%s\n%s\n' "$token" "$PWD" "$#"
+        for arg in "$@"; do
+            printf '%s\n' "$arg"
+        done
+    } >&3
+    while IFS= read -r line <&3; do
+        case "$line" in
+            o*) printf '%s\n' "${line#o}" ;;
+            O*) printf '%s' "${line#O}" ;;
+            e*) printf '%s\n' "${line#e}" >&2 ;;
+            E*) printf '%s' "${line#E}" >&2 ;;
+            x*) code="${line#x}"; break ;;
+        esac
+    done
+    exec 3>&-
+    exit "$code"
+}
+if [ -z "$ATLAS_NO_DAEMON" ] && [ -r "$DAEMON_FILE" ] && [ "$1" != "config" ] && [ "$1" != "daemon" ] \
+    && [ "$1" != "batch" ] && [ "$1" != "exporter" ] \
+    && [[ "$*$PWD" != *$'\n'* ]]; then
+    forward "$@"
+fi
+
 java=java
 if test -n "$JAVA_HOME"; then
     java="$JAVA_HOME/bin/java"
 fi
+# Use an AppCDS archive stored next to the executable when there is one, see the Startup section of the README
+if [ -z "$ATLAS_NO_CDS" ] && [ -r "$MYSELF.jsa" ]; then
+    java_args="$java_args -XX:SharedArchiveFile=$MYSELF.jsa -Xlog:cds=off"
+fi
 exec "$java" $java_args -jar $MYSELF "$@"
 exit 1
@@ -0,0 +1,39 @@
+package com.mongodb.atlas.cli.clusters;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+
+/**
+ * Recorded API responses under {@code src/jmh/resources/fixtures}.
+ */
+final class Fixtures {
+
+    static final String PROCESS_MEASUREMENTS = "process-measurements.json";
+    static final String DISK_MEASUREMENTS = "disk-measurements.json";
+    static final String PROCESSES_10 = "processes-10.json";
+    static final String PROCESSES_100 = "processes-100.json";
+
+    private Fixtures() {
+    }
+
+    static byte[] load(final String pName) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + pName)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing fixture " + pName);
+            }
+
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.mongodb.atlas.cli.clusters;
+
+import com.mongodb.atlas.cli.ResponseParser;
+import org.json.JSONArray;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Parsing cost of one {@code clusters status} poll against recorded responses, for either measurements parser,
+ * and of {@link MeasurementsClient#mapMetrics} on its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MeasurementsBenchmark {
+
+    @State(Scope.Thread)
+    public static class Poll {
+
+        @Param({"10", "100", "1000"})
+        public int processes;
+
+        @Param({"stream", "dom"})
+        public String parser;
+
+        private byte[] _processesPage;
+        private int _pages;
+        private byte[] _processMeasurements;
+        private byte[] _diskMeasurements;
+
+        @Setup
+        public void setUp() {
+            // listings come in pages of at most 100 processes
+            _processesPage = Fixtures.load(processes < 100 ? Fixtures.PROCESSES_10 : Fixtures.PROCESSES_100);
+            _pages = Math.max(1, processes / 100);
+            _processMeasurements = Fixtures.load(Fixtures.PROCESS_MEASUREMENTS);
+            _diskMeasurements = Fixtures.load(Fixtures.DISK_MEASUREMENTS);
+        }
+
+        private Map<String, DataPoint> parseMeasurements(final byte[] pPayload) throws IOException {
+            if ("dom".equals(parser)) {
+                return MeasurementsClient.mapMetrics(
+                    ResponseParser.JSON.parse(new ByteArrayInputStream(pPayload)).getJSONArray("measurements"));
+            }
+            return new MeasurementStreamParser().parse(new ByteArrayInputStream(pPayload));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Document {
+
+        private JSONArray _measurements;
+
+        @Setup
+        public void setUp() throws IOException {
+            _measurements = ResponseParser.JSON
+                .parse(new ByteArrayInputStream(Fixtures.load(Fixtures.PROCESS_MEASUREMENTS)))
+                .getJSONArray("measurements");
+        }
+    }
+
+    /**
+     * The process listing plus the process measurements and two disk partition measurements of every process.
+     */
+    @Benchmark
+    public void parsePoll(final Poll pPoll, final Blackhole pBlackhole) throws IOException {
+        for (int i = 0; i < pPoll._pages; i++) {
+            pBlackhole.consume(ResponseParser.JSON.parse(new ByteArrayInputStream(pPoll._processesPage)));
+        }
+        for (int i = 0; i < pPoll.processes; i++) {
+            pBlackhole.consume(pPoll.parseMeasurements(pPoll._processMeasurements));
+            pBlackhole.consume(pPoll.parseMeasurements(pPoll._diskMeasurements));
+            pBlackhole.consume(pPoll.parseMeasurements(pPoll._diskMeasurements));
+        }
+    }
+
+    @Benchmark
+    public Map<String, DataPoint> mapMetrics(final Document pDocument) {
+        return MeasurementsClient.mapMetrics(pDocument._measurements);
+    }
+}
@@ -0,0 +1,112 @@
+package com.mongodb.atlas.cli.clusters;
+
+import com.mongodb.atlas.cli.util.StorageFormatUtil;
+import com.mongodb.atlas.cli.util.TextTableRenderer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Rendering cost of the status table, of a refresh frame in which a few cells changed and of both size formatters.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StatusRenderingBenchmark {
+
+    @State(Scope.Thread)
+    public static class Table {
+
+        @Param({"10", "100", "1000"})
+        public int processes;
+
+        private List<List<String>> _rows;
+        private List<List<String>> _changedRows;
+        private TextTableRenderer _renderer;
+        private boolean _changed;
+
+        @Setup
+        public void setUp() {
+            final StatusModule module = new StatusModule(new String[0]);
+            _rows = new ArrayList<>();
+            _rows.add(Arrays.asList("ReplicaSet", "Host", "Conn", "Data", "Disk Used", "Disk Total", "Disk Utl"));
+
+            // the same shape getStatus produces: three members per replica set and a separator between sets
+            for (int i = 0; i < processes; i++) {
+                if (i > 0 && i % 3 == 0) {
+                    _rows.add(Arrays.asList("", "", "", "", "", "", ""));
+                }
+                final long used = 6_200_000_000L + i * 1_000_003L;
+                final long total = 40_000_000_000L;
+                _rows.add(Arrays.asList(
+                    "cluster" + (i / 30) + "-shard-" + ((i / 3) % 10),
+                    String.format("cluster%d-shard-%02d-%02d-abcde", i / 30, (i / 3) % 10, i % 3),
+                    Integer.toString(100 + i % 50),
+                    module.formatSize(1_870_000_000L + i * 7_919L),
+                    module.formatSize(used),
+                    module.formatSize(total),
+                    Math.round(used * 100d / total) + "%"));
+            }
+
+            // a refresh usually changes the connection count of a few processes only
+            _changedRows = new ArrayList<>();
+            for (int i = 0; i < _rows.size(); i++) {
+                final List<String> row = new ArrayList<>(_rows.get(i));
+                if (i % 10 == 1) {
+                    row.set(2, Integer.toString(Integer.parseInt(row.get(2)) + 1));
+                }
+                _changedRows.add(row);
+            }
+
+            _renderer = new TextTableRenderer(0);
+            _renderer.renderFrame(_rows, "");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Sizes {
+
+        private final StatusModule _module = new StatusModule(new String[0]);
+
+        // bytes through terabytes, on and off the unit boundaries
+        private final long[] _sizes = {
+            0L, 512L, 1_000L, 1_023L, 1_024L, 999_999L, 1_048_576L, 52_428_800L,
+            999_999_999L, 1_073_741_824L, 6_200_000_000L, 40_000_000_000L, 999_999_999_999L,
+            1_099_511_627_776L, 3_500_000_000_000L, 16_000_000_000_000L
+        };
+    }
+
+    @Benchmark
+    public String toTextTable(final Table pTable) {
+        return TextTableRenderer.toText(pTable._rows);
+    }
+
+    @Benchmark
+    public String renderRefreshFrame(final Table pTable) {
+        pTable._changed = !pTable._changed;
+        return pTable._renderer.renderFrame(pTable._changed ? pTable._changedRows : pTable._rows, "");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(16)
+    public void statusModuleFormatSize(final Sizes pSizes, final Blackhole pBlackhole) {
+        for (final long size : pSizes._sizes) {
+            pBlackhole.consume(pSizes._module.formatSize(size));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(16)
+    public void storageFormatUtilFormatSize(final Sizes pSizes, final Blackhole pBlackhole) {
+        for (final long size : pSizes._sizes) {
+            pBlackhole.consume(StorageFormatUtil.formatSize(size));
+        }
+    }
+}
@@ -1,28 +1,38 @@
 package com.mongodb.atlas.cli;
 
 import org.apache.commons.cli.ParseException;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 
 
 public class AtlasCliApp {
 
-    private static final Logger _logger = LoggerFactory.getLogger(AtlasCliApp.class);
-
     public static void main(String[] args) {
+        // logging and the HTTP client are initialised on first use, so commands that need neither (help, config,
+        // usage errors) never load them; the shared client is closed by a shutdown hook
+        final int exitCode = run(args);
+        if (exitCode != 0) {
+            System.exit(exitCode);
+        }
+    }
+
+    /**
+     * Executes a single command, reporting failures on {@code System.err}.
+     *
+     * @return the process exit code for the command
+     */
+    public static int run(final String[] args) {
         try {
             new AtlasModule(args).execute();
+            return 0;
         } catch (IOException | ParseException e) {
             System.err.println(String.format("Error handling your request: %s", e.getMessage()));
-            //_logger.error("Exception thrown while processing the request", e);
         } catch (IllegalArgumentException e) {
             System.err.println(e.getMessage());
         } catch (Exception e) {
             System.err.println(String.format("An unexpected error occurred: %s", e.getMessage()));
-            //_logger.error("Exception thrown while processing the request", e);
         }
+        return 1;
     }
 
 }
@@ -0,0 +1,59 @@
+package com.mongodb.atlas.cli;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+
+/**
+ * The {@code ~/.atlas} config file, looked up and read at most once per process rather than once per module and
+ * option.  Call {@link #reload()} after the file may have changed.
+ */
+public class AtlasConfig {
+
+    private static AtlasConfig _instance;
+
+    private final File _file;
+    private final boolean _exists;
+    private Properties _properties;
+
+    private AtlasConfig(final File pFile) {
+        _file = pFile;
+        _exists = pFile.exists();
+    }
+
+    public static synchronized AtlasConfig getInstance() {
+        if (_instance == null) {
+            _instance = new AtlasConfig(new File(System.getProperty("user.home"), ".atlas"));
+        }
+        return _instance;
+    }
+
+    /**
+     * Forgets the cached file state, e.g. after {@code atlas config} rewrote it or before a daemon runs the next
+     * command.
+     */
+    public static synchronized void reload() {
+        _instance = null;
+    }
+
+    public File getFile() {
+        return _file;
+    }
+
+    public boolean exists() {
+        return _exists;
+    }
+
+    public synchronized String getProperty(final String pName) throws IOException {
+        if (_properties == null) {
+            final Properties properties = new Properties();
+            try (FileInputStream fis = new FileInputStream(_file)) {
+                properties.load(fis);
+            }
+            _properties = properties;
+        }
+        return _properties.getProperty(pName);
+    }
+}
@@ -1,12 +1,16 @@
 package com.mongodb.atlas.cli;
 
+import com.mongodb.atlas.cli.batch.BatchModule;
+import com.mongodb.atlas.cli.clusters.ExporterModule;
 import com.mongodb.atlas.cli.config.ConfigModule;
+import com.mongodb.atlas.cli.daemon.DaemonModule;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.ParseException;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.Arrays;
+import java.util.List;
 
 
 public class AtlasModule extends CliModule {
@@ -15,16 +19,43 @@ public class AtlasModule extends CliModule {
         super(pArgs);
     }
 
+    @Override
+    protected boolean isDispatcher() {
+        return true;
+    }
+
+    private static final List<String> COMMANDS =
+        Arrays.asList("config", "clusters", "metrics", "daemon", "batch", "exporter");
+
+    /**
+     * Each branch constructs and executes its module directly, without a shared {@link CliModule} variable, so
+     * the verifier does not need to load every module class and only the selected command's classes are loaded.
+     */
     @Override
     protected void _execute(final CommandLine pCommandLine) throws IOException, ParseException, URISyntaxException {
-        validate(Arrays.asList("config", "clusters"));
+        validate(COMMANDS);
 
         final String firstArg = getArgs()[0];
         final String[] subArgs = Arrays.copyOfRange(getArgs(), 1, getArgs().length);
-        if (firstArg.equals("config")) {
-            new ConfigModule(subArgs).execute();
-        } else if (firstArg.equals("clusters")) {
-            new ClustersModule(subArgs).execute();
+        switch (firstArg) {
+            case "config":
+                new ConfigModule(subArgs).execute();
+                break;
+            case "clusters":
+                new ClustersModule(subArgs).execute();
+                break;
+            case "metrics":
+                new MetricsModule(subArgs).execute();
+                break;
+            case "daemon":
+                new DaemonModule(subArgs).execute();
+                break;
+            case "batch":
+                new BatchModule(subArgs).execute();
+                break;
+            case "exporter":
+                new ExporterModule(subArgs).execute();
+                break;
         }
     }
 }
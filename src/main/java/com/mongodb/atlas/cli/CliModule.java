@@ -1,95 +1,71 @@
 package com.mongodb.atlas.cli;
 
+import com.mongodb.atlas.cli.http.AtlasHttpClient;
+import com.mongodb.atlas.cli.http.RequestCoalescer;
+import com.mongodb.atlas.cli.http.RequestMetrics;
+import com.mongodb.atlas.cli.http.RequestScheduler;
+import com.mongodb.atlas.cli.http.ResponseCache;
+import com.mongodb.atlas.cli.http.TrafficRecorder;
+import com.mongodb.atlas.cli.http.TrafficReplay;
+import com.mongodb.atlas.cli.util.WorkingDirectory;
 import org.apache.commons.cli.*;
-import org.apache.http.HttpHost;
-import org.apache.http.auth.AuthScope;
-import org.apache.http.auth.UsernamePasswordCredentials;
-import org.apache.http.client.AuthCache;
-import org.apache.http.client.CredentialsProvider;
-import org.apache.http.client.methods.CloseableHttpResponse;
-import org.apache.http.client.methods.HttpGet;
-import org.apache.http.client.methods.HttpPost;
-import org.apache.http.client.protocol.HttpClientContext;
-import org.apache.http.entity.StringEntity;
-import org.apache.http.impl.auth.DigestScheme;
-import org.apache.http.impl.client.*;
-import org.apache.http.util.EntityUtils;
 import org.json.JSONObject;
-import org.json.Property;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.List;
-import java.util.Properties;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 import java.util.stream.Collectors;
 
 
 public abstract class CliModule {
 
-    protected static final String HOST = "localhost";
-    protected static final int PORT = 8080;
-    protected static final String SCHEME = "http";
+    protected static final String HOST = "cloud.mongodb.com";
+    protected static final int PORT = 443;
+    protected static final String SCHEME = "https";
 
-    private static final int JSON_INDENT = 3;
-
-    protected static final String BASE_URL =
-        String.format("%s://%s%s/api/atlas/v1.0/groups", SCHEME, HOST, (PORT != 80 && PORT != 443) ? (":" + PORT) : "");
+    // plain concatenation; String.format here would initialise Formatter and regex on every startup
+    protected static final String DEFAULT_API_URL =
+        SCHEME + "://" + HOST + ((PORT != 80 && PORT != 443) ? (":" + PORT) : "") + "/api/atlas/v1.0";
 
     private final String[] _args;
 
+    private boolean _cacheEnabled = true;
+    private Long _cacheMaxAgeSeconds;
+    private double _rateLimitPerSecond;
+
+    private Options _options;
+
+    private TrafficRecorder _recorder;
+    private TrafficReplay _replay;
+
+    private String _apiUrlOptionValue;
+    private String _baseUrl;
+
     protected String[] getArgs() {
         return _args;
     }
 
-    private final Logger _logger = LoggerFactory.getLogger(this.getClass());
+    private Logger _logger;
 
     public CliModule(final String[] pArgs) {
         this._args = pArgs;
     }
 
-    protected CloseableHttpClient createHttpClient(final Identity pCredentials) {
-        final HttpHost target = new HttpHost(HOST, PORT, SCHEME);
-        final CredentialsProvider credsProvider = new BasicCredentialsProvider();
-        credsProvider.setCredentials(
-            new AuthScope(target.getHostName(), target.getPort()),
-            new UsernamePasswordCredentials(pCredentials.getUsername(), pCredentials.getApiKey()));
-        final CloseableHttpClient httpclient = HttpClients.custom()
-            .setDefaultCredentialsProvider(credsProvider)
-            .build();
-
-        // Create AuthCache instance
-        final AuthCache authCache = new BasicAuthCache();
-        // Generate DIGEST scheme object, initialize it and add it to the local
-        // auth cache
-        final DigestScheme digestAuth = new DigestScheme();
-        authCache.put(target, digestAuth);
-
-        // Add AuthCache to the execution context
-        final HttpClientContext localContext = HttpClientContext.create();
-        localContext.setAuthCache(authCache);
-
-        return httpclient;
-    }
-
     private boolean hasIdentity(final CommandLine pCommandLine) {
         return pCommandLine.hasOption("u") && pCommandLine.hasOption("g");
     }
 
     protected Identity getIdentity(final CommandLine pCommandLine) throws IOException {
         if (hasConfigFile() && !hasIdentity(pCommandLine)) {
-            final File configFile = getConfigFile();
-            final Properties properties = new Properties();
+            final AtlasConfig config = AtlasConfig.getInstance();
 
-            try (FileInputStream fis = new FileInputStream(configFile)) {
-                properties.load(fis);
-            }
-
-            final String username = properties.getProperty("atlas.username");
-            final String apiKey = properties.getProperty("atlas.apiKey");
-            final String groupId = properties.getProperty("atlas.groupId");
+            final String username = config.getProperty("atlas.username");
+            final String apiKey = config.getProperty("atlas.apiKey");
+            final String groupId = config.getProperty("atlas.groupId");
 
             if (username == null || apiKey == null || groupId == null) {
                 throw new IllegalStateException("Invalid config file.  Run atlas config to rebuild.");
@@ -100,22 +76,97 @@ public abstract class CliModule {
         return Identity.fromCommandLine(pCommandLine);
     }
 
+    /**
+     * Resolves every group the command should cover: the groups of the profiles named with {@code --profile}, or
+     * each repeated {@code -g}, or otherwise the single identity of {@link #getIdentity}.
+     */
+    protected List<Identity> getIdentities(final CommandLine pCommandLine) throws IOException {
+        final Set<Identity> identities = new LinkedHashSet<>();
+
+        final String[] profiles = pCommandLine.getOptionValues("profile");
+        if (profiles != null) {
+            for (final String profile : profiles) {
+                identities.addAll(getProfileIdentities(profile));
+            }
+            return new ArrayList<>(identities);
+        }
+
+        final String[] groupIds = pCommandLine.getOptionValues("g");
+        if (groupIds == null || groupIds.length < 2) {
+            return Collections.singletonList(getIdentity(pCommandLine));
+        }
+
+        final Identity credentials = pCommandLine.hasOption("u")
+            ? Identity.fromCommandLine(pCommandLine)
+            : getIdentity(pCommandLine);
+        for (final String groupId : groupIds) {
+            identities.add(new Identity(credentials.getUsername(), credentials.getApiKey(), groupId));
+        }
+        return new ArrayList<>(identities);
+    }
+
+    /**
+     * A profile lists its groups as {@code atlas.profile.<name>.groupIds=<id>,<id>,...} and may override
+     * {@code atlas.username} and {@code atlas.apiKey} with its own {@code username} and {@code apiKey}.
+     */
+    private List<Identity> getProfileIdentities(final String pProfile) throws IOException {
+        if (!hasConfigFile()) {
+            throw new IllegalStateException("No config file found.  Run atlas config to create one.");
+        }
+
+        final AtlasConfig config = AtlasConfig.getInstance();
+        final String prefix = "atlas.profile." + pProfile + ".";
+        final String groupIds = config.getProperty(prefix + "groupIds");
+        if (groupIds == null) {
+            throw new IllegalArgumentException(String.format("Unknown profile: %s", pProfile));
+        }
+
+        final String username = config.getProperty(prefix + "username") != null
+            ? config.getProperty(prefix + "username")
+            : config.getProperty("atlas.username");
+        final String apiKey = config.getProperty(prefix + "apiKey") != null
+            ? config.getProperty(prefix + "apiKey")
+            : config.getProperty("atlas.apiKey");
+        if (username == null || apiKey == null) {
+            throw new IllegalStateException(String.format("No credentials configured for profile %s.", pProfile));
+        }
+
+        final List<Identity> identities = new ArrayList<>();
+        for (final String groupId : groupIds.split(",")) {
+            if (!groupId.trim().isEmpty()) {
+                identities.add(new Identity(username, apiKey, groupId.trim()));
+            }
+        }
+        return identities;
+    }
+
     private boolean hasConfigFile() {
-        return getConfigFile().exists();
+        return AtlasConfig.getInstance().exists();
     }
 
     protected File getConfigFile() {
-        return new File(System.getProperty("user.home"), ".atlas");
+        return AtlasConfig.getInstance().getFile();
+    }
+
+    /**
+     * @return this module's options, built on first use
+     */
+    protected Options getOptions() {
+        if (_options == null) {
+            _options = buildOptions();
+        }
+        return _options;
     }
 
     protected Options buildOptions() {
+        final boolean hasConfigFile = hasConfigFile();
         final Options options = new Options();
 
         options.addOption(Option.builder("h")
             .argName("Help")
             .longOpt("help")
             .hasArg(true)
-            .optionalArg(!hasConfigFile())
+            .optionalArg(!hasConfigFile)
             .desc("Help!")
             .build());
 
@@ -123,24 +174,81 @@ public abstract class CliModule {
             .argName("User Identity")
             .longOpt("user-credentials")
             .hasArg(true)
-            .optionalArg(!hasConfigFile())
+            .optionalArg(!hasConfigFile)
             .desc("username:apiKey")
-            .required(!hasConfigFile())
+            .required(!hasConfigFile)
             .build());
 
         options.addOption(Option.builder("g")
             .argName("Group ID")
             .longOpt("group")
             .hasArg(true)
-            .optionalArg(!hasConfigFile())
+            .optionalArg(!hasConfigFile)
             .desc("Group ID")
-            .required(!hasConfigFile())
+            .required(!hasConfigFile)
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("URL")
+            .longOpt("base-url")
+            .hasArg(true)
+            .desc("Root of the Atlas API.  Defaults to " + DEFAULT_API_URL
+                + "; e.g. http://localhost:8080/api/atlas/v1.0 for a local simulator.")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt("no-cache")
+            .desc("Bypass the local response cache.")
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("Seconds")
+            .longOpt("max-age")
+            .hasArg(true)
+            .desc("Maximum age in seconds of cached responses that may be reused.")
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("Requests/s")
+            .longOpt("rate-limit")
+            .hasArg(true)
+            .desc("Maximum requests per second per API key and group.  Throttling is also detected and adapted to "
+                + "without it.")
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("File")
+            .longOpt("record")
+            .hasArg(true)
+            .desc("Record every API request and response to a compressed file that --replay can serve.")
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("File")
+            .longOpt("replay")
+            .hasArg(true)
+            .desc("Answer API requests from a --record file instead of the API.")
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("recorded|zero")
+            .longOpt("replay-latency")
+            .hasArg(true)
+            .desc("Whether --replay waits as long as the recorded responses took.  Defaults to recorded.")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt("stats")
+            .desc("Print request counts, bytes and p50/p95/p99 latencies per API endpoint to stderr.")
             .build());
 
         return options;
     }
 
     protected Logger getLogger() {
+        if (_logger == null) {
+            _logger = LoggerFactory.getLogger(this.getClass());
+        }
         return _logger;
     }
 
@@ -149,12 +257,145 @@ public abstract class CliModule {
         if (commandLine.hasOption("h")) {
             printHelp();
         }
-        _execute(commandLine);
+        configureCache(commandLine);
+        configureRateLimit(commandLine);
+        _apiUrlOptionValue = commandLine.getOptionValue("base-url");
+
+        configureTraffic(commandLine);
+        try {
+            executeWithStats(commandLine);
+        } finally {
+            if (_recorder != null) {
+                _recorder.close();
+            }
+            if (_replay != null) {
+                _replay.close();
+            }
+        }
+    }
+
+    private void executeWithStats(final CommandLine pCommandLine)
+        throws IOException, ParseException, URISyntaxException
+    {
+        if (!pCommandLine.hasOption("stats")) {
+            _execute(pCommandLine);
+            return;
+        }
+
+        // the client is shared with other commands in daemon mode, so only report what this one added
+        final RequestScheduler scheduler = RequestScheduler.getInstance();
+        final RequestMetrics metricsBefore = AtlasHttpClient.getInstance().getMetrics().snapshot();
+        final long throttledBefore = scheduler.getThrottledCount();
+        final long retriesBefore = scheduler.getRetryCount();
+        final long coalescedBefore = RequestCoalescer.getInstance().getCoalescedCount();
+        try {
+            _execute(pCommandLine);
+        } finally {
+            System.err.print(AtlasHttpClient.getInstance().getMetrics().since(metricsBefore).toSummary());
+            System.err.println(String.format(
+                "Throttled: %d, retried: %d, coalesced: %d",
+                scheduler.getThrottledCount() - throttledBefore,
+                scheduler.getRetryCount() - retriesBefore,
+                RequestCoalescer.getInstance().getCoalescedCount() - coalescedBefore));
+        }
+    }
+
+    /**
+     * @return the groups resource of the API: {@code --base-url}, else {@code atlas.baseUrl} from the config
+     * file, else the default API root, followed by {@code /groups}
+     */
+    protected String getBaseUrl() throws IOException {
+        if (_baseUrl == null) {
+            String apiUrl = _apiUrlOptionValue;
+            if (apiUrl == null && hasConfigFile()) {
+                apiUrl = AtlasConfig.getInstance().getProperty("atlas.baseUrl");
+            }
+            if (apiUrl == null) {
+                apiUrl = DEFAULT_API_URL;
+            }
+
+            while (apiUrl.endsWith("/")) {
+                apiUrl = apiUrl.substring(0, apiUrl.length() - 1);
+            }
+            if (!apiUrl.startsWith("http://") && !apiUrl.startsWith("https://")) {
+                throw new IllegalArgumentException(String.format("Invalid base URL specified: %s", apiUrl));
+            }
+            _baseUrl = apiUrl + "/groups";
+        }
+        return _baseUrl;
+    }
+
+    private void configureCache(final CommandLine pCommandLine) {
+        _cacheEnabled = !pCommandLine.hasOption("no-cache");
+
+        final String maxAgeOptionValue = pCommandLine.getOptionValue("max-age");
+        if (maxAgeOptionValue != null) {
+            try {
+                _cacheMaxAgeSeconds = Long.parseLong(maxAgeOptionValue);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format(
+                    "Invalid max age specified: %s",
+                    maxAgeOptionValue));
+            }
+        }
+    }
+
+    /**
+     * Opens the {@code --record} or {@code --replay} file.  Dispatchers leave this to the module they forward to.
+     */
+    private void configureTraffic(final CommandLine pCommandLine) throws IOException {
+        if (isDispatcher()) {
+            return;
+        }
+
+        final String record = pCommandLine.getOptionValue("record");
+        final String replay = pCommandLine.getOptionValue("replay");
+        if (record != null && replay != null) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid replay specified: %s, cannot replay while recording",
+                replay));
+        }
+
+        if (record != null) {
+            _recorder = TrafficRecorder.open(WorkingDirectory.resolve(record));
+        } else if (replay != null) {
+            _replay = TrafficReplay.open(
+                WorkingDirectory.resolve(replay),
+                TrafficReplay.getLatency(pCommandLine.getOptionValue("replay-latency", "recorded")));
+        }
+    }
+
+    /**
+     * Applies {@code --rate-limit}, else {@code atlas.rateLimit} from the config file; without either requests
+     * are only paced by the throttling the API reports.
+     */
+    private void configureRateLimit(final CommandLine pCommandLine) throws IOException {
+        if (isDispatcher()) {
+            return;
+        }
+
+        String rateLimit = pCommandLine.getOptionValue("rate-limit");
+        if (rateLimit == null && hasConfigFile()) {
+            rateLimit = AtlasConfig.getInstance().getProperty("atlas.rateLimit");
+        }
+        if (rateLimit == null) {
+            return;
+        }
+
+        try {
+            final double requestsPerSecond = Double.parseDouble(rateLimit);
+            if (requestsPerSecond <= 0) {
+                throw new NumberFormatException();
+            }
+            _rateLimitPerSecond = requestsPerSecond;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid rate limit specified: %s", rateLimit));
+        }
     }
 
     private void printHelp() {
         HelpFormatter formatter = new HelpFormatter();
-        formatter.printHelp("atlas", buildOptions());
+        formatter.printHelp("atlas", getOptions());
     }
 
     protected abstract void _execute(final CommandLine pCommandLine)
@@ -163,54 +404,217 @@ public abstract class CliModule {
     protected JSONObject getResults(final Identity pCredentials, final URI pURI)
         throws IOException
     {
-        final HttpGet httpGet = new HttpGet(pURI);
-        final CloseableHttpClient httpClient = createHttpClient(pCredentials);
-        try {
-            final CloseableHttpResponse response = httpClient.execute(httpGet);
+        return getResults(pCredentials, pURI, ResponseParser.JSON);
+    }
 
-            try {
-                return new JSONObject(EntityUtils.toString(response.getEntity()));
-            } finally {
-                response.close();
-            }
-        } finally {
-            httpClient.close();
+    /**
+     * Fetches through the response cache where the resource is cacheable, paced and retried by the
+     * {@link RequestScheduler}.  Concurrent calls with the same identity, URI and an equal parser share one request
+     * through the {@link RequestCoalescer}, so the result must not be modified.
+     */
+    protected <T> T getResults(final Identity pCredentials, final URI pURI, final ResponseParser<T> pParser)
+        throws IOException
+    {
+        return getResults(pCredentials, pURI, pParser, _cacheEnabled);
+    }
+
+    private <T> T getResults(
+        final Identity pCredentials,
+        final URI pURI,
+        final ResponseParser<T> pParser,
+        final boolean pCacheEnabled) throws IOException
+    {
+        // a replay neither paces nor caches, so only the parsing and what follows it is measured
+        if (_replay != null) {
+            return _replay.getResults(pURI, pParser);
+        }
+
+        final ResponseCache cache = ResponseCache.getInstance();
+        if (pCacheEnabled && cache.isCacheable(pURI)) {
+            // callers that allow an older cached response must not answer one that asked for a fresher one
+            return RequestCoalescer.getInstance().execute(
+                Arrays.asList(pCredentials, pURI, pParser, _cacheMaxAgeSeconds),
+                () -> RequestScheduler.getInstance().execute(
+                    pCredentials,
+                    true,
+                    _rateLimitPerSecond,
+                    () -> exchange(pURI, pParser, parser ->
+                        cache.getResults(pCredentials, pURI, _cacheMaxAgeSeconds, parser))));
         }
+
+        return RequestCoalescer.getInstance().execute(
+            Arrays.asList(pCredentials, pURI, pParser),
+            () -> RequestScheduler.getInstance().execute(
+                pCredentials,
+                true,
+                _rateLimitPerSecond,
+                () -> exchange(pURI, pParser, parser ->
+                    AtlasHttpClient.getInstance().getResults(pCredentials, pURI, parser))));
     }
 
-    protected JSONObject postResults(final Identity pCredentials, final URI pURI, final JSONObject pRequestBody)
-        throws IOException
+    /**
+     * Runs one attempt of a GET, recording it with {@code --record}.
+     */
+    private <T> T exchange(
+        final URI pURI,
+        final ResponseParser<T> pParser,
+        final TrafficRecorder.Exchange<T> pExchange) throws IOException
     {
-        final HttpPost httpPost = new HttpPost(pURI);
+        return _recorder != null ? _recorder.get(pURI, pParser, pExchange) : pExchange.execute(pParser);
+    }
 
-        httpPost.setEntity(new StringEntity(pRequestBody.toString()));
-        final CloseableHttpClient httpClient = createHttpClient(pCredentials);
-        try {
-            final CloseableHttpResponse response = httpClient.execute(httpPost);
+    /**
+     * @return a fetcher that routes requests made by helper classes through {@link #getResults}
+     */
+    protected ResultsFetcher getResultsFetcher() {
+        return new ResultsFetcher() {
+            @Override
+            public <T> T getResults(final Identity pCredentials, final URI pURI, final ResponseParser<T> pParser)
+                throws IOException
+            {
+                return CliModule.this.getResults(pCredentials, pURI, pParser);
+            }
+        };
+    }
 
-            try {
-                return new JSONObject(EntityUtils.toString(response.getEntity()));
-            } finally {
-                response.close();
+    /**
+     * @return a fetcher like {@link #getResultsFetcher} that always asks the API, for state that is being watched
+     */
+    protected ResultsFetcher getUncachedResultsFetcher() {
+        return new ResultsFetcher() {
+            @Override
+            public <T> T getResults(final Identity pCredentials, final URI pURI, final ResponseParser<T> pParser)
+                throws IOException
+            {
+                return CliModule.this.getResults(pCredentials, pURI, pParser, false);
             }
-        } finally {
-            httpClient.close();
+        };
+    }
+
+    protected JSONObject postResults(final Identity pCredentials, final URI pURI, final JSONObject pRequestBody)
+        throws IOException
+    {
+        if (_replay != null) {
+            return _replay.postResults(pURI);
         }
+
+        final RequestScheduler.Request<JSONObject> request =
+            () -> AtlasHttpClient.getInstance().postResults(pCredentials, pURI, pRequestBody);
+        return RequestScheduler.getInstance().execute(
+            pCredentials,
+            false,
+            _rateLimitPerSecond,
+            _recorder != null ? () -> _recorder.post(pURI, request) : request);
     }
 
     protected CommandLine getCommandLine() throws ParseException {
         final CommandLineParser parser = new DefaultParser();
-        return parser.parse(buildOptions(), _args);
+        if (isDispatcher()) {
+            return parser.parse(new Options(), _args, true);
+        }
+        return parser.parse(getOptions(), _args);
+    }
+
+    /**
+     * Dispatching modules only look at the sub-command; every option is parsed by the module it is forwarded to.
+     */
+    protected boolean isDispatcher() {
+        return false;
+    }
+
+    /**
+     * Adds {@code --output} for commands that print API results with {@link #outputGetResults} or
+     * {@link #outputPagedResults}.
+     */
+    protected static void addOutputOption(final Options pOptions) {
+        pOptions.addOption(Option.builder()
+            .argName("json|ndjson|csv")
+            .longOpt("output")
+            .hasArg(true)
+            .desc("Output format.  The csv columns are those of the first result; fields that only later "
+                + "results have are left out, with a warning.  Defaults to json.")
+            .build());
+    }
+
+    protected static ResultsWriter.Format getOutputFormat(final CommandLine pCommandLine) {
+        return ResultsWriter.getFormat(pCommandLine.getOptionValue("output", "json"));
+    }
+
+    /**
+     * @return the value of an option that must be a positive whole number, or {@code pDefault} when it is absent
+     */
+    protected static long getPositiveLong(
+        final CommandLine pCommandLine,
+        final String pOption,
+        final long pDefault,
+        final String pDescription)
+    {
+        final String optionValue = pCommandLine.getOptionValue(pOption);
+        if (optionValue == null) {
+            return pDefault;
+        }
+
+        try {
+            final long value = Long.parseLong(optionValue);
+            if (value < 1) {
+                throw new NumberFormatException();
+            }
+            return value;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid %s specified: %s", pDescription, optionValue));
+        }
     }
 
     protected void outputGetResults(final Identity pIdentity, final URI pURI) throws IOException {
-        System.out.println(getResults(pIdentity, pURI).toString(JSON_INDENT));
+        outputGetResults(pIdentity, pURI, ResultsWriter.Format.JSON);
+    }
+
+    protected void outputGetResults(final Identity pIdentity, final URI pURI, final ResultsWriter.Format pFormat)
+        throws IOException
+    {
+        ResultsWriter.open(pFormat, newOutputWriter()).writeObject(getResults(pIdentity, pURI));
+    }
+
+    protected PagedResults getPagedResults(final Identity pIdentity, final URI pURI)
+        throws IOException, URISyntaxException
+    {
+        return new PagedResults(getResultsFetcher(), pIdentity, pURI, PagedResults.DEFAULT_ITEMS_PER_PAGE);
+    }
+
+    protected void outputPagedResults(final PagedResults pResults) throws IOException {
+        outputPagedResults(pResults, ResultsWriter.Format.JSON);
+    }
+
+    /**
+     * Writes every result of a paginated listing as it is handed out, flushing at the end of each page so output
+     * starts before the remaining pages have been fetched.  In json format the output has the shape of a single
+     * page response.
+     */
+    protected void outputPagedResults(final PagedResults pResults, final ResultsWriter.Format pFormat)
+        throws IOException
+    {
+        final ResultsWriter writer = ResultsWriter.open(pFormat, newOutputWriter());
+        while (pResults.hasNext()) {
+            writer.writeResult(pResults.next());
+            if (pResults.isEndOfPage()) {
+                writer.flush();
+            }
+        }
+        writer.endResults(pResults.getTotalCount());
     }
 
     protected void outputPostResults(final Identity pIdentity, final URI pURI, final JSONObject pRequestBody)
         throws IOException
     {
-        System.out.println(postResults(pIdentity, pURI, pRequestBody).toString(JSON_INDENT));
+        ResultsWriter.open(ResultsWriter.Format.JSON, newOutputWriter())
+            .writeObject(postResults(pIdentity, pURI, pRequestBody));
+    }
+
+    /**
+     * @return a buffered writer over {@code System.out}, which it does not close
+     */
+    private static Writer newOutputWriter() {
+        return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), 1 << 16);
     }
 
     protected void validate(final List<String> pValidArgs) {
@@ -1,5 +1,6 @@
 package com.mongodb.atlas.cli;
 
+import com.mongodb.atlas.cli.clusters.CreateModule;
 import com.mongodb.atlas.cli.clusters.ListModule;
 import com.mongodb.atlas.cli.clusters.StatusModule;
 import org.apache.commons.cli.CommandLine;
@@ -8,6 +9,7 @@ import org.apache.commons.cli.ParseException;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.util.Arrays;
+import java.util.List;
 
 
 public class ClustersModule extends CliModule {
@@ -16,20 +18,32 @@ public class ClustersModule extends CliModule {
         super(pArgs);
     }
 
+    @Override
+    protected boolean isDispatcher() {
+        return true;
+    }
+
+    private static final List<String> COMMANDS = Arrays.asList("list", "status", "create");
+
+    /**
+     * Dispatches like {@link AtlasModule#_execute} so that only the selected module is loaded.
+     */
     @Override
     public void _execute(final CommandLine pCommandLine) throws IOException, ParseException, URISyntaxException {
-        validate(Arrays.asList("list", "status"));
+        validate(COMMANDS);
 
         final String firstArg = getArgs()[0];
-
-        final CliModule cliModule;
-        final String[] aubArgs = Arrays.copyOfRange(getArgs(), 1, getArgs().length);
-        if (firstArg.equals("status")) {
-            cliModule = new StatusModule(aubArgs);
-        } else {
-            cliModule = new ListModule(aubArgs);
+        final String[] subArgs = Arrays.copyOfRange(getArgs(), 1, getArgs().length);
+        switch (firstArg) {
+            case "list":
+                new ListModule(subArgs).execute();
+                break;
+            case "status":
+                new StatusModule(subArgs).execute();
+                break;
+            case "create":
+                new CreateModule(subArgs).execute();
+                break;
         }
-
-        cliModule.execute();
     }
 }
@@ -2,6 +2,8 @@ package com.mongodb.atlas.cli;
 
 import org.apache.commons.cli.CommandLine;
 
+import java.util.Objects;
+
 
 public class Identity {
     private final String _username;
@@ -26,6 +28,25 @@ public class Identity {
         return _groupId;
     }
 
+    @Override
+    public boolean equals(final Object pOther) {
+        if (this == pOther) {
+            return true;
+        }
+        if (!(pOther instanceof Identity)) {
+            return false;
+        }
+        final Identity other = (Identity) pOther;
+        return Objects.equals(_username, other._username)
+            && Objects.equals(_apiKey, other._apiKey)
+            && Objects.equals(_groupId, other._groupId);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(_username, _apiKey, _groupId);
+    }
+
     public static Identity fromCommandLine(final CommandLine pCommandLine) {
         final String[] userCredentials = pCommandLine.getOptionValue("u").split(":");
         final String username = userCredentials[0];
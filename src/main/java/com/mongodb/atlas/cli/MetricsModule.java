@@ -0,0 +1,45 @@
+package com.mongodb.atlas.cli;
+
+import com.mongodb.atlas.cli.metrics.ExportModule;
+import com.mongodb.atlas.cli.metrics.QueryModule;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.ParseException;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class MetricsModule extends CliModule {
+
+    public MetricsModule(final String[] pArgs) {
+        super(pArgs);
+    }
+
+    @Override
+    protected boolean isDispatcher() {
+        return true;
+    }
+
+    private static final List<String> COMMANDS = Arrays.asList("export", "query");
+
+    /**
+     * Dispatches like {@link AtlasModule#_execute} so that only the selected module is loaded.
+     */
+    @Override
+    public void _execute(final CommandLine pCommandLine) throws IOException, ParseException, URISyntaxException {
+        validate(COMMANDS);
+
+        final String firstArg = getArgs()[0];
+        final String[] subArgs = Arrays.copyOfRange(getArgs(), 1, getArgs().length);
+        switch (firstArg) {
+            case "export":
+                new ExportModule(subArgs).execute();
+                break;
+            case "query":
+                new QueryModule(subArgs).execute();
+                break;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.mongodb.atlas.cli;
+
+import com.mongodb.atlas.cli.util.ConcurrencyUtil;
+import org.apache.http.client.utils.URIBuilder;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+
+/**
+ * Iterates over the {@code results} of a paginated Atlas listing.  Only one page is held at a time, and the next
+ * page is requested in the background as soon as the current one arrives so that it is usually ready by the time
+ * the caller has processed the current page.  Failures fetching later pages surface as
+ * {@link UncheckedIOException}s from {@link #hasNext()}.
+ */
+public class PagedResults implements Iterator<JSONObject> {
+
+    public static final int DEFAULT_ITEMS_PER_PAGE = 100;
+
+    private static final ExecutorService PREFETCH_EXECUTOR = ConcurrencyUtil.newDaemonCachedPool("page-prefetch");
+
+    private final ResultsFetcher _fetcher;
+    private final Identity _identity;
+    private final URI _uri;
+    private final int _itemsPerPage;
+
+    private JSONArray _currentPage;
+    private int _index;
+    private int _pageNum;
+    private int _fetched;
+    private int _totalCount = -1;
+    private CompletableFuture<JSONObject> _nextPage;
+
+    public PagedResults(
+        final ResultsFetcher pFetcher,
+        final Identity pIdentity,
+        final URI pURI,
+        final int pItemsPerPage) throws IOException, URISyntaxException
+    {
+        _fetcher = pFetcher;
+        _identity = pIdentity;
+        _uri = pURI;
+        _itemsPerPage = pItemsPerPage;
+
+        // the first page is fetched up front so that request errors reach the caller directly
+        _pageNum = 1;
+        accept(_fetcher.getResults(_identity, toPageUri(_pageNum)));
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (_index >= _currentPage.length()) {
+            if (_nextPage == null) {
+                return false;
+            }
+
+            try {
+                accept(_nextPage.join());
+            } catch (CompletionException e) {
+                final Throwable cause = ConcurrencyUtil.unwrap(e);
+                throw cause instanceof IOException
+                    ? new UncheckedIOException((IOException) cause)
+                    : new UncheckedIOException(new IOException(cause.getMessage(), cause));
+            } catch (URISyntaxException e) {
+                throw new UncheckedIOException(new IOException(e.getMessage(), e));
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public JSONObject next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return _currentPage.getJSONObject(_index++);
+    }
+
+    /**
+     * @return true when every buffered result has been handed out, i.e. the next call may block on the network
+     */
+    public boolean isEndOfPage() {
+        return _index >= _currentPage.length();
+    }
+
+    /**
+     * @return the total number of results reported by the API, or -1 if it was not reported
+     */
+    public int getTotalCount() {
+        return _totalCount;
+    }
+
+    private void accept(final JSONObject pPage) throws URISyntaxException {
+        _currentPage = pPage.has("results") ? pPage.getJSONArray("results") : new JSONArray();
+        _index = 0;
+        _fetched += _currentPage.length();
+        if (pPage.has("totalCount")) {
+            _totalCount = pPage.getInt("totalCount");
+        }
+
+        final URI nextPageURI = getNextPageUri(pPage);
+        _nextPage = nextPageURI == null
+            ? null
+            : ConcurrencyUtil.supplyAsync(() -> _fetcher.getResults(_identity, nextPageURI), PREFETCH_EXECUTOR);
+    }
+
+    private URI getNextPageUri(final JSONObject pPage) throws URISyntaxException {
+        if (_currentPage.length() == 0) {
+            return null;
+        }
+
+        final JSONArray links = pPage.optJSONArray("links");
+        if (links != null) {
+            for (int i = 0; i < links.length(); i++) {
+                final JSONObject link = links.getJSONObject(i);
+                if ("next".equals(link.optString("rel")) && link.has("href")) {
+                    _pageNum++;
+                    return new URI(link.getString("href"));
+                }
+            }
+        }
+
+        // no next link; fall back to the page count implied by totalCount
+        if (_totalCount >= 0 && _fetched < _totalCount) {
+            _pageNum++;
+            return toPageUri(_pageNum);
+        }
+        return null;
+    }
+
+    private URI toPageUri(final int pPageNum) throws URISyntaxException {
+        return new URIBuilder(_uri)
+            .setParameter("pageNum", Integer.toString(pPageNum))
+            .setParameter("itemsPerPage", Integer.toString(_itemsPerPage))
+            .build();
+    }
+}
@@ -0,0 +1,23 @@
+package com.mongodb.atlas.cli;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Turns the body of an Atlas API response into a result.  Parsers read straight off the response stream, which
+ * lets callers that only need part of a response avoid building the full document.
+ */
+@FunctionalInterface
+public interface ResponseParser<T> {
+
+    ResponseParser<JSONObject> JSON =
+        pContent -> new JSONObject(new JSONTokener(new InputStreamReader(pContent, StandardCharsets.UTF_8)));
+
+    T parse(final InputStream pContent) throws IOException;
+}
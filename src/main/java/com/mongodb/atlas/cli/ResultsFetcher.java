@@ -0,0 +1,21 @@
+package com.mongodb.atlas.cli;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+
+
+/**
+ * Issues a GET against the Atlas API and parses the response.  Lets helpers outside the module hierarchy share
+ * the request path of the {@link CliModule} that created them.
+ */
+public interface ResultsFetcher {
+
+    <T> T getResults(final Identity pCredentials, final URI pURI, final ResponseParser<T> pParser)
+        throws IOException;
+
+    default JSONObject getResults(final Identity pCredentials, final URI pURI) throws IOException {
+        return getResults(pCredentials, pURI, ResponseParser.JSON);
+    }
+}
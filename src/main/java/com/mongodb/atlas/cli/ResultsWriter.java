@@ -0,0 +1,207 @@
+package com.mongodb.atlas.cli;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Writes API results to a buffered stream one element at a time, so output starts with the first page of a listing
+ * and only the element being written is formatted in memory.
+ */
+public abstract class ResultsWriter {
+
+    public enum Format {
+        JSON,
+        NDJSON,
+        CSV
+    }
+
+    private static final int JSON_INDENT = 3;
+
+    protected final Writer _writer;
+
+    protected ResultsWriter(final Writer pWriter) {
+        _writer = pWriter;
+    }
+
+    public static ResultsWriter open(final Format pFormat, final Writer pWriter) {
+        switch (pFormat) {
+            case NDJSON:
+                return new NdjsonWriter(pWriter);
+            case CSV:
+                return new CsvWriter(pWriter);
+            default:
+                return new JsonWriter(pWriter);
+        }
+    }
+
+    public static Format getFormat(final String pFormat) {
+        try {
+            return Format.valueOf(pFormat.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Invalid output specified: %s", pFormat));
+        }
+    }
+
+    /**
+     * Writes a response that is a single resource rather than a listing.
+     */
+    public void writeObject(final JSONObject pObject) throws IOException {
+        writeResult(pObject);
+        flush();
+    }
+
+    /**
+     * Writes one element of a listing.
+     */
+    public abstract void writeResult(JSONObject pResult) throws IOException;
+
+    /**
+     * Ends a listing.
+     *
+     * @param pTotalCount the total reported by the API, or -1
+     */
+    public void endResults(final int pTotalCount) throws IOException {
+        flush();
+    }
+
+    public void flush() throws IOException {
+        _writer.flush();
+    }
+
+    private static String indent(final int pLevel) {
+        final StringBuilder indent = new StringBuilder();
+        for (int i = 0; i < pLevel * JSON_INDENT; i++) {
+            indent.append(' ');
+        }
+        return indent.toString();
+    }
+
+    /**
+     * The shape of a single page response, {@code {"results": [...], "totalCount": n}}, indented.
+     */
+    private static class JsonWriter extends ResultsWriter {
+        private final String _itemIndent = indent(2);
+        private boolean _started;
+
+        private JsonWriter(final Writer pWriter) {
+            super(pWriter);
+        }
+
+        @Override
+        public void writeObject(final JSONObject pObject) throws IOException {
+            pObject.write(_writer, JSON_INDENT, 0);
+            _writer.write('\n');
+            flush();
+        }
+
+        @Override
+        public void writeResult(final JSONObject pResult) throws IOException {
+            _writer.write(_started ? ",\n" : "{\n" + indent(1) + "\"results\": [\n");
+            _started = true;
+            _writer.write(_itemIndent);
+            pResult.write(_writer, JSON_INDENT, _itemIndent.length());
+        }
+
+        @Override
+        public void endResults(final int pTotalCount) throws IOException {
+            _writer.write(_started ? "\n" + indent(1) + "]" : "{\n" + indent(1) + "\"results\": []");
+            if (pTotalCount >= 0) {
+                _writer.write(",\n" + indent(1) + "\"totalCount\": " + pTotalCount);
+            }
+            _writer.write("\n}\n");
+            flush();
+        }
+    }
+
+    /**
+     * One compact JSON document per line, for {@code jq} and other line oriented tools.
+     */
+    private static class NdjsonWriter extends ResultsWriter {
+        private NdjsonWriter(final Writer pWriter) {
+            super(pWriter);
+        }
+
+        @Override
+        public void writeResult(final JSONObject pResult) throws IOException {
+            pResult.write(_writer);
+            _writer.write('\n');
+        }
+    }
+
+    /**
+     * One row per result.  Nested objects are flattened into dotted column names and arrays are written as JSON.
+     * The columns are those of the first result, in name order, since the header is written before the rest have
+     * been read; fields that only later results have are left out, with a warning on stderr the first time.
+     */
+    private static class CsvWriter extends ResultsWriter {
+        private List<String> _columns;
+        private boolean _warned;
+
+        private CsvWriter(final Writer pWriter) {
+            super(pWriter);
+        }
+
+        @Override
+        public void writeResult(final JSONObject pResult) throws IOException {
+            final Map<String, String> cells = new TreeMap<>();
+            flatten("", pResult, cells);
+
+            if (_columns == null) {
+                _columns = new ArrayList<>(cells.keySet());
+                writeRow(_columns);
+            } else if (!_warned && !_columns.containsAll(cells.keySet())) {
+                _warned = true;
+                final List<String> missing = new ArrayList<>(cells.keySet());
+                missing.removeAll(_columns);
+                System.err.println(String.format(
+                    "Warning: fields not in the first result are left out of the CSV output: %s",
+                    String.join(",", missing)));
+            }
+
+            final List<String> row = new ArrayList<>(_columns.size());
+            for (final String column : _columns) {
+                final String cell = cells.get(column);
+                row.add(cell != null ? cell : "");
+            }
+            writeRow(row);
+        }
+
+        private void writeRow(final List<String> pCells) throws IOException {
+            for (int i = 0; i < pCells.size(); i++) {
+                if (i > 0) {
+                    _writer.write(',');
+                }
+                _writer.write(escape(pCells.get(i)));
+            }
+            _writer.write('\n');
+        }
+
+        private static void flatten(final String pPrefix, final JSONObject pObject, final Map<String, String> pCells) {
+            for (final String key : pObject.keySet()) {
+                final Object value = pObject.get(key);
+                if (value instanceof JSONObject) {
+                    flatten(pPrefix + key + ".", (JSONObject) value, pCells);
+                } else {
+                    pCells.put(pPrefix + key, value == JSONObject.NULL ? "" : value.toString());
+                }
+            }
+        }
+
+        private static String escape(final String pValue) {
+            if (pValue.indexOf(',') < 0 && pValue.indexOf('"') < 0 && pValue.indexOf('\n') < 0
+                && pValue.indexOf('\r') < 0)
+            {
+                return pValue;
+            }
+            return "\"" + pValue.replace("\"", "\"\"") + "\"";
+        }
+    }
+}
@@ -0,0 +1,294 @@
+package com.mongodb.atlas.cli.batch;
+
+import com.mongodb.atlas.cli.AtlasCliApp;
+import com.mongodb.atlas.cli.CliModule;
+import com.mongodb.atlas.cli.util.ConcurrencyUtil;
+import com.mongodb.atlas.cli.util.ThreadLocalOutput;
+import com.mongodb.atlas.cli.util.WorkingDirectory;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+
+/**
+ * Runs many commands in one JVM, sharing its HTTP client, caches and scheduler.  Commands are read one per line
+ * from a file or stdin, with the same arguments as on the command line; blank lines and lines starting with
+ * {@code #} are skipped, and a leading {@code atlas} is optional.  Up to {@code --parallelism} commands run at
+ * once, and a line with just {@code wait} holds back the commands after it until every command before it has
+ * finished.  Each command's output is buffered and printed in input order with its line number as a prefix.
+ */
+public class BatchModule extends CliModule {
+
+    private static final String BARRIER = "wait";
+
+    private static final List<String> NESTED_COMMANDS = Arrays.asList("batch", "daemon");
+
+    public BatchModule(final String[] pArgs) {
+        super(pArgs);
+    }
+
+    @Override
+    protected Options buildOptions() {
+        // the commands carry their own identity, so the batch itself needs none
+        final Options options = new Options();
+
+        options.addOption(Option.builder("f")
+            .argName("File")
+            .longOpt("file")
+            .hasArg(true)
+            .desc("File of commands, one per line.  Defaults to stdin.")
+            .build());
+
+        options.addOption(Option.builder("pl")
+            .argName("Parallelism")
+            .longOpt("parallelism")
+            .hasArg(true)
+            .desc("Maximum number of commands running at once.  Defaults to 1.")
+            .build());
+
+        return options;
+    }
+
+    @Override
+    protected void _execute(final CommandLine pCommandLine) throws IOException, ParseException, URISyntaxException {
+        final String file = pCommandLine.getOptionValue("f");
+        final List<Command> commands;
+        try (BufferedReader reader = file == null || file.equals("-")
+            ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+            : Files.newBufferedReader(WorkingDirectory.resolve(file), StandardCharsets.UTF_8))
+        {
+            commands = read(reader);
+        }
+
+        final String parallelismOptionValue = pCommandLine.getOptionValue("pl", "1");
+        final int parallelism;
+        try {
+            parallelism = Integer.parseInt(parallelismOptionValue);
+            if (parallelism < 1) {
+                throw new NumberFormatException();
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid parallelism specified: %s",
+                parallelismOptionValue));
+        }
+
+        ThreadLocalOutput.install();
+        final ExecutorService executor = ConcurrencyUtil.newDaemonPool("batch", parallelism);
+        int count = 0;
+        int failed = 0;
+        try {
+            final List<CompletableFuture<Result>> running = new ArrayList<>();
+            for (final Command command : commands) {
+                if (command._args == null) {
+                    failed += print(running);
+                    running.clear();
+                    continue;
+                }
+                count++;
+                running.add(CompletableFuture.supplyAsync(() -> run(command), executor));
+            }
+            failed += print(running);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        if (failed > 0) {
+            throw new IOException(String.format("%d of %d commands failed", failed, count));
+        }
+    }
+
+    /**
+     * @return the commands of the input, with null arguments for a {@code wait}
+     * @throws IllegalArgumentException for a line that cannot be run in a batch, before any command has run
+     */
+    static List<Command> read(final BufferedReader pReader) throws IOException {
+        final List<Command> commands = new ArrayList<>();
+        String line;
+        int lineNumber = 0;
+        while ((line = pReader.readLine()) != null) {
+            lineNumber++;
+            final List<String> args = parseLine(line);
+            if (!args.isEmpty() && args.get(0).equals("atlas")) {
+                args.remove(0);
+            }
+            if (args.isEmpty()) {
+                continue;
+            }
+
+            if (args.size() == 1 && args.get(0).equals(BARRIER)) {
+                commands.add(new Command(lineNumber, null));
+            } else if (NESTED_COMMANDS.contains(args.get(0))) {
+                throw new IllegalArgumentException(String.format(
+                    "Invalid command specified on line %d: %s cannot run in a batch",
+                    lineNumber,
+                    args.get(0)));
+            } else {
+                commands.add(new Command(lineNumber, args.toArray(new String[0])));
+            }
+        }
+        return commands;
+    }
+
+    /**
+     * Splits a line into arguments at whitespace outside single or double quotes.  A backslash escapes the next
+     * character except inside single quotes, and an unquoted {@code #} starts a comment.
+     */
+    static List<String> parseLine(final String pLine) {
+        final List<String> args = new ArrayList<>();
+        final StringBuilder arg = new StringBuilder();
+        boolean inArg = false;
+        char quote = 0;
+
+        for (int i = 0; i < pLine.length(); i++) {
+            final char c = pLine.charAt(i);
+            if (quote == '\'') {
+                if (c == '\'') {
+                    quote = 0;
+                } else {
+                    arg.append(c);
+                }
+            } else if (c == '\\' && i + 1 < pLine.length()) {
+                arg.append(pLine.charAt(++i));
+                inArg = true;
+            } else if (quote == '"') {
+                if (c == '"') {
+                    quote = 0;
+                } else {
+                    arg.append(c);
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+                inArg = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inArg) {
+                    args.add(arg.toString());
+                    arg.setLength(0);
+                    inArg = false;
+                }
+            } else if (c == '#' && !inArg) {
+                break;
+            } else {
+                arg.append(c);
+                inArg = true;
+            }
+        }
+
+        if (quote != 0) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid command specified: unterminated quote in %s",
+                pLine));
+        }
+        if (inArg) {
+            args.add(arg.toString());
+        }
+        return args;
+    }
+
+    private static Result run(final Command pCommand) {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final ByteArrayOutputStream err = new ByteArrayOutputStream();
+        ThreadLocalOutput.redirect(out, err);
+        try {
+            return new Result(pCommand, AtlasCliApp.run(pCommand._args), out, err);
+        } finally {
+            ThreadLocalOutput.reset();
+        }
+    }
+
+    /**
+     * Prints the output of each command as soon as it and every command before it have finished.
+     *
+     * @return the number of commands that failed
+     */
+    private static int print(final List<CompletableFuture<Result>> pRunning) {
+        int failed = 0;
+        for (final CompletableFuture<Result> future : pRunning) {
+            final Result result = future.join();
+            final String prefix = "[" + result._command._lineNumber + "] ";
+            printPrefixed(System.out, prefix, result._out);
+            printPrefixed(System.err, prefix, result._err);
+            if (result._exitCode != 0) {
+                failed++;
+                System.err.println(prefix + "exited with " + result._exitCode);
+            }
+        }
+        System.out.flush();
+        return failed;
+    }
+
+    private static void printPrefixed(
+        final PrintStream pStream,
+        final String pPrefix,
+        final ByteArrayOutputStream pOut)
+    {
+        if (pOut.size() == 0) {
+            return;
+        }
+
+        final String output = new String(pOut.toByteArray(), StandardCharsets.UTF_8);
+        final StringBuilder prefixed = new StringBuilder(output.length() + pPrefix.length() * 16);
+        int start = 0;
+        while (start < output.length()) {
+            int end = output.indexOf('\n', start);
+            end = end < 0 ? output.length() : end + 1;
+            prefixed.append(pPrefix).append(output, start, end);
+            start = end;
+        }
+        if (prefixed.charAt(prefixed.length() - 1) != '\n') {
+            prefixed.append('\n');
+        }
+        pStream.print(prefixed);
+    }
+
+    static class Command {
+        private final int _lineNumber;
+        private final String[] _args;
+
+        private Command(final int pLineNumber, final String[] pArgs) {
+            _lineNumber = pLineNumber;
+            _args = pArgs;
+        }
+
+        int getLineNumber() {
+            return _lineNumber;
+        }
+
+        /**
+         * @return the arguments, or null for a {@code wait}
+         */
+        String[] getArgs() {
+            return _args;
+        }
+    }
+
+    private static class Result {
+        private final Command _command;
+        private final int _exitCode;
+        private final ByteArrayOutputStream _out;
+        private final ByteArrayOutputStream _err;
+
+        private Result(
+            final Command pCommand,
+            final int pExitCode,
+            final ByteArrayOutputStream pOut,
+            final ByteArrayOutputStream pErr)
+        {
+            _command = pCommand;
+            _exitCode = pExitCode;
+            _out = pOut;
+            _err = pErr;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.mongodb.atlas.cli.clusters;
+
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.PagedResults;
+import com.mongodb.atlas.cli.ResultsFetcher;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.*;
+
+
+/**
+ * Watches the {@code stateName} of a set of clusters in one group.  Each poll lists the group's clusters once,
+ * however many are watched, instead of requesting every cluster separately.
+ */
+public class ClusterStatePoller {
+
+    public static final String IDLE = "IDLE";
+
+    // reported for a watched cluster that is missing from the listing
+    public static final String MISSING = "MISSING";
+
+    // the largest page the API serves, so that a group's clusters normally take one request
+    private static final int ITEMS_PER_PAGE = 500;
+
+    private final ResultsFetcher _fetcher;
+    private final Identity _identity;
+    private final URI _clustersUri;
+    private final Map<String, String> _states = new LinkedHashMap<>();
+
+    public ClusterStatePoller(
+        final ResultsFetcher pFetcher,
+        final Identity pIdentity,
+        final String pBaseUrl,
+        final Collection<String> pClusterNames) throws URISyntaxException
+    {
+        _fetcher = pFetcher;
+        _identity = pIdentity;
+        _clustersUri = new URI(String.format("%s/%s/clusters", pBaseUrl, pIdentity.getGroupId()));
+        for (final String clusterName : pClusterNames) {
+            _states.put(clusterName, null);
+        }
+    }
+
+    /**
+     * Lists the group's clusters once.
+     *
+     * @return the watched clusters whose state changed since the previous poll, with their new state
+     */
+    public Map<String, String> poll() throws IOException, URISyntaxException {
+        final Map<String, String> listed = new HashMap<>();
+        try {
+            final PagedResults clusters = new PagedResults(_fetcher, _identity, _clustersUri, ITEMS_PER_PAGE);
+            while (clusters.hasNext()) {
+                final JSONObject cluster = clusters.next();
+                final String name = cluster.optString("name", null);
+                if (name != null && _states.containsKey(name)) {
+                    listed.put(name, cluster.optString("stateName", null));
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        final Map<String, String> changed = new LinkedHashMap<>();
+        for (final Map.Entry<String, String> entry : _states.entrySet()) {
+            final String state = listed.containsKey(entry.getKey()) ? listed.get(entry.getKey()) : MISSING;
+            if (!Objects.equals(state, entry.getValue())) {
+                entry.setValue(state);
+                changed.put(entry.getKey(), state);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return the state seen by the last poll, or null before the first one
+     */
+    public String getState(final String pClusterName) {
+        return _states.get(pClusterName);
+    }
+
+    public int getIdleCount() {
+        int idle = 0;
+        for (final String state : _states.values()) {
+            if (IDLE.equals(state)) {
+                idle++;
+            }
+        }
+        return idle;
+    }
+
+    /**
+     * @return true once no watched cluster is still changing, i.e. every one is idle, being deleted or gone
+     */
+    public boolean isSettled() {
+        for (final String state : _states.values()) {
+            if (!isSettled(state)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSettled(final String pState) {
+        return IDLE.equals(pState) || MISSING.equals(pState) || "DELETING".equals(pState)
+            || "DELETED".equals(pState);
+    }
+}
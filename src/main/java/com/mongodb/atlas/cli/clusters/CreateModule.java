@@ -2,16 +2,36 @@ package com.mongodb.atlas.cli.clusters;
 
 import com.mongodb.atlas.cli.CliModule;
 import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.util.ConcurrencyUtil;
+import com.mongodb.atlas.cli.util.WorkingDirectory;
 import org.apache.commons.cli.*;
+import org.json.JSONArray;
+import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
 import java.io.IOException;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 
 public class CreateModule extends CliModule {
 
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    private static final long DEFAULT_INTERVAL_SECONDS = 10;
+
+    // required for a single cluster, replaced by the spec file for several
+    private static final List<String> CLUSTER_OPTIONS =
+        Arrays.asList("cn", "p", "instanceSize", "region", "backup");
+
     public CreateModule(final String[] pArgs) {
         super(pArgs);
     }
@@ -27,7 +47,6 @@ public class CreateModule extends CliModule {
             .hasArg(true)
             .optionalArg(true)
             .desc("Name of a specific cluster to be queried.")
-            .required()
             .build());
 
         options.addOption(Option.builder("p")
@@ -36,7 +55,6 @@ public class CreateModule extends CliModule {
             .hasArg(true)
             .optionalArg(false)
             .desc("Name of a specific cluster to be queried.")
-            .required()
             .build());
 
         options.addOption(Option.builder("instanceSize")
@@ -45,7 +63,6 @@ public class CreateModule extends CliModule {
             .hasArg(true)
             .optionalArg(false)
             .desc("Desired instance size (M10, M20, etc.).")
-            .required()
             .build());
 
         options.addOption(Option.builder("region")
@@ -54,7 +71,6 @@ public class CreateModule extends CliModule {
             .hasArg(true)
             .optionalArg(false)
             .desc("Desired provider-specific region (US_EAST_1, US_WEST_1, etc.).")
-            .required()
             .build());
 
         options.addOption(Option.builder("backup")
@@ -63,7 +79,34 @@ public class CreateModule extends CliModule {
             .hasArg(true)
             .optionalArg(false)
             .desc("Enable backup on the cluster.")
-            .required()
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("Spec File")
+            .longOpt("from-file")
+            .hasArg(true)
+            .desc("JSON array of cluster request bodies to create, instead of the single cluster options.")
+            .build());
+
+        options.addOption(Option.builder("pl")
+            .argName("Parallelism")
+            .longOpt("parallelism")
+            .hasArg(true)
+            .optionalArg(false)
+            .desc("Maximum number of concurrent create requests.  Defaults to " + DEFAULT_PARALLELISM + ".")
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("Seconds")
+            .longOpt("interval")
+            .hasArg(true)
+            .desc("Seconds between state polls while waiting for created clusters.  Defaults to "
+                + DEFAULT_INTERVAL_SECONDS + ".")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt("no-wait")
+            .desc("Return once the clusters are requested instead of waiting until they are IDLE.")
             .build());
 
         return options;
@@ -73,6 +116,21 @@ public class CreateModule extends CliModule {
     protected void _execute(final CommandLine pCommandLine) throws IOException, ParseException, URISyntaxException {
         final Identity identity = getIdentity(pCommandLine);
 
+        if (pCommandLine.hasOption("from-file")) {
+            createFromFile(pCommandLine, identity);
+            return;
+        }
+
+        final List<String> missing = new ArrayList<>();
+        for (final String option : CLUSTER_OPTIONS) {
+            if (!pCommandLine.hasOption(option)) {
+                missing.add(option);
+            }
+        }
+        if (!missing.isEmpty()) {
+            throw new MissingOptionException(missing);
+        }
+
         final JSONObject clusterRequestBody = new JSONObject();
         clusterRequestBody.put("name", pCommandLine.getOptionValue("cn"));
         clusterRequestBody.put("backupEnabled", pCommandLine.getOptionValue("backup"));
@@ -85,9 +143,140 @@ public class CreateModule extends CliModule {
         clusterRequestBody.put("providerSettings", providerSettings);
 
         outputPostResults(identity, new URI(String.format(
-            "%s/%s/clusters%s",
-            BASE_URL,
+            "%s/%s/clusters",
+            getBaseUrl(),
             identity.getGroupId())),
             clusterRequestBody);
     }
+
+    /**
+     * Requests every cluster of the spec file concurrently, reporting each as its request completes, then waits
+     * for the created clusters with a single {@link ClusterStatePoller}.
+     */
+    private void createFromFile(final CommandLine pCommandLine, final Identity pIdentity)
+        throws IOException, URISyntaxException
+    {
+        final List<JSONObject> specs = readSpecs(pCommandLine.getOptionValue("from-file"));
+        final int parallelism = (int) getPositiveLong(pCommandLine, "pl", DEFAULT_PARALLELISM, "parallelism");
+        final long intervalMs =
+            getPositiveLong(pCommandLine, "interval", DEFAULT_INTERVAL_SECONDS, "interval") * 1000;
+        final URI clustersUri = new URI(String.format("%s/%s/clusters", getBaseUrl(), pIdentity.getGroupId()));
+
+        final ExecutorService executor =
+            ConcurrencyUtil.newDaemonPool("create", Math.min(parallelism, specs.size()));
+        final List<CompletableFuture<JSONObject>> futures = new ArrayList<>();
+        try {
+            for (final JSONObject spec : specs) {
+                final String name = spec.getString("name");
+                futures.add(ConcurrencyUtil
+                    .supplyAsync(() -> postResults(pIdentity, clustersUri, spec), executor)
+                    .handle((cluster, t) -> {
+                        if (t != null) {
+                            System.err.println(String.format("%s: %s", name, ConcurrencyUtil.unwrap(t).getMessage()));
+                            return null;
+                        }
+                        System.out.println(String.format("%s\t%s", name, cluster.optString("stateName", "CREATING")));
+                        return cluster;
+                    }));
+            }
+
+            final List<String> created = new ArrayList<>();
+            for (int i = 0; i < specs.size(); i++) {
+                if (futures.get(i).join() != null) {
+                    created.add(specs.get(i).getString("name"));
+                }
+            }
+
+            if (!pCommandLine.hasOption("no-wait") && !created.isEmpty()) {
+                awaitIdle(pIdentity, created, intervalMs);
+            }
+
+            if (created.size() < specs.size()) {
+                throw new IOException(String.format(
+                    "%d of %d clusters could not be created",
+                    specs.size() - created.size(),
+                    specs.size()));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Polls until no created cluster is still changing, printing each state change as it is seen.
+     */
+    private void awaitIdle(final Identity pIdentity, final List<String> pClusterNames, final long pIntervalMs)
+        throws IOException, URISyntaxException
+    {
+        final ClusterStatePoller poller =
+            new ClusterStatePoller(getUncachedResultsFetcher(), pIdentity, getBaseUrl(), pClusterNames);
+        final long start = System.nanoTime();
+
+        while (true) {
+            final Map<String, String> changed = poller.poll();
+            final String elapsed = formatElapsed(System.nanoTime() - start);
+            changed.forEach((name, state) -> System.out.println(String.format("%s\t%s\t%s", name, state, elapsed)));
+            System.out.flush();
+
+            if (poller.isSettled()) {
+                break;
+            }
+
+            try {
+                Thread.sleep(pIntervalMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for clusters");
+            }
+        }
+
+        System.out.println(String.format(
+            "%d of %d clusters IDLE after %s",
+            poller.getIdleCount(),
+            pClusterNames.size(),
+            formatElapsed(System.nanoTime() - start)));
+        if (poller.getIdleCount() < pClusterNames.size()) {
+            throw new IOException(String.format(
+                "%d of %d clusters did not become IDLE",
+                pClusterNames.size() - poller.getIdleCount(),
+                pClusterNames.size()));
+        }
+    }
+
+    /**
+     * @return the cluster request bodies of a spec file, which is a JSON array of objects with unique names
+     */
+    private static List<JSONObject> readSpecs(final String pFile) throws IOException {
+        final JSONArray array;
+        try (Reader reader = Files.newBufferedReader(WorkingDirectory.resolve(pFile), StandardCharsets.UTF_8)) {
+            array = new JSONArray(new JSONTokener(reader));
+        } catch (JSONException e) {
+            throw new IllegalArgumentException(String.format("Invalid spec file %s: %s", pFile, e.getMessage()));
+        }
+
+        final List<JSONObject> specs = new ArrayList<>();
+        final Set<String> names = new HashSet<>();
+        for (int i = 0; i < array.length(); i++) {
+            final JSONObject spec = array.optJSONObject(i);
+            if (spec == null || spec.optString("name", "").isEmpty()) {
+                throw new IllegalArgumentException(String.format("Cluster %d of %s has no name", i + 1, pFile));
+            }
+            if (!names.add(spec.getString("name"))) {
+                throw new IllegalArgumentException(String.format(
+                    "Cluster %s appears more than once in %s",
+                    spec.getString("name"),
+                    pFile));
+            }
+            specs.add(spec);
+        }
+        if (specs.isEmpty()) {
+            throw new IllegalArgumentException(String.format("No clusters in %s", pFile));
+        }
+        return specs;
+    }
+
+    private static String formatElapsed(final long pNanos) {
+        final long seconds = TimeUnit.NANOSECONDS.toSeconds(pNanos);
+        return seconds < 60 ? seconds + "s" : String.format("%dm%02ds", seconds / 60, seconds % 60);
+    }
 }
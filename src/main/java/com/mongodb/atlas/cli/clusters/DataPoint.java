@@ -0,0 +1,26 @@
+package com.mongodb.atlas.cli.clusters;
+
+import java.time.Instant;
+
+
+/**
+ * A single non-null measurement value and the time it was sampled.
+ */
+class DataPoint {
+
+    private final Instant _timestamp;
+    private final double _value;
+
+    DataPoint(final Instant pTimestamp, final double pValue) {
+        _timestamp = pTimestamp;
+        _value = pValue;
+    }
+
+    Instant getTimestamp() {
+        return _timestamp;
+    }
+
+    double getValue() {
+        return _value;
+    }
+}
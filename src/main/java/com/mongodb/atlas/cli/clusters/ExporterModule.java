@@ -0,0 +1,128 @@
+package com.mongodb.atlas.cli.clusters;
+
+import com.mongodb.atlas.cli.CliModule;
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.util.ConcurrencyUtil;
+import org.apache.commons.cli.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URISyntaxException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+
+
+/**
+ * Serves the status metrics of one or more groups to Prometheus from a single background poller, see
+ * {@link MetricsExporter}.
+ */
+public class ExporterModule extends CliModule {
+
+    private static final String DEFAULT_LISTEN = ":9216";
+
+    private static final long DEFAULT_INTERVAL_SECONDS = 60;
+
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    public ExporterModule(final String[] pArgs) {
+        super(pArgs);
+    }
+
+    @Override
+    protected Options buildOptions() {
+        final Options options = super.buildOptions();
+
+        options.addOption(Option.builder()
+            .argName("[Host]:Port")
+            .longOpt("listen")
+            .hasArg(true)
+            .desc("Address to serve /metrics on.  Defaults to " + DEFAULT_LISTEN + ", every interface.")
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("Seconds")
+            .longOpt("interval")
+            .hasArg(true)
+            .desc("Time between polls.  Defaults to " + DEFAULT_INTERVAL_SECONDS + ".")
+            .build());
+
+        options.addOption(Option.builder("pl")
+            .argName("Parallelism")
+            .longOpt("parallelism")
+            .hasArg(true)
+            .desc("Maximum number of concurrent API requests per group.  Defaults to " + DEFAULT_PARALLELISM + ".")
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("Profile")
+            .longOpt("profile")
+            .hasArg(true)
+            .desc("Export the groups of a profile from the config file.  May be repeated.")
+            .build());
+
+        return options;
+    }
+
+    @Override
+    protected void _execute(final CommandLine pCommandLine) throws IOException, ParseException, URISyntaxException {
+        final List<Identity> identities = getIdentities(pCommandLine);
+        final InetSocketAddress address = getAddress(pCommandLine.getOptionValue("listen", DEFAULT_LISTEN));
+        final long intervalSeconds = getPositiveLong(pCommandLine, "interval", DEFAULT_INTERVAL_SECONDS, "interval");
+        final int parallelism = (int) getPositiveLong(pCommandLine, "pl", DEFAULT_PARALLELISM, "parallelism");
+
+        // the same request pool layout as clusters status: shared, but capped per group
+        final ExecutorService executor =
+            ConcurrencyUtil.newDaemonPool("exporter", Math.min(parallelism * identities.size(), 32));
+        final ExecutorService pollers = ConcurrencyUtil.newDaemonPool("exporter-group", identities.size());
+        final MeasurementsClient client = new MeasurementsClient(getResultsFetcher(), getBaseUrl());
+        final StatusPlan plan = new StatusPlan(MetricsExporter.COLUMNS);
+        final Map<Identity, StatusRefreshEngine> engines = new LinkedHashMap<>();
+        for (final Identity identity : identities) {
+            engines.put(identity, new StatusRefreshEngine(
+                client,
+                ConcurrencyUtil.newBoundedExecutor(executor, parallelism),
+                plan));
+        }
+
+        final MetricsExporter exporter = new MetricsExporter(engines, pollers, intervalSeconds * 1000);
+        try {
+            exporter.start(address);
+            System.out.println(String.format(
+                "Atlas exporter listening on %s:%d/metrics",
+                address.isUnresolved() || address.getAddress().isAnyLocalAddress()
+                    ? "0.0.0.0"
+                    : address.getAddress().getHostAddress(),
+                exporter.getAddress().getPort()));
+            System.out.flush();
+
+            // runs until the process is stopped
+            new CountDownLatch(1).await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            exporter.close();
+            pollers.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @param pListen {@code host:port}, or {@code :port} for every interface
+     */
+    static InetSocketAddress getAddress(final String pListen) {
+        final int colon = pListen.lastIndexOf(':');
+        try {
+            final int port = Integer.parseInt(pListen.substring(colon + 1));
+            if (port < 0 || port > 65535) {
+                throw new NumberFormatException();
+            }
+            final String host = colon > 0 ? pListen.substring(0, colon) : "";
+            return host.isEmpty() ? new InetSocketAddress(port) : new InetSocketAddress(host, port);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid listen address specified: %s", pListen));
+        }
+    }
+}
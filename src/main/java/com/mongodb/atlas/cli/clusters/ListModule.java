@@ -2,6 +2,7 @@ package com.mongodb.atlas.cli.clusters;
 
 import com.mongodb.atlas.cli.CliModule;
 import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.ResultsWriter;
 import org.apache.commons.cli.*;
 
 import java.io.IOException;
@@ -28,6 +29,8 @@ public class ListModule extends CliModule {
             .desc("Name of a specific cluster to be queried.")
             .build());
 
+        addOutputOption(options);
+
         return options;
     }
 
@@ -35,11 +38,21 @@ public class ListModule extends CliModule {
     protected void _execute(final CommandLine pCommandLine) throws IOException, ParseException, URISyntaxException {
         final Identity identity = getIdentity(pCommandLine);
         final String clusterName = pCommandLine.getOptionValue("cn");
-
-        outputGetResults(identity, new URI(String.format(
-            "%s/%s/clusters%s?pretty=true",
-            BASE_URL,
-            identity.getGroupId(),
-            clusterName != null ? "/" + clusterName : "")));
+        final ResultsWriter.Format format = getOutputFormat(pCommandLine);
+
+        // formatting is done locally, so the API is not asked to pretty print
+        if (clusterName != null) {
+            outputGetResults(identity, new URI(String.format(
+                "%s/%s/clusters/%s",
+                getBaseUrl(),
+                identity.getGroupId(),
+                clusterName)), format);
+            return;
+        }
+
+        outputPagedResults(getPagedResults(identity, new URI(String.format(
+            "%s/%s/clusters",
+            getBaseUrl(),
+            identity.getGroupId()))), format);
     }
 }
@@ -0,0 +1,269 @@
+package com.mongodb.atlas.cli.clusters;
+
+import com.mongodb.atlas.cli.ResponseParser;
+import com.mongodb.atlas.cli.util.JsonPullParser;
+import com.mongodb.atlas.cli.util.JsonPullParser.Token;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.CharBuffer;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+
+/**
+ * Reads a measurements response straight off the response stream.  Only the metric names and the requested
+ * aggregate of their non-null values are kept; every other field is skipped without being materialized.  For
+ * {@link Aggregate#LAST} the raw text of the newest point is copied into reused buffers and only parsed once per
+ * metric, so walking the data points does not allocate.  A {@link PointListener} additionally receives every
+ * non-null point, which are then parsed one by one.
+ *
+ * <p>Parsers without a listener are equal when their aggregates are, so identical requests can share a response
+ * (see {@code RequestCoalescer}); the map they return is unmodifiable.</p>
+ */
+class MeasurementStreamParser implements ResponseParser<Map<String, DataPoint>> {
+
+    enum Aggregate {
+        LAST,
+        MIN,
+        MAX,
+        AVG
+    }
+
+    /**
+     * Receives the non-null points of each metric in the order of the response.  The arrays are reused, so they
+     * are only valid during the call.
+     */
+    interface PointListener {
+        void onPoints(String pMetric, long[] pEpochSeconds, double[] pValues, int pCount);
+    }
+
+    private final Aggregate _aggregate;
+    private final PointListener _listener;
+
+    // scratch buffers for the data point being read and the newest non-null point of the current metric
+    private char[] _timestamp = new char[32];
+    private int _timestampLength;
+    private char[] _value = new char[32];
+    private int _valueLength;
+    private char[] _lastTimestamp = new char[32];
+    private int _lastTimestampLength;
+    private char[] _lastValue = new char[32];
+    private int _lastValueLength;
+
+    private int _count;
+    private double _accumulator;
+
+    // every point of the current metric, for the listener
+    private long[] _pointEpochSeconds;
+    private double[] _pointValues;
+
+    MeasurementStreamParser() {
+        this(Aggregate.LAST);
+    }
+
+    MeasurementStreamParser(final Aggregate pAggregate) {
+        this(pAggregate, null);
+    }
+
+    MeasurementStreamParser(final Aggregate pAggregate, final PointListener pListener) {
+        _aggregate = pAggregate;
+        _listener = pListener;
+        if (_listener != null) {
+            _pointEpochSeconds = new long[64];
+            _pointValues = new double[64];
+        }
+    }
+
+    @Override
+    public Map<String, DataPoint> parse(final InputStream pContent) throws IOException {
+        final Map<String, DataPoint> measurementsMap = new HashMap<>();
+        final JsonPullParser parser = new JsonPullParser(pContent);
+
+        if (parser.next() != Token.START_OBJECT) {
+            throw new IOException("Measurements response is not a JSON object");
+        }
+
+        boolean hasMeasurements = false;
+        while (parser.next() == Token.FIELD_NAME) {
+            if (parser.textEquals("measurements")) {
+                hasMeasurements = true;
+                readMeasurements(parser, measurementsMap);
+            } else {
+                parser.skipValue();
+            }
+        }
+
+        if (!hasMeasurements) {
+            throw new IOException("Response does not contain measurements");
+        }
+        return Collections.unmodifiableMap(measurementsMap);
+    }
+
+    @Override
+    public boolean equals(final Object pOther) {
+        if (this == pOther) {
+            return true;
+        }
+        if (pOther == null || getClass() != pOther.getClass()) {
+            return false;
+        }
+
+        // a listener must see the response itself, so parsers with one are only equal to themselves
+        final MeasurementStreamParser other = (MeasurementStreamParser) pOther;
+        return _listener == null && other._listener == null && _aggregate == other._aggregate;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(_aggregate, _listener);
+    }
+
+    private void readMeasurements(final JsonPullParser pParser, final Map<String, DataPoint> pMeasurementsMap)
+        throws IOException
+    {
+        if (pParser.next() != Token.START_ARRAY) {
+            pParser.skipValue();
+            return;
+        }
+
+        Token token;
+        while ((token = pParser.next()) == Token.START_OBJECT) {
+            readMeasurement(pParser, pMeasurementsMap);
+        }
+        if (token != Token.END_ARRAY) {
+            throw new IOException("Malformed measurements array");
+        }
+    }
+
+    private void readMeasurement(final JsonPullParser pParser, final Map<String, DataPoint> pMeasurementsMap)
+        throws IOException
+    {
+        String name = null;
+        _count = 0;
+        _accumulator = 0;
+
+        while (pParser.next() == Token.FIELD_NAME) {
+            if (pParser.textEquals("name")) {
+                name = pParser.next() == Token.STRING ? pParser.getText() : null;
+            } else if (pParser.textEquals("dataPoints")) {
+                readDataPoints(pParser);
+            } else {
+                pParser.skipValue();
+            }
+        }
+
+        if (name != null && _count > 0) {
+            pMeasurementsMap.put(name, toDataPoint());
+            if (_listener != null) {
+                _listener.onPoints(name, _pointEpochSeconds, _pointValues, _count);
+            }
+        }
+    }
+
+    private void readDataPoints(final JsonPullParser pParser) throws IOException {
+        if (pParser.next() != Token.START_ARRAY) {
+            pParser.skipValue();
+            return;
+        }
+
+        Token token;
+        while ((token = pParser.next()) == Token.START_OBJECT) {
+            readDataPoint(pParser);
+        }
+        if (token != Token.END_ARRAY) {
+            throw new IOException("Malformed dataPoints array");
+        }
+    }
+
+    private void readDataPoint(final JsonPullParser pParser) throws IOException {
+        boolean hasValue = false;
+        _timestampLength = 0;
+
+        while (pParser.next() == Token.FIELD_NAME) {
+            if (pParser.textEquals("timestamp")) {
+                if (pParser.next() == Token.STRING) {
+                    _timestamp = pParser.copyText(_timestamp);
+                    _timestampLength = pParser.getTextLength();
+                }
+            } else if (pParser.textEquals("value")) {
+                final Token token = pParser.next();
+                if (token == Token.NUMBER || token == Token.STRING) {
+                    hasValue = true;
+                    _value = pParser.copyText(_value);
+                    _valueLength = pParser.getTextLength();
+                } else {
+                    pParser.skipValue();
+                }
+            } else {
+                pParser.skipValue();
+            }
+        }
+
+        // like the DOM parser, a point needs both a value and a timestamp
+        if (hasValue && _timestampLength > 0) {
+            accumulate();
+        }
+    }
+
+    private void accumulate() throws IOException {
+        // swap rather than copy; the previous "last" buffers become scratch space for the next point
+        char[] swap = _lastTimestamp;
+        _lastTimestamp = _timestamp;
+        _timestamp = swap;
+        _lastTimestampLength = _timestampLength;
+
+        swap = _lastValue;
+        _lastValue = _value;
+        _value = swap;
+        _lastValueLength = _valueLength;
+
+        if (_listener != null) {
+            if (_count == _pointValues.length) {
+                _pointEpochSeconds = Arrays.copyOf(_pointEpochSeconds, _count * 2);
+                _pointValues = Arrays.copyOf(_pointValues, _count * 2);
+            }
+            _pointEpochSeconds[_count] = parseTimestamp(_lastTimestamp, _lastTimestampLength).getEpochSecond();
+            _pointValues[_count] = Double.parseDouble(new String(_lastValue, 0, _lastValueLength));
+        }
+
+        if (_aggregate != Aggregate.LAST) {
+            final double value = Double.parseDouble(new String(_lastValue, 0, _lastValueLength));
+            if (_count == 0) {
+                _accumulator = value;
+            } else if (_aggregate == Aggregate.MIN) {
+                _accumulator = Math.min(_accumulator, value);
+            } else if (_aggregate == Aggregate.MAX) {
+                _accumulator = Math.max(_accumulator, value);
+            } else {
+                _accumulator += value;
+            }
+        }
+        _count++;
+    }
+
+    private DataPoint toDataPoint() throws IOException {
+        final double value;
+        if (_aggregate == Aggregate.LAST) {
+            value = Double.parseDouble(new String(_lastValue, 0, _lastValueLength));
+        } else if (_aggregate == Aggregate.AVG) {
+            value = _accumulator / _count;
+        } else {
+            value = _accumulator;
+        }
+        return new DataPoint(parseTimestamp(_lastTimestamp, _lastTimestampLength), value);
+    }
+
+    private static Instant parseTimestamp(final char[] pText, final int pLength) throws IOException {
+        try {
+            return Instant.parse(CharBuffer.wrap(pText, 0, pLength));
+        } catch (DateTimeParseException e) {
+            throw new IOException(String.format("Malformed timestamp: %s", new String(pText, 0, pLength)), e);
+        }
+    }
+}
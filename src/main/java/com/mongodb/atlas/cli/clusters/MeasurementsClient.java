@@ -0,0 +1,203 @@
+package com.mongodb.atlas.cli.clusters;
+
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.PagedResults;
+import com.mongodb.atlas.cli.ResultsFetcher;
+import org.apache.http.client.utils.URIBuilder;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * The process, disk and measurement endpoints used by the cluster status views.
+ */
+class MeasurementsClient {
+
+    static final String GRANULARITY = "PT1M";
+
+    static final String[] PROCESS_METRICS = {
+        "CONNECTIONS",
+        "DB_STORAGE_TOTAL",
+        "DB_DATA_SIZE_TOTAL",
+        "PROCESS_NORMALIZED_CPU_USER",
+        "PROCESS_NORMALIZED_CPU_KERNEL",
+        "CURSORS_TOTAL_OPEN"
+    };
+
+    static final String[] DISK_METRICS = {
+        "DISK_PARTITION_SPACE_FREE",
+        "DISK_PARTITION_SPACE_USED"
+    };
+
+    // set -Datlas.measurements.parser=dom to fall back to building the full JSON document
+    private static final boolean STREAMING_PARSER =
+        !"dom".equalsIgnoreCase(System.getProperty("atlas.measurements.parser"));
+
+    private final ResultsFetcher _fetcher;
+    private final String _baseUrl;
+
+    MeasurementsClient(final ResultsFetcher pFetcher, final String pBaseUrl) {
+        _fetcher = pFetcher;
+        _baseUrl = pBaseUrl;
+    }
+
+    PagedResults getProcesses(final Identity pCredentials) throws IOException, URISyntaxException {
+        return new PagedResults(_fetcher, pCredentials, new URI(String.format(
+            "%s/%s/processes",
+            _baseUrl,
+            pCredentials.getGroupId())),
+            PagedResults.DEFAULT_ITEMS_PER_PAGE);
+    }
+
+    /**
+     * @param pMetrics the metrics to request
+     * @param pListener receives every point of the response as well, or null
+     */
+    Map<String, DataPoint> getProcessMeasurements(
+        final Identity pCredentials,
+        final String pHostPort,
+        final String[] pMetrics,
+        final Instant pStart,
+        final Instant pEnd,
+        final MeasurementStreamParser.PointListener pListener) throws IOException, URISyntaxException
+    {
+        final URIBuilder uriBuilder = new URIBuilder(String.format(
+            "%s/%s/processes/%s/measurements",
+            _baseUrl,
+            pCredentials.getGroupId(),
+            pHostPort));
+
+        addWindow(uriBuilder, pStart, pEnd);
+        for (final String metric : pMetrics) {
+            uriBuilder.addParameter("m", metric);
+        }
+
+        return getMeasurements(pCredentials, uriBuilder.build(), pListener);
+    }
+
+    JSONObject getAvailableDisks(
+        final Identity pCredentials,
+        final String pHostPort) throws IOException, URISyntaxException
+    {
+        final URIBuilder uriBuilder = new URIBuilder(String.format(
+            "%s/%s/processes/%s/disks",
+            _baseUrl,
+            pCredentials.getGroupId(),
+            pHostPort));
+
+        return _fetcher.getResults(pCredentials, uriBuilder.build());
+    }
+
+    Map<String, DataPoint> getDiskMeasurements(
+        final Identity pCredentials,
+        final String pHostPort,
+        final String pDiskId,
+        final String[] pMetrics,
+        final Instant pStart,
+        final Instant pEnd) throws IOException, URISyntaxException
+    {
+        final URIBuilder uriBuilder = new URIBuilder(String.format(
+            "%s/%s/processes/%s/disks/%s/measurements",
+            _baseUrl,
+            pCredentials.getGroupId(),
+            pHostPort,
+            pDiskId));
+
+        addWindow(uriBuilder, pStart, pEnd);
+        for (final String metric : pMetrics) {
+            uriBuilder.addParameter("m", metric);
+        }
+
+        return getMeasurements(pCredentials, uriBuilder.build(), null);
+    }
+
+    private Map<String, DataPoint> getMeasurements(
+        final Identity pCredentials,
+        final URI pURI,
+        final MeasurementStreamParser.PointListener pListener) throws IOException
+    {
+        if (STREAMING_PARSER) {
+            return _fetcher.getResults(
+                pCredentials,
+                pURI,
+                new MeasurementStreamParser(MeasurementStreamParser.Aggregate.LAST, pListener));
+        }
+
+        final JSONArray measurements = _fetcher.getResults(pCredentials, pURI).getJSONArray("measurements");
+        if (pListener != null) {
+            emitPoints(measurements, pListener);
+        }
+        return mapMetrics(measurements);
+    }
+
+    private void addWindow(final URIBuilder pUriBuilder, final Instant pStart, final Instant pEnd) {
+        pUriBuilder.addParameter("granularity", GRANULARITY)
+            .addParameter("start", toIsoDate(pStart))
+            .addParameter("end", toIsoDate(pEnd));
+    }
+
+    private static String toIsoDate(final Instant pInstant) {
+        return pInstant.truncatedTo(ChronoUnit.SECONDS).toString();
+    }
+
+    /**
+     * @return the last data point with a value and timestamp of every metric in the measurements array
+     */
+    static Map<String, DataPoint> mapMetrics(final JSONArray pMeasurements) {
+        final Map<String, DataPoint> measurementsMap = new HashMap<>();
+
+        for (int i = 0; i < pMeasurements.length(); i++) {
+            final JSONObject m = pMeasurements.getJSONObject(i);
+            final JSONArray dataPoints = m.has("dataPoints") ? m.getJSONArray("dataPoints") : null;
+
+            if (dataPoints == null || dataPoints.length() == 0) {
+                continue;
+            }
+
+            for (int j = dataPoints.length() - 1; j >= 0; j--) {
+                final JSONObject dataPoint = dataPoints.getJSONObject(j);
+                if (!dataPoint.isNull("value") && !dataPoint.isNull("timestamp")) {
+                    measurementsMap.put(m.getString("name"), new DataPoint(
+                        Instant.parse(dataPoint.getString("timestamp")),
+                        dataPoint.getDouble("value")));
+                    break;
+                }
+            }
+        }
+
+        return measurementsMap;
+    }
+
+    /**
+     * Passes the points with a value and timestamp of every metric in the measurements array to the listener.
+     */
+    static void emitPoints(final JSONArray pMeasurements, final MeasurementStreamParser.PointListener pListener) {
+        for (int i = 0; i < pMeasurements.length(); i++) {
+            final JSONObject m = pMeasurements.getJSONObject(i);
+            final JSONArray dataPoints = m.has("dataPoints") ? m.getJSONArray("dataPoints") : new JSONArray();
+
+            final long[] epochSeconds = new long[dataPoints.length()];
+            final double[] values = new double[dataPoints.length()];
+            int count = 0;
+            for (int j = 0; j < dataPoints.length(); j++) {
+                final JSONObject dataPoint = dataPoints.getJSONObject(j);
+                if (!dataPoint.isNull("value") && !dataPoint.isNull("timestamp")) {
+                    epochSeconds[count] = Instant.parse(dataPoint.getString("timestamp")).getEpochSecond();
+                    values[count++] = dataPoint.getDouble("value");
+                }
+            }
+
+            if (count > 0) {
+                pListener.onPoints(m.getString("name"), epochSeconds, values, count);
+            }
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.mongodb.atlas.cli.clusters;
+
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.http.AtlasHttpClient;
+import com.mongodb.atlas.cli.http.RequestMetrics;
+import com.mongodb.atlas.cli.util.ConcurrencyUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+
+/**
+ * Polls every group in the background, with one {@link StatusRefreshEngine} each, and serves the latest values in
+ * the Prometheus text format.  Each poll renders the process samples once into an immutable snapshot; a scrape
+ * only copies that snapshot and the exporter's own counters, so any number of scrapers cause no API traffic.  A
+ * group whose poll fails keeps the samples of its last successful poll.
+ */
+class MetricsExporter implements Closeable {
+
+    private static final Logger _logger = LoggerFactory.getLogger(MetricsExporter.class);
+
+    static final List<StatusPlan.Column> COLUMNS = Collections.unmodifiableList(Arrays.asList(
+        StatusPlan.Column.CONN,
+        StatusPlan.Column.CPU,
+        StatusPlan.Column.CURSORS,
+        StatusPlan.Column.DATA,
+        StatusPlan.Column.DISK_USED,
+        StatusPlan.Column.DISK_TOTAL));
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private final Map<Identity, StatusRefreshEngine> _engines;
+    private final Executor _pollers;
+    private final long _intervalMs;
+
+    private final ConcurrentMap<Identity, List<ProcessStatus>> _statuses = new ConcurrentHashMap<>();
+    private volatile String _snapshot = "";
+
+    private final AtomicLong _polls = new AtomicLong();
+    private final AtomicLong _pollNanos = new AtomicLong();
+    private volatile long _lastPollNanos;
+    private volatile long _lastPollEpochMillis;
+    private final ConcurrentMap<String, AtomicLong> _pollErrors = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicLong> _processErrors = new ConcurrentHashMap<>();
+    private final AtomicLong _scrapes = new AtomicLong();
+
+    private ScheduledExecutorService _scheduler;
+    private ExecutorService _httpExecutor;
+    private HttpServer _server;
+
+    /**
+     * @param pEngines one engine per group, polled concurrently on {@code pPollers}
+     */
+    MetricsExporter(
+        final Map<Identity, StatusRefreshEngine> pEngines,
+        final Executor pPollers,
+        final long pIntervalMs)
+    {
+        _engines = pEngines;
+        _pollers = pPollers;
+        _intervalMs = pIntervalMs;
+        for (final Identity identity : pEngines.keySet()) {
+            _pollErrors.put(identity.getGroupId(), new AtomicLong());
+            _processErrors.put(identity.getGroupId(), new AtomicLong());
+        }
+    }
+
+    /**
+     * Starts polling, the first poll right away, and serves {@code /metrics} on the given address.
+     */
+    void start(final InetSocketAddress pAddress) throws IOException {
+        _server = HttpServer.create(pAddress, 0);
+        _httpExecutor = ConcurrencyUtil.newDaemonPool("exporter-http", 4);
+        _server.setExecutor(_httpExecutor);
+        _server.createContext("/", this::handle);
+        _server.start();
+
+        _scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "exporter-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        _scheduler.scheduleWithFixedDelay(this::poll, 0, _intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    InetSocketAddress getAddress() {
+        return _server.getAddress();
+    }
+
+    /**
+     * @return the number of completed polls
+     */
+    long getPollCount() {
+        return _polls.get();
+    }
+
+    /**
+     * Polls every group and publishes a new snapshot.  Never throws, so the schedule keeps running.
+     */
+    void poll() {
+        final long start = System.nanoTime();
+        try {
+            final List<CompletableFuture<Void>> futures = new ArrayList<>();
+            _engines.forEach((identity, engine) -> futures.add(ConcurrencyUtil
+                .supplyAsync(() -> engine.poll(identity), _pollers)
+                .handle((statuses, t) -> {
+                    if (t != null) {
+                        _logger.debug("Failed to poll group {}", identity.getGroupId(), t);
+                        _pollErrors.get(identity.getGroupId()).incrementAndGet();
+                        return null;
+                    }
+                    for (final ProcessStatus status : statuses) {
+                        if (status.isFailed()) {
+                            _processErrors.get(identity.getGroupId()).incrementAndGet();
+                        }
+                    }
+                    _statuses.put(identity, statuses);
+                    return null;
+                })));
+            for (final CompletableFuture<Void> future : futures) {
+                future.join();
+            }
+
+            _snapshot = renderProcesses().toString();
+        } catch (RuntimeException e) {
+            _logger.warn("Exporter poll failed", e);
+        } finally {
+            final long nanos = System.nanoTime() - start;
+            _lastPollNanos = nanos;
+            _lastPollEpochMillis = System.currentTimeMillis();
+            _pollNanos.addAndGet(nanos);
+            _polls.incrementAndGet();
+        }
+    }
+
+    /**
+     * @return the page a scrape gets
+     */
+    String scrape() {
+        return _snapshot + renderExporter();
+    }
+
+    private PrometheusText renderProcesses() {
+        final PrometheusText text = new PrometheusText(64 * 1024);
+        text.family("atlas_process_up", "Whether the last poll of the process succeeded.", "gauge");
+        writeSamples(text, "atlas_process_up", status -> status.isFailed() ? 0 : 1, true);
+
+        text.family("atlas_process_connections", "Current connections.", "gauge");
+        writeSamples(text, "atlas_process_connections", status -> status.getConnections() != null
+            ? status.getConnections()
+            : Double.NaN, false);
+
+        text.family("atlas_process_cpu_percent", "Normalized user plus kernel CPU.", "gauge");
+        writeSamples(text, "atlas_process_cpu_percent", status ->
+            status.getTrends().getLatest(ProcessTrends.Trend.CPU), false);
+
+        text.family("atlas_process_cursors_open", "Open cursors.", "gauge");
+        writeSamples(text, "atlas_process_cursors_open", status ->
+            status.getTrends().getLatest(ProcessTrends.Trend.CURSORS), false);
+
+        text.family("atlas_process_data_size_bytes", "Data size of all databases.", "gauge");
+        writeSamples(text, "atlas_process_data_size_bytes", ProcessStatus::getDataSize, false);
+
+        text.family("atlas_process_disk_used_bytes", "Used space of all disk partitions.", "gauge");
+        writeSamples(text, "atlas_process_disk_used_bytes", ProcessStatus::getDiskSpaceUsed, false);
+
+        text.family("atlas_process_disk_free_bytes", "Free space of all disk partitions.", "gauge");
+        writeSamples(text, "atlas_process_disk_free_bytes", ProcessStatus::getDiskSpaceFree, false);
+        return text;
+    }
+
+    /**
+     * Writes one sample per process; values of failed processes and NaN values are left out.
+     */
+    private void writeSamples(
+        final PrometheusText pText,
+        final String pName,
+        final ToDoubleFunction<ProcessStatus> pValue,
+        final boolean pIncludeFailed)
+    {
+        for (final Identity identity : _engines.keySet()) {
+            final List<ProcessStatus> statuses = _statuses.get(identity);
+            if (statuses == null) {
+                continue;
+            }
+            for (final ProcessStatus status : statuses) {
+                if (status.isFailed() && !pIncludeFailed) {
+                    continue;
+                }
+                final double value = pValue.applyAsDouble(status);
+                if (!Double.isNaN(value)) {
+                    pText.sample(
+                        pName,
+                        value,
+                        "group_id", identity.getGroupId(),
+                        "replica_set", status.getReplicaSetName(),
+                        "process", status.getProcessId());
+                }
+            }
+        }
+    }
+
+    private String renderExporter() {
+        final PrometheusText text = new PrometheusText();
+
+        text.family("atlas_exporter_poll_duration_seconds", "Time taken by the polls of every group.", "summary");
+        text.sample("atlas_exporter_poll_duration_seconds_sum", _pollNanos.get() / 1e9);
+        text.sample("atlas_exporter_poll_duration_seconds_count", _polls.get());
+
+        text.family("atlas_exporter_last_poll_duration_seconds", "Time taken by the last poll.", "gauge");
+        text.sample("atlas_exporter_last_poll_duration_seconds", _lastPollNanos / 1e9);
+
+        text.family("atlas_exporter_last_poll_timestamp_seconds", "When the last poll finished.", "gauge");
+        text.sample("atlas_exporter_last_poll_timestamp_seconds", _lastPollEpochMillis / 1e3);
+
+        text.family("atlas_exporter_poll_errors_total", "Polls of a group that failed as a whole.", "counter");
+        _pollErrors.forEach((groupId, count) ->
+            text.sample("atlas_exporter_poll_errors_total", count.get(), "group_id", groupId));
+
+        text.family(
+            "atlas_exporter_process_errors_total",
+            "Processes that could not be refreshed in a poll.",
+            "counter");
+        _processErrors.forEach((groupId, count) ->
+            text.sample("atlas_exporter_process_errors_total", count.get(), "group_id", groupId));
+
+        text.family("atlas_exporter_scrapes_total", "Scrapes served.", "counter");
+        text.sample("atlas_exporter_scrapes_total", _scrapes.get());
+
+        final RequestMetrics requests = AtlasHttpClient.getInstance().getMetrics().snapshot();
+        text.family("atlas_exporter_api_requests_total", "Requests sent to the Atlas API.", "counter");
+        for (final String endpoint : new TreeSet<>(requests.getEndpoints())) {
+            text.sample(
+                "atlas_exporter_api_requests_total",
+                requests.getEndpoint(endpoint).getRequests(),
+                "endpoint", endpoint);
+        }
+        return text.toString();
+    }
+
+    private void handle(final HttpExchange pExchange) throws IOException {
+        try {
+            if (!pExchange.getRequestURI().getPath().equals("/metrics")) {
+                pExchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            final boolean head = pExchange.getRequestMethod().equals("HEAD");
+            if (!head && !pExchange.getRequestMethod().equals("GET")) {
+                pExchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            _scrapes.incrementAndGet();
+            final byte[] body = scrape().getBytes(StandardCharsets.UTF_8);
+            pExchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            pExchange.sendResponseHeaders(200, head ? -1 : body.length);
+            if (!head) {
+                try (OutputStream out = pExchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } finally {
+            pExchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (_scheduler != null) {
+            _scheduler.shutdownNow();
+        }
+        if (_server != null) {
+            _server.stop(0);
+        }
+        if (_httpExecutor != null) {
+            _httpExecutor.shutdownNow();
+        }
+    }
+}
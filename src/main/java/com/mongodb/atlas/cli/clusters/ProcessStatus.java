@@ -0,0 +1,103 @@
+package com.mongodb.atlas.cli.clusters;
+
+
+/**
+ * The values shown for a single process in the status table.
+ */
+class ProcessStatus {
+
+    private final String _replicaSetName;
+    private final String _processId;
+    private final Integer _connections;
+    private final long _dataSize;
+    private final long _diskSpaceUsed;
+    private final long _diskSpaceFree;
+    private final ProcessTrends _trends;
+    private final Throwable _error;
+
+    ProcessStatus(
+        final String pReplicaSetName,
+        final String pProcessId,
+        final Integer pConnections,
+        final long pDataSize,
+        final long pDiskSpaceUsed,
+        final long pDiskSpaceFree,
+        final ProcessTrends pTrends)
+    {
+        _replicaSetName = pReplicaSetName;
+        _processId = pProcessId;
+        _connections = pConnections;
+        _dataSize = pDataSize;
+        _diskSpaceUsed = pDiskSpaceUsed;
+        _diskSpaceFree = pDiskSpaceFree;
+        _trends = pTrends;
+        _error = null;
+    }
+
+    private ProcessStatus(final String pReplicaSetName, final String pProcessId, final Throwable pError) {
+        _replicaSetName = pReplicaSetName;
+        _processId = pProcessId;
+        _connections = null;
+        _dataSize = 0;
+        _diskSpaceUsed = 0;
+        _diskSpaceFree = 0;
+        _trends = null;
+        _error = pError;
+    }
+
+    static ProcessStatus failed(final String pReplicaSetName, final String pProcessId, final Throwable pError) {
+        return new ProcessStatus(pReplicaSetName, pProcessId, pError);
+    }
+
+    String getReplicaSetName() {
+        return _replicaSetName;
+    }
+
+    String getProcessId() {
+        return _processId;
+    }
+
+    String getName() {
+        return _processId.indexOf(".") > 0 ? _processId.substring(0, _processId.indexOf(".")) : _processId;
+    }
+
+    Integer getConnections() {
+        return _connections;
+    }
+
+    long getDataSize() {
+        return _dataSize;
+    }
+
+    long getDiskSpaceUsed() {
+        return _diskSpaceUsed;
+    }
+
+    long getDiskSpaceFree() {
+        return _diskSpaceFree;
+    }
+
+    long getDiskSpaceTotal() {
+        return _diskSpaceUsed + _diskSpaceFree;
+    }
+
+    long getDiskUtilization() {
+        final long total = getDiskSpaceTotal();
+        return total > 0 ? Math.round(((double) _diskSpaceUsed / (double) total) * 100) : 0;
+    }
+
+    /**
+     * @return the recent history of the trend metrics, or null when trends are not kept
+     */
+    ProcessTrends getTrends() {
+        return _trends;
+    }
+
+    boolean isFailed() {
+        return _error != null;
+    }
+
+    Throwable getError() {
+        return _error;
+    }
+}
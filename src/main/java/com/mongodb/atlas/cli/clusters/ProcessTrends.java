@@ -0,0 +1,101 @@
+package com.mongodb.atlas.cli.clusters;
+
+
+/**
+ * Rolling history of the trend columns of one process in refresh mode.  Every non-null point of the process
+ * measurements is passed in by {@link MeasurementStreamParser}; CPU is the sum of the normalized user and kernel CPU
+ * of the same minute.
+ */
+class ProcessTrends implements MeasurementStreamParser.PointListener {
+
+    // one sparkline bar per point, which the first 20 minute lookback already fills
+    static final int POINTS = 15;
+
+    enum Trend {
+        CONNECTIONS,
+        CPU,
+        CURSORS
+    }
+
+    private final TrendRing _connections = new TrendRing(POINTS);
+    private final TrendRing _cursors = new TrendRing(POINTS);
+    private final TrendRing _cpuUser = new TrendRing(POINTS);
+    private final TrendRing _cpuKernel = new TrendRing(POINTS);
+    private final TrendRing _cpu = new TrendRing(POINTS);
+
+    @Override
+    public synchronized void onPoints(
+        final String pMetric,
+        final long[] pEpochSeconds,
+        final double[] pValues,
+        final int pCount)
+    {
+        switch (pMetric) {
+            case "CONNECTIONS":
+                for (int i = 0; i < pCount; i++) {
+                    _connections.add(pEpochSeconds[i], pValues[i]);
+                }
+                break;
+            case "CURSORS_TOTAL_OPEN":
+                for (int i = 0; i < pCount; i++) {
+                    _cursors.add(pEpochSeconds[i], pValues[i]);
+                }
+                break;
+            case "PROCESS_NORMALIZED_CPU_USER":
+                addCpu(_cpuUser, _cpuKernel, pEpochSeconds, pValues, pCount);
+                break;
+            case "PROCESS_NORMALIZED_CPU_KERNEL":
+                addCpu(_cpuKernel, _cpuUser, pEpochSeconds, pValues, pCount);
+                break;
+            default:
+                break;
+        }
+    }
+
+    /**
+     * @return the newest value, or NaN before the first point
+     */
+    synchronized double getLatest(final Trend pTrend) {
+        return getRing(pTrend).getLatest();
+    }
+
+    synchronized double getRatePerMinute(final Trend pTrend, final int pSpan) {
+        return getRing(pTrend).getRatePerMinute(pSpan);
+    }
+
+    synchronized String getSparkline(final Trend pTrend) {
+        return getRing(pTrend).toSparkline();
+    }
+
+    /**
+     * Whichever of user and kernel CPU arrives second for a minute completes its combined point.
+     */
+    private void addCpu(
+        final TrendRing pRing,
+        final TrendRing pOther,
+        final long[] pEpochSeconds,
+        final double[] pValues,
+        final int pCount)
+    {
+        for (int i = 0; i < pCount; i++) {
+            pRing.add(pEpochSeconds[i], pValues[i]);
+            final double other = pOther.getValueAt(pEpochSeconds[i]);
+            if (!Double.isNaN(other)) {
+                _cpu.add(pEpochSeconds[i], pValues[i] + other);
+            }
+        }
+    }
+
+    private TrendRing getRing(final Trend pTrend) {
+        switch (pTrend) {
+            case CONNECTIONS:
+                return _connections;
+            case CPU:
+                return _cpu;
+            case CURSORS:
+                return _cursors;
+            default:
+                throw new IllegalArgumentException(String.format("Invalid trend specified: %s", pTrend));
+        }
+    }
+}
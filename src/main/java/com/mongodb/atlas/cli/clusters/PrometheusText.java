@@ -0,0 +1,83 @@
+package com.mongodb.atlas.cli.clusters;
+
+
+/**
+ * Builds a page of the Prometheus text exposition format.  Samples must follow the {@link #family} they belong to,
+ * and labels are given as alternating names and values.
+ */
+class PrometheusText {
+
+    private final StringBuilder _text;
+
+    PrometheusText() {
+        this(4096);
+    }
+
+    PrometheusText(final int pCapacity) {
+        _text = new StringBuilder(pCapacity);
+    }
+
+    /**
+     * @param pType gauge, counter, summary or untyped
+     */
+    PrometheusText family(final String pName, final String pHelp, final String pType) {
+        _text.append("# HELP ").append(pName).append(' ').append(pHelp).append('\n');
+        _text.append("# TYPE ").append(pName).append(' ').append(pType).append('\n');
+        return this;
+    }
+
+    PrometheusText sample(final String pName, final double pValue, final String... pLabels) {
+        _text.append(pName);
+        if (pLabels.length > 0) {
+            _text.append('{');
+            for (int i = 0; i + 1 < pLabels.length; i += 2) {
+                if (i > 0) {
+                    _text.append(',');
+                }
+                _text.append(pLabels[i]).append("=\"");
+                escape(pLabels[i + 1]);
+                _text.append('"');
+            }
+            _text.append('}');
+        }
+        _text.append(' ');
+        appendValue(pValue);
+        _text.append('\n');
+        return this;
+    }
+
+    @Override
+    public String toString() {
+        return _text.toString();
+    }
+
+    private void escape(final String pValue) {
+        for (int i = 0; i < pValue.length(); i++) {
+            final char c = pValue.charAt(i);
+            if (c == '\\') {
+                _text.append("\\\\");
+            } else if (c == '"') {
+                _text.append("\\\"");
+            } else if (c == '\n') {
+                _text.append("\\n");
+            } else {
+                _text.append(c);
+            }
+        }
+    }
+
+    /**
+     * Whole numbers are written without a fraction, so byte counts stay exact and readable.
+     */
+    private void appendValue(final double pValue) {
+        if (Double.isNaN(pValue)) {
+            _text.append("NaN");
+        } else if (Double.isInfinite(pValue)) {
+            _text.append(pValue > 0 ? "+Inf" : "-Inf");
+        } else if (pValue == Math.rint(pValue) && Math.abs(pValue) < 1e15) {
+            _text.append((long) pValue);
+        } else {
+            _text.append(pValue);
+        }
+    }
+}
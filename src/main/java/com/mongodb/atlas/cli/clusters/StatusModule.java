@@ -2,26 +2,34 @@ package com.mongodb.atlas.cli.clusters;
 
 import com.mongodb.atlas.cli.CliModule;
 import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.PagedResults;
+import com.mongodb.atlas.cli.util.ConcurrencyUtil;
+import com.mongodb.atlas.cli.util.TextTableRenderer;
 import org.apache.commons.cli.*;
-import org.apache.http.client.utils.URIBuilder;
-import org.json.JSONArray;
-import org.json.JSONObject;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.net.URI;
+import java.io.UncheckedIOException;
 import java.net.URISyntaxException;
 import java.text.DecimalFormat;
 import java.util.*;
-import java.util.stream.IntStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 
 
 public class StatusModule extends CliModule {
 
-    private static Logger logger = LoggerFactory.getLogger(StatusModule.class);
+    private static final int DEFAULT_PARALLELISM = 4;
 
-    private static final int LOOKBACK_MINUTES = 20;
+    // with several groups the default total grows with the group count, up to the connection pool's route limit
+    private static final int MAX_DEFAULT_PARALLELISM = 32;
+
+    private static final int DEFAULT_GROUP_PARALLELISM = 4;
+
+    private static final String ERROR_CELL = "ERR";
+
+    // the rate columns compare the newest point with the one five minutes before it
+    private static final int RATE_POINTS = 5;
 
     public StatusModule(final String[] pArgs) {
         super(pArgs);
@@ -40,252 +48,449 @@ public class StatusModule extends CliModule {
             .desc("Refresh intervsal in seconds.")
             .build());
 
+        // parallelism
+        options.addOption(Option.builder("pl")
+            .argName("Parallelism")
+            .longOpt("parallelism")
+            .hasArg(true)
+            .optionalArg(false)
+            .desc("Maximum number of concurrent API requests.  Defaults to " + DEFAULT_PARALLELISM
+                + " per group, up to " + MAX_DEFAULT_PARALLELISM + ".")
+            .build());
+
+        // group parallelism
+        options.addOption(Option.builder("gpl")
+            .argName("Group Parallelism")
+            .longOpt("group-parallelism")
+            .hasArg(true)
+            .optionalArg(false)
+            .desc("Maximum number of concurrent API requests per group.  Defaults to --parallelism for one group, "
+                + "else " + DEFAULT_GROUP_PARALLELISM + ", at most --parallelism.")
+            .build());
+
+        // profiles
+        options.addOption(Option.builder()
+            .argName("Profile")
+            .longOpt("profile")
+            .hasArg(true)
+            .desc("Show the groups of a profile from the config file.  May be repeated.")
+            .build());
+
+        // columns
+        options.addOption(Option.builder()
+            .argName("Columns")
+            .longOpt("columns")
+            .hasArg(true)
+            .desc("Comma separated columns to show, out of " + getColumnNames(Arrays.asList(StatusPlan.Column.values()))
+                + ".  Only the requests these need are made.")
+            .build());
+
+        // top n
+        options.addOption(Option.builder()
+            .argName("Count")
+            .longOpt("top")
+            .hasArg(true)
+            .desc("Only show the processes ranked highest by --sort, per group.  Every process is ranked by that "
+                + "metric alone and only these get the requests of the other columns.")
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("Metric")
+            .longOpt("sort")
+            .hasArg(true)
+            .desc("Metric to rank --top by: cpu, connections or disk-util.  Defaults to cpu.")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt("dry-run")
+            .desc("Print the requests the first poll would make instead of showing the status.")
+            .build());
+
         return options;
     }
 
     @Override
     protected void _execute(final CommandLine pCommandLine) throws IOException, ParseException, URISyntaxException {
-        final Identity identity = getIdentity(pCommandLine);
+        final List<Identity> identities = getIdentities(pCommandLine);
+        final int parallelism = getParallelism(
+            pCommandLine,
+            "pl",
+            Math.min(DEFAULT_PARALLELISM * identities.size(), MAX_DEFAULT_PARALLELISM));
+        // one group may use the whole pool; several share it, so an explicit --parallelism is not capped away
+        final int groupParallelism = getParallelism(
+            pCommandLine,
+            "gpl",
+            identities.size() == 1 || pCommandLine.hasOption("pl")
+                ? parallelism
+                : Math.min(DEFAULT_GROUP_PARALLELISM, parallelism));
+        final boolean refresh = pCommandLine.hasOption("r");
+        final StatusPlan plan = getPlan(pCommandLine, refresh);
+
+        // every group shares the request pool (and the connection pool behind it) but is capped separately, so one
+        // large project cannot hold all the threads; each group's listing and joins run on a poller thread
+        final ExecutorService executor = ConcurrencyUtil.newDaemonPool("status", parallelism);
+        final ExecutorService pollers =
+            ConcurrencyUtil.newDaemonPool("status-group", Math.min(identities.size(), parallelism));
+        final MeasurementsClient client = new MeasurementsClient(getResultsFetcher(), getBaseUrl());
+        final Map<Identity, StatusRefreshEngine> engines = new LinkedHashMap<>();
+        for (final Identity identity : identities) {
+            engines.put(identity, new StatusRefreshEngine(
+                client,
+                ConcurrencyUtil.newBoundedExecutor(executor, groupParallelism),
+                plan));
+        }
+
+        try {
+            if (pCommandLine.hasOption("dry-run")) {
+                printPlan(plan, identities, client);
+            } else if (refresh) {
+                final TextTableRenderer renderer = new TextTableRenderer();
+                while (true) {
+                    final String refreshOptionValue = pCommandLine.getOptionValue("r");
+                    final long sleepMs;
+                    if (refreshOptionValue != null) {
+                        try {
+                            sleepMs = Long.parseLong(refreshOptionValue) * 1000;
+                        } catch (NumberFormatException e) {
+                            throw new IllegalArgumentException(String.format(
+                                "Invalid refresh uration specified: %s",
+                                refreshOptionValue));
+                        }
+                    } else {
+                        // default to 5 seconds
+                        sleepMs = 5000;
+                    }
+
+                    final StringBuilder errors = new StringBuilder();
+                    final List<List<String>> rows = getStatusRows(engines, pollers, plan, errors);
+                    System.out.print(renderer.renderFrame(rows, errors.toString()));
+                    System.out.flush();
 
-        if (pCommandLine.hasOption("r")) {
-            while (true) {
-                final String refreshOptionValue = pCommandLine.getOptionValue("r");
-                final long sleepMs;
-                if (refreshOptionValue != null) {
                     try {
-                        sleepMs = Long.parseLong(refreshOptionValue) * 1000;
-                    } catch (NumberFormatException e) {
-                        throw new IllegalArgumentException(String.format(
-                            "Invalid refresh uration specified: %s",
-                            refreshOptionValue));
+                        Thread.sleep(sleepMs);
+                    } catch (InterruptedException e) {
+                        getLogger().error("Thread interrupted", e);
+                        break;
                     }
-                } else {
-                    // default to 5 seconds
-                    sleepMs = 5000;
                 }
+            } else {
+                final StringBuilder errors = new StringBuilder();
+                System.out.println(TextTableRenderer.toText(getStatusRows(engines, pollers, plan, errors)) + errors);
+            }
+        } finally {
+            pollers.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    private StatusPlan getPlan(final CommandLine pCommandLine, final boolean pRefresh) {
+        final List<StatusPlan.Column> columns = pCommandLine.hasOption("columns")
+            ? StatusPlan.parseColumns(pCommandLine.getOptionValue("columns"))
+            : pRefresh ? StatusPlan.DEFAULT_REFRESH_COLUMNS : StatusPlan.DEFAULT_COLUMNS;
+
+        final String sortOptionValue = pCommandLine.getOptionValue("sort");
+        final String topOptionValue = pCommandLine.getOptionValue("top");
+        if (topOptionValue == null) {
+            if (sortOptionValue != null) {
+                throw new IllegalArgumentException(String.format(
+                    "Invalid sort specified: %s, --sort requires --top",
+                    sortOptionValue));
+            }
+            return new StatusPlan(columns);
+        }
+
+        final int top;
+        try {
+            top = Integer.parseInt(topOptionValue);
+            if (top < 1) {
+                throw new NumberFormatException();
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid top specified: %s", topOptionValue));
+        }
+        return new StatusPlan(
+            columns,
+            StatusPlan.Sort.parse(sortOptionValue != null ? sortOptionValue : "cpu"),
+            top);
+    }
 
-                System.out.print("\033[H\033[2J");
-                System.out.flush();
-                System.out.print(getStatus(
-                    identity));
+    private int getParallelism(final CommandLine pCommandLine, final String pOption, final int pDefault) {
+        final String parallelismOptionValue = pCommandLine.getOptionValue(pOption);
+        if (parallelismOptionValue == null) {
+            return pDefault;
+        }
 
-                try {
-                    Thread.sleep(sleepMs);
-                } catch (InterruptedException e) {
-                    getLogger().error("Thread interrupted", e);
-                    break;
-                }
+        try {
+            final int parallelism = Integer.parseInt(parallelismOptionValue);
+            if (parallelism < 1) {
+                throw new NumberFormatException();
             }
-        } else {
-            System.out.println(getStatus(identity));
+            return parallelism;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid parallelism specified: %s",
+                parallelismOptionValue));
         }
     }
 
-    private String getStatus(final Identity pCredentials)
+    /**
+     * Polls every group concurrently.  A group whose listing fails is reported in its own row so the other groups
+     * are still shown; the command only fails when no group could be polled.
+     */
+    private List<GroupStatus> poll(final Map<Identity, StatusRefreshEngine> pEngines, final Executor pPollers)
         throws IOException, URISyntaxException
     {
-        final List<List<String>> rows = new ArrayList<>();
+        if (pEngines.size() == 1) {
+            final Map.Entry<Identity, StatusRefreshEngine> entry = pEngines.entrySet().iterator().next();
+            return Collections.singletonList(
+                new GroupStatus(entry.getKey(), entry.getValue().poll(entry.getKey()), null));
+        }
 
-        rows.add(Arrays.asList(
-            "ReplicaSet",
-            "Host",
-            "Conn",
-            "Data",
-            "Disk Used",
-            "Disk Total",
-            "Disk Utl"
-        ));
-
-        final JSONObject processResults = getProcesses(pCredentials);
-        final JSONArray processes;
-        if (!processResults.has("results")) {
-            return toTextTable(rows);
-        } else {
-            processes = processResults.getJSONArray("results");
+        final List<CompletableFuture<GroupStatus>> futures = new ArrayList<>();
+        pEngines.forEach((identity, engine) -> futures.add(ConcurrencyUtil
+            .supplyAsync(() -> new GroupStatus(identity, engine.poll(identity), null), pPollers)
+            .exceptionally(t -> {
+                getLogger().debug("Failed to refresh status for group {}", identity.getGroupId(), t);
+                return new GroupStatus(identity, null, ConcurrencyUtil.unwrap(t));
+            })));
+
+        final List<GroupStatus> groups = new ArrayList<>();
+        boolean anySucceeded = false;
+        for (final CompletableFuture<GroupStatus> future : futures) {
+            final GroupStatus group = future.join();
+            anySucceeded |= group._error == null;
+            groups.add(group);
         }
 
-        String previousReplicaSet = null;
-        for (int i = 0; i < processes.length(); i++) {
-            final JSONObject process = processes.getJSONObject(i);
-            final String pid = process.getString("id");
-
-            final JSONObject processDetails =
-                getProcessDetails(pCredentials, pid);
-
-            final String replicaSetName = process.getString("replicaSetName");
-
-            final Map<String, Object> measurementsMap =
-                mapMetrics(processDetails.getJSONArray("measurements"));
-
-            final String name = pid.indexOf(".") > 0 ? pid.substring(0, pid.indexOf(".")) : pid;
-            final Integer connections = (Integer) measurementsMap.get("CONNECTIONS");
-            final Long dbDataStorage =
-                Long.parseLong((String) measurementsMap.getOrDefault("DB_DATA_SIZE_TOTAL", 0).toString());
-
-            final JSONArray availableDisks =
-                getAvailableDisks(pCredentials, pid).getJSONArray("results");
-            long diskSpaceUsed = 0;
-            long diskSpaceFree = 0;
-
-            for (int j = 0; j < availableDisks.length(); j++) {
-                final JSONObject diskDetails = getDiskDetails(
-                    pCredentials,
-                    pid,
-                    availableDisks.getJSONObject(j).getString("partitionName"));
-                final Map<String, Object> diskMeasurementsMap =
-                    mapMetrics(diskDetails.getJSONArray("measurements"));
-                diskSpaceUsed += new Long(diskMeasurementsMap.getOrDefault("DISK_PARTITION_SPACE_USED", 0).toString());
-                diskSpaceFree += new Long(diskMeasurementsMap.getOrDefault("DISK_PARTITION_SPACE_FREE", 0).toString());
+        if (!anySucceeded) {
+            final Throwable error = groups.get(0)._error;
+            if (error instanceof IOException) {
+                throw (IOException) error;
+            } else if (error instanceof URISyntaxException) {
+                throw (URISyntaxException) error;
+            } else if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            throw new IOException(error);
+        }
+        return groups;
+    }
+
+    /**
+     * Lists the processes of every group, and the partitions of its first process when a disk column is shown, to
+     * count the requests of a first poll.  Those listings are cached, so a status run right after reuses them.
+     */
+    private void printPlan(final StatusPlan pPlan, final List<Identity> pIdentities, final MeasurementsClient pClient)
+        throws IOException, URISyntaxException
+    {
+        System.out.println("Columns: " + getColumnNames(pPlan.getColumns()));
+        System.out.println("Process metrics: " + (pPlan.needsProcessMeasurements()
+            ? String.join(",", pPlan.getProcessMetrics())
+            : "none"));
+        System.out.println("Disk metrics: " + (pPlan.needsDisks() ? String.join(",", pPlan.getDiskMetrics()) : "none"));
+
+        long total = 0;
+        for (final Identity identity : pIdentities) {
+            final List<String> processIds = new ArrayList<>();
+            try {
+                final PagedResults processes = pClient.getProcesses(identity);
+                while (processes.hasNext()) {
+                    processIds.add(processes.next().getString("id"));
+                }
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
             }
 
-            if (previousReplicaSet != null && !previousReplicaSet.equals(replicaSetName)) {
-                rows.add(Arrays.asList("", "", "", "", "", "", ""));
+            final int partitions = pPlan.needsDisks() && !processIds.isEmpty()
+                ? pClient.getAvailableDisks(identity, processIds.get(0)).getJSONArray("results").length()
+                : 0;
+            final long requests = pPlan.getRequestCount(processIds.size(), partitions);
+            total += requests;
+
+            // with --top only the shown processes get the detail requests, except the disks ranked by disk-util
+            final StatusPlan.Sort sort = pPlan.getSort();
+            final int shown = sort != null ? Math.min(pPlan.getTop(), processIds.size()) : processIds.size();
+            final int diskProcesses = sort != null && sort.isDisk() ? processIds.size() : shown;
+
+            final List<String> parts = new ArrayList<>();
+            parts.add(StatusPlan.getListingRequests(processIds.size()) + " process listing");
+            if (sort != null && !sort.isDisk()) {
+                parts.add(processIds.size() + " ranking measurements");
             }
+            if (pPlan.getDetailProcessMetrics().length > 0) {
+                parts.add(shown + " process measurements");
+            }
+            if (pPlan.needsDisks()) {
+                parts.add(diskProcesses + " disk listings");
+                parts.add(String.format(
+                    "%d disk measurements for %d partitions per process",
+                    (long) diskProcesses * partitions,
+                    partitions));
+            }
+            System.out.println(String.format(
+                "%s: %d requests (%s)",
+                identity.getGroupId(),
+                requests,
+                String.join(", ", parts)));
+        }
+        if (pIdentities.size() > 1) {
+            System.out.println(String.format("Total: %d requests", total));
+        }
+    }
 
-            previousReplicaSet = replicaSetName;
+    /**
+     * @return the status table; the errors of groups that could not be polled are appended to {@code pErrors}
+     */
+    private List<List<String>> getStatusRows(
+        final Map<Identity, StatusRefreshEngine> pEngines,
+        final Executor pPollers,
+        final StatusPlan pPlan,
+        final StringBuilder pErrors) throws IOException, URISyntaxException
+    {
+        final List<GroupStatus> groups = poll(pEngines, pPollers);
+        final boolean showProject = groups.size() > 1;
 
-            final long totalDiskSpace = diskSpaceUsed + diskSpaceFree;
+        // ranked rows are not grouped by replica set, so only the groups are separated
+        final boolean ranked = pPlan.getSort() != null;
+        final List<List<String>> rows = new ArrayList<>();
 
-            rows.add(Arrays.asList(
-                replicaSetName,
-                name,
-                connections != null ? connections.toString() : "",
-                formatSize(dbDataStorage != null ? new Long(dbDataStorage) : 0l),
-                formatSize(diskSpaceUsed),
-                formatSize(totalDiskSpace),
-                (totalDiskSpace > 0 ? (Math.round(((double) diskSpaceUsed / (double) totalDiskSpace) * 100)) : 0) + "%"
-            ));
+        final List<StatusPlan.Column> columns = pPlan.getColumns();
+        final String[] header = new String[columns.size()];
+        for (int i = 0; i < header.length; i++) {
+            header[i] = columns.get(i).getHeader();
         }
+        final String[] emptyCells = newCells(header.length, "");
+        final String[] errorCells = newCells(header.length, ERROR_CELL);
 
-        return toTextTable(rows);
-    }
+        rows.add(toRow(showProject, "Project", "ReplicaSet", "Host", header));
+
+        String previousReplicaSet = null;
+        for (final GroupStatus group : groups) {
+            final String groupId = group._identity.getGroupId();
 
-    private String toTextTable(final List<List<String>> pRows) {
-        final Map<Integer, Integer> columnSizeMap = new HashMap<>();
-        pRows.forEach(r -> {
-            IntStream.range(0, r.size()).forEach(i -> {
-                final int currentMaxSize = columnSizeMap.getOrDefault(i, 0);
-                final int colSize = r.get(i).length();
-                if (colSize > currentMaxSize) {
-                    columnSizeMap.put(i, colSize);
+            if (group._error != null) {
+                if (previousReplicaSet != null) {
+                    rows.add(toRow(showProject, "", "", "", emptyCells));
                 }
-            });
-        });
-
-        final StringBuilder lines = new StringBuilder();
-        pRows.forEach(r -> {
-            IntStream.range(0, r.size()).forEach(i -> {
-                lines.append(String.format("%1$-" + (columnSizeMap.get(i) + 2) + "s", r.get(i)) +
-                    (i < r.size() - 1 ? "\t" : ""));
-            });
-            lines.append("\n");
-        });
-        return lines.toString();
-    }
+                previousReplicaSet = "";
+                rows.add(toRow(showProject, groupId, "", "", errorCells));
+                pErrors.append(String.format("%s: %s%n", groupId, describe(group._error)));
+                continue;
+            }
 
-    private Map<String, Object> mapMetrics(final JSONArray pMeasurements) {
-        final Map<String, Object> measurementsMap = new HashMap<>();
+            for (final ProcessStatus status : group._statuses) {
+                // the group is part of the key so that two projects with the same replica set names stay apart
+                final String replicaSetName = status.getReplicaSetName();
+                final String replicaSetKey = ranked ? groupId : groupId + "/" + replicaSetName;
 
-        for (int i = 0; i < pMeasurements.length(); i++) {
-            final JSONObject m = pMeasurements.getJSONObject(i);
-            final JSONArray dataPoints = m.has("dataPoints") ? m.getJSONArray("dataPoints") : null;
+                if (previousReplicaSet != null && !previousReplicaSet.equals(replicaSetKey)) {
+                    rows.add(toRow(showProject, "", "", "", emptyCells));
+                }
 
-            if (dataPoints == null || dataPoints.length() == 0) {
-                continue;
-            }
+                previousReplicaSet = replicaSetKey;
+
+                if (status.isFailed()) {
+                    rows.add(toRow(showProject, groupId, replicaSetName, status.getName(), errorCells));
+                    continue;
+                }
 
-            for (int j = dataPoints.length() - 1; j >= 0; j--) {
-                final JSONObject dataPoint = dataPoints.getJSONObject(j);
-                if (!dataPoint.isNull("value")) {
-                    measurementsMap.put(m.getString("name"), dataPoint.get("value"));
-                    break;
+                final String[] cells = new String[columns.size()];
+                for (int i = 0; i < cells.length; i++) {
+                    cells[i] = getCell(columns.get(i), status);
                 }
+                rows.add(toRow(showProject, groupId, replicaSetName, status.getName(), cells));
             }
         }
 
-        return measurementsMap;
+        return rows;
     }
 
-    private JSONObject getProcessDetails(
-        final Identity pCredentials,
-        final String pHostPort) throws IOException, URISyntaxException
-    {
-
-        final URIBuilder uriBuilder = new URIBuilder(String.format(
-            "%s/%s/processes/%s/measurements",
-            BASE_URL,
-            pCredentials.getGroupId(),
-            pHostPort));
-
-        uriBuilder.addParameter("granularity", "PT1M")
-            .addParameter("start", toIsoDate(getStart()))
-            .addParameter("end", toIsoDate(getEnd()))
-            .addParameter("m", "CONNECTIONS")
-            .addParameter("m", "DB_STORAGE_TOTAL")
-            .addParameter("m", "DB_DATA_SIZE_TOTAL")
-            .addParameter("m", "PROCESS_NORMALIZED_CPU_USER")
-            .addParameter("m", "PROCESS_NORMALIZED_CPU_KERNEL")
-            .addParameter("m", "CURSORS_TOTAL_OPEN");
-
-        return getResults(pCredentials, uriBuilder.build());
+    private String getCell(final StatusPlan.Column pColumn, final ProcessStatus pStatus) {
+        final ProcessTrends trends = pStatus.getTrends();
+        switch (pColumn) {
+            case CONN:
+                return pStatus.getConnections() != null ? pStatus.getConnections().toString() : "";
+            case CONN_RATE:
+                return formatRate(trends.getRatePerMinute(ProcessTrends.Trend.CONNECTIONS, RATE_POINTS), false);
+            case CONN_TREND:
+                return trends.getSparkline(ProcessTrends.Trend.CONNECTIONS);
+            case CPU:
+                return formatPercent(trends.getLatest(ProcessTrends.Trend.CPU));
+            case CPU_RATE:
+                return formatRate(trends.getRatePerMinute(ProcessTrends.Trend.CPU, RATE_POINTS), true);
+            case CPU_TREND:
+                return trends.getSparkline(ProcessTrends.Trend.CPU);
+            case CURSORS:
+                return formatCount(trends.getLatest(ProcessTrends.Trend.CURSORS));
+            case CURSORS_RATE:
+                return formatRate(trends.getRatePerMinute(ProcessTrends.Trend.CURSORS, RATE_POINTS), false);
+            case CURSORS_TREND:
+                return trends.getSparkline(ProcessTrends.Trend.CURSORS);
+            case DATA:
+                return formatSize(pStatus.getDataSize());
+            case DISK_USED:
+                return formatSize(pStatus.getDiskSpaceUsed());
+            case DISK_TOTAL:
+                return formatSize(pStatus.getDiskSpaceTotal());
+            case DISK_UTIL:
+                return pStatus.getDiskUtilization() + "%";
+            default:
+                throw new IllegalArgumentException(String.format("Invalid column specified: %s", pColumn));
+        }
     }
 
-    private Date getStart() {
-        final Calendar start = Calendar.getInstance();
-        start.add(Calendar.MINUTE, -1 * LOOKBACK_MINUTES);
-
-        return start.getTime();
+    /**
+     * @return the message of the underlying failure, or its type when it has none
+     */
+    static String describe(final Throwable pError) {
+        final Throwable error = ConcurrencyUtil.unwrap(pError);
+        return error.getMessage() != null ? error.getMessage() : error.toString();
     }
 
-    private Date getEnd() {
-        return new Date();
+    private static String getColumnNames(final List<StatusPlan.Column> pColumns) {
+        final List<String> names = new ArrayList<>();
+        for (final StatusPlan.Column column : pColumns) {
+            names.add(column.getName());
+        }
+        return String.join(",", names);
     }
 
-    private JSONObject getAvailableDisks(
-        final Identity pCredentials,
-        final String pHostPort) throws IOException, URISyntaxException
-    {
-        URIBuilder uriBuilder = new URIBuilder(String.format(
-            "%s/%s/processes/%s/disks",
-            BASE_URL,
-            pCredentials.getGroupId(),
-            pHostPort));
+    /**
+     * Formats the change per minute over the last {@link #RATE_POINTS} minutes.
+     */
+    private static String formatRate(final double pRate, final boolean pPercent) {
+        return Double.isNaN(pRate) ? "" : new DecimalFormat(pPercent ? "+0.0;-0.0" : "+0.#;-0.#").format(pRate);
+    }
 
-        return getResults(pCredentials, uriBuilder.build());
+    private static String formatCount(final double pValue) {
+        return Double.isNaN(pValue) ? "" : new DecimalFormat("0").format(pValue);
     }
 
-    private JSONObject getDiskDetails(
-        final Identity pCredentials,
-        final String pHostPort,
-        final String pDiskId) throws IOException, URISyntaxException
-    {
-        final URIBuilder uriBuilder = new URIBuilder(String.format(
-            "%s/%s/processes/%s/disks/%s/measurements",
-            BASE_URL,
-            pCredentials.getGroupId(),
-            pHostPort,
-            pDiskId));
-
-        uriBuilder.addParameter("granularity", "PT1M")
-            .addParameter("start", toIsoDate(getStart()))
-            .addParameter("end", toIsoDate(getEnd()))
-            .addParameter("m", "DISK_PARTITION_SPACE_FREE")
-            .addParameter("m", "DISK_PARTITION_SPACE_USED");
-
-        return getResults(pCredentials, uriBuilder.build());
+    private static String formatPercent(final double pValue) {
+        return Double.isNaN(pValue) ? "" : new DecimalFormat("0.0").format(pValue) + "%";
     }
 
-    private String toIsoDate(final Date pDate) {
-        return pDate.toInstant().toString();
+    private static String[] newCells(final int pCount, final String pCell) {
+        final String[] cells = new String[pCount];
+        Arrays.fill(cells, pCell);
+        return cells;
     }
 
-    private JSONObject getProcesses(final Identity pCredentials) throws
-        IOException, URISyntaxException
+    private static List<String> toRow(
+        final boolean pShowProject,
+        final String pProject,
+        final String pReplicaSet,
+        final String pHost,
+        final String... pCells)
     {
-        return getResults(pCredentials, new URI(String.format(
-            "%s/%s/processes",
-            BASE_URL,
-            pCredentials.getGroupId())));
+        final List<String> row = new ArrayList<>(pCells.length + 3);
+        if (pShowProject) {
+            row.add(pProject);
+        }
+        row.add(pReplicaSet);
+        row.add(pHost);
+        row.addAll(Arrays.asList(pCells));
+        return row;
     }
 
     public String formatSize(final long sizeBytes) {
@@ -308,4 +513,19 @@ public class StatusModule extends CliModule {
             return dec.format(sizeBytes).concat("B");
         }
     }
+
+    /**
+     * The statuses of one group, or the error that prevented polling it.
+     */
+    private static class GroupStatus {
+        private final Identity _identity;
+        private final List<ProcessStatus> _statuses;
+        private final Throwable _error;
+
+        private GroupStatus(final Identity pIdentity, final List<ProcessStatus> pStatuses, final Throwable pError) {
+            _identity = pIdentity;
+            _statuses = pStatuses;
+            _error = pError;
+        }
+    }
 }
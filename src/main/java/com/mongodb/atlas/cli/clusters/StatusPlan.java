@@ -0,0 +1,271 @@
+package com.mongodb.atlas.cli.clusters;
+
+import com.mongodb.atlas.cli.PagedResults;
+
+import java.util.*;
+
+
+/**
+ * The columns of a status table and the least the API has to be asked for them: which process and disk metrics
+ * go into the {@code m} parameters, and whether the disk endpoints are called at all.  Every process costs one
+ * measurements request when any process metric is needed, and one disk listing plus one request per partition
+ * when any disk metric is.
+ */
+class StatusPlan {
+
+    enum Column {
+        CONN("conn", "Conn", false, "CONNECTIONS"),
+        CONN_RATE("conn-rate", "Conn/m", true, "CONNECTIONS"),
+        CONN_TREND("conn-trend", "Conn Trend", true, "CONNECTIONS"),
+        CPU("cpu", "CPU", true, "PROCESS_NORMALIZED_CPU_USER", "PROCESS_NORMALIZED_CPU_KERNEL"),
+        CPU_RATE("cpu-rate", "CPU/m", true, "PROCESS_NORMALIZED_CPU_USER", "PROCESS_NORMALIZED_CPU_KERNEL"),
+        CPU_TREND("cpu-trend", "CPU Trend", true, "PROCESS_NORMALIZED_CPU_USER", "PROCESS_NORMALIZED_CPU_KERNEL"),
+        CURSORS("cursors", "Cursors", true, "CURSORS_TOTAL_OPEN"),
+        CURSORS_RATE("cursors-rate", "Cursors/m", true, "CURSORS_TOTAL_OPEN"),
+        CURSORS_TREND("cursors-trend", "Cursors Trend", true, "CURSORS_TOTAL_OPEN"),
+        DATA("data", "Data", false, "DB_DATA_SIZE_TOTAL"),
+        DISK_USED("disk-used", "Disk Used", false, "DISK_PARTITION_SPACE_USED"),
+        DISK_TOTAL("disk-total", "Disk Total", false, "DISK_PARTITION_SPACE_USED", "DISK_PARTITION_SPACE_FREE"),
+        DISK_UTIL("disk-util", "Disk Utl", false, "DISK_PARTITION_SPACE_USED", "DISK_PARTITION_SPACE_FREE");
+
+        private final String _name;
+        private final String _header;
+        private final boolean _trend;
+        private final List<String> _metrics;
+
+        Column(final String pName, final String pHeader, final boolean pTrend, final String... pMetrics) {
+            _name = pName;
+            _header = pHeader;
+            _trend = pTrend;
+            _metrics = Arrays.asList(pMetrics);
+        }
+
+        String getName() {
+            return _name;
+        }
+
+        String getHeader() {
+            return _header;
+        }
+    }
+
+    /**
+     * The metric of a top N ranking and what has to be fetched for every process to rank by it.
+     */
+    enum Sort {
+        CPU("cpu", Column.CPU, false, "PROCESS_NORMALIZED_CPU_USER", "PROCESS_NORMALIZED_CPU_KERNEL"),
+        CONNECTIONS("connections", Column.CONN, false, "CONNECTIONS"),
+        DISK_UTIL("disk-util", Column.DISK_UTIL, true, MeasurementsClient.DISK_METRICS);
+
+        private final String _name;
+        private final Column _column;
+        private final boolean _disk;
+        private final String[] _metrics;
+
+        Sort(final String pName, final Column pColumn, final boolean pDisk, final String... pMetrics) {
+            _name = pName;
+            _column = pColumn;
+            _disk = pDisk;
+            _metrics = pMetrics;
+        }
+
+        static Sort parse(final String pName) {
+            for (final Sort sort : values()) {
+                if (sort._name.equals(pName)) {
+                    return sort;
+                }
+            }
+            throw new IllegalArgumentException(String.format("Invalid sort specified: %s", pName));
+        }
+
+        /**
+         * @return whether ranking needs the disk endpoints rather than the process measurements
+         */
+        boolean isDisk() {
+            return _disk;
+        }
+
+        /**
+         * @return the process or disk metrics to request for ranking
+         */
+        String[] getMetrics() {
+            return _metrics;
+        }
+    }
+
+    static final List<Column> DEFAULT_COLUMNS = Collections.unmodifiableList(Arrays.asList(
+        Column.CONN,
+        Column.DATA,
+        Column.DISK_USED,
+        Column.DISK_TOTAL,
+        Column.DISK_UTIL));
+
+    static final List<Column> DEFAULT_REFRESH_COLUMNS = Collections.unmodifiableList(Arrays.asList(
+        Column.CONN,
+        Column.CONN_RATE,
+        Column.CONN_TREND,
+        Column.CPU,
+        Column.CPU_RATE,
+        Column.CPU_TREND,
+        Column.CURSORS,
+        Column.CURSORS_RATE,
+        Column.CURSORS_TREND,
+        Column.DATA,
+        Column.DISK_USED,
+        Column.DISK_TOTAL,
+        Column.DISK_UTIL));
+
+    private final List<Column> _columns;
+    private final String[] _processMetrics;
+    private final String[] _detailProcessMetrics;
+    private final String[] _diskMetrics;
+    private final boolean _trends;
+    private final Sort _sort;
+    private final int _top;
+
+    StatusPlan(final List<Column> pColumns) {
+        this(pColumns, null, 0);
+    }
+
+    /**
+     * @param pSort the ranking metric of a top N table, or null to show every process
+     * @param pTop the number of processes shown when ranking; the ranking metric is shown first if no column has it
+     */
+    StatusPlan(final List<Column> pColumns, final Sort pSort, final int pTop) {
+        if (pSort != null && !pColumns.contains(pSort._column)) {
+            final List<Column> columns = new ArrayList<>();
+            columns.add(pSort._column);
+            columns.addAll(pColumns);
+            _columns = columns;
+        } else {
+            _columns = pColumns;
+        }
+        _sort = pSort;
+        _top = pSort != null ? pTop : 0;
+
+        final Set<String> metrics = new HashSet<>();
+        boolean trends = false;
+        for (final Column column : _columns) {
+            metrics.addAll(column._metrics);
+            trends |= column._trend;
+        }
+        _processMetrics = select(MeasurementsClient.PROCESS_METRICS, metrics);
+        _diskMetrics = select(MeasurementsClient.DISK_METRICS, metrics);
+        if (pSort != null && !pSort.isDisk()) {
+            metrics.removeAll(Arrays.asList(pSort.getMetrics()));
+        }
+        _detailProcessMetrics = select(MeasurementsClient.PROCESS_METRICS, metrics);
+        _trends = trends;
+    }
+
+    /**
+     * @param pColumns comma separated column names
+     */
+    static List<Column> parseColumns(final String pColumns) {
+        final List<Column> columns = new ArrayList<>();
+        for (final String name : pColumns.split(",")) {
+            final Column column = getColumn(name.trim());
+            if (column == null) {
+                throw new IllegalArgumentException(String.format("Invalid column specified: %s", name.trim()));
+            }
+            if (!columns.contains(column)) {
+                columns.add(column);
+            }
+        }
+        return columns;
+    }
+
+    List<Column> getColumns() {
+        return _columns;
+    }
+
+    /**
+     * @return the process metrics to request, in the API's order; empty when no column needs one
+     */
+    String[] getProcessMetrics() {
+        return _processMetrics;
+    }
+
+    /**
+     * @return the process metrics to request for a shown process; the ranking request already has the sort metric
+     */
+    String[] getDetailProcessMetrics() {
+        return _detailProcessMetrics;
+    }
+
+    String[] getDiskMetrics() {
+        return _diskMetrics;
+    }
+
+    boolean needsProcessMeasurements() {
+        return _processMetrics.length > 0;
+    }
+
+    boolean needsDisks() {
+        return _diskMetrics.length > 0;
+    }
+
+    /**
+     * @return whether a column shows the rolling history kept by {@link ProcessTrends}
+     */
+    boolean needsTrends() {
+        return _trends;
+    }
+
+    /**
+     * @return the ranking metric, or null when every process is shown
+     */
+    Sort getSort() {
+        return _sort;
+    }
+
+    int getTop() {
+        return _top;
+    }
+
+    /**
+     * @return the requests of a first poll of a group with the given number of processes and partitions per process
+     */
+    long getRequestCount(final int pProcesses, final int pPartitions) {
+        if (_sort == null) {
+            return getListingRequests(pProcesses) + getDetailRequests(pProcesses, pPartitions);
+        }
+
+        // every process is ranked, then only the top ones get the details; disks fetched to rank are reused
+        final int shown = Math.min(_top, pProcesses);
+        final long ranking = _sort.isDisk() ? (long) pProcesses * (1 + pPartitions) : pProcesses;
+        final long details = _sort.isDisk()
+            ? (_detailProcessMetrics.length > 0 ? shown : 0)
+            : getDetailRequests(shown, pPartitions);
+        return getListingRequests(pProcesses) + ranking + details;
+    }
+
+    private long getDetailRequests(final int pProcesses, final int pPartitions) {
+        return (_detailProcessMetrics.length > 0 ? pProcesses : 0)
+            + (needsDisks() ? (long) pProcesses * (1 + pPartitions) : 0);
+    }
+
+    static int getListingRequests(final int pProcesses) {
+        final int pageSize = PagedResults.DEFAULT_ITEMS_PER_PAGE;
+        return Math.max(1, (pProcesses + pageSize - 1) / pageSize);
+    }
+
+    private static Column getColumn(final String pName) {
+        for (final Column column : Column.values()) {
+            if (column._name.equals(pName)) {
+                return column;
+            }
+        }
+        return null;
+    }
+
+    private static String[] select(final String[] pMetrics, final Set<String> pSelected) {
+        final List<String> selected = new ArrayList<>();
+        for (final String metric : pMetrics) {
+            if (pSelected.contains(metric)) {
+                selected.add(metric);
+            }
+        }
+        return selected.toArray(new String[0]);
+    }
+}
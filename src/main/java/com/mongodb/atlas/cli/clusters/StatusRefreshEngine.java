@@ -0,0 +1,453 @@
+package com.mongodb.atlas.cli.clusters;
+
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.PagedResults;
+import com.mongodb.atlas.cli.util.ConcurrencyUtil;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * Stateful source of status rows.  The first poll fetches the full lookback window for every process and
+ * partition; later polls only ask for points newer than the last one seen and keep the latest value per
+ * process/metric in memory.  The process list and disk partitions are cached and revalidated periodically.  With
+ * trends enabled the recent points of the trend metrics are kept per process as well, in fixed size rings.
+ *
+ * <p>When the plan has a sort metric, every process is first ranked by that metric alone and only the top ones get
+ * the requests of the other columns; the values and trend points fetched to rank are what the sort column shows.
+ * The ranking metric is refreshed the same way, so after the first poll a ranking pass only asks for the
+ * processes whose next point is due.</p>
+ */
+class StatusRefreshEngine {
+
+    private static final Logger _logger = LoggerFactory.getLogger(StatusRefreshEngine.class);
+
+    private static final Duration LOOKBACK = Duration.ofMinutes(20);
+
+    // a PT1M point for minute T is complete at T + 1m, so the point after it cannot be available before T + 2m
+    private static final Duration NEXT_POINT_DELAY = Duration.ofMinutes(2);
+
+    private static final Duration TOPOLOGY_TTL = Duration.ofMinutes(5);
+
+    private final MeasurementsClient _client;
+    private final Executor _executor;
+    private final StatusPlan _plan;
+
+    private JSONArray _processes;
+    private Instant _processesFetchedAt;
+
+    private final ConcurrentMap<String, LatestValues> _processMetrics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DiskTopology> _diskTopologies = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatestValues> _diskMetrics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatestValues> _rankMetrics = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ProcessTrends> _processTrends;
+
+    private final AtomicInteger _pollRequests = new AtomicInteger();
+
+    StatusRefreshEngine(final MeasurementsClient pClient, final Executor pExecutor) {
+        this(pClient, pExecutor, new StatusPlan(StatusPlan.DEFAULT_COLUMNS));
+    }
+
+    /**
+     * @param pPlan decides which endpoints and metrics are requested
+     */
+    StatusRefreshEngine(final MeasurementsClient pClient, final Executor pExecutor, final StatusPlan pPlan) {
+        _client = pClient;
+        _executor = pExecutor;
+        _plan = pPlan;
+        _processTrends = pPlan.needsTrends() ? new ConcurrentHashMap<>() : null;
+    }
+
+    /**
+     * @return one status per process, in the order of the process listing, or the top processes highest first when
+     * the plan has a sort metric
+     */
+    List<ProcessStatus> poll(final Identity pCredentials) throws IOException, URISyntaxException {
+        return poll(pCredentials, Instant.now());
+    }
+
+    /**
+     * @param pNow the time of this poll; windows and TTLs are measured from it, so later polls pass later times
+     */
+    List<ProcessStatus> poll(final Identity pCredentials, final Instant pNow) throws IOException, URISyntaxException {
+        _pollRequests.set(0);
+
+        final JSONArray processes = getProcesses(pCredentials, pNow);
+        final List<JSONObject> shown = new ArrayList<>();
+        if (_plan.getSort() != null) {
+            for (final int index : rank(pCredentials, processes, pNow)) {
+                shown.add(processes.getJSONObject(index));
+            }
+        } else {
+            for (int i = 0; i < processes.length(); i++) {
+                shown.add(processes.getJSONObject(i));
+            }
+        }
+
+        final List<CompletableFuture<ProcessStatus>> futures = new ArrayList<>();
+        for (final JSONObject process : shown) {
+            futures.add(refreshProcess(pCredentials, process, pNow));
+        }
+
+        final List<ProcessStatus> statuses = new ArrayList<>();
+        for (final CompletableFuture<ProcessStatus> future : futures) {
+            statuses.add(future.join());
+        }
+
+        _logger.debug("Refreshed {} processes with {} requests", statuses.size(), _pollRequests.get());
+        return statuses;
+    }
+
+    /**
+     * Scores every process by the sort metric, then picks the top ones.
+     *
+     * @return the indexes of the top processes in the listing, highest score first
+     */
+    private int[] rank(final Identity pCredentials, final JSONArray pProcesses, final Instant pNow) {
+        final List<CompletableFuture<Double>> futures = new ArrayList<>(pProcesses.length());
+        for (int i = 0; i < pProcesses.length(); i++) {
+            futures.add(score(pCredentials, pProcesses.getJSONObject(i).getString("id"), pNow));
+        }
+
+        final double[] scores = new double[futures.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = futures.get(i).join();
+        }
+        return selectTop(scores, _plan.getTop());
+    }
+
+    /**
+     * Disk utilization is ranked from the partition measurements of every process, which the disk columns of the
+     * top processes then reuse; the process metrics are ranked from a request for the sort metric alone.  A process
+     * that cannot be scored is ranked last rather than failing the poll.
+     */
+    private CompletableFuture<Double> score(final Identity pCredentials, final String pPid, final Instant pNow) {
+        final StatusPlan.Sort sort = _plan.getSort();
+        final CompletableFuture<Double> score;
+        if (sort.isDisk()) {
+            score = getDiskTopology(pCredentials, pPid, pNow)
+                .thenCompose(partitions -> refreshDisks(pCredentials, pPid, partitions, sort.getMetrics(), pNow))
+                .thenApply(StatusRefreshEngine::getDiskUtilization);
+        } else {
+            final LatestValues rankValues = _rankMetrics.computeIfAbsent(pPid, k -> new LatestValues());
+            final ProcessTrends trends =
+                _processTrends != null ? _processTrends.computeIfAbsent(pPid, k -> new ProcessTrends()) : null;
+            score = refresh(rankValues, pNow, () -> _client.getProcessMeasurements(
+                pCredentials,
+                pPid,
+                sort.getMetrics(),
+                rankValues.getWindowStart(pNow),
+                pNow,
+                trends))
+                .thenApply(values -> {
+                    // CPU is the sum of its user and kernel parts
+                    double sum = 0;
+                    for (final String metric : sort.getMetrics()) {
+                        sum += values.get(metric, Double.NaN);
+                    }
+                    return sum;
+                });
+        }
+
+        return score.exceptionally(t -> {
+            _logger.debug("Failed to rank process {}", pPid, t);
+            return Double.NaN;
+        });
+    }
+
+    /**
+     * Keeps the best {@code pCount} scores seen so far in a min-heap, so each process costs at most one
+     * {@code log(pCount)} replacement of the lowest of them.  NaN ranks below every score, and of equal scores the
+     * one earlier in the listing ranks higher.
+     *
+     * @return the indexes of the top scores, highest first
+     */
+    static int[] selectTop(final double[] pScores, final int pCount) {
+        final Comparator<Integer> ascending = (pFirst, pSecond) -> {
+            final int comparison = Double.compare(toRankable(pScores[pFirst]), toRankable(pScores[pSecond]));
+            return comparison != 0 ? comparison : Integer.compare(pSecond, pFirst);
+        };
+
+        final PriorityQueue<Integer> heap = new PriorityQueue<>(Math.max(1, pCount), ascending);
+        for (int i = 0; i < pScores.length; i++) {
+            if (heap.size() < pCount) {
+                heap.add(i);
+            } else if (pCount > 0 && ascending.compare(i, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(i);
+            }
+        }
+
+        final int[] top = new int[heap.size()];
+        for (int i = top.length - 1; i >= 0; i--) {
+            top[i] = heap.poll();
+        }
+        return top;
+    }
+
+    private static double toRankable(final double pScore) {
+        return Double.isNaN(pScore) ? Double.NEGATIVE_INFINITY : pScore;
+    }
+
+    private static double getDiskUtilization(final List<LatestValues> pDiskValues) {
+        double used = 0;
+        double free = 0;
+        for (final LatestValues diskValues : pDiskValues) {
+            used += diskValues.get("DISK_PARTITION_SPACE_USED", 0);
+            free += diskValues.get("DISK_PARTITION_SPACE_FREE", 0);
+        }
+        return used + free > 0 ? used / (used + free) : Double.NaN;
+    }
+
+    private JSONArray getProcesses(final Identity pCredentials, final Instant pNow)
+        throws IOException, URISyntaxException
+    {
+        if (_processes != null && pNow.isBefore(_processesFetchedAt.plus(TOPOLOGY_TTL))) {
+            return _processes;
+        }
+
+        final JSONArray processes = new JSONArray();
+        try {
+            final PagedResults processResults = _client.getProcesses(pCredentials);
+            _pollRequests.incrementAndGet();
+            while (processResults.hasNext()) {
+                processes.put(processResults.next());
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        if (processes.length() == 0) {
+            return processes;
+        }
+
+        _processes = processes;
+        _processesFetchedAt = pNow;
+        retainProcesses(_processes);
+        return _processes;
+    }
+
+    private void retainProcesses(final JSONArray pProcesses) {
+        final Set<String> pids = new HashSet<>();
+        for (int i = 0; i < pProcesses.length(); i++) {
+            pids.add(pProcesses.getJSONObject(i).getString("id"));
+        }
+
+        _processMetrics.keySet().retainAll(pids);
+        _diskTopologies.keySet().retainAll(pids);
+        _rankMetrics.keySet().retainAll(pids);
+        if (_processTrends != null) {
+            _processTrends.keySet().retainAll(pids);
+        }
+        _diskMetrics.keySet().removeIf(key -> !pids.contains(key.substring(0, key.indexOf('/'))));
+    }
+
+    private CompletableFuture<ProcessStatus> refreshProcess(
+        final Identity pCredentials,
+        final JSONObject pProcess,
+        final Instant pNow)
+    {
+        final String pid = pProcess.getString("id");
+        final String replicaSetName = pProcess.getString("replicaSetName");
+
+        final LatestValues processValues = _processMetrics.computeIfAbsent(pid, k -> new LatestValues());
+        final ProcessTrends trends =
+            _processTrends != null ? _processTrends.computeIfAbsent(pid, k -> new ProcessTrends()) : null;
+        final LatestValues rankValues = _rankMetrics.get(pid);
+        final CompletableFuture<LatestValues> measurements = _plan.getDetailProcessMetrics().length == 0
+            ? CompletableFuture.completedFuture(processValues)
+            : refresh(processValues, pNow, () -> _client.getProcessMeasurements(
+                pCredentials,
+                pid,
+                _plan.getDetailProcessMetrics(),
+                processValues.getWindowStart(pNow),
+                pNow,
+                trends));
+
+        // without a disk column neither the partitions nor their measurements are requested
+        final CompletableFuture<List<LatestValues>> disks = !_plan.needsDisks()
+            ? CompletableFuture.completedFuture(Collections.emptyList())
+            : getDiskTopology(pCredentials, pid, pNow).thenCompose(partitions ->
+                refreshDisks(pCredentials, pid, partitions, _plan.getDiskMetrics(), pNow));
+
+        return measurements
+            .thenCombine(disks, (values, diskValues) ->
+                toStatus(replicaSetName, pid, values, rankValues, diskValues, trends))
+            .exceptionally(t -> {
+                _logger.debug("Failed to refresh status for process {}", pid, t);
+                return ProcessStatus.failed(replicaSetName, pid, ConcurrencyUtil.unwrap(t));
+            });
+    }
+
+    private CompletableFuture<List<String>> getDiskTopology(
+        final Identity pCredentials,
+        final String pHostPort,
+        final Instant pNow)
+    {
+        final DiskTopology cached = _diskTopologies.get(pHostPort);
+        if (cached != null && pNow.isBefore(cached._fetchedAt.plus(TOPOLOGY_TTL))) {
+            return CompletableFuture.completedFuture(cached._partitions);
+        }
+
+        return ConcurrencyUtil.supplyAsync(() -> {
+            _pollRequests.incrementAndGet();
+            final JSONArray availableDisks = _client.getAvailableDisks(pCredentials, pHostPort).getJSONArray("results");
+            final List<String> partitions = new ArrayList<>();
+            for (int j = 0; j < availableDisks.length(); j++) {
+                partitions.add(availableDisks.getJSONObject(j).getString("partitionName"));
+            }
+
+            _diskTopologies.put(pHostPort, new DiskTopology(partitions, pNow));
+            _diskMetrics.keySet().removeIf(key -> key.startsWith(pHostPort + "/")
+                && !partitions.contains(key.substring(pHostPort.length() + 1)));
+            return partitions;
+        }, _executor);
+    }
+
+    private CompletableFuture<List<LatestValues>> refreshDisks(
+        final Identity pCredentials,
+        final String pHostPort,
+        final List<String> pPartitions,
+        final String[] pMetrics,
+        final Instant pNow)
+    {
+        final List<CompletableFuture<LatestValues>> disks = new ArrayList<>();
+        for (final String partitionName : pPartitions) {
+            final LatestValues diskValues =
+                _diskMetrics.computeIfAbsent(pHostPort + "/" + partitionName, k -> new LatestValues());
+            disks.add(refresh(diskValues, pNow, () -> _client.getDiskMeasurements(
+                pCredentials,
+                pHostPort,
+                partitionName,
+                pMetrics,
+                diskValues.getWindowStart(pNow),
+                pNow)));
+        }
+
+        return CompletableFuture.allOf(disks.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            final List<LatestValues> values = new ArrayList<>();
+            for (final CompletableFuture<LatestValues> disk : disks) {
+                values.add(disk.join());
+            }
+            return values;
+        });
+    }
+
+    private CompletableFuture<LatestValues> refresh(
+        final LatestValues pValues,
+        final Instant pNow,
+        final MeasurementsRequest pRequest)
+    {
+        if (!pValues.isDue(pNow)) {
+            return CompletableFuture.completedFuture(pValues);
+        }
+
+        return ConcurrencyUtil.supplyAsync(() -> {
+            _pollRequests.incrementAndGet();
+            pValues.merge(pRequest.execute());
+            return pValues;
+        }, _executor);
+    }
+
+    /**
+     * @param pRankValues the values fetched to rank the process, or null
+     */
+    private ProcessStatus toStatus(
+        final String pReplicaSetName,
+        final String pHostPort,
+        final LatestValues pProcessValues,
+        final LatestValues pRankValues,
+        final List<LatestValues> pDiskValues,
+        final ProcessTrends pTrends)
+    {
+        long diskSpaceUsed = 0;
+        long diskSpaceFree = 0;
+        for (final LatestValues diskValues : pDiskValues) {
+            diskSpaceUsed += (long) diskValues.get("DISK_PARTITION_SPACE_USED", 0);
+            diskSpaceFree += (long) diskValues.get("DISK_PARTITION_SPACE_FREE", 0);
+        }
+
+        DataPoint connections = pProcessValues.get("CONNECTIONS");
+        if (connections == null && pRankValues != null) {
+            connections = pRankValues.get("CONNECTIONS");
+        }
+        return new ProcessStatus(
+            pReplicaSetName,
+            pHostPort,
+            connections != null ? (int) connections.getValue() : null,
+            (long) pProcessValues.get("DB_DATA_SIZE_TOTAL", 0),
+            diskSpaceUsed,
+            diskSpaceFree,
+            pTrends);
+    }
+
+    @FunctionalInterface
+    private interface MeasurementsRequest {
+        Map<String, DataPoint> execute() throws IOException, URISyntaxException;
+    }
+
+    private static class DiskTopology {
+        private final List<String> _partitions;
+        private final Instant _fetchedAt;
+
+        private DiskTopology(final List<String> pPartitions, final Instant pFetchedAt) {
+            _partitions = pPartitions;
+            _fetchedAt = pFetchedAt;
+        }
+    }
+
+    /**
+     * The newest data point seen so far for each metric of one process or partition.
+     */
+    private static class LatestValues {
+        private final Map<String, DataPoint> _latest = new HashMap<>();
+        private Instant _lastTimestamp;
+
+        private synchronized boolean isDue(final Instant pNow) {
+            return _lastTimestamp == null || !pNow.isBefore(_lastTimestamp.plus(NEXT_POINT_DELAY));
+        }
+
+        /**
+         * The start is inclusive, so the last seen minute is fetched again in case it was still being filled.
+         */
+        private synchronized Instant getWindowStart(final Instant pNow) {
+            final Instant lookbackStart = pNow.minus(LOOKBACK);
+            return _lastTimestamp == null || _lastTimestamp.isBefore(lookbackStart) ? lookbackStart : _lastTimestamp;
+        }
+
+        private synchronized void merge(final Map<String, DataPoint> pDataPoints) {
+            pDataPoints.forEach((name, dataPoint) -> {
+                final DataPoint current = _latest.get(name);
+                if (current == null || !dataPoint.getTimestamp().isBefore(current.getTimestamp())) {
+                    _latest.put(name, dataPoint);
+                }
+                if (_lastTimestamp == null || dataPoint.getTimestamp().isAfter(_lastTimestamp)) {
+                    _lastTimestamp = dataPoint.getTimestamp();
+                }
+            });
+        }
+
+        private synchronized DataPoint get(final String pName) {
+            return _latest.get(pName);
+        }
+
+        private synchronized double get(final String pName, final double pDefault) {
+            final DataPoint dataPoint = _latest.get(pName);
+            return dataPoint != null ? dataPoint.getValue() : pDefault;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.mongodb.atlas.cli.clusters;
+
+
+/**
+ * The newest points of one metric in a fixed capacity ring of primitive arrays, so a refresh that runs for days
+ * holds as much as one that just started.  Points are added in time order: a point with the newest timestamp
+ * replaces it, since the last minute is fetched again while it is being filled, and older points are ignored.
+ *
+ * <p>Not thread safe.</p>
+ */
+class TrendRing {
+
+    private static final char[] BARS = {
+        '\u2581', '\u2582', '\u2583', '\u2584', '\u2585', '\u2586', '\u2587', '\u2588'
+    };
+
+    private final long[] _epochSeconds;
+    private final double[] _values;
+
+    // slot of the next point
+    private int _next;
+    private int _size;
+
+    TrendRing(final int pCapacity) {
+        _epochSeconds = new long[pCapacity];
+        _values = new double[pCapacity];
+    }
+
+    void add(final long pEpochSecond, final double pValue) {
+        if (_size > 0) {
+            final int newest = getSlot(_size - 1);
+            if (pEpochSecond == _epochSeconds[newest]) {
+                _values[newest] = pValue;
+                return;
+            } else if (pEpochSecond < _epochSeconds[newest]) {
+                return;
+            }
+        }
+
+        _epochSeconds[_next] = pEpochSecond;
+        _values[_next] = pValue;
+        _next = (_next + 1) % _values.length;
+        if (_size < _values.length) {
+            _size++;
+        }
+    }
+
+    int size() {
+        return _size;
+    }
+
+    /**
+     * @param pIndex 0 for the oldest point
+     */
+    long getEpochSecond(final int pIndex) {
+        return _epochSeconds[getSlot(pIndex)];
+    }
+
+    double getValue(final int pIndex) {
+        return _values[getSlot(pIndex)];
+    }
+
+    /**
+     * @return the newest value, or NaN when the ring is empty
+     */
+    double getLatest() {
+        return _size > 0 ? getValue(_size - 1) : Double.NaN;
+    }
+
+    /**
+     * @return the value at the given time, or NaN when there is no such point
+     */
+    double getValueAt(final long pEpochSecond) {
+        for (int i = _size - 1; i >= 0; i--) {
+            final long epochSecond = getEpochSecond(i);
+            if (epochSecond == pEpochSecond) {
+                return getValue(i);
+            } else if (epochSecond < pEpochSecond) {
+                break;
+            }
+        }
+        return Double.NaN;
+    }
+
+    /**
+     * @return the change per minute from the point {@code pSpan} points before the newest one, or from the oldest
+     * point if there are fewer; NaN with fewer than two points
+     */
+    double getRatePerMinute(final int pSpan) {
+        if (_size < 2) {
+            return Double.NaN;
+        }
+
+        final int from = Math.max(0, _size - 1 - pSpan);
+        final long seconds = getEpochSecond(_size - 1) - getEpochSecond(from);
+        return (getValue(_size - 1) - getValue(from)) * 60 / seconds;
+    }
+
+    /**
+     * @return one bar per point, oldest first, scaled between the smallest and largest value of the ring
+     */
+    String toSparkline() {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < _size; i++) {
+            min = Math.min(min, getValue(i));
+            max = Math.max(max, getValue(i));
+        }
+
+        final char[] bars = new char[_size];
+        for (int i = 0; i < _size; i++) {
+            bars[i] = max > min
+                ? BARS[(int) Math.round((getValue(i) - min) / (max - min) * (BARS.length - 1))]
+                : BARS[0];
+        }
+        return new String(bars);
+    }
+
+    private int getSlot(final int pIndex) {
+        return (_next - _size + pIndex + _values.length) % _values.length;
+    }
+}
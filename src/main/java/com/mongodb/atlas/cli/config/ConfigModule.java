@@ -1,5 +1,6 @@
 package com.mongodb.atlas.cli.config;
 
+import com.mongodb.atlas.cli.AtlasConfig;
 import com.mongodb.atlas.cli.CliModule;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.ParseException;
@@ -24,6 +25,7 @@ public class ConfigModule extends CliModule {
         try (FileWriter fw = new FileWriter(getConfigFile())) {
             properties.store(fw, null);
         }
+        AtlasConfig.reload();
 
         System.out.println("Configuration saved successfully.");
     }
@@ -0,0 +1,260 @@
+package com.mongodb.atlas.cli.daemon;
+
+import com.mongodb.atlas.cli.AtlasCliApp;
+import com.mongodb.atlas.cli.AtlasConfig;
+import com.mongodb.atlas.cli.CliModule;
+import com.mongodb.atlas.cli.util.ConcurrencyUtil;
+import com.mongodb.atlas.cli.util.ThreadLocalOutput;
+import com.mongodb.atlas.cli.util.WorkingDirectory;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Keeps a warm JVM listening on a loopback socket so that repeated CLI invocations skip JVM startup and reuse the
+ * pooled HTTP client and caches.  The port and an access token are published in {@code ~/.atlas-daemon}; the
+ * launcher script forwards argv to the daemon when that file is present and runs in-process otherwise.
+ *
+ * <p>Protocol: the client sends the token, its working directory, the argument count and one argument per line;
+ * relative paths in the arguments resolve against that directory.  The daemon answers with
+ * output frames ({@code o}/{@code O} for stdout lines/fragments, {@code e}/{@code E} for stderr) and a final
+ * {@code x<exit code>} frame.  Closing the connection interrupts the command.</p>
+ */
+public class DaemonModule extends CliModule {
+
+    private static final int TOKEN_BYTES = 16;
+
+    public DaemonModule(final String[] pArgs) {
+        super(pArgs);
+    }
+
+    @Override
+    protected Options buildOptions() {
+        // forwarded commands carry their own identity, so the daemon itself needs none
+        final Options options = new Options();
+
+        options.addOption(Option.builder("port")
+            .argName("Port")
+            .longOpt("port")
+            .hasArg(true)
+            .desc("Loopback port to listen on.  Defaults to an ephemeral port.")
+            .build());
+
+        return options;
+    }
+
+    @Override
+    protected void _execute(final CommandLine pCommandLine) throws IOException, ParseException, URISyntaxException {
+        if (pCommandLine.getArgs().length > 0 && pCommandLine.getArgs()[0].equals("stop")) {
+            stop();
+            return;
+        }
+
+        final String portOptionValue = pCommandLine.getOptionValue("port");
+        final int port;
+        try {
+            port = portOptionValue != null ? Integer.parseInt(portOptionValue) : 0;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("Invalid port specified: %s", portOptionValue));
+        }
+
+        serve(port);
+    }
+
+    static File getDaemonFile() {
+        return new File(System.getProperty("user.home"), ".atlas-daemon");
+    }
+
+    private void serve(final int pPort) throws IOException {
+        final File daemonFile = getDaemonFile();
+        if (daemonFile.exists()) {
+            throw new IllegalStateException(String.format(
+                "A daemon is already registered in %s.  Run atlas daemon stop or remove the file.",
+                daemonFile));
+        }
+
+        final ServerSocket serverSocket = new ServerSocket(pPort, 50, InetAddress.getLoopbackAddress());
+        final String token = newToken();
+        writeDaemonFile(daemonFile, serverSocket.getLocalPort(), token);
+        Runtime.getRuntime().addShutdownHook(new Thread(daemonFile::delete));
+
+        // forwarded output is framed as UTF-8, see FramedOutputStream
+        ThreadLocalOutput.install(StandardCharsets.UTF_8);
+        System.out.println(String.format("Atlas daemon listening on 127.0.0.1:%d", serverSocket.getLocalPort()));
+
+        final ExecutorService handlers = ConcurrencyUtil.newDaemonCachedPool("daemon");
+        try {
+            while (!serverSocket.isClosed()) {
+                final Socket socket;
+                try {
+                    socket = serverSocket.accept();
+                } catch (IOException e) {
+                    if (serverSocket.isClosed()) {
+                        break;
+                    }
+                    throw e;
+                }
+                handlers.execute(() -> handle(socket, token, serverSocket));
+            }
+        } finally {
+            handlers.shutdownNow();
+            daemonFile.delete();
+        }
+        System.out.println("Atlas daemon stopped.");
+    }
+
+    private void handle(final Socket pSocket, final String pToken, final ServerSocket pServerSocket) {
+        try (Socket socket = pSocket) {
+            final BufferedReader in =
+                new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            final Writer out =
+                new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+
+            if (!pToken.equals(in.readLine())) {
+                return;
+            }
+
+            final String directoryLine = in.readLine();
+            if (directoryLine == null || !Paths.get(directoryLine).isAbsolute()) {
+                return;
+            }
+            final Path directory = Paths.get(directoryLine);
+
+            final String[] args = new String[Integer.parseInt(in.readLine())];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = in.readLine();
+            }
+
+            if (args.length == 2 && args[0].equals("daemon") && args[1].equals("stop")) {
+                writeExit(out, 0);
+                pServerSocket.close();
+                return;
+            }
+
+            writeExit(out, execute(directory, args, in, out));
+        } catch (IOException | NumberFormatException | InvalidPathException e) {
+            getLogger().debug("Failed to handle daemon request", e);
+        }
+    }
+
+    private int execute(final Path pDirectory, final String[] pArgs, final BufferedReader pIn, final Writer pOut)
+        throws IOException
+    {
+        final FramedOutputStream stdout = new FramedOutputStream(pOut, 'o', 'O');
+        final FramedOutputStream stderr = new FramedOutputStream(pOut, 'e', 'E');
+
+        // the client sends nothing after argv, so end of input means it has gone away; stop long running
+        // commands such as status --refresh when that happens
+        final Thread worker = Thread.currentThread();
+        final AtomicBoolean finished = new AtomicBoolean();
+        final Thread watcher = new Thread(() -> {
+            try {
+                while (pIn.read() != -1) {
+                    // ignore
+                }
+            } catch (IOException e) {
+                // connection reset
+            }
+            synchronized (finished) {
+                if (!finished.get()) {
+                    worker.interrupt();
+                }
+            }
+        }, "daemon-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        // pick up changes made by atlas config, which always runs outside the daemon
+        AtlasConfig.reload();
+        ThreadLocalOutput.redirect(stdout, stderr);
+        WorkingDirectory.set(pDirectory);
+        try {
+            return AtlasCliApp.run(pArgs);
+        } finally {
+            WorkingDirectory.reset();
+            ThreadLocalOutput.reset();
+            synchronized (finished) {
+                finished.set(true);
+            }
+            Thread.interrupted();
+            stdout.flush();
+            stderr.flush();
+        }
+    }
+
+    private static void writeExit(final Writer pOut, final int pExitCode) throws IOException {
+        synchronized (pOut) {
+            pOut.write("x" + pExitCode + "\n");
+            pOut.flush();
+        }
+    }
+
+    private void stop() throws IOException {
+        final File daemonFile = getDaemonFile();
+        if (!daemonFile.exists()) {
+            System.out.println("No daemon is running.");
+            return;
+        }
+
+        final String[] portAndToken;
+        try (BufferedReader reader = Files.newBufferedReader(daemonFile.toPath(), StandardCharsets.UTF_8)) {
+            portAndToken = reader.readLine().trim().split(" ");
+        }
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(portAndToken[0]))) {
+            final Writer out =
+                new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            out.write(portAndToken[1] + "\n2\ndaemon\nstop\n");
+            out.flush();
+            new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+        } catch (IOException e) {
+            // the daemon is gone but left its file behind
+            daemonFile.delete();
+        }
+        System.out.println("Daemon stopped.");
+    }
+
+    private static String newToken() {
+        final byte[] bytes = new byte[TOKEN_BYTES];
+        new SecureRandom().nextBytes(bytes);
+
+        final StringBuilder token = new StringBuilder();
+        for (final byte b : bytes) {
+            token.append(String.format("%02x", b));
+        }
+        return token.toString();
+    }
+
+    private static void writeDaemonFile(final File pDaemonFile, final int pPort, final String pToken)
+        throws IOException
+    {
+        try {
+            Files.createFile(
+                pDaemonFile.toPath(),
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createFile(pDaemonFile.toPath());
+        }
+
+        try (Writer writer = Files.newBufferedWriter(pDaemonFile.toPath(), StandardCharsets.UTF_8)) {
+            writer.write(pPort + " " + pToken + "\n");
+        }
+    }
+}
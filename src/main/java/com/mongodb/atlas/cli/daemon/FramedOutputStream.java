@@ -0,0 +1,96 @@
+package com.mongodb.atlas.cli.daemon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+
+/**
+ * Splits one of a forwarded command's output streams into frames on the shared client connection.  Every
+ * complete line is sent as {@code <lineTag><text>\n}; text still pending when the stream is flushed is sent as
+ * {@code <fragmentTag><text>\n} so the client prints it without a trailing newline.  The command writes UTF-8,
+ * like the connection; a character split across writes is held back from a fragment until it is complete.
+ */
+class FramedOutputStream extends OutputStream {
+
+    private final Writer _connection;
+    private final char _lineTag;
+    private final char _fragmentTag;
+    private final ByteArrayOutputStream _pending = new ByteArrayOutputStream();
+    private final CharsetDecoder _decoder = StandardCharsets.UTF_8.newDecoder()
+        .onMalformedInput(CodingErrorAction.REPLACE)
+        .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    FramedOutputStream(final Writer pConnection, final char pLineTag, final char pFragmentTag) {
+        _connection = pConnection;
+        _lineTag = pLineTag;
+        _fragmentTag = pFragmentTag;
+    }
+
+    @Override
+    public synchronized void write(final int pByte) throws IOException {
+        if (pByte == '\n') {
+            sendPending(_lineTag, true);
+        } else {
+            _pending.write(pByte);
+        }
+    }
+
+    @Override
+    public synchronized void write(final byte[] pBytes, final int pOffset, final int pLength) throws IOException {
+        int start = pOffset;
+        final int end = pOffset + pLength;
+        for (int i = pOffset; i < end; i++) {
+            if (pBytes[i] == '\n') {
+                _pending.write(pBytes, start, i - start);
+                sendPending(_lineTag, true);
+                start = i + 1;
+            }
+        }
+        _pending.write(pBytes, start, end - start);
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        if (_pending.size() > 0) {
+            sendPending(_fragmentTag, false);
+        }
+        synchronized (_connection) {
+            _connection.flush();
+        }
+    }
+
+    /**
+     * @param pEndOfLine whether the pending bytes end a line; otherwise the bytes of an incomplete character at
+     * their end stay pending
+     */
+    private void sendPending(final char pTag, final boolean pEndOfLine) throws IOException {
+        final ByteBuffer bytes = ByteBuffer.wrap(_pending.toByteArray());
+        final CharBuffer text = CharBuffer.allocate(bytes.remaining());
+        _decoder.reset();
+        _decoder.decode(bytes, text, pEndOfLine);
+        if (pEndOfLine) {
+            _decoder.flush(text);
+        }
+        ((Buffer) text).flip();
+
+        _pending.reset();
+        _pending.write(bytes.array(), bytes.position(), bytes.remaining());
+        if (!pEndOfLine && text.length() == 0) {
+            return;
+        }
+
+        synchronized (_connection) {
+            _connection.write(pTag);
+            _connection.append(text);
+            _connection.write('\n');
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.mongodb.atlas.cli.http;
+
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.util.EntityUtils;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Date;
+
+
+/**
+ * A request the API answered with an error status.  The error body is reported, never parsed as results.
+ */
+public class AtlasApiException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int TOO_MANY_REQUESTS = 429;
+
+    private final int _status;
+    private final String _errorCode;
+    private final String _detail;
+    private final long _retryAfterMs;
+
+    public AtlasApiException(
+        final URI pURI,
+        final int pStatus,
+        final String pErrorCode,
+        final String pDetail,
+        final long pRetryAfterMs)
+    {
+        super(String.format(
+            "%s returned %d%s%s",
+            pURI.getPath(),
+            pStatus,
+            pErrorCode != null ? " " + pErrorCode : "",
+            pDetail != null ? ": " + pDetail : ""));
+        _status = pStatus;
+        _errorCode = pErrorCode;
+        _detail = pDetail;
+        _retryAfterMs = pRetryAfterMs;
+    }
+
+    /**
+     * Reads the error from a response whose status is not 2xx; the response body is consumed.
+     */
+    static AtlasApiException fromResponse(final URI pURI, final HttpResponse pResponse) throws IOException {
+        final String body = pResponse.getEntity() != null ? EntityUtils.toString(pResponse.getEntity()) : "";
+        return fromBody(
+            pURI,
+            pResponse.getStatusLine().getStatusCode(),
+            body,
+            pResponse.getStatusLine().getReasonPhrase(),
+            getRetryAfterMs(pResponse));
+    }
+
+    /**
+     * Reads the {@code errorCode} and {@code detail} of an error body; a body that is not JSON is not reported.
+     */
+    static AtlasApiException fromBody(
+        final URI pURI,
+        final int pStatus,
+        final String pBody,
+        final String pReasonPhrase,
+        final long pRetryAfterMs)
+    {
+        String errorCode = null;
+        String detail = null;
+        try {
+            final JSONObject error = new JSONObject(pBody);
+            errorCode = error.optString("errorCode", null);
+            detail = error.optString("detail", null);
+        } catch (JSONException e) {
+            detail = pBody.isEmpty() ? pReasonPhrase : null;
+        }
+
+        return new AtlasApiException(pURI, pStatus, errorCode, detail, pRetryAfterMs);
+    }
+
+    /**
+     * @return the delay requested by a {@code Retry-After} header in seconds or as an HTTP date, or -1 if none
+     */
+    private static long getRetryAfterMs(final HttpResponse pResponse) {
+        final Header header = pResponse.getFirstHeader(HttpHeaders.RETRY_AFTER);
+        if (header == null) {
+            return -1;
+        }
+
+        try {
+            return Math.max(0, Long.parseLong(header.getValue().trim()) * 1000);
+        } catch (NumberFormatException e) {
+            final Date date = DateUtils.parseDate(header.getValue());
+            return date != null ? Math.max(0, date.getTime() - System.currentTimeMillis()) : -1;
+        }
+    }
+
+    static boolean isSuccess(final int pStatus) {
+        return pStatus >= 200 && pStatus < 300;
+    }
+
+    public int getStatus() {
+        return _status;
+    }
+
+    public String getErrorCode() {
+        return _errorCode;
+    }
+
+    public String getDetail() {
+        return _detail;
+    }
+
+    /**
+     * @return the delay in milliseconds the API asked for before retrying, or -1 if it did not say
+     */
+    public long getRetryAfterMs() {
+        return _retryAfterMs;
+    }
+
+    public boolean isThrottled() {
+        return _status == TOO_MANY_REQUESTS;
+    }
+
+    /**
+     * @return true for errors a later identical request may not get, i.e. throttling and server errors
+     */
+    public boolean isTransient() {
+        return isThrottled() || _status >= 500;
+    }
+}
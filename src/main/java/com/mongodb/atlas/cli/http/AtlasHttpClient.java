@@ -0,0 +1,483 @@
+package com.mongodb.atlas.cli.http;
+
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.ResponseParser;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.UsernamePasswordCredentials;
+import org.apache.http.client.AuthCache;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpPost;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.config.SocketConfig;
+import org.apache.http.entity.HttpEntityWrapper;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.*;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpRequestExecutor;
+import org.apache.http.util.EntityUtils;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * One pooled, keep-alive HTTP client per process.  Connections are shared by every module in the dispatch chain
+ * and the digest auth state negotiated on the first request is cached per identity, so subsequent requests
+ * authenticate preemptively instead of paying for another 401 challenge.  Every request is timed into
+ * {@link RequestMetrics} and, when Flight Recorder is recording, an {@link HttpRequestEvent}.
+ */
+public class AtlasHttpClient implements Closeable {
+
+    private static final Logger _logger = LoggerFactory.getLogger(AtlasHttpClient.class);
+
+    private static final int MAX_CONNECTIONS = Integer.getInteger("atlas.http.maxConnections", 64);
+    private static final int MAX_CONNECTIONS_PER_ROUTE = Integer.getInteger("atlas.http.maxConnectionsPerRoute", 32);
+    private static final long DEFAULT_KEEP_ALIVE_MS = Long.getLong("atlas.http.keepAliveMs", 30000L);
+    private static final int VALIDATE_AFTER_INACTIVITY_MS = 2000;
+
+    // the client lives as long as a daemon or exporter, so a stalled connection must not hold a pool slot forever
+    private static final int CONNECT_TIMEOUT_MS = Integer.getInteger("atlas.http.connectTimeoutMs", 10000);
+    private static final int SOCKET_TIMEOUT_MS = Integer.getInteger("atlas.http.socketTimeoutMs", 60000);
+    private static final int CONNECTION_REQUEST_TIMEOUT_MS =
+        Integer.getInteger("atlas.http.connectionRequestTimeoutMs", 60000);
+
+    private static AtlasHttpClient _instance;
+
+    private final PoolingHttpClientConnectionManager _connectionManager;
+    private final CloseableHttpClient _httpClient;
+    private final HttpClientStats _stats = new HttpClientStats();
+    private final RequestMetrics _metrics = new RequestMetrics();
+    private final ConcurrentMap<String, AuthContext> _authContexts = new ConcurrentHashMap<>();
+    private final AtomicBoolean _firstRequestSent = new AtomicBoolean();
+
+    private AtlasHttpClient() {
+        this(CONNECT_TIMEOUT_MS, SOCKET_TIMEOUT_MS, CONNECTION_REQUEST_TIMEOUT_MS);
+    }
+
+    /**
+     * @param pSocketTimeoutMs the longest wait for the next bytes of a response
+     * @param pConnectionRequestTimeoutMs the longest wait for a free connection of the pool
+     */
+    AtlasHttpClient(final int pConnectTimeoutMs, final int pSocketTimeoutMs, final int pConnectionRequestTimeoutMs) {
+        final HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> connectionFactory = (route, config) -> {
+            _stats.recordConnectionOpened();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        };
+
+        _connectionManager = new PoolingHttpClientConnectionManager(
+            RegistryBuilder.<ConnectionSocketFactory>create()
+                .register("http", new TimedSocketFactory(PlainConnectionSocketFactory.getSocketFactory()))
+                .register("https", new TimedLayeredSocketFactory(SSLConnectionSocketFactory.getSocketFactory()))
+                .build(),
+            connectionFactory);
+        _connectionManager.setMaxTotal(MAX_CONNECTIONS);
+        _connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        _connectionManager.setValidateAfterInactivity(VALIDATE_AFTER_INACTIVITY_MS);
+        _connectionManager.setDefaultSocketConfig(SocketConfig.custom().setSoTimeout(pSocketTimeoutMs).build());
+
+        _httpClient = HttpClients.custom()
+            .setConnectionManager(_connectionManager)
+            .setKeepAliveStrategy(new KeepAliveStrategy())
+            .setTargetAuthenticationStrategy(new CountingAuthenticationStrategy())
+            .setRequestExecutor(new TimedRequestExecutor())
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setConnectTimeout(pConnectTimeoutMs)
+                .setSocketTimeout(pSocketTimeoutMs)
+                .setConnectionRequestTimeout(pConnectionRequestTimeoutMs)
+                .build())
+            .build();
+    }
+
+    public static synchronized AtlasHttpClient getInstance() {
+        if (_instance == null) {
+            _instance = new AtlasHttpClient();
+            CloseOnShutdown.register();
+        }
+        return _instance;
+    }
+
+    /**
+     * Registers the hook that closes the shared client on its first use only, however often daemon or batch mode
+     * re-creates the client after {@link #closeInstance()}.  Closing from a hook means commands that never send a
+     * request do not load the client at all.
+     */
+    private static class CloseOnShutdown {
+
+        static {
+            Runtime.getRuntime().addShutdownHook(new Thread(AtlasHttpClient::closeInstance, "http-client-close"));
+        }
+
+        static void register() {
+            // the static initializer above runs once, on the first call
+        }
+    }
+
+    public static synchronized void closeInstance() {
+        if (_instance == null) {
+            return;
+        }
+        try {
+            _instance.close();
+        } catch (IOException e) {
+            _logger.debug("Failed to close the shared HTTP client", e);
+        }
+        _instance = null;
+    }
+
+    public HttpClientStats getStats() {
+        return _stats;
+    }
+
+    public RequestMetrics getMetrics() {
+        return _metrics;
+    }
+
+    /**
+     * Executes the request over the shared connection pool.  The caller must close the returned response so that
+     * its connection is released back to the pool.
+     */
+    public CloseableHttpResponse execute(final Identity pIdentity, final HttpUriRequest pRequest) throws IOException {
+        // scripts/bench-startup.sh enables this logger to measure the time to first request
+        if (_logger.isDebugEnabled() && _firstRequestSent.compareAndSet(false, true)) {
+            _logger.debug("First request sent at {} ms since the epoch", System.currentTimeMillis());
+        }
+        _stats.recordRequest();
+
+        final RequestTiming timing = new RequestTiming(
+            pRequest.getMethod(),
+            RequestMetrics.toEndpoint(pRequest.getMethod(), pRequest.getURI()),
+            pRequest.getURI().toString(),
+            pIdentity.getGroupId());
+        final HttpClientContext context = getAuthContext(pIdentity).newContext();
+        context.setAttribute(RequestTiming.CONTEXT_ATTRIBUTE, timing);
+
+        final CloseableHttpResponse response;
+        try {
+            response = _httpClient.execute(pRequest, context);
+        } catch (IOException | RuntimeException e) {
+            complete(timing, 0);
+            throw e;
+        }
+
+        // the request is complete once its body has been read, which the caller does after this returns
+        final HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            complete(timing, 0);
+        } else {
+            response.setEntity(new TimedEntity(entity, timing));
+        }
+        return response;
+    }
+
+    private void complete(final RequestTiming pTiming, final long pBytesIn) {
+        if (!pTiming.complete(pBytesIn)) {
+            return;
+        }
+        _metrics.record(pTiming);
+        if (_logger.isDebugEnabled()) {
+            _logger.debug(
+                "{} {} -> {} in {}ms ({} bytes)",
+                pTiming.getMethod(),
+                pTiming.getUri(),
+                pTiming.getStatus(),
+                pTiming.getTotalNanos() / 1_000_000,
+                pTiming.getBytesIn());
+        }
+    }
+
+    private static RequestTiming getTiming(final HttpContext pContext) {
+        return (RequestTiming) pContext.getAttribute(RequestTiming.CONTEXT_ATTRIBUTE);
+    }
+
+    /**
+     * @throws AtlasApiException if the API answers with an error status
+     */
+    public <T> T getResults(final Identity pIdentity, final URI pURI, final ResponseParser<T> pParser)
+        throws IOException
+    {
+        final HttpGet httpGet = new HttpGet(pURI);
+        try (CloseableHttpResponse response = execute(pIdentity, httpGet)) {
+            if (!AtlasApiException.isSuccess(response.getStatusLine().getStatusCode())) {
+                throw AtlasApiException.fromResponse(pURI, response);
+            }
+            try (InputStream content = response.getEntity().getContent()) {
+                return pParser.parse(content);
+            }
+        }
+    }
+
+    /**
+     * @throws AtlasApiException if the API answers with an error status
+     */
+    public JSONObject postResults(final Identity pIdentity, final URI pURI, final JSONObject pRequestBody)
+        throws IOException
+    {
+        final HttpPost httpPost = new HttpPost(pURI);
+
+        httpPost.setEntity(new StringEntity(pRequestBody.toString()));
+        try (CloseableHttpResponse response = execute(pIdentity, httpPost)) {
+            if (!AtlasApiException.isSuccess(response.getStatusLine().getStatusCode())) {
+                throw AtlasApiException.fromResponse(pURI, response);
+            }
+            return new JSONObject(EntityUtils.toString(response.getEntity()));
+        }
+    }
+
+    private AuthContext getAuthContext(final Identity pIdentity) {
+        return _authContexts.computeIfAbsent(
+            pIdentity.getUsername() + ":" + pIdentity.getApiKey(),
+            k -> new AuthContext(pIdentity));
+    }
+
+    @Override
+    public void close() throws IOException {
+        _logger.debug("HTTP client stats: {}", _stats);
+        _httpClient.close();
+    }
+
+    /**
+     * Credentials and digest auth cache for one identity.  {@link HttpClientContext} itself is not thread safe, so
+     * a fresh context is handed out per request while the auth cache behind it is shared.
+     */
+    private static class AuthContext {
+        private final CredentialsProvider _credentialsProvider = new BasicCredentialsProvider();
+        private final AuthCache _authCache = new BasicAuthCache();
+
+        private AuthContext(final Identity pIdentity) {
+            _credentialsProvider.setCredentials(
+                AuthScope.ANY,
+                new UsernamePasswordCredentials(pIdentity.getUsername(), pIdentity.getApiKey()));
+        }
+
+        private HttpClientContext newContext() {
+            final HttpClientContext context = HttpClientContext.create();
+            context.setCredentialsProvider(_credentialsProvider);
+            context.setAuthCache(_authCache);
+            return context;
+        }
+    }
+
+    private class CountingAuthenticationStrategy extends TargetAuthenticationStrategy {
+        @Override
+        public boolean isAuthenticationRequested(
+            final HttpHost pAuthHost,
+            final HttpResponse pResponse,
+            final HttpContext pContext)
+        {
+            final boolean requested = super.isAuthenticationRequested(pAuthHost, pResponse, pContext);
+            if (requested) {
+                _stats.recordAuthChallenge();
+            }
+            return requested;
+        }
+    }
+
+    /**
+     * Adds the time to open a connection, including the TLS handshake, to the request that needed it.
+     */
+    private static class TimedSocketFactory implements ConnectionSocketFactory {
+        private final ConnectionSocketFactory _delegate;
+
+        private TimedSocketFactory(final ConnectionSocketFactory pDelegate) {
+            _delegate = pDelegate;
+        }
+
+        @Override
+        public Socket createSocket(final HttpContext pContext) throws IOException {
+            return _delegate.createSocket(pContext);
+        }
+
+        @Override
+        public Socket connectSocket(
+            final int pConnectTimeout,
+            final Socket pSocket,
+            final HttpHost pHost,
+            final InetSocketAddress pRemoteAddress,
+            final InetSocketAddress pLocalAddress,
+            final HttpContext pContext) throws IOException
+        {
+            final long start = System.nanoTime();
+            try {
+                return _delegate.connectSocket(
+                    pConnectTimeout,
+                    pSocket,
+                    pHost,
+                    pRemoteAddress,
+                    pLocalAddress,
+                    pContext);
+            } finally {
+                final RequestTiming timing = getTiming(pContext);
+                if (timing != null) {
+                    timing.addConnectNanos(System.nanoTime() - start);
+                }
+            }
+        }
+    }
+
+    private static class TimedLayeredSocketFactory extends TimedSocketFactory
+        implements LayeredConnectionSocketFactory
+    {
+        private final LayeredConnectionSocketFactory _layeredDelegate;
+
+        private TimedLayeredSocketFactory(final LayeredConnectionSocketFactory pDelegate) {
+            super(pDelegate);
+            _layeredDelegate = pDelegate;
+        }
+
+        @Override
+        public Socket createLayeredSocket(
+            final Socket pSocket,
+            final String pTarget,
+            final int pPort,
+            final HttpContext pContext) throws IOException
+        {
+            return _layeredDelegate.createLayeredSocket(pSocket, pTarget, pPort, pContext);
+        }
+    }
+
+    /**
+     * Records the bytes sent and when the response headers arrived for every exchange of a request.
+     */
+    private static class TimedRequestExecutor extends HttpRequestExecutor {
+        @Override
+        public HttpResponse execute(
+            final HttpRequest pRequest,
+            final HttpClientConnection pConnection,
+            final HttpContext pContext) throws IOException, HttpException
+        {
+            final RequestTiming timing = getTiming(pContext);
+            final long sentBefore = pConnection.getMetrics().getSentBytesCount();
+            try {
+                final HttpResponse response = super.execute(pRequest, pConnection, pContext);
+                if (timing != null) {
+                    timing.responseReceived(response.getStatusLine().getStatusCode());
+                }
+                return response;
+            } finally {
+                if (timing != null) {
+                    timing.addBytesOut(pConnection.getMetrics().getSentBytesCount() - sentBefore);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts the body as it is read and completes the request's timing at the end of the body or when the stream
+     * is closed, whichever comes first.
+     */
+    private class TimedEntity extends HttpEntityWrapper {
+        private final RequestTiming _timing;
+        private InputStream _content;
+
+        private TimedEntity(final HttpEntity pEntity, final RequestTiming pTiming) {
+            super(pEntity);
+            _timing = pTiming;
+        }
+
+        @Override
+        public synchronized InputStream getContent() throws IOException {
+            if (_content == null) {
+                _content = new CountingInputStream(super.getContent());
+            }
+            return _content;
+        }
+
+        @Override
+        public void writeTo(final OutputStream pOut) throws IOException {
+            try (InputStream in = getContent()) {
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    pOut.write(buffer, 0, read);
+                }
+            }
+        }
+
+        private class CountingInputStream extends FilterInputStream {
+            private long _count;
+
+            private CountingInputStream(final InputStream pIn) {
+                super(pIn);
+            }
+
+            @Override
+            public int read() throws IOException {
+                final int b = super.read();
+                if (b == -1) {
+                    complete(_timing, _count);
+                } else {
+                    _count++;
+                }
+                return b;
+            }
+
+            @Override
+            public int read(final byte[] pBuffer, final int pOffset, final int pLength) throws IOException {
+                final int read = super.read(pBuffer, pOffset, pLength);
+                if (read == -1) {
+                    complete(_timing, _count);
+                } else {
+                    _count += read;
+                }
+                return read;
+            }
+
+            @Override
+            public long skip(final long pCount) throws IOException {
+                final long skipped = super.skip(pCount);
+                _count += skipped;
+                return skipped;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    complete(_timing, _count);
+                }
+            }
+        }
+    }
+
+    private static class KeepAliveStrategy implements ConnectionKeepAliveStrategy {
+        @Override
+        public long getKeepAliveDuration(final HttpResponse pResponse, final HttpContext pContext) {
+            final long duration = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(pResponse, pContext);
+            return duration > 0 ? duration : DEFAULT_KEEP_ALIVE_MS;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.mongodb.atlas.cli.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Process-wide counters for the shared HTTP client.  Every request that reuses a pooled connection saves a
+ * TCP/TLS handshake, and every request that is answered without a 401 saves a digest challenge round trip.
+ */
+public class HttpClientStats {
+
+    private final AtomicLong _requests = new AtomicLong();
+    private final AtomicLong _connectionsOpened = new AtomicLong();
+    private final AtomicLong _authChallenges = new AtomicLong();
+
+    void recordRequest() {
+        _requests.incrementAndGet();
+    }
+
+    void recordConnectionOpened() {
+        _connectionsOpened.incrementAndGet();
+    }
+
+    void recordAuthChallenge() {
+        _authChallenges.incrementAndGet();
+    }
+
+    public long getRequests() {
+        return _requests.get();
+    }
+
+    public long getConnectionsOpened() {
+        return _connectionsOpened.get();
+    }
+
+    public long getAuthChallenges() {
+        return _authChallenges.get();
+    }
+
+    public long getHandshakesAvoided() {
+        return Math.max(0, getRequests() - getConnectionsOpened());
+    }
+
+    public long getAuthChallengesAvoided() {
+        return Math.max(0, getRequests() - getAuthChallenges());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "requests=%d, connectionsOpened=%d, handshakesAvoided=%d, authChallenges=%d, authChallengesAvoided=%d",
+            getRequests(),
+            getConnectionsOpened(),
+            getHandshakesAvoided(),
+            getAuthChallenges(),
+            getAuthChallengesAvoided());
+    }
+}
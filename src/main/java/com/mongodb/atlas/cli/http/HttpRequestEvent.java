@@ -0,0 +1,75 @@
+package com.mongodb.atlas.cli.http;
+
+import jdk.jfr.*;
+
+
+/**
+ * Flight Recorder event spanning one Atlas API request.  In a recording of {@code clusters status} the events of
+ * the worker threads show the fan-out timeline; record one with
+ * {@code java_args="-XX:StartFlightRecording=filename=atlas.jfr" atlas clusters status}.
+ */
+@Name("com.mongodb.atlas.cli.HttpRequest")
+@Label("Atlas API Request")
+@Category({"Atlas CLI", "HTTP"})
+@StackTrace(false)
+class HttpRequestEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("URI")
+    String uri;
+
+    @Label("Group ID")
+    String groupId;
+
+    @Label("Status")
+    @Description("HTTP status, 0 if no response was received")
+    int status;
+
+    @Label("Connect")
+    @Timespan
+    long connect;
+
+    @Label("Time To First Byte")
+    @Timespan
+    long timeToFirstByte;
+
+    @Label("Bytes Out")
+    @DataAmount
+    long bytesOut;
+
+    @Label("Bytes In")
+    @DataAmount
+    long bytesIn;
+
+    static Object beginIfEnabled() {
+        final HttpRequestEvent event = new HttpRequestEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    static void commit(final Object pEvent, final RequestTiming pTiming) {
+        final HttpRequestEvent event = (HttpRequestEvent) pEvent;
+        event.end();
+        if (!event.shouldCommit()) {
+            return;
+        }
+        event.method = pTiming.getMethod();
+        event.endpoint = pTiming.getEndpoint();
+        event.uri = pTiming.getUri();
+        event.groupId = pTiming.getGroupId();
+        event.status = pTiming.getStatus();
+        event.connect = pTiming.getConnectNanos();
+        event.timeToFirstByte = pTiming.getFirstByteNanos();
+        event.bytesOut = pTiming.getBytesOut();
+        event.bytesIn = pTiming.getBytesIn();
+        event.commit();
+    }
+}
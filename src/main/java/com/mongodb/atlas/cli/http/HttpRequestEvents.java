@@ -0,0 +1,75 @@
+package com.mongodb.atlas.cli.http;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+
+/**
+ * Emits an {@link HttpRequestEvent} per request when the JVM has Flight Recorder and a recording enables it.  The
+ * event class is only reached through method handles bound once JFR is known to be present: the client still runs
+ * on JVMs without it, and the rest of the code compiles with {@code --release 8}, which has no {@code jdk.jfr}.
+ */
+class HttpRequestEvents {
+
+    private static final MethodHandle BEGIN;
+    private static final MethodHandle COMMIT;
+
+    static {
+        MethodHandle begin = null;
+        MethodHandle commit = null;
+        try {
+            Class.forName("jdk.jfr.Event", false, HttpRequestEvents.class.getClassLoader());
+            final Class<?> event = Class.forName(
+                HttpRequestEvents.class.getPackage().getName() + ".HttpRequestEvent",
+                true,
+                HttpRequestEvents.class.getClassLoader());
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            begin = lookup.findStatic(event, "beginIfEnabled", MethodType.methodType(Object.class));
+            commit = lookup.findStatic(
+                event,
+                "commit",
+                MethodType.methodType(void.class, Object.class, RequestTiming.class));
+        } catch (ReflectiveOperationException | LinkageError e) {
+            begin = null;
+            commit = null;
+        }
+        BEGIN = begin;
+        COMMIT = commit;
+    }
+
+    /**
+     * @return whether Flight Recorder events can be emitted on this JVM
+     */
+    static boolean isAvailable() {
+        return BEGIN != null;
+    }
+
+    /**
+     * @return the started event, or null if no recording wants it
+     */
+    static Object begin() {
+        if (BEGIN == null) {
+            return null;
+        }
+        try {
+            return (Object) BEGIN.invokeExact();
+        } catch (final RuntimeException | Error e) {
+            throw e;
+        } catch (final Throwable t) {
+            throw new IllegalStateException(t);
+        }
+    }
+
+    static void commit(final Object pEvent, final RequestTiming pTiming) {
+        if (pEvent != null) {
+            try {
+                COMMIT.invokeExact(pEvent, pTiming);
+            } catch (final RuntimeException | Error e) {
+                throw e;
+            } catch (final Throwable t) {
+                throw new IllegalStateException(t);
+            }
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.mongodb.atlas.cli.http;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+
+/**
+ * Lock-free log-linear histogram of durations in microseconds.  Every power of two is split into eight buckets,
+ * so a percentile is reported to within 12.5% of the recorded value with a fixed 4KB footprint and one atomic
+ * increment per sample.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong _count = new AtomicLong();
+
+    public void recordNanos(final long pNanos) {
+        _counts.incrementAndGet(indexOf(Math.max(0, pNanos / 1000)));
+        _count.incrementAndGet();
+    }
+
+    public long getCount() {
+        return _count.get();
+    }
+
+    /**
+     * @param pPercentile between 0 and 100
+     * @return the upper bound in microseconds of the bucket holding the percentile, or 0 if nothing was recorded
+     */
+    public long getPercentileMicros(final double pPercentile) {
+        final long count = getCount();
+        if (count == 0) {
+            return 0;
+        }
+
+        final long rank = Math.max(1, (long) Math.ceil(pPercentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += _counts.get(i);
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    LatencyHistogram copy() {
+        final LatencyHistogram copy = new LatencyHistogram();
+        copy.add(this, 1);
+        return copy;
+    }
+
+    /**
+     * @return the samples recorded here but not in {@code pEarlier}, an earlier {@link #copy} of this histogram
+     */
+    LatencyHistogram minus(final LatencyHistogram pEarlier) {
+        final LatencyHistogram difference = copy();
+        difference.add(pEarlier, -1);
+        return difference;
+    }
+
+    private void add(final LatencyHistogram pOther, final int pSign) {
+        for (int i = 0; i < BUCKETS; i++) {
+            final long count = pOther._counts.get(i);
+            if (count != 0) {
+                _counts.addAndGet(i, pSign * count);
+                _count.addAndGet(pSign * count);
+            }
+        }
+    }
+
+    static int indexOf(final long pValue) {
+        if (pValue < SUB_BUCKETS) {
+            return (int) pValue;
+        }
+        final int exponent = 63 - Long.numberOfLeadingZeros(pValue);
+        final int subBucket = (int) (pValue >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long lowerBound(final int pIndex) {
+        if (pIndex < SUB_BUCKETS) {
+            return pIndex;
+        }
+        final int exponent = pIndex / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        return (long) (SUB_BUCKETS + pIndex % SUB_BUCKETS) << (exponent - SUB_BUCKET_BITS);
+    }
+
+    static long upperBound(final int pIndex) {
+        return pIndex == BUCKETS - 1 ? Long.MAX_VALUE : lowerBound(pIndex + 1) - 1;
+    }
+}
@@ -0,0 +1,79 @@
+package com.mongodb.atlas.cli.http;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Single-flight coalescing of identical GETs.  While a request is in flight, callers asking for the same key wait
+ * for its outcome instead of sending their own, and all of them get the same result or exception.  Nothing is kept
+ * once the request completes, so a caller never gets a response that was received before it asked.
+ *
+ * <p>The result is shared between the callers and must be treated as read-only.</p>
+ */
+public class RequestCoalescer {
+
+    private static final RequestCoalescer _instance = new RequestCoalescer();
+
+    private final ConcurrentMap<Object, CompletableFuture<Object>> _inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong _coalesced = new AtomicLong();
+
+    public static RequestCoalescer getInstance() {
+        return _instance;
+    }
+
+    /**
+     * @return the number of calls that were answered by another caller's request instead of their own
+     */
+    public long getCoalescedCount() {
+        return _coalesced.get();
+    }
+
+    /**
+     * Runs the request, or joins the one already in flight for an equal key.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(final Object pKey, final RequestScheduler.Request<T> pRequest) throws IOException {
+        final CompletableFuture<Object> flight = new CompletableFuture<>();
+        final CompletableFuture<Object> inFlight = _inFlight.putIfAbsent(pKey, flight);
+        if (inFlight != null) {
+            _coalesced.incrementAndGet();
+            return (T) join(inFlight);
+        }
+
+        try {
+            final T result = pRequest.execute();
+            flight.complete(result);
+            return result;
+        } catch (IOException | RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            _inFlight.remove(pKey, flight);
+        }
+    }
+
+    private static Object join(final CompletableFuture<Object> pFlight) throws IOException {
+        try {
+            return pFlight.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a coalesced request");
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.mongodb.atlas.cli.http;
+
+import java.net.URI;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Request counts, bytes, status codes and latency histograms of the shared HTTP client, per endpoint template
+ * such as {@code GET /groups/{groupId}/processes/{processId}/measurements}.
+ */
+public class RequestMetrics {
+
+    private static final double[] PERCENTILES = {50, 95, 99};
+
+    private final ConcurrentMap<String, EndpointMetrics> _endpoints = new ConcurrentSkipListMap<>();
+
+    void record(final RequestTiming pTiming) {
+        _endpoints.computeIfAbsent(pTiming.getEndpoint(), k -> new EndpointMetrics()).record(pTiming);
+    }
+
+    public Collection<String> getEndpoints() {
+        return _endpoints.keySet();
+    }
+
+    public EndpointMetrics getEndpoint(final String pEndpoint) {
+        return _endpoints.get(pEndpoint);
+    }
+
+    public RequestMetrics snapshot() {
+        final RequestMetrics snapshot = new RequestMetrics();
+        for (final Map.Entry<String, EndpointMetrics> entry : _endpoints.entrySet()) {
+            snapshot._endpoints.put(entry.getKey(), entry.getValue().copy());
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return the requests recorded since {@code pEarlier}, a {@link #snapshot} of this instance
+     */
+    public RequestMetrics since(final RequestMetrics pEarlier) {
+        final RequestMetrics difference = new RequestMetrics();
+        for (final Map.Entry<String, EndpointMetrics> entry : _endpoints.entrySet()) {
+            final EndpointMetrics earlier = pEarlier._endpoints.get(entry.getKey());
+            final EndpointMetrics endpoint = earlier != null ? entry.getValue().minus(earlier) : entry.getValue().copy();
+            if (endpoint.getRequests() > 0) {
+                difference._endpoints.put(entry.getKey(), endpoint);
+            }
+        }
+        return difference;
+    }
+
+    /**
+     * @return a multi-line report with the p50/p95/p99 latencies of every endpoint
+     */
+    public String toSummary() {
+        long requests = 0;
+        long bytesIn = 0;
+        long bytesOut = 0;
+        for (final EndpointMetrics endpoint : _endpoints.values()) {
+            requests += endpoint.getRequests();
+            bytesIn += endpoint.getBytesIn();
+            bytesOut += endpoint.getBytesOut();
+        }
+
+        final StringBuilder summary = new StringBuilder();
+        summary.append(String.format(
+            "HTTP requests: %d, %s in, %s out%n",
+            requests,
+            formatBytes(bytesIn),
+            formatBytes(bytesOut)));
+
+        for (final Map.Entry<String, EndpointMetrics> entry : _endpoints.entrySet()) {
+            final EndpointMetrics endpoint = entry.getValue();
+            summary.append(entry.getKey()).append(String.format("%n"));
+
+            final StringBuilder statuses = new StringBuilder();
+            for (final Map.Entry<Integer, AtomicLong> status : endpoint._statuses.entrySet()) {
+                if (status.getValue().get() > 0) {
+                    statuses.append(statuses.length() > 0 ? ", " : "")
+                        .append(status.getKey() == RequestTiming.NO_RESPONSE ? "failed" : status.getKey())
+                        .append(" x")
+                        .append(status.getValue().get());
+                }
+            }
+            summary.append(String.format(
+                "    requests %d [%s], %s in, %s out%n",
+                endpoint.getRequests(),
+                statuses,
+                formatBytes(endpoint.getBytesIn()),
+                formatBytes(endpoint.getBytesOut())));
+
+            appendLatencies(summary, "connect", endpoint.getConnect());
+            appendLatencies(summary, "ttfb", endpoint.getTimeToFirstByte());
+            appendLatencies(summary, "total", endpoint.getTotal());
+        }
+        return summary.toString();
+    }
+
+    private static void appendLatencies(
+        final StringBuilder pSummary,
+        final String pName,
+        final LatencyHistogram pHistogram)
+    {
+        if (pHistogram.getCount() == 0) {
+            return;
+        }
+        pSummary.append(String.format("    %-8s n=%-6d", pName, pHistogram.getCount()));
+        for (final double percentile : PERCENTILES) {
+            pSummary.append(String.format(
+                "  p%.0f %8.1fms",
+                percentile,
+                pHistogram.getPercentileMicros(percentile) / 1000d));
+        }
+        pSummary.append(String.format("%n"));
+    }
+
+    private static String formatBytes(final long pBytes) {
+        if (pBytes < 1024) {
+            return pBytes + " B";
+        }
+        if (pBytes < 1024 * 1024) {
+            return String.format("%.1f KB", pBytes / 1024d);
+        }
+        return String.format("%.1f MB", pBytes / (1024d * 1024));
+    }
+
+    /**
+     * Replaces the IDs in an API path with placeholders and drops everything before {@code /groups}, so requests
+     * for different processes, partitions or clusters are reported together.
+     */
+    static String toEndpoint(final String pMethod, final URI pURI) {
+        final String path = pURI.getPath() != null ? pURI.getPath() : "";
+        final int groups = path.indexOf("/groups/");
+        final String[] segments = (groups >= 0 ? path.substring(groups) : path).split("/");
+
+        final StringBuilder endpoint = new StringBuilder(pMethod).append(' ');
+        for (int i = 1; i < segments.length; i++) {
+            endpoint.append('/');
+            endpoint.append(i > 1 ? getPlaceholder(segments[i - 1], segments[i]) : segments[i]);
+        }
+        return endpoint.toString();
+    }
+
+    private static String getPlaceholder(final String pCollection, final String pSegment) {
+        switch (pCollection) {
+            case "groups":
+                return "{groupId}";
+            case "processes":
+                return "{processId}";
+            case "disks":
+                return "{partitionName}";
+            case "clusters":
+                return "{clusterName}";
+            case "databases":
+                return "{databaseName}";
+            case "hosts":
+                return "{hostId}";
+            default:
+                return pSegment;
+        }
+    }
+
+    /**
+     * Metrics of one endpoint template.
+     */
+    public static class EndpointMetrics {
+        private final AtomicLong _requests = new AtomicLong();
+        private final AtomicLong _bytesIn = new AtomicLong();
+        private final AtomicLong _bytesOut = new AtomicLong();
+        private final ConcurrentMap<Integer, AtomicLong> _statuses = new ConcurrentSkipListMap<>();
+        private final LatencyHistogram _connect;
+        private final LatencyHistogram _timeToFirstByte;
+        private final LatencyHistogram _total;
+
+        private EndpointMetrics() {
+            this(new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram());
+        }
+
+        private EndpointMetrics(
+            final LatencyHistogram pConnect,
+            final LatencyHistogram pTimeToFirstByte,
+            final LatencyHistogram pTotal)
+        {
+            _connect = pConnect;
+            _timeToFirstByte = pTimeToFirstByte;
+            _total = pTotal;
+        }
+
+        private void record(final RequestTiming pTiming) {
+            _requests.incrementAndGet();
+            _bytesIn.addAndGet(pTiming.getBytesIn());
+            _bytesOut.addAndGet(pTiming.getBytesOut());
+            _statuses.computeIfAbsent(pTiming.getStatus(), k -> new AtomicLong()).incrementAndGet();
+
+            // requests on a pooled connection have no connect time
+            if (pTiming.getConnectNanos() > 0) {
+                _connect.recordNanos(pTiming.getConnectNanos());
+            }
+            if (pTiming.getStatus() != RequestTiming.NO_RESPONSE) {
+                _timeToFirstByte.recordNanos(pTiming.getFirstByteNanos());
+            }
+            _total.recordNanos(pTiming.getTotalNanos());
+        }
+
+        private EndpointMetrics copy() {
+            final EndpointMetrics copy = new EndpointMetrics(_connect.copy(), _timeToFirstByte.copy(), _total.copy());
+            copy.add(this, 1);
+            return copy;
+        }
+
+        private EndpointMetrics minus(final EndpointMetrics pEarlier) {
+            final EndpointMetrics difference = new EndpointMetrics(
+                _connect.minus(pEarlier._connect),
+                _timeToFirstByte.minus(pEarlier._timeToFirstByte),
+                _total.minus(pEarlier._total));
+            difference.add(this, 1);
+            difference.add(pEarlier, -1);
+            return difference;
+        }
+
+        private void add(final EndpointMetrics pOther, final int pSign) {
+            _requests.addAndGet(pSign * pOther.getRequests());
+            _bytesIn.addAndGet(pSign * pOther.getBytesIn());
+            _bytesOut.addAndGet(pSign * pOther.getBytesOut());
+            for (final Map.Entry<Integer, AtomicLong> status : pOther._statuses.entrySet()) {
+                _statuses.computeIfAbsent(status.getKey(), k -> new AtomicLong())
+                    .addAndGet(pSign * status.getValue().get());
+            }
+        }
+
+        public long getRequests() {
+            return _requests.get();
+        }
+
+        public long getBytesIn() {
+            return _bytesIn.get();
+        }
+
+        public long getBytesOut() {
+            return _bytesOut.get();
+        }
+
+        /**
+         * @return the number of requests answered with the status, 0 meaning no response was received
+         */
+        public long getStatusCount(final int pStatus) {
+            final AtomicLong count = _statuses.get(pStatus);
+            return count != null ? count.get() : 0;
+        }
+
+        public LatencyHistogram getConnect() {
+            return _connect;
+        }
+
+        public LatencyHistogram getTimeToFirstByte() {
+            return _timeToFirstByte;
+        }
+
+        public LatencyHistogram getTotal() {
+            return _total;
+        }
+    }
+}
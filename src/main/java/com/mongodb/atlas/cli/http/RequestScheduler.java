@@ -0,0 +1,262 @@
+package com.mongodb.atlas.cli.http;
+
+import com.mongodb.atlas.cli.Identity;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.UnknownHostException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Paces requests per API key and group, the scope in which Atlas throttles.  Each scope has an optional token
+ * bucket and an adaptive concurrency limit: the limit grows by one request per round of successful requests and
+ * halves when the API answers 429, so a fan-out settles just below the rate the API accepts.  A 429 also pauses
+ * the whole scope for its {@code Retry-After}, since every other request in flight would be rejected as well.
+ *
+ * <p>Throttled requests are always retried, as the API did not process them.  Idempotent requests are also retried
+ * after server errors and I/O failures, with jittered exponential backoff.</p>
+ */
+public class RequestScheduler {
+
+    private static final int MAX_ATTEMPTS = Integer.getInteger("atlas.http.maxAttempts", 5);
+    private static final long BASE_BACKOFF_MS = 250;
+    private static final long MAX_BACKOFF_MS = 30_000;
+
+    // the connection pool's route limit; callers' own parallelism normally caps concurrency well below it
+    private static final int MAX_CONCURRENCY = 32;
+
+    private static final RequestScheduler _instance = new RequestScheduler();
+
+    private final ConcurrentMap<String, Limiter> _limiters = new ConcurrentHashMap<>();
+    private final AtomicLong _throttled = new AtomicLong();
+    private final AtomicLong _retries = new AtomicLong();
+
+    public static RequestScheduler getInstance() {
+        return _instance;
+    }
+
+    public long getThrottledCount() {
+        return _throttled.get();
+    }
+
+    public long getRetryCount() {
+        return _retries.get();
+    }
+
+    /**
+     * Runs the request without a rate limit, see {@link #execute(Identity, boolean, double, Request)}.
+     */
+    public <T> T execute(final Identity pIdentity, final boolean pIdempotent, final Request<T> pRequest)
+        throws IOException
+    {
+        return execute(pIdentity, pIdempotent, 0, pRequest);
+    }
+
+    /**
+     * Runs the request once the scope of the identity admits it, retrying as described above.  The rate limit is
+     * the caller's, since commands running concurrently in one JVM may each ask for a different one; requests of
+     * every caller with a limit share the scope's bucket.
+     *
+     * @param pIdempotent whether the request may be repeated after a failure the API may have processed
+     * @param pRateLimitPerSecond the most requests started per second per API key and group, or 0 for no limit
+     */
+    public <T> T execute(
+        final Identity pIdentity,
+        final boolean pIdempotent,
+        final double pRateLimitPerSecond,
+        final Request<T> pRequest) throws IOException
+    {
+        final Limiter limiter = _limiters.computeIfAbsent(
+            pIdentity.getUsername() + ":" + pIdentity.getApiKey() + "/" + pIdentity.getGroupId(),
+            k -> new Limiter());
+
+        for (int attempt = 1; ; attempt++) {
+            limiter.acquire(pRateLimitPerSecond);
+
+            final T result;
+            try {
+                result = pRequest.execute();
+            } catch (AtlasApiException e) {
+                if (e.isThrottled()) {
+                    _throttled.incrementAndGet();
+                    final long retryAfterMs = e.getRetryAfterMs() >= 0 ? e.getRetryAfterMs() : getBackoffMs(attempt);
+                    limiter.releaseThrottled(withJitter(retryAfterMs));
+                } else {
+                    limiter.release();
+                }
+
+                if (attempt >= MAX_ATTEMPTS || !(e.isThrottled() || (pIdempotent && e.isTransient()))) {
+                    throw e;
+                }
+                _retries.incrementAndGet();
+                if (!e.isThrottled()) {
+                    sleep(getBackoffMs(attempt));
+                }
+                continue;
+            } catch (InterruptedIOException | UnknownHostException e) {
+                limiter.release();
+                throw e;
+            } catch (IOException e) {
+                limiter.release();
+                if (!pIdempotent || attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                _retries.incrementAndGet();
+                sleep(getBackoffMs(attempt));
+                continue;
+            } catch (RuntimeException e) {
+                limiter.release();
+                throw e;
+            }
+
+            limiter.releaseSucceeded();
+            return result;
+        }
+    }
+
+    /**
+     * @return a random delay up to {@code 250ms * 2^(attempt - 1)}, capped at 30s ("full jitter")
+     */
+    static long getBackoffMs(final int pAttempt) {
+        final long ceiling = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << Math.min(pAttempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Spreads the retries of requests throttled together over an extra 10%.
+     */
+    private static long withJitter(final long pDelayMs) {
+        return pDelayMs + ThreadLocalRandom.current().nextLong(pDelayMs / 10 + 1);
+    }
+
+    private static void sleep(final long pMs) throws InterruptedIOException {
+        try {
+            Thread.sleep(pMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while backing off");
+        }
+    }
+
+    @FunctionalInterface
+    public interface Request<T> {
+        T execute() throws IOException;
+    }
+
+    /**
+     * Admission state of one API key and group.
+     */
+    private static class Limiter {
+        private final ReentrantLock _lock = new ReentrantLock();
+        private final Condition _changed = _lock.newCondition();
+
+        private double _concurrencyLimit = MAX_CONCURRENCY;
+        private int _inFlight;
+        private long _pausedUntilNanos = System.nanoTime();
+        private double _tokens = -1;
+        private long _refilledAtNanos = System.nanoTime();
+
+        private void acquire(final double pRatePerSecond) throws InterruptedIOException {
+            _lock.lock();
+            try {
+                while (true) {
+                    final long now = System.nanoTime();
+                    long waitNanos;
+                    if (_inFlight >= (int) _concurrencyLimit) {
+                        waitNanos = Long.MAX_VALUE;
+                    } else if (now - _pausedUntilNanos < 0) {
+                        waitNanos = _pausedUntilNanos - now;
+                    } else {
+                        waitNanos = takeToken(pRatePerSecond, now);
+                        if (waitNanos == 0) {
+                            _inFlight++;
+                            return;
+                        }
+                    }
+
+                    if (waitNanos == Long.MAX_VALUE) {
+                        _changed.await();
+                    } else {
+                        _changed.awaitNanos(waitNanos);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to send a request");
+            } finally {
+                _lock.unlock();
+            }
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise the nanoseconds until the next one
+         */
+        private long takeToken(final double pRatePerSecond, final long pNow) {
+            if (pRatePerSecond <= 0) {
+                return 0;
+            }
+
+            // one second's worth of burst
+            final double capacity = Math.max(1, pRatePerSecond);
+            _tokens = _tokens < 0
+                ? capacity
+                : Math.min(capacity, _tokens + (pNow - _refilledAtNanos) / 1e9 * pRatePerSecond);
+            _refilledAtNanos = pNow;
+
+            if (_tokens >= 1) {
+                _tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) ((1 - _tokens) / pRatePerSecond * 1e9));
+        }
+
+        private void releaseSucceeded() {
+            _lock.lock();
+            try {
+                _inFlight--;
+                // additive increase: about one more request per round of _concurrencyLimit successes
+                _concurrencyLimit = Math.min(MAX_CONCURRENCY, _concurrencyLimit + 1 / _concurrencyLimit);
+                _changed.signalAll();
+            } finally {
+                _lock.unlock();
+            }
+        }
+
+        private void releaseThrottled(final long pRetryAfterMs) {
+            _lock.lock();
+            try {
+                final long now = System.nanoTime();
+                // halve what was actually in flight, which may be well below the limit; requests that were
+                // already in flight when the first 429 arrived count as the same event
+                if (now - _pausedUntilNanos >= 0) {
+                    _concurrencyLimit = Math.max(1, Math.min(_concurrencyLimit, _inFlight) / 2);
+                }
+                _inFlight--;
+                final long pausedUntil = now + TimeUnit.MILLISECONDS.toNanos(pRetryAfterMs);
+                if (pausedUntil - _pausedUntilNanos > 0) {
+                    _pausedUntilNanos = pausedUntil;
+                }
+                _changed.signalAll();
+            } finally {
+                _lock.unlock();
+            }
+        }
+
+        private void release() {
+            _lock.lock();
+            try {
+                _inFlight--;
+                _changed.signalAll();
+            } finally {
+                _lock.unlock();
+            }
+        }
+    }
+}
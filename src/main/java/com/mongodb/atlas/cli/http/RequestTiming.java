@@ -0,0 +1,108 @@
+package com.mongodb.atlas.cli.http;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+
+/**
+ * Measurements of one logical request, including any digest challenge round trip and connection setup.  It rides
+ * in the request's {@link org.apache.http.protocol.HttpContext} so the socket factories and request executor can
+ * add to it, and is completed once when the response body has been read or the request failed.
+ */
+class RequestTiming {
+
+    static final String CONTEXT_ATTRIBUTE = RequestTiming.class.getName();
+
+    static final int NO_RESPONSE = 0;
+
+    private final String _method;
+    private final String _endpoint;
+    private final String _uri;
+    private final String _groupId;
+    private final long _startNanos = System.nanoTime();
+    private final Object _event;
+    private final AtomicBoolean _completed = new AtomicBoolean();
+
+    private volatile long _connectNanos;
+    private volatile long _firstByteNanos;
+    private volatile long _totalNanos;
+    private volatile long _bytesOut;
+    private volatile long _bytesIn;
+    private volatile int _status = NO_RESPONSE;
+
+    RequestTiming(final String pMethod, final String pEndpoint, final String pUri, final String pGroupId) {
+        _method = pMethod;
+        _endpoint = pEndpoint;
+        _uri = pUri;
+        _groupId = pGroupId;
+        _event = HttpRequestEvents.begin();
+    }
+
+    void addConnectNanos(final long pNanos) {
+        _connectNanos += pNanos;
+    }
+
+    void addBytesOut(final long pBytes) {
+        _bytesOut += pBytes;
+    }
+
+    /**
+     * Called when the headers of a response arrive; after a digest challenge the last response wins.
+     */
+    void responseReceived(final int pStatus) {
+        _status = pStatus;
+        _firstByteNanos = System.nanoTime() - _startNanos;
+    }
+
+    /**
+     * @return true the first time only, after which the timing is final
+     */
+    boolean complete(final long pBytesIn) {
+        if (!_completed.compareAndSet(false, true)) {
+            return false;
+        }
+        _bytesIn = pBytesIn;
+        _totalNanos = System.nanoTime() - _startNanos;
+        HttpRequestEvents.commit(_event, this);
+        return true;
+    }
+
+    String getMethod() {
+        return _method;
+    }
+
+    String getEndpoint() {
+        return _endpoint;
+    }
+
+    String getUri() {
+        return _uri;
+    }
+
+    String getGroupId() {
+        return _groupId;
+    }
+
+    long getConnectNanos() {
+        return _connectNanos;
+    }
+
+    long getFirstByteNanos() {
+        return _firstByteNanos;
+    }
+
+    long getTotalNanos() {
+        return _totalNanos;
+    }
+
+    long getBytesOut() {
+        return _bytesOut;
+    }
+
+    long getBytesIn() {
+        return _bytesIn;
+    }
+
+    int getStatus() {
+        return _status;
+    }
+}
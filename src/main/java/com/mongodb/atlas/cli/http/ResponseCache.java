@@ -0,0 +1,351 @@
+package com.mongodb.atlas.cli.http;
+
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.ResponseParser;
+import org.apache.http.Header;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.util.EntityUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+
+/**
+ * On-disk cache of the mostly static listing responses, kept in {@code ~/.atlas-cache} next to the config file.
+ * Entries are keyed by user, a digest of the API key and URI (which includes the group), so a wrong or revoked key
+ * is never answered from a response cached for another.  They expire after a per-endpoint TTL and are then
+ * revalidated with {@code If-None-Match}/{@code If-Modified-Since} when the API supplied a validator.  Entries are
+ * written to a temporary file and atomically renamed, so concurrent CLI processes only ever see complete entries;
+ * the least recently used entries are evicted once the cache grows past its size bound.  The directory is only
+ * scanned on the first write of a process and when the running size estimate exceeds the bound, so a status
+ * fan-out does not list the whole cache after every entry.
+ */
+public class ResponseCache {
+
+    private static final Logger _logger = LoggerFactory.getLogger(ResponseCache.class);
+
+    private static final int ENTRY_MAGIC = 0x41434331;
+    private static final String ENTRY_SUFFIX = ".entry";
+    private static final String LOCK_FILE = ".lock";
+    private static final String PARTIAL_SUFFIX = ".partial";
+
+    // a temporary file this old was left by a writer that crashed or was killed
+    private static final long STALE_PARTIAL_MS = 10 * 60 * 1000;
+
+    private static final long MAX_BYTES = Long.getLong("atlas.cache.maxBytes", 32L * 1024 * 1024);
+
+    private static final List<CacheRule> RULES = new ArrayList<>();
+
+    static {
+        RULES.add(new CacheRule(".*/processes/[^/]+/disks", 300));
+        RULES.add(new CacheRule(".*/processes", 60));
+        RULES.add(new CacheRule(".*/clusters(/[^/]+)?", 30));
+    }
+
+    private static ResponseCache _instance;
+
+    private final Path _directory;
+    private final long _maxBytes;
+
+    // the cache size found by the last scan plus what this process has written since, or -1 before the first scan
+    private final AtomicLong _estimatedBytes = new AtomicLong(-1);
+
+    ResponseCache(final Path pDirectory) {
+        this(pDirectory, MAX_BYTES);
+    }
+
+    ResponseCache(final Path pDirectory, final long pMaxBytes) {
+        _directory = pDirectory;
+        _maxBytes = pMaxBytes;
+    }
+
+    public static synchronized ResponseCache getInstance() {
+        if (_instance == null) {
+            _instance = new ResponseCache(Paths.get(System.getProperty("user.home"), ".atlas-cache"));
+        }
+        return _instance;
+    }
+
+    /**
+     * @return true if responses for the URI may be served from the cache
+     */
+    public boolean isCacheable(final URI pURI) {
+        return getTtlSeconds(pURI) > 0;
+    }
+
+    /**
+     * Returns the cached response if it is younger than the endpoint TTL (or {@code pMaxAgeSeconds} when given),
+     * revalidating or refetching it otherwise.
+     */
+    public <T> T getResults(
+        final Identity pIdentity,
+        final URI pURI,
+        final Long pMaxAgeSeconds,
+        final ResponseParser<T> pParser) throws IOException
+    {
+        final long maxAgeMs = (pMaxAgeSeconds != null ? pMaxAgeSeconds : getTtlSeconds(pURI)) * 1000;
+        final Path entryPath = _directory.resolve(toKey(pIdentity, pURI) + ENTRY_SUFFIX);
+        final Entry cached = read(entryPath);
+
+        if (cached != null && System.currentTimeMillis() - cached._storedAt < maxAgeMs) {
+            touch(entryPath);
+            return parse(cached._body, pParser);
+        }
+
+        final HttpGet httpGet = new HttpGet(pURI);
+        if (cached != null && cached._etag != null) {
+            httpGet.setHeader(HttpHeaders.IF_NONE_MATCH, cached._etag);
+        }
+        if (cached != null && cached._lastModified != null) {
+            httpGet.setHeader(HttpHeaders.IF_MODIFIED_SINCE, cached._lastModified);
+        }
+
+        try (CloseableHttpResponse response = AtlasHttpClient.getInstance().execute(pIdentity, httpGet)) {
+            final int status = response.getStatusLine().getStatusCode();
+            if (status == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+                EntityUtils.consume(response.getEntity());
+                write(entryPath, new Entry(System.currentTimeMillis(), cached._etag, cached._lastModified, cached._body));
+                return parse(cached._body, pParser);
+            }
+
+            if (!AtlasApiException.isSuccess(status)) {
+                throw AtlasApiException.fromResponse(pURI, response);
+            }
+
+            final byte[] body = EntityUtils.toByteArray(response.getEntity());
+            if (status == HttpStatus.SC_OK) {
+                write(entryPath, new Entry(
+                    System.currentTimeMillis(),
+                    getHeader(response, HttpHeaders.ETAG),
+                    getHeader(response, HttpHeaders.LAST_MODIFIED),
+                    body));
+            }
+            return parse(body, pParser);
+        }
+    }
+
+    private static <T> T parse(final byte[] pBody, final ResponseParser<T> pParser) throws IOException {
+        return pParser.parse(new ByteArrayInputStream(pBody));
+    }
+
+    private static String getHeader(final CloseableHttpResponse pResponse, final String pName) {
+        final Header header = pResponse.getFirstHeader(pName);
+        return header != null ? header.getValue() : null;
+    }
+
+    private static long getTtlSeconds(final URI pURI) {
+        final String path = pURI.getPath();
+        for (final CacheRule rule : RULES) {
+            if (rule._pattern.matcher(path).matches()) {
+                return rule._ttlSeconds;
+            }
+        }
+        return 0;
+    }
+
+    private static String toKey(final Identity pIdentity, final URI pURI) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(pIdentity.getUsername().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(pIdentity.getApiKey().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) '\n');
+            digest.update(pURI.toString().getBytes(StandardCharsets.UTF_8));
+
+            final StringBuilder key = new StringBuilder();
+            for (final byte b : digest.digest()) {
+                key.append(String.format("%02x", b));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Entry read(final Path pEntryPath) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(pEntryPath)))) {
+            if (in.readInt() != ENTRY_MAGIC) {
+                return null;
+            }
+            final long storedAt = in.readLong();
+            final String etag = in.readUTF();
+            final String lastModified = in.readUTF();
+            final byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new Entry(storedAt, etag.isEmpty() ? null : etag, lastModified.isEmpty() ? null : lastModified, body);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            _logger.debug("Ignoring unreadable cache entry {}", pEntryPath, e);
+            return null;
+        }
+    }
+
+    private void write(final Path pEntryPath, final Entry pEntry) {
+        try {
+            createDirectory();
+            final Path temp = Files.createTempFile(_directory, "tmp", PARTIAL_SUFFIX);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(ENTRY_MAGIC);
+                out.writeLong(pEntry._storedAt);
+                out.writeUTF(pEntry._etag != null ? pEntry._etag : "");
+                out.writeUTF(pEntry._lastModified != null ? pEntry._lastModified : "");
+                out.writeInt(pEntry._body.length);
+                out.write(pEntry._body);
+            }
+            final long addedBytes = Files.size(temp) - sizeOf(pEntryPath);
+            Files.move(temp, pEntryPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            final long estimatedBytes = _estimatedBytes.updateAndGet(bytes -> bytes < 0 ? bytes : bytes + addedBytes);
+            if (estimatedBytes < 0 || estimatedBytes > _maxBytes) {
+                evict();
+            }
+        } catch (IOException e) {
+            _logger.debug("Failed to write cache entry {}", pEntryPath, e);
+        }
+    }
+
+    private void createDirectory() throws IOException {
+        if (Files.isDirectory(_directory)) {
+            return;
+        }
+        try {
+            Files.createDirectories(
+                _directory,
+                PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (UnsupportedOperationException e) {
+            Files.createDirectories(_directory);
+        }
+    }
+
+    private void touch(final Path pEntryPath) {
+        try {
+            Files.setLastModifiedTime(pEntryPath, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // the entry was evicted by another process; its content has already been read
+        }
+    }
+
+    /**
+     * Drops the least recently used entries until the cache fits its size bound, and temporary files that writers
+     * left behind.  Only one process evicts at a time; the others skip eviction rather than wait, and keep their
+     * estimate so that their next write tries again.
+     */
+    private void evict() throws IOException {
+        try (FileChannel channel = FileChannel.open(
+            _directory.resolve(LOCK_FILE),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE);
+             FileLock lock = channel.tryLock())
+        {
+            if (lock == null) {
+                return;
+            }
+
+            // writes that land during the scan add to the restarted estimate; counting one twice only scans early
+            _estimatedBytes.set(0);
+
+            final List<Path> entries = new ArrayList<>();
+            final List<Path> partials = new ArrayList<>();
+            try (Stream<Path> files = Files.list(_directory)) {
+                files.forEach(p -> {
+                    final String name = p.getFileName().toString();
+                    if (name.endsWith(ENTRY_SUFFIX)) {
+                        entries.add(p);
+                    } else if (name.endsWith(PARTIAL_SUFFIX)) {
+                        partials.add(p);
+                    }
+                });
+            }
+
+            final long staleBefore = System.currentTimeMillis() - STALE_PARTIAL_MS;
+            for (final Path partial : partials) {
+                if (lastModifiedOf(partial) < staleBefore) {
+                    Files.deleteIfExists(partial);
+                }
+            }
+
+            long totalBytes = 0;
+            for (final Path entry : entries) {
+                totalBytes += sizeOf(entry);
+            }
+            if (totalBytes > _maxBytes) {
+                entries.sort(Comparator.comparingLong(ResponseCache::lastModifiedOf));
+                for (final Path entry : entries) {
+                    if (totalBytes <= _maxBytes) {
+                        break;
+                    }
+                    totalBytes -= sizeOf(entry);
+                    Files.deleteIfExists(entry);
+                }
+            }
+            _estimatedBytes.addAndGet(totalBytes);
+        } catch (OverlappingFileLockException e) {
+            // another thread of this process is already evicting
+        } catch (IOException e) {
+            // the scan did not finish, so the next write has to start over
+            _estimatedBytes.set(-1);
+            throw e;
+        }
+    }
+
+    private static long sizeOf(final Path pPath) {
+        try {
+            return Files.size(pPath);
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static long lastModifiedOf(final Path pPath) {
+        try {
+            return Files.getLastModifiedTime(pPath).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private static class CacheRule {
+        private final Pattern _pattern;
+        private final long _ttlSeconds;
+
+        private CacheRule(final String pPathPattern, final long pTtlSeconds) {
+            _pattern = Pattern.compile(pPathPattern);
+            _ttlSeconds = pTtlSeconds;
+        }
+    }
+
+    private static class Entry {
+        private final long _storedAt;
+        private final String _etag;
+        private final String _lastModified;
+        private final byte[] _body;
+
+        private Entry(final long pStoredAt, final String pEtag, final String pLastModified, final byte[] pBody) {
+            _storedAt = pStoredAt;
+            _etag = pEtag;
+            _lastModified = pLastModified;
+            _body = pBody;
+        }
+    }
+}
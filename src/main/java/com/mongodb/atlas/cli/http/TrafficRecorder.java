@@ -0,0 +1,237 @@
+package com.mongodb.atlas.cli.http;
+
+import com.mongodb.atlas.cli.ResponseParser;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+
+
+/**
+ * Writes every API exchange of a command to a file that {@link TrafficReplay} can serve them from.  The file holds
+ * one record per exchange followed by an index:
+ *
+ * <pre>
+ * file    := magic:int record* index offset:long magic:int
+ * record  := status:int latencyNanos:long length:int deflated body
+ * index   := count:int (key:UTF offset:long recordLength:int)*
+ * </pre>
+ *
+ * Each body is deflated on its own, so a replay only reads and inflates the records it is asked for.  Keys are the
+ * method and the URI without host, {@code start} and {@code end}, so neither credentials nor the time a command ran
+ * are recorded.  Throttling and server errors are not recorded since the scheduler retries them; other errors are,
+ * as their {@code errorCode} and {@code detail}.  The index is written on {@link #close}, which a shutdown hook
+ * also calls, so stopping a refresh loop with Ctrl-C still leaves a complete file.
+ */
+public class TrafficRecorder implements Closeable {
+
+    private static final Logger _logger = LoggerFactory.getLogger(TrafficRecorder.class);
+
+    static final int FILE_MAGIC = 0x41545231;
+
+    private final Path _path;
+    private final OutputStream _out;
+    private final List<IndexEntry> _index = new ArrayList<>();
+    private final Thread _shutdownHook;
+    private long _offset;
+    private boolean _closed;
+
+    private TrafficRecorder(final Path pPath) throws IOException {
+        _path = pPath;
+        _out = new BufferedOutputStream(Files.newOutputStream(pPath), 1 << 16);
+        final DataOutputStream header = new DataOutputStream(_out);
+        header.writeInt(FILE_MAGIC);
+        _offset = 4;
+
+        _shutdownHook = new Thread(this::closeQuietly, "traffic-recorder-close");
+        Runtime.getRuntime().addShutdownHook(_shutdownHook);
+    }
+
+    public static TrafficRecorder open(final Path pPath) throws IOException {
+        return new TrafficRecorder(pPath);
+    }
+
+    /**
+     * Runs a GET, keeping the body its parser reads so it can be recorded.
+     *
+     * @param pExchange sends the request and parses the response with the parser it is given
+     */
+    public <T> T get(final URI pURI, final ResponseParser<T> pParser, final Exchange<T> pExchange)
+        throws IOException
+    {
+        final long start = System.nanoTime();
+        final CapturingParser<T> parser = new CapturingParser<>(pParser);
+        try {
+            final T result = pExchange.execute(parser);
+            record(toKey("GET", pURI), 200, System.nanoTime() - start, parser._body);
+            return result;
+        } catch (AtlasApiException e) {
+            recordError(toKey("GET", pURI), e, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    public JSONObject post(final URI pURI, final RequestScheduler.Request<JSONObject> pRequest) throws IOException {
+        final long start = System.nanoTime();
+        try {
+            final JSONObject result = pRequest.execute();
+            record(toKey("POST", pURI), 200, System.nanoTime() - start, toBytes(result));
+            return result;
+        } catch (AtlasApiException e) {
+            recordError(toKey("POST", pURI), e, System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    private void recordError(final String pKey, final AtlasApiException pError, final long pLatencyNanos)
+        throws IOException
+    {
+        if (pError.isTransient()) {
+            return;
+        }
+
+        final JSONObject body = new JSONObject();
+        if (pError.getErrorCode() != null) {
+            body.put("errorCode", pError.getErrorCode());
+        }
+        if (pError.getDetail() != null) {
+            body.put("detail", pError.getDetail());
+        }
+        record(pKey, pError.getStatus(), pLatencyNanos, toBytes(body));
+    }
+
+    private void record(final String pKey, final int pStatus, final long pLatencyNanos, final byte[] pBody)
+        throws IOException
+    {
+        // compress outside the lock; only the append is serialized
+        final ByteArrayOutputStream record = new ByteArrayOutputStream(pBody.length / 4 + 32);
+        final DataOutputStream out = new DataOutputStream(record);
+        out.writeInt(pStatus);
+        out.writeLong(pLatencyNanos);
+        out.writeInt(pBody.length);
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(out)) {
+            deflater.write(pBody);
+        }
+
+        synchronized (this) {
+            if (_closed) {
+                return;
+            }
+            _index.add(new IndexEntry(pKey, _offset, record.size()));
+            record.writeTo(_out);
+            _offset += record.size();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            Runtime.getRuntime().removeShutdownHook(_shutdownHook);
+        } catch (IllegalStateException e) {
+            // already shutting down, and this may be the hook itself
+        }
+        writeIndex();
+    }
+
+    private synchronized void writeIndex() throws IOException {
+        if (_closed) {
+            return;
+        }
+        _closed = true;
+
+        final DataOutputStream out = new DataOutputStream(_out);
+        out.writeInt(_index.size());
+        for (final IndexEntry entry : _index) {
+            out.writeUTF(entry._key);
+            out.writeLong(entry._offset);
+            out.writeInt(entry._length);
+        }
+        out.writeLong(_offset);
+        out.writeInt(FILE_MAGIC);
+        out.close();
+        _logger.debug("Recorded {} exchanges to {} ({} bytes)", _index.size(), _path, _offset);
+    }
+
+    private void closeQuietly() {
+        try {
+            writeIndex();
+        } catch (IOException e) {
+            _logger.debug("Failed to complete the recording {}", _path, e);
+        }
+    }
+
+    /**
+     * @return the method and the path and query of the URI, without the time window of measurement requests
+     */
+    static String toKey(final String pMethod, final URI pURI) {
+        final StringBuilder key = new StringBuilder(pMethod).append(' ').append(pURI.getRawPath());
+        final String query = pURI.getRawQuery();
+        if (query != null) {
+            char separator = '?';
+            for (final String parameter : query.split("&")) {
+                if (parameter.startsWith("start=") || parameter.startsWith("end=")) {
+                    continue;
+                }
+                key.append(separator).append(parameter);
+                separator = '&';
+            }
+        }
+        return key.toString();
+    }
+
+    private static byte[] toBytes(final JSONObject pObject) {
+        return pObject.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Sends a request and parses its response with the given parser.
+     */
+    @FunctionalInterface
+    public interface Exchange<T> {
+        T execute(ResponseParser<T> pParser) throws IOException;
+    }
+
+    /**
+     * Reads the whole body before handing it to the parser, so what the parser saw can be recorded.
+     */
+    private static class CapturingParser<T> implements ResponseParser<T> {
+        private final ResponseParser<T> _parser;
+        private byte[] _body;
+
+        private CapturingParser(final ResponseParser<T> pParser) {
+            _parser = pParser;
+        }
+
+        @Override
+        public T parse(final InputStream pContent) throws IOException {
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = pContent.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+            _body = body.toByteArray();
+            return _parser.parse(new ByteArrayInputStream(_body));
+        }
+    }
+
+    private static class IndexEntry {
+        private final String _key;
+        private final long _offset;
+        private final int _length;
+
+        private IndexEntry(final String pKey, final long pOffset, final int pLength) {
+            _key = pKey;
+            _offset = pOffset;
+            _length = pLength;
+        }
+    }
+}
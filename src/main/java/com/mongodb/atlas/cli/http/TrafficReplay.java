@@ -0,0 +1,183 @@
+package com.mongodb.atlas.cli.http;
+
+import com.mongodb.atlas.cli.ResponseParser;
+import org.json.JSONObject;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+
+/**
+ * Serves the exchanges of a {@link TrafficRecorder} file in-process instead of asking the API.  Only the index is
+ * read up front; each record is read and inflated when it is asked for.  The exchanges recorded for a key are
+ * served in the order they were recorded, the last one again once they run out, so a refresh loop keeps seeing
+ * its recorded polls and then the final state.
+ */
+public class TrafficReplay implements Closeable {
+
+    public enum Latency {
+        RECORDED,
+        ZERO
+    }
+
+    private final Path _path;
+    private final FileChannel _channel;
+    private final Latency _latency;
+    private final Map<String, List<long[]>> _index = new HashMap<>();
+    private final Map<String, AtomicInteger> _positions = new HashMap<>();
+
+    private TrafficReplay(final Path pPath, final Latency pLatency) throws IOException {
+        _path = pPath;
+        _channel = FileChannel.open(pPath, StandardOpenOption.READ);
+        _latency = pLatency;
+        try {
+            readIndex();
+        } catch (IOException | RuntimeException e) {
+            _channel.close();
+            throw e;
+        }
+    }
+
+    public static TrafficReplay open(final Path pPath, final Latency pLatency) throws IOException {
+        return new TrafficReplay(pPath, pLatency);
+    }
+
+    public static Latency getLatency(final String pLatency) {
+        for (final Latency latency : Latency.values()) {
+            if (latency.name().equalsIgnoreCase(pLatency)) {
+                return latency;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Invalid replay latency specified: %s", pLatency));
+    }
+
+    private void readIndex() throws IOException {
+        // a recording that was not closed has no trailer
+        final long size = _channel.size();
+        if (size < 4 + 4 + 12 || read(0, 4).getInt() != TrafficRecorder.FILE_MAGIC) {
+            throw new IOException(String.format("%s is not a complete recording", _path));
+        }
+        final ByteBuffer trailer = read(size - 12, 12);
+        final long indexOffset = trailer.getLong();
+        if (trailer.getInt() != TrafficRecorder.FILE_MAGIC || indexOffset < 4 || indexOffset > size - 12) {
+            throw new IOException(String.format("%s is not a complete recording", _path));
+        }
+
+        final ByteBuffer index = read(indexOffset, (int) (size - 12 - indexOffset));
+        final DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+            index.array(),
+            index.arrayOffset(),
+            index.remaining()));
+        final int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            final String key = in.readUTF();
+            final long offset = in.readLong();
+            final int length = in.readInt();
+            _index.computeIfAbsent(key, k -> new ArrayList<>()).add(new long[] {offset, length});
+            _positions.putIfAbsent(key, new AtomicInteger());
+        }
+    }
+
+    /**
+     * @throws AtlasApiException if the recorded response was an error
+     * @throws IOException if nothing was recorded for the request
+     */
+    public <T> T getResults(final URI pURI, final ResponseParser<T> pParser) throws IOException {
+        return pParser.parse(new ByteArrayInputStream(replay("GET", pURI)));
+    }
+
+    public JSONObject postResults(final URI pURI) throws IOException {
+        return new JSONObject(new String(replay("POST", pURI), StandardCharsets.UTF_8));
+    }
+
+    private byte[] replay(final String pMethod, final URI pURI) throws IOException {
+        final String key = TrafficRecorder.toKey(pMethod, pURI);
+        final List<long[]> records = _index.get(key);
+        if (records == null) {
+            throw new IOException(String.format("No recorded response for %s", key));
+        }
+
+        final int position = _positions.get(key).getAndIncrement();
+        final long[] record = records.get(Math.min(position, records.size() - 1));
+        final ByteBuffer buffer = read(record[0], (int) record[1]);
+        final int status = buffer.getInt();
+        final long latencyNanos = buffer.getLong();
+        final byte[] body = inflate(buffer, buffer.getInt());
+
+        if (_latency == Latency.RECORDED) {
+            sleep(latencyNanos);
+        }
+        if (!AtlasApiException.isSuccess(status)) {
+            throw AtlasApiException.fromBody(pURI, status, new String(body, StandardCharsets.UTF_8), "", -1);
+        }
+        return body;
+    }
+
+    private ByteBuffer read(final long pOffset, final int pLength) throws IOException {
+        if (pOffset < 0 || pLength < 0) {
+            throw new IOException(String.format("%s is not a complete recording", _path));
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocate(pLength);
+        while (buffer.hasRemaining()) {
+            if (_channel.read(buffer, pOffset + buffer.position()) < 0) {
+                throw new EOFException(String.format("%s is truncated", _path));
+            }
+        }
+        // through Buffer, so even a build without release 8 links the Java 8 flip() rather than the Java 9 overload
+        ((Buffer) buffer).flip();
+        return buffer;
+    }
+
+    private byte[] inflate(final ByteBuffer pCompressed, final int pLength) throws IOException {
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(pCompressed.array(), pCompressed.position(), pCompressed.remaining());
+            final byte[] body = new byte[pLength];
+            int inflated = 0;
+            while (inflated < pLength && !inflater.finished()) {
+                final int count = inflater.inflate(body, inflated, pLength - inflated);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                inflated += count;
+            }
+            if (inflated != pLength) {
+                throw new IOException(String.format("%s has a corrupt record", _path));
+            }
+            return body;
+        } catch (DataFormatException e) {
+            throw new IOException(String.format("%s has a corrupt record", _path), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static void sleep(final long pNanos) throws InterruptedIOException {
+        try {
+            TimeUnit.NANOSECONDS.sleep(pNanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while replaying a response");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        _channel.close();
+    }
+}
@@ -0,0 +1,63 @@
+package com.mongodb.atlas.cli.metrics;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+
+/**
+ * Reads the blocks of a file written by {@link BinarySeriesWriter}.
+ */
+class BinarySeriesReader implements Closeable {
+
+    private final DataInputStream _input;
+
+    BinarySeriesReader(final Path pFile) throws IOException {
+        _input = new DataInputStream(new BufferedInputStream(Files.newInputStream(pFile), 1 << 16));
+
+        final byte[] magic = new byte[BinarySeriesWriter.MAGIC.length];
+        _input.readFully(magic);
+        if (!Arrays.equals(magic, BinarySeriesWriter.MAGIC)) {
+            throw new IOException(String.format("%s is not a binary metrics export", pFile));
+        }
+        final byte version = _input.readByte();
+        if (version != BinarySeriesWriter.VERSION) {
+            throw new IOException(String.format("%s has unsupported version %d", pFile, version));
+        }
+    }
+
+    /**
+     * @return the next window, or null at the end of the file
+     */
+    SeriesWindow next() throws IOException {
+        final String processId;
+        try {
+            processId = _input.readUTF();
+        } catch (EOFException e) {
+            return null;
+        }
+
+        final String partitionName = _input.readUTF();
+        final SeriesWindow window = new SeriesWindow(
+            processId,
+            partitionName.isEmpty() ? null : partitionName,
+            _input.readLong(),
+            _input.readInt(),
+            _input.readInt());
+
+        final int metrics = _input.readUnsignedShort();
+        for (int m = 0; m < metrics; m++) {
+            final double[] column = window.getColumn(_input.readUTF());
+            for (int i = 0; i < column.length; i++) {
+                column[i] = _input.readDouble();
+            }
+        }
+        return window;
+    }
+
+    @Override
+    public void close() throws IOException {
+        _input.close();
+    }
+}
@@ -0,0 +1,57 @@
+package com.mongodb.atlas.cli.metrics;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+
+
+/**
+ * Columnar binary export.  After the {@link #MAGIC} and {@link #VERSION} bytes the file is a sequence of blocks,
+ * one per window of a process or partition, all big-endian:
+ * <pre>
+ * UTF    processId
+ * UTF    partitionName, empty for process metrics
+ * long   epoch second of the first step
+ * int    step in seconds
+ * int    number of steps
+ * short  number of metrics, then per metric:
+ *        UTF    metric name
+ *        double value of every step, NaN where there is none
+ * </pre>
+ * Timestamps are implied by the position of each value, so a point costs 8 bytes.
+ */
+class BinarySeriesWriter extends SeriesWriter {
+
+    static final byte[] MAGIC = {'A', 'T', 'L', 'S'};
+    static final byte VERSION = 1;
+
+    private final DataOutputStream _output;
+
+    BinarySeriesWriter(final CountingOutputStream pCounter) {
+        super(pCounter);
+        _output = new DataOutputStream(pCounter);
+    }
+
+    @Override
+    protected void writeHeader() throws IOException {
+        _output.write(MAGIC);
+        _output.writeByte(VERSION);
+    }
+
+    @Override
+    void write(final SeriesWindow pWindow) throws IOException {
+        _output.writeUTF(pWindow.getProcessId());
+        _output.writeUTF(pWindow.getPartitionName() != null ? pWindow.getPartitionName() : "");
+        _output.writeLong(pWindow.getStartEpochSecond());
+        _output.writeInt(pWindow.getStepSeconds());
+        _output.writeInt(pWindow.getCount());
+        _output.writeShort(pWindow.getColumns().size());
+
+        for (final Map.Entry<String, double[]> column : pWindow.getColumns().entrySet()) {
+            _output.writeUTF(column.getKey());
+            for (final double value : column.getValue()) {
+                _output.writeDouble(value);
+            }
+        }
+    }
+}
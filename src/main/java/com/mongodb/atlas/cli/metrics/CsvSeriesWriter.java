@@ -0,0 +1,81 @@
+package com.mongodb.atlas.cli.metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Map;
+
+
+/**
+ * One row per value: {@code timestamp,processId,partitionName,metric,value}.  The partition is empty for process
+ * metrics and steps without a value have no row.
+ */
+class CsvSeriesWriter extends SeriesWriter {
+
+    static final String HEADER = "timestamp,processId,partitionName,metric,value";
+
+    // integral values up to this magnitude are written without a fraction or exponent
+    private static final double MAX_INTEGRAL = 1e15;
+
+    private final Writer _writer;
+
+    CsvSeriesWriter(final CountingOutputStream pCounter) {
+        super(pCounter);
+        _writer = new BufferedWriter(new OutputStreamWriter(pCounter, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    protected void writeHeader() throws IOException {
+        _writer.write(HEADER);
+        _writer.write('\n');
+    }
+
+    @Override
+    void write(final SeriesWindow pWindow) throws IOException {
+        final String source = escape(pWindow.getProcessId()) + ","
+            + (pWindow.getPartitionName() != null ? escape(pWindow.getPartitionName()) : "") + ",";
+
+        for (int i = 0; i < pWindow.getCount(); i++) {
+            String timestamp = null;
+            for (final Map.Entry<String, double[]> column : pWindow.getColumns().entrySet()) {
+                final double value = column.getValue()[i];
+                if (Double.isNaN(value)) {
+                    continue;
+                }
+                if (timestamp == null) {
+                    timestamp = Instant.ofEpochSecond(pWindow.getEpochSecond(i)).toString();
+                }
+
+                _writer.write(timestamp);
+                _writer.write(',');
+                _writer.write(source);
+                _writer.write(column.getKey());
+                _writer.write(',');
+                _writer.write(formatValue(value));
+                _writer.write('\n');
+            }
+        }
+    }
+
+    @Override
+    protected void flushEncoder() throws IOException {
+        _writer.flush();
+    }
+
+    static String formatValue(final double pValue) {
+        if (pValue == Math.rint(pValue) && Math.abs(pValue) < MAX_INTEGRAL) {
+            return Long.toString((long) pValue);
+        }
+        return Double.toString(pValue);
+    }
+
+    private static String escape(final String pValue) {
+        if (pValue.indexOf(',') < 0 && pValue.indexOf('"') < 0 && pValue.indexOf('\n') < 0) {
+            return pValue;
+        }
+        return "\"" + pValue.replace("\"", "\"\"") + "\"";
+    }
+}
@@ -0,0 +1,147 @@
+package com.mongodb.atlas.cli.metrics;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
+
+
+/**
+ * The progress of an export, kept next to its output as an append-only log so that a stopped export resumes
+ * where it stopped.  The first line describes the export; every later line records a finished window and the
+ * length of the output once it was written.  A torn last line is ignored: resuming truncates the output to the
+ * last recorded length and fetches every unrecorded window again.
+ */
+class ExportCheckpoint implements Closeable {
+
+    private final Path _path;
+    private final Set<String> _done = new HashSet<>();
+    private boolean _resumed;
+    private long _length;
+    private Writer _writer;
+
+    private ExportCheckpoint(final Path pPath) {
+        _path = pPath;
+    }
+
+    /**
+     * Reads the checkpoint at the path, or starts one if there is none.
+     *
+     * @param pDescription a single line identifying the export; a checkpoint of a different export is rejected
+     */
+    static ExportCheckpoint open(final Path pPath, final String pDescription) throws IOException {
+        final ExportCheckpoint checkpoint = new ExportCheckpoint(pPath);
+        if (Files.exists(pPath)) {
+            checkpoint.read(pDescription);
+        }
+
+        checkpoint._writer = Files.newBufferedWriter(
+            pPath,
+            StandardCharsets.UTF_8,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND);
+        if (!checkpoint._resumed) {
+            checkpoint._writer.write(pDescription);
+            checkpoint._writer.write('\n');
+            checkpoint._writer.flush();
+        }
+        return checkpoint;
+    }
+
+    /**
+     * @return the description line of the checkpoint at the path, or null if there is none
+     */
+    static String readDescription(final Path pPath) throws IOException {
+        if (!Files.exists(pPath)) {
+            return null;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(pPath, StandardCharsets.UTF_8)) {
+            final String description = reader.readLine();
+            return description != null && !description.isEmpty() ? description : null;
+        }
+    }
+
+    private void read(final String pDescription) throws IOException {
+        final byte[] bytes = Files.readAllBytes(_path);
+
+        // a last line without its newline is a torn write; cut it off so that new entries start on a line of
+        // their own
+        int end = bytes.length;
+        while (end > 0 && bytes[end - 1] != '\n') {
+            end--;
+        }
+        if (end < bytes.length) {
+            try (FileChannel channel = FileChannel.open(_path, StandardOpenOption.WRITE)) {
+                channel.truncate(end);
+            }
+        }
+
+        if (end == 0) {
+            return;
+        }
+
+        _resumed = true;
+        final String[] lines = new String(bytes, 0, end, StandardCharsets.UTF_8).split("\n");
+        if (!pDescription.equals(lines[0])) {
+            throw new IllegalArgumentException(String.format(
+                "%s belongs to a different export; delete it to start over",
+                _path));
+        }
+
+        for (int i = 1; i < lines.length; i++) {
+            final int tab = lines[i].indexOf('\t');
+            try {
+                _length = Long.parseLong(lines[i].substring(0, tab));
+                _done.add(lines[i].substring(tab + 1));
+            } catch (NumberFormatException | StringIndexOutOfBoundsException e) {
+                throw new IOException(String.format("Corrupt checkpoint %s: %s", _path, lines[i]));
+            }
+        }
+    }
+
+    boolean isResumed() {
+        return _resumed;
+    }
+
+    /**
+     * @return the length of the output when the last window was recorded
+     */
+    long getLength() {
+        return _length;
+    }
+
+    int getDoneCount() {
+        return _done.size();
+    }
+
+    boolean isDone(final String pWindow) {
+        return _done.contains(pWindow);
+    }
+
+    /**
+     * Records a window once its data has been flushed and the output has the given length.
+     */
+    void markDone(final String pWindow, final long pLength) throws IOException {
+        _done.add(pWindow);
+        _length = pLength;
+        _writer.write(pLength + "\t" + pWindow + "\n");
+        _writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        _writer.close();
+    }
+
+    /**
+     * Removes the checkpoint of a finished export.
+     */
+    void delete() throws IOException {
+        close();
+        Files.delete(_path);
+    }
+}
@@ -0,0 +1,359 @@
+package com.mongodb.atlas.cli.metrics;
+
+import com.mongodb.atlas.cli.CliModule;
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.PagedResults;
+import com.mongodb.atlas.cli.util.ConcurrencyUtil;
+import com.mongodb.atlas.cli.util.WorkingDirectory;
+import org.apache.commons.cli.*;
+import org.apache.http.client.utils.URIBuilder;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+
+/**
+ * Exports the measurements of every process of a group over a long time range.  The range is split into windows
+ * the API accepts, and the windows of all processes are fetched in parallel and written to the file as each one
+ * arrives, so memory use depends on the parallelism rather than the range.  Every written window is recorded in
+ * a checkpoint next to the file, and running the same export again resumes after the last recorded window.
+ */
+public class ExportModule extends CliModule {
+
+    static final List<String> DISK_METRICS = Arrays.asList(
+        "DISK_PARTITION_SPACE_FREE",
+        "DISK_PARTITION_SPACE_USED");
+
+    static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+    public ExportModule(final String[] pArgs) {
+        super(pArgs);
+    }
+
+    @Override
+    protected Options buildOptions() {
+        final Options options = super.buildOptions();
+
+        options.addOption(Option.builder("f")
+            .argName("File")
+            .longOpt("file")
+            .hasArg(true)
+            .desc("File to export to.")
+            .required()
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("Format")
+            .longOpt("format")
+            .hasArg(true)
+            .desc("csv (default) or binary.")
+            .build());
+
+        MetricsOptions.addOptions(options);
+
+        options.addOption(Option.builder()
+            .longOpt("disks")
+            .desc("Also export the disk partition metrics.")
+            .build());
+
+        return options;
+    }
+
+    @Override
+    protected void _execute(final CommandLine pCommandLine) throws IOException, ParseException, URISyntaxException {
+        final Identity identity = getIdentity(pCommandLine);
+        final Path file = WorkingDirectory.resolve(pCommandLine.getOptionValue("f"));
+        final SeriesWriter.Format format = getFormat(pCommandLine.getOptionValue("format", "csv"));
+        final int step = MetricsOptions.getStep(pCommandLine);
+
+        final Path checkpointPath = Paths.get(file + CHECKPOINT_SUFFIX);
+        final String previousDescription = ExportCheckpoint.readDescription(checkpointPath);
+        if (previousDescription == null && Files.exists(file)) {
+            throw new IllegalArgumentException(String.format("%s already exists", file));
+        }
+
+        // a resumed export keeps its range, which may have been relative to the time it was started
+        final long start;
+        final long end;
+        if (previousDescription != null) {
+            final JSONObject previous = new JSONObject(previousDescription);
+            start = previous.getLong("start");
+            end = previous.getLong("end");
+        } else {
+            end = MetricsOptions.getEnd(pCommandLine, step);
+            start = MetricsOptions.getStart(pCommandLine, end, step);
+        }
+        if (start >= end) {
+            throw new IllegalArgumentException("The export range is empty.");
+        }
+        final long window = MetricsOptions.getWindow(pCommandLine, step);
+
+        final List<String> processMetrics = MetricsOptions.getProcessMetrics(pCommandLine);
+        final List<String> diskMetrics = pCommandLine.hasOption("disks") ? DISK_METRICS : Collections.emptyList();
+
+        // everything that decides what the file contains, so a different export cannot resume from it
+        final String description = new JSONObject()
+            .put("groupId", identity.getGroupId())
+            .put("format", format.name())
+            .put("start", start)
+            .put("end", end)
+            .put("step", step)
+            .put("window", window)
+            .put("processMetrics", processMetrics)
+            .put("diskMetrics", diskMetrics)
+            .toString();
+
+        final List<Source> sources = getSources(identity, !diskMetrics.isEmpty());
+        final List<Task> tasks = new ArrayList<>();
+        for (long windowStart = start; windowStart < end; windowStart += window) {
+            for (final Source source : sources) {
+                final long windowEnd = Math.min(windowStart + window, end);
+                tasks.add(new Task(source, windowStart, (int) ((windowEnd - windowStart) / step)));
+            }
+        }
+
+        try (ExportCheckpoint checkpoint = ExportCheckpoint.open(checkpointPath, description);
+             SeriesWriter writer = SeriesWriter.open(format, file, checkpoint.getLength()))
+        {
+            if (checkpoint.isResumed()) {
+                System.err.println(String.format(
+                    "Resuming export to %s after %d of %d windows",
+                    file,
+                    checkpoint.getDoneCount(),
+                    tasks.size()));
+            }
+
+            export(
+                identity,
+                tasks,
+                step,
+                processMetrics,
+                diskMetrics,
+                checkpoint,
+                writer,
+                MetricsOptions.getParallelism(pCommandLine));
+            writer.flush();
+            checkpoint.delete();
+        }
+        System.err.println(String.format("Exported %d windows to %s", tasks.size(), file));
+    }
+
+    /**
+     * Fetches every window not yet in the checkpoint.  Windows are written in the order they arrive; after the
+     * first failure no further windows are started, so that rerunning the export picks up from the checkpoint.
+     */
+    private void export(
+        final Identity pIdentity,
+        final List<Task> pTasks,
+        final int pStep,
+        final List<String> pProcessMetrics,
+        final List<String> pDiskMetrics,
+        final ExportCheckpoint pCheckpoint,
+        final SeriesWriter pWriter,
+        final int pParallelism) throws IOException
+    {
+        final String baseUrl = getBaseUrl();
+        final ExecutorService executor = ConcurrencyUtil.newDaemonPool("export", pParallelism);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final AtomicInteger done = new AtomicInteger(pCheckpoint.getDoneCount());
+        final boolean showProgress = System.console() != null;
+        final List<CompletableFuture<Void>> futures = new ArrayList<>();
+
+        try {
+            for (final Task task : pTasks) {
+                if (pCheckpoint.isDone(task.getKey())) {
+                    continue;
+                }
+
+                futures.add(ConcurrencyUtil.supplyAsync(() -> {
+                    if (failure.get() != null) {
+                        return null;
+                    }
+
+                    final SeriesWindow window = getResults(
+                        pIdentity,
+                        task.toUri(
+                            baseUrl,
+                            pIdentity,
+                            pStep,
+                            task._source._partitionName == null ? pProcessMetrics : pDiskMetrics),
+                        new SeriesWindowParser(new SeriesWindow(
+                            task._source._processId,
+                            task._source._partitionName,
+                            task._start,
+                            pStep,
+                            task._count)));
+
+                    synchronized (pWriter) {
+                        pWriter.write(window);
+                        pCheckpoint.markDone(task.getKey(), pWriter.flush());
+                    }
+                    if (showProgress) {
+                        System.err.print(String.format("\r%d of %d windows", done.incrementAndGet(), pTasks.size()));
+                    }
+                    return (Void) null;
+                }, executor).exceptionally(t -> {
+                    failure.compareAndSet(null, ConcurrencyUtil.unwrap(t));
+                    return null;
+                }));
+            }
+
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } finally {
+            executor.shutdownNow();
+            if (showProgress) {
+                System.err.println();
+            }
+        }
+
+        final Throwable error = failure.get();
+        if (error != null) {
+            throw new IOException(String.format(
+                "Export stopped after %d of %d windows, run it again to resume: %s",
+                pCheckpoint.getDoneCount(),
+                pTasks.size(),
+                error.getMessage()), error);
+        }
+    }
+
+    /**
+     * @return every process of the group and, when disks are exported, each of its partitions
+     */
+    private List<Source> getSources(final Identity pIdentity, final boolean pDisks)
+        throws IOException, URISyntaxException
+    {
+        final List<Source> sources = new ArrayList<>();
+        try {
+            final PagedResults processes = getPagedResults(pIdentity, new URI(String.format(
+                "%s/%s/processes",
+                getBaseUrl(),
+                pIdentity.getGroupId())));
+            while (processes.hasNext()) {
+                final String processId = processes.next().getString("id");
+                sources.add(new Source(processId, null));
+
+                if (pDisks) {
+                    final PagedResults disks = getPagedResults(pIdentity, new URI(String.format(
+                        "%s/%s/processes/%s/disks",
+                        getBaseUrl(),
+                        pIdentity.getGroupId(),
+                        processId)));
+                    while (disks.hasNext()) {
+                        sources.add(new Source(processId, disks.next().getString("partitionName")));
+                    }
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return sources;
+    }
+
+    private static SeriesWriter.Format getFormat(final String pFormat) {
+        try {
+            return SeriesWriter.Format.valueOf(pFormat.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(String.format("Invalid format specified: %s", pFormat));
+        }
+    }
+
+    /**
+     * @param pPartitionName the disk partition, or null for process metrics
+     * @return the measurements of the metrics from {@code pStart} to {@code pEnd} in epoch seconds
+     */
+    static URI toMeasurementsUri(
+        final String pBaseUrl,
+        final Identity pIdentity,
+        final String pProcessId,
+        final String pPartitionName,
+        final long pStart,
+        final long pEnd,
+        final int pStep,
+        final List<String> pMetrics) throws URISyntaxException
+    {
+        final URIBuilder uriBuilder = new URIBuilder(pPartitionName == null
+            ? String.format(
+                "%s/%s/processes/%s/measurements",
+                pBaseUrl,
+                pIdentity.getGroupId(),
+                pProcessId)
+            : String.format(
+                "%s/%s/processes/%s/disks/%s/measurements",
+                pBaseUrl,
+                pIdentity.getGroupId(),
+                pProcessId,
+                pPartitionName));
+
+        uriBuilder.addParameter("granularity", Duration.ofSeconds(pStep).toString())
+            .addParameter("start", Instant.ofEpochSecond(pStart).toString())
+            .addParameter("end", Instant.ofEpochSecond(pEnd).toString());
+        for (final String metric : pMetrics) {
+            uriBuilder.addParameter("m", metric);
+        }
+        return uriBuilder.build();
+    }
+
+    /**
+     * A process, or one of its disk partitions.
+     */
+    private static class Source {
+        private final String _processId;
+        private final String _partitionName;
+
+        private Source(final String pProcessId, final String pPartitionName) {
+            _processId = pProcessId;
+            _partitionName = pPartitionName;
+        }
+    }
+
+    /**
+     * One window of one source, i.e. one request.
+     */
+    private static class Task {
+        private final Source _source;
+        private final long _start;
+        private final int _count;
+
+        private Task(final Source pSource, final long pStart, final int pCount) {
+            _source = pSource;
+            _start = pStart;
+            _count = pCount;
+        }
+
+        private String getKey() {
+            return _start + "/" + _source._processId + (_source._partitionName != null
+                ? "/" + _source._partitionName
+                : "");
+        }
+
+        private URI toUri(
+            final String pBaseUrl,
+            final Identity pIdentity,
+            final int pStep,
+            final List<String> pMetrics) throws URISyntaxException
+        {
+            return toMeasurementsUri(
+                pBaseUrl,
+                pIdentity,
+                _source._processId,
+                _source._partitionName,
+                _start,
+                _start + (long) _count * pStep,
+                pStep,
+                pMetrics);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.mongodb.atlas.cli.metrics;
+
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * The time range, granularity, metric and parallelism options shared by the metrics commands.  Times are epoch
+ * seconds aligned to the granularity.
+ */
+final class MetricsOptions {
+
+    static final List<String> PROCESS_METRICS = Arrays.asList(
+        "CONNECTIONS",
+        "DB_STORAGE_TOTAL",
+        "DB_DATA_SIZE_TOTAL",
+        "PROCESS_NORMALIZED_CPU_USER",
+        "PROCESS_NORMALIZED_CPU_KERNEL",
+        "CURSORS_TOTAL_OPEN");
+
+    private static final int DEFAULT_PARALLELISM = 4;
+
+    private static final String DEFAULT_GRANULARITY = "PT1M";
+
+    // 1440 points per metric at the default granularity
+    private static final String DEFAULT_WINDOW = "P1D";
+
+    private MetricsOptions() {
+    }
+
+    static void addOptions(final Options pOptions) {
+        pOptions.addOption(Option.builder()
+            .argName("Instant")
+            .longOpt("start")
+            .hasArg(true)
+            .desc("Start of the range, e.g. 2018-03-01T00:00:00Z.")
+            .build());
+
+        pOptions.addOption(Option.builder()
+            .argName("Instant")
+            .longOpt("end")
+            .hasArg(true)
+            .desc("End of the range.  Defaults to now.")
+            .build());
+
+        pOptions.addOption(Option.builder()
+            .argName("Duration")
+            .longOpt("period")
+            .hasArg(true)
+            .desc("Length of the range ending at --end instead of --start, e.g. P14D.")
+            .build());
+
+        pOptions.addOption(Option.builder()
+            .argName("Duration")
+            .longOpt("granularity")
+            .hasArg(true)
+            .desc("Time between points.  Defaults to " + DEFAULT_GRANULARITY + ".")
+            .build());
+
+        pOptions.addOption(Option.builder()
+            .argName("Duration")
+            .longOpt("window")
+            .hasArg(true)
+            .desc("Range covered by each request.  Defaults to " + DEFAULT_WINDOW + ".")
+            .build());
+
+        pOptions.addOption(Option.builder("m")
+            .argName("Metric")
+            .longOpt("metric")
+            .hasArg(true)
+            .desc("Process metric.  May be repeated.  Defaults to the metrics of clusters status.")
+            .build());
+
+        pOptions.addOption(Option.builder("pl")
+            .argName("Parallelism")
+            .longOpt("parallelism")
+            .hasArg(true)
+            .optionalArg(false)
+            .desc("Maximum number of concurrent API requests.  Defaults to " + DEFAULT_PARALLELISM + ".")
+            .build());
+    }
+
+    /**
+     * @return the granularity in seconds
+     */
+    static int getStep(final CommandLine pCommandLine) {
+        final Duration granularity = getDuration(pCommandLine, "granularity", DEFAULT_GRANULARITY);
+        if (granularity.getSeconds() < 60) {
+            throw new IllegalArgumentException(String.format("Invalid granularity specified: %s", granularity));
+        }
+        return (int) granularity.getSeconds();
+    }
+
+    /**
+     * @return the end of the range, excluding the step in progress since it has no value yet
+     */
+    static long getEnd(final CommandLine pCommandLine, final int pStep) {
+        final Instant end = pCommandLine.hasOption("end") ? getInstant(pCommandLine, "end") : Instant.now();
+        return Math.floorDiv(end.getEpochSecond(), pStep) * pStep;
+    }
+
+    static long getStart(final CommandLine pCommandLine, final long pEnd, final int pStep) {
+        final Instant start;
+        if (pCommandLine.hasOption("start")) {
+            start = getInstant(pCommandLine, "start");
+        } else if (pCommandLine.hasOption("period")) {
+            start = Instant.ofEpochSecond(pEnd).minus(getDuration(pCommandLine, "period", null));
+        } else {
+            throw new IllegalArgumentException("Specify the range with --start or --period.");
+        }
+        return Math.floorDiv(start.getEpochSecond(), pStep) * pStep;
+    }
+
+    /**
+     * @return the range of one request in seconds, a whole number of steps
+     */
+    static long getWindow(final CommandLine pCommandLine, final int pStep) {
+        return Math.max(1, getDuration(pCommandLine, "window", DEFAULT_WINDOW).getSeconds() / pStep) * pStep;
+    }
+
+    static List<String> getProcessMetrics(final CommandLine pCommandLine) {
+        return pCommandLine.hasOption("m") ? Arrays.asList(pCommandLine.getOptionValues("m")) : PROCESS_METRICS;
+    }
+
+    static int getParallelism(final CommandLine pCommandLine) {
+        final String parallelismOptionValue = pCommandLine.getOptionValue("pl");
+        if (parallelismOptionValue == null) {
+            return DEFAULT_PARALLELISM;
+        }
+
+        try {
+            final int parallelism = Integer.parseInt(parallelismOptionValue);
+            if (parallelism < 1) {
+                throw new NumberFormatException();
+            }
+            return parallelism;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(String.format(
+                "Invalid parallelism specified: %s",
+                parallelismOptionValue));
+        }
+    }
+
+    private static Instant getInstant(final CommandLine pCommandLine, final String pOption) {
+        final String optionValue = pCommandLine.getOptionValue(pOption);
+        try {
+            return Instant.parse(optionValue);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(String.format("Invalid %s specified: %s", pOption, optionValue));
+        }
+    }
+
+    private static Duration getDuration(final CommandLine pCommandLine, final String pOption, final String pDefault) {
+        final String optionValue = pCommandLine.getOptionValue(pOption, pDefault);
+        try {
+            final Duration duration = Duration.parse(optionValue);
+            if (duration.isNegative() || duration.isZero()) {
+                throw new DateTimeParseException("Not positive", optionValue, 0);
+            }
+            return duration;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(String.format("Invalid %s specified: %s", pOption, optionValue));
+        }
+    }
+}
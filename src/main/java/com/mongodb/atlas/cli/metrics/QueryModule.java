@@ -0,0 +1,383 @@
+package com.mongodb.atlas.cli.metrics;
+
+import com.mongodb.atlas.cli.CliModule;
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.PagedResults;
+import com.mongodb.atlas.cli.util.ConcurrencyUtil;
+import com.mongodb.atlas.cli.util.TextTableRenderer;
+import com.mongodb.atlas.cli.util.WorkingDirectory;
+import org.apache.commons.cli.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.text.DecimalFormat;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Answers min, max, average and percentile queries over process measurements from the local {@link SeriesStore}.
+ * Only the parts of the range the store does not have yet are requested, with one request per window covering
+ * every metric missing there, so repeating or widening a query costs the API little or nothing.
+ */
+public class QueryModule extends CliModule {
+
+    private static final String DEFAULT_PERCENTILES = "50,95,99";
+
+    // the API may fill in the newest points late, so near the end of a range only the points that had a value are
+    // recorded as fetched and the rest is asked for again next time
+    private static final long SETTLE_SECONDS = 15 * 60;
+
+    public QueryModule(final String[] pArgs) {
+        super(pArgs);
+    }
+
+    @Override
+    protected Options buildOptions() {
+        final Options options = super.buildOptions();
+
+        MetricsOptions.addOptions(options);
+
+        options.addOption(Option.builder()
+            .argName("Host:Port")
+            .longOpt("process")
+            .hasArg(true)
+            .desc("Process to query.  May be repeated.  Defaults to every process of the group.")
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("Percentiles")
+            .longOpt("percentiles")
+            .hasArg(true)
+            .desc("Comma separated percentiles to report.  Defaults to " + DEFAULT_PERCENTILES + ".")
+            .build());
+
+        options.addOption(Option.builder()
+            .longOpt("offline")
+            .desc("Answer from the store only, without requesting missing ranges.  Requires --process.")
+            .build());
+
+        options.addOption(Option.builder()
+            .argName("Directory")
+            .longOpt("store-dir")
+            .hasArg(true)
+            .desc("Directory of the series store.  Defaults to ~/.atlas-series.")
+            .build());
+
+        return options;
+    }
+
+    @Override
+    protected void _execute(final CommandLine pCommandLine) throws IOException, ParseException, URISyntaxException {
+        final long startNanos = System.nanoTime();
+        final Identity identity = getIdentity(pCommandLine);
+        final int step = MetricsOptions.getStep(pCommandLine);
+        final long end = MetricsOptions.getEnd(pCommandLine, step);
+        final long start = MetricsOptions.getStart(pCommandLine, end, step);
+        if (start >= end) {
+            throw new IllegalArgumentException("The query range is empty.");
+        }
+        final long window = MetricsOptions.getWindow(pCommandLine, step);
+        final List<String> metrics = MetricsOptions.getProcessMetrics(pCommandLine);
+        final double[] percentiles = getPercentiles(pCommandLine.getOptionValue("percentiles", DEFAULT_PERCENTILES));
+        final boolean offline = pCommandLine.hasOption("offline");
+        final SeriesStore store = new SeriesStore(pCommandLine.hasOption("store-dir")
+            ? WorkingDirectory.resolve(pCommandLine.getOptionValue("store-dir"))
+            : SeriesStore.getDefaultDirectory());
+
+        final List<String> processIds;
+        if (pCommandLine.hasOption("process")) {
+            processIds = Arrays.asList(pCommandLine.getOptionValues("process"));
+        } else if (offline) {
+            throw new IllegalArgumentException("--offline requires --process.");
+        } else {
+            processIds = getProcessIds(identity);
+        }
+
+        final ExecutorService executor = ConcurrencyUtil.newDaemonPool(
+            "query",
+            Math.max(1, Math.min(MetricsOptions.getParallelism(pCommandLine), processIds.size())));
+        final List<CompletableFuture<ProcessQuery>> futures = new ArrayList<>();
+        try {
+            for (final String processId : processIds) {
+                final ProcessQuery query = new ProcessQuery(identity, store, processId, metrics, step);
+                futures.add(ConcurrencyUtil.supplyAsync(() -> {
+                    if (!offline) {
+                        query.fetchGaps(start, end, window);
+                    }
+                    query.summarize(start, end, percentiles);
+                    return query;
+                }, executor));
+            }
+
+            final List<List<String>> rows = new ArrayList<>();
+            final List<String> header =
+                new ArrayList<>(Arrays.asList("Process", "Metric", "Points", "Min", "Max", "Avg"));
+            for (final double percentile : percentiles) {
+                header.add("P" + formatValue(percentile));
+            }
+            rows.add(header);
+
+            int gaps = 0;
+            int requests = 0;
+            long points = 0;
+            for (final CompletableFuture<ProcessQuery> future : futures) {
+                final ProcessQuery query;
+                try {
+                    query = future.join();
+                } catch (CompletionException e) {
+                    final Throwable cause = ConcurrencyUtil.unwrap(e);
+                    if (cause instanceof IOException) {
+                        throw (IOException) cause;
+                    } else if (cause instanceof URISyntaxException) {
+                        throw (URISyntaxException) cause;
+                    }
+                    throw e;
+                }
+                rows.addAll(query._rows);
+                gaps += query._gaps;
+                requests += query._requests;
+                points += query._points;
+            }
+
+            System.out.println(TextTableRenderer.toText(rows));
+            System.err.println(String.format(
+                "%d points from the store, %d gaps fetched with %d requests, %d ms",
+                points,
+                gaps,
+                requests,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos)));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<String> getProcessIds(final Identity pIdentity) throws IOException, URISyntaxException {
+        final List<String> processIds = new ArrayList<>();
+        try {
+            final PagedResults processes = getPagedResults(pIdentity, new URI(String.format(
+                "%s/%s/processes",
+                getBaseUrl(),
+                pIdentity.getGroupId())));
+            while (processes.hasNext()) {
+                processIds.add(processes.next().getString("id"));
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return processIds;
+    }
+
+    private static double[] getPercentiles(final String pPercentiles) {
+        final String[] parts = pPercentiles.split(",");
+        final double[] percentiles = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            try {
+                percentiles[i] = Double.parseDouble(parts[i].trim());
+                if (percentiles[i] <= 0 || percentiles[i] > 100) {
+                    throw new NumberFormatException();
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(String.format("Invalid percentiles specified: %s", pPercentiles));
+            }
+        }
+        return percentiles;
+    }
+
+    /**
+     * @return the nearest-rank percentile of sorted values
+     */
+    static double getPercentile(final double[] pSortedValues, final double pPercentile) {
+        final int rank = (int) Math.ceil(pPercentile / 100 * pSortedValues.length);
+        return pSortedValues[Math.max(0, rank - 1)];
+    }
+
+    private static String formatValue(final double pValue) {
+        return new DecimalFormat("0.##").format(pValue);
+    }
+
+    /**
+     * The series of one process, fetched and summarized on a worker thread under the process's store lock.
+     */
+    private class ProcessQuery {
+        private final Identity _identity;
+        private final SeriesStore _store;
+        private final String _processId;
+        private final List<String> _metrics;
+        private final int _step;
+
+        private final List<List<String>> _rows = new ArrayList<>();
+        private int _gaps;
+        private int _requests;
+        private long _points;
+
+        private ProcessQuery(
+            final Identity pIdentity,
+            final SeriesStore pStore,
+            final String pProcessId,
+            final List<String> pMetrics,
+            final int pStep)
+        {
+            _identity = pIdentity;
+            _store = pStore;
+            _processId = pProcessId;
+            _metrics = pMetrics;
+            _step = pStep;
+        }
+
+        /**
+         * Requests the parts of the range that any metric is missing, window by window, and appends to each
+         * series only the points inside its own gaps.
+         */
+        private void fetchGaps(final long pStart, final long pEnd, final long pWindow)
+            throws IOException, URISyntaxException
+        {
+            final Closeable lock = _store.lock(_identity.getGroupId(), _step, _processId);
+            try {
+                final Map<String, StoredSeries> series = openSeries();
+
+                final List<long[]> gaps = new ArrayList<>();
+                for (final StoredSeries metricSeries : series.values()) {
+                    gaps.addAll(metricSeries.getGaps(pStart, pEnd));
+                }
+                final List<long[]> merged = merge(gaps);
+                _gaps = merged.size();
+
+                final long settled =
+                    Math.floorDiv(System.currentTimeMillis() / 1000 - SETTLE_SECONDS, _step) * _step;
+                for (final long[] gap : merged) {
+                    for (long windowStart = gap[0]; windowStart < gap[1]; windowStart += pWindow) {
+                        final long windowEnd = Math.min(windowStart + pWindow, gap[1]);
+                        final SeriesWindow window = getResults(
+                            _identity,
+                            ExportModule.toMeasurementsUri(
+                                getBaseUrl(),
+                                _identity,
+                                _processId,
+                                null,
+                                windowStart,
+                                windowEnd,
+                                _step,
+                                _metrics),
+                            new SeriesWindowParser(new SeriesWindow(
+                                _processId,
+                                null,
+                                windowStart,
+                                _step,
+                                (int) ((windowEnd - windowStart) / _step))));
+                        _requests++;
+
+                        for (final Map.Entry<String, StoredSeries> entry : series.entrySet()) {
+                            store(entry.getValue(), window, window.getColumn(entry.getKey()), settled);
+                        }
+                    }
+                }
+            } finally {
+                lock.close();
+            }
+        }
+
+        /**
+         * Appends the points of a fetched window that fall into the gaps of a series and records the gaps as
+         * fetched, except for any unsettled steps after the last point with a value.
+         */
+        private void store(
+            final StoredSeries pSeries,
+            final SeriesWindow pWindow,
+            final double[] pColumn,
+            final long pSettled) throws IOException
+        {
+            final long windowEnd = pWindow.getEpochSecond(pWindow.getCount());
+            for (final long[] gap : pSeries.getGaps(pWindow.getStartEpochSecond(), windowEnd)) {
+                final long[] epochSeconds = new long[pWindow.getCount()];
+                final double[] values = new double[pWindow.getCount()];
+                int count = 0;
+                long fetchedUntil = Math.min(gap[1], Math.max(gap[0], pSettled));
+
+                final long firstStep = (gap[0] - pWindow.getStartEpochSecond() + _step - 1) / _step;
+                for (int i = (int) firstStep; i < pWindow.getCount(); i++) {
+                    final long epochSecond = pWindow.getEpochSecond(i);
+                    if (epochSecond >= gap[1]) {
+                        break;
+                    }
+                    if (!Double.isNaN(pColumn[i])) {
+                        epochSeconds[count] = epochSecond;
+                        values[count++] = pColumn[i];
+                        fetchedUntil = Math.max(fetchedUntil, epochSecond + _step);
+                    }
+                }
+                pSeries.append(epochSeconds, values, count, gap[0], fetchedUntil);
+            }
+        }
+
+        private void summarize(final long pStart, final long pEnd, final double[] pPercentiles) throws IOException {
+            final Closeable lock = _store.lock(_identity.getGroupId(), _step, _processId);
+            try {
+                for (final Map.Entry<String, StoredSeries> entry : openSeries().entrySet()) {
+                    final double[] values = entry.getValue().read(pStart, pEnd);
+                    _points += values.length;
+
+                    final List<String> row = new ArrayList<>(Arrays.asList(
+                        _processId,
+                        entry.getKey(),
+                        Integer.toString(values.length)));
+                    if (values.length == 0) {
+                        for (int i = 0; i < 3 + pPercentiles.length; i++) {
+                            row.add("");
+                        }
+                        _rows.add(row);
+                        continue;
+                    }
+
+                    Arrays.sort(values);
+                    double sum = 0;
+                    for (final double value : values) {
+                        sum += value;
+                    }
+                    row.add(formatValue(values[0]));
+                    row.add(formatValue(values[values.length - 1]));
+                    row.add(formatValue(sum / values.length));
+                    for (final double percentile : pPercentiles) {
+                        row.add(formatValue(getPercentile(values, percentile)));
+                    }
+                    _rows.add(row);
+                }
+            } finally {
+                lock.close();
+            }
+        }
+
+        private Map<String, StoredSeries> openSeries() throws IOException {
+            final Map<String, StoredSeries> series = new LinkedHashMap<>();
+            for (final String metric : _metrics) {
+                series.put(metric, _store.getSeries(_identity.getGroupId(), _step, _processId, metric));
+            }
+            return series;
+        }
+    }
+
+    /**
+     * @return the union of the ranges as sorted, disjoint ranges
+     */
+    static List<long[]> merge(final List<long[]> pRanges) {
+        final List<long[]> sorted = new ArrayList<>(pRanges);
+        sorted.sort(Comparator.comparingLong(range -> range[0]));
+
+        final List<long[]> merged = new ArrayList<>();
+        for (final long[] range : sorted) {
+            final long[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && range[0] <= last[1]) {
+                last[1] = Math.max(last[1], range[1]);
+            } else {
+                merged.add(new long[] {range[0], range[1]});
+            }
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,92 @@
+package com.mongodb.atlas.cli.metrics;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+
+/**
+ * Local store of measurement series, by default in {@code ~/.atlas-series} next to the config file.  Each
+ * group, granularity, process and metric has a {@link StoredSeries} directory of its own.
+ */
+class SeriesStore {
+
+    private static final String LOCK_FILE = ".lock";
+
+    // file locks are held per JVM, so threads of one process also need a lock of their own
+    private static final ConcurrentMap<Path, ReentrantLock> LOCAL_LOCKS = new ConcurrentHashMap<>();
+
+    private final Path _directory;
+
+    SeriesStore(final Path pDirectory) {
+        _directory = pDirectory;
+    }
+
+    static Path getDefaultDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".atlas-series");
+    }
+
+    StoredSeries getSeries(final String pGroupId, final int pStep, final String pProcessId, final String pMetric)
+        throws IOException
+    {
+        return new StoredSeries(getProcessDirectory(pGroupId, pStep, pProcessId).resolve(toFileName(pMetric)));
+    }
+
+    /**
+     * Locks the series of a process against other threads and CLI processes, so that a gap is only fetched once.
+     * Series should be opened with {@link #getSeries} after locking.
+     */
+    Closeable lock(final String pGroupId, final int pStep, final String pProcessId) throws IOException {
+        final Path directory = getProcessDirectory(pGroupId, pStep, pProcessId);
+        Files.createDirectories(directory);
+
+        final ReentrantLock localLock = LOCAL_LOCKS.computeIfAbsent(directory, k -> new ReentrantLock());
+        localLock.lock();
+        try {
+            final FileChannel channel = FileChannel.open(
+                directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE);
+            final FileLock fileLock;
+            try {
+                fileLock = channel.lock();
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+
+            return () -> {
+                try {
+                    fileLock.release();
+                    channel.close();
+                } finally {
+                    localLock.unlock();
+                }
+            };
+        } catch (IOException | RuntimeException e) {
+            localLock.unlock();
+            throw e;
+        }
+    }
+
+    private Path getProcessDirectory(final String pGroupId, final int pStep, final String pProcessId) {
+        return _directory.resolve(toFileName(pGroupId))
+            .resolve(Integer.toString(pStep))
+            .resolve(toFileName(pProcessId));
+    }
+
+    /**
+     * Keeps names such as {@code host:27017} valid on every file system.
+     */
+    private static String toFileName(final String pName) {
+        return pName.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
@@ -0,0 +1,88 @@
+package com.mongodb.atlas.cli.metrics;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * The points of one process or disk partition in one window, as one column of values per metric.  Steps without
+ * a value are NaN, so the timestamp of every value follows from its index.
+ */
+class SeriesWindow {
+
+    private final String _processId;
+    private final String _partitionName;
+    private final long _startEpochSecond;
+    private final int _stepSeconds;
+    private final int _count;
+    private final Map<String, double[]> _columns = new LinkedHashMap<>();
+
+    /**
+     * @param pPartitionName the disk partition, or null for process metrics
+     */
+    SeriesWindow(
+        final String pProcessId,
+        final String pPartitionName,
+        final long pStartEpochSecond,
+        final int pStepSeconds,
+        final int pCount)
+    {
+        _processId = pProcessId;
+        _partitionName = pPartitionName;
+        _startEpochSecond = pStartEpochSecond;
+        _stepSeconds = pStepSeconds;
+        _count = pCount;
+    }
+
+    String getProcessId() {
+        return _processId;
+    }
+
+    String getPartitionName() {
+        return _partitionName;
+    }
+
+    long getStartEpochSecond() {
+        return _startEpochSecond;
+    }
+
+    int getStepSeconds() {
+        return _stepSeconds;
+    }
+
+    int getCount() {
+        return _count;
+    }
+
+    long getEpochSecond(final int pIndex) {
+        return _startEpochSecond + (long) pIndex * _stepSeconds;
+    }
+
+    /**
+     * @return the index of the step starting at the given time, or -1 if it is not a step of this window
+     */
+    int indexOf(final long pEpochSecond) {
+        final long offset = pEpochSecond - _startEpochSecond;
+        if (offset < 0 || offset % _stepSeconds != 0 || offset / _stepSeconds >= _count) {
+            return -1;
+        }
+        return (int) (offset / _stepSeconds);
+    }
+
+    /**
+     * @return the values of a metric, created empty on first use
+     */
+    double[] getColumn(final String pMetric) {
+        return _columns.computeIfAbsent(pMetric, k -> {
+            final double[] column = new double[_count];
+            Arrays.fill(column, Double.NaN);
+            return column;
+        });
+    }
+
+    Map<String, double[]> getColumns() {
+        return Collections.unmodifiableMap(_columns);
+    }
+}
@@ -0,0 +1,108 @@
+package com.mongodb.atlas.cli.metrics;
+
+import com.mongodb.atlas.cli.ResponseParser;
+import com.mongodb.atlas.cli.util.JsonPullParser;
+import com.mongodb.atlas.cli.util.JsonPullParser.Token;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.CharBuffer;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+
+/**
+ * Reads a measurements response straight into the columns of a {@link SeriesWindow}.  Points outside the window,
+ * such as one on an inclusive end boundary, and null values are dropped.
+ */
+class SeriesWindowParser implements ResponseParser<SeriesWindow> {
+
+    private final SeriesWindow _window;
+
+    private char[] _timestamp = new char[32];
+
+    SeriesWindowParser(final SeriesWindow pWindow) {
+        _window = pWindow;
+    }
+
+    @Override
+    public SeriesWindow parse(final InputStream pContent) throws IOException {
+        final JsonPullParser parser = new JsonPullParser(pContent);
+        if (parser.next() != Token.START_OBJECT) {
+            throw new IOException("Measurements response is not a JSON object");
+        }
+
+        boolean hasMeasurements = false;
+        while (parser.next() == Token.FIELD_NAME) {
+            if (parser.textEquals("measurements") && parser.next() == Token.START_ARRAY) {
+                hasMeasurements = true;
+                while (parser.next() == Token.START_OBJECT) {
+                    readMeasurement(parser);
+                }
+            } else {
+                parser.skipValue();
+            }
+        }
+
+        if (!hasMeasurements) {
+            throw new IOException("Response does not contain measurements");
+        }
+        return _window;
+    }
+
+    private void readMeasurement(final JsonPullParser pParser) throws IOException {
+        double[] column = null;
+
+        // the API sends the name first; data points before it could not be attributed and are skipped
+        while (pParser.next() == Token.FIELD_NAME) {
+            if (pParser.textEquals("name") && pParser.next() == Token.STRING) {
+                column = _window.getColumn(pParser.getText());
+            } else if (pParser.textEquals("dataPoints") && column != null && pParser.next() == Token.START_ARRAY) {
+                while (pParser.next() == Token.START_OBJECT) {
+                    readDataPoint(pParser, column);
+                }
+            } else {
+                pParser.skipValue();
+            }
+        }
+    }
+
+    private void readDataPoint(final JsonPullParser pParser, final double[] pColumn) throws IOException {
+        int timestampLength = -1;
+        double value = Double.NaN;
+
+        while (pParser.next() == Token.FIELD_NAME) {
+            if (pParser.textEquals("timestamp")) {
+                if (pParser.next() == Token.STRING) {
+                    _timestamp = pParser.copyText(_timestamp);
+                    timestampLength = pParser.getTextLength();
+                }
+            } else if (pParser.textEquals("value")) {
+                final Token token = pParser.next();
+                if (token == Token.NUMBER || token == Token.STRING) {
+                    value = pParser.getDouble();
+                } else {
+                    pParser.skipValue();
+                }
+            } else {
+                pParser.skipValue();
+            }
+        }
+
+        if (timestampLength < 0 || Double.isNaN(value)) {
+            return;
+        }
+
+        final long epochSecond;
+        try {
+            epochSecond = Instant.parse(CharBuffer.wrap(_timestamp, 0, timestampLength)).getEpochSecond();
+        } catch (DateTimeParseException e) {
+            throw new IOException("Invalid data point timestamp: " + e.getParsedString(), e);
+        }
+
+        final int index = _window.indexOf(epochSecond);
+        if (index >= 0) {
+            pColumn[index] = value;
+        }
+    }
+}
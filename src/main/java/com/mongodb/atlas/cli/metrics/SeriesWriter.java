@@ -0,0 +1,107 @@
+package com.mongodb.atlas.cli.metrics;
+
+import java.io.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+
+/**
+ * Appends windows to an export file.  The writer tracks the file length so that a checkpoint can record exactly
+ * what has been written, and reopening at a recorded length drops anything written after it.
+ */
+abstract class SeriesWriter implements Closeable {
+
+    enum Format {
+        CSV,
+        BINARY
+    }
+
+    private final CountingOutputStream _counter;
+    private boolean _closed;
+
+    protected SeriesWriter(final CountingOutputStream pCounter) {
+        _counter = pCounter;
+    }
+
+    /**
+     * Opens the file for appending after truncating it to {@code pLength}; a file opened at length 0 starts with
+     * the format's header.
+     */
+    static SeriesWriter open(final Format pFormat, final Path pFile, final long pLength) throws IOException {
+        try (FileChannel channel = FileChannel.open(pFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            if (channel.size() < pLength) {
+                throw new IOException(String.format(
+                    "%s is shorter than its checkpoint; delete both to start over",
+                    pFile));
+            }
+            channel.truncate(pLength);
+        }
+
+        final CountingOutputStream counter = new CountingOutputStream(
+            new BufferedOutputStream(new FileOutputStream(pFile.toFile(), true), 1 << 16),
+            pLength);
+        final SeriesWriter writer = pFormat == Format.CSV
+            ? new CsvSeriesWriter(counter)
+            : new BinarySeriesWriter(counter);
+        if (pLength == 0) {
+            writer.writeHeader();
+        }
+        return writer;
+    }
+
+    protected abstract void writeHeader() throws IOException;
+
+    abstract void write(SeriesWindow pWindow) throws IOException;
+
+    /**
+     * Hands everything written so far to the file system.
+     *
+     * @return the length of the file
+     */
+    long flush() throws IOException {
+        flushEncoder();
+        _counter.flush();
+        return _counter.getCount();
+    }
+
+    /**
+     * Pushes anything the format buffers itself down to the counting stream.
+     */
+    protected void flushEncoder() throws IOException {
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!_closed) {
+            _closed = true;
+            flush();
+            _counter.close();
+        }
+    }
+
+    static class CountingOutputStream extends FilterOutputStream {
+        private long _count;
+
+        private CountingOutputStream(final OutputStream pOutputStream, final long pInitialCount) {
+            super(pOutputStream);
+            _count = pInitialCount;
+        }
+
+        @Override
+        public void write(final int pByte) throws IOException {
+            out.write(pByte);
+            _count++;
+        }
+
+        @Override
+        public void write(final byte[] pBytes, final int pOffset, final int pLength) throws IOException {
+            out.write(pBytes, pOffset, pLength);
+            _count += pLength;
+        }
+
+        long getCount() {
+            return _count;
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package com.mongodb.atlas.cli.metrics;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * One series of a {@link SeriesStore}: epoch second/value pairs in fixed size memory-mapped segments, and an
+ * index of the segments and of the time ranges already fetched.  Points are appended in batches and the index is
+ * rewritten atomically after each one, which commits the batch: points past a segment's indexed count are ignored
+ * and overwritten by the next batch, so an interrupted append leaves no trace.
+ *
+ * <p>Instances are not thread safe; callers hold the {@link SeriesStore#lock} of the process.</p>
+ */
+class StoredSeries {
+
+    static final int POINT_BYTES = 16;
+
+    // 1 MiB segments
+    static final int SEGMENT_POINTS = 1 << 16;
+
+    private static final String INDEX_FILE = "index";
+    private static final int INDEX_MAGIC = 0x41545349;
+    private static final int INDEX_VERSION = 1;
+
+    private final Path _directory;
+    private final List<Segment> _segments = new ArrayList<>();
+
+    // fetched ranges as sorted, disjoint, non-adjacent [start, end) pairs of epoch seconds
+    private final List<long[]> _ranges = new ArrayList<>();
+
+    StoredSeries(final Path pDirectory) throws IOException {
+        _directory = pDirectory;
+
+        final Path index = _directory.resolve(INDEX_FILE);
+        if (!Files.exists(index)) {
+            return;
+        }
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(index)))) {
+            if (input.readInt() != INDEX_MAGIC || input.readInt() != INDEX_VERSION) {
+                throw new IOException(String.format("Unsupported series index %s", index));
+            }
+            final int segments = input.readInt();
+            for (int i = 0; i < segments; i++) {
+                final Segment segment = new Segment(i);
+                segment._count = input.readInt();
+                segment._min = input.readLong();
+                segment._max = input.readLong();
+                _segments.add(segment);
+            }
+            final int ranges = input.readInt();
+            for (int i = 0; i < ranges; i++) {
+                _ranges.add(new long[] {input.readLong(), input.readLong()});
+            }
+        }
+    }
+
+    /**
+     * @return the parts of {@code [pStart, pEnd)} that have not been fetched, in order
+     */
+    List<long[]> getGaps(final long pStart, final long pEnd) {
+        final List<long[]> gaps = new ArrayList<>();
+        long position = pStart;
+        for (final long[] range : _ranges) {
+            if (range[1] <= position) {
+                continue;
+            }
+            if (range[0] >= pEnd) {
+                break;
+            }
+            if (range[0] > position) {
+                gaps.add(new long[] {position, range[0]});
+            }
+            position = range[1];
+        }
+        if (position < pEnd) {
+            gaps.add(new long[] {position, pEnd});
+        }
+        return gaps;
+    }
+
+    /**
+     * Appends points, which should not already be stored, and records {@code [pStart, pEnd)} as fetched.
+     */
+    void append(
+        final long[] pEpochSeconds,
+        final double[] pValues,
+        final int pCount,
+        final long pStart,
+        final long pEnd) throws IOException
+    {
+        Files.createDirectories(_directory);
+
+        int written = 0;
+        while (written < pCount) {
+            Segment segment = _segments.isEmpty() ? null : _segments.get(_segments.size() - 1);
+            if (segment == null || segment._count == SEGMENT_POINTS) {
+                segment = new Segment(_segments.size());
+                _segments.add(segment);
+            }
+
+            final MappedByteBuffer buffer = segment.map();
+            final int batch = Math.min(pCount - written, SEGMENT_POINTS - segment._count);
+            for (int i = written; i < written + batch; i++) {
+                final int offset = (segment._count + i - written) * POINT_BYTES;
+                buffer.putLong(offset, pEpochSeconds[i]);
+                buffer.putDouble(offset + 8, pValues[i]);
+                segment._min = Math.min(segment._min, pEpochSeconds[i]);
+                segment._max = Math.max(segment._max, pEpochSeconds[i]);
+            }
+            buffer.force();
+            segment._count += batch;
+            written += batch;
+        }
+
+        addRange(pStart, pEnd);
+        writeIndex();
+    }
+
+    /**
+     * @return the values of the points in {@code [pStart, pEnd)}, in no particular order
+     */
+    double[] read(final long pStart, final long pEnd) throws IOException {
+        double[] values = new double[256];
+        int count = 0;
+
+        for (final Segment segment : _segments) {
+            if (segment._count == 0 || segment._max < pStart || segment._min >= pEnd) {
+                continue;
+            }
+
+            final MappedByteBuffer buffer = segment.map();
+            for (int i = 0; i < segment._count; i++) {
+                final long epochSecond = buffer.getLong(i * POINT_BYTES);
+                if (epochSecond >= pStart && epochSecond < pEnd) {
+                    if (count == values.length) {
+                        values = Arrays.copyOf(values, count * 2);
+                    }
+                    values[count++] = buffer.getDouble(i * POINT_BYTES + 8);
+                }
+            }
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    private void addRange(final long pStart, final long pEnd) {
+        if (pStart >= pEnd) {
+            return;
+        }
+
+        long start = pStart;
+        long end = pEnd;
+        int insertAt = 0;
+        for (int i = 0; i < _ranges.size(); ) {
+            final long[] range = _ranges.get(i);
+            if (range[1] < start) {
+                insertAt = ++i;
+            } else if (range[0] > end) {
+                break;
+            } else {
+                // overlapping or adjacent
+                start = Math.min(start, range[0]);
+                end = Math.max(end, range[1]);
+                _ranges.remove(i);
+            }
+        }
+        _ranges.add(insertAt, new long[] {start, end});
+    }
+
+    private void writeIndex() throws IOException {
+        final Path temp = _directory.resolve(INDEX_FILE + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+            output.writeInt(INDEX_MAGIC);
+            output.writeInt(INDEX_VERSION);
+            output.writeInt(_segments.size());
+            for (final Segment segment : _segments) {
+                output.writeInt(segment._count);
+                output.writeLong(segment._min);
+                output.writeLong(segment._max);
+            }
+            output.writeInt(_ranges.size());
+            for (final long[] range : _ranges) {
+                output.writeLong(range[0]);
+                output.writeLong(range[1]);
+            }
+        }
+        Files.move(
+            temp,
+            _directory.resolve(INDEX_FILE),
+            StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private class Segment {
+        private final int _number;
+        private int _count;
+        private long _min = Long.MAX_VALUE;
+        private long _max = Long.MIN_VALUE;
+        private MappedByteBuffer _buffer;
+
+        private Segment(final int pNumber) {
+            _number = pNumber;
+        }
+
+        /**
+         * Maps the whole segment, creating the file if needed; the mapping outlives the channel.
+         */
+        private MappedByteBuffer map() throws IOException {
+            if (_buffer == null) {
+                try (FileChannel channel = FileChannel.open(
+                    _directory.resolve(String.format("segment-%05d", _number)),
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE))
+                {
+                    _buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) SEGMENT_POINTS * POINT_BYTES);
+                }
+            }
+            return _buffer;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.mongodb.atlas.cli.util;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+public class ConcurrencyUtil {
+
+    /**
+     * Creates a fixed size pool of daemon threads so that an interrupted or abandoned fan-out never keeps the JVM
+     * alive.  Tasks print where the thread that submitted them prints, see {@link ThreadLocalOutput}.
+     */
+    public static ExecutorService newDaemonPool(final String pName, final int pSize) {
+        return new OutputPropagatingPool(
+            pSize,
+            pSize,
+            0L,
+            new LinkedBlockingQueue<>(),
+            daemonThreadFactory(pName));
+    }
+
+    /**
+     * Creates an unbounded pool of daemon threads for short background tasks such as prefetching.  Tasks print
+     * where the thread that submitted them prints.
+     */
+    public static ExecutorService newDaemonCachedPool(final String pName) {
+        return new OutputPropagatingPool(
+            0,
+            Integer.MAX_VALUE,
+            60L,
+            new SynchronousQueue<>(),
+            daemonThreadFactory(pName));
+    }
+
+    /**
+     * Wraps an executor so that at most {@code pMaxConcurrency} tasks submitted through the wrapper run at once.
+     * Waiting tasks are queued in order without holding a thread of the shared executor, so several bounded
+     * executors can share one pool without any of them starving the others.
+     */
+    public static Executor newBoundedExecutor(final Executor pExecutor, final int pMaxConcurrency) {
+        return new BoundedExecutor(pExecutor, pMaxConcurrency);
+    }
+
+    private static ThreadFactory daemonThreadFactory(final String pName) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return r -> {
+            final Thread thread = new Thread(r, pName + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Like {@link CompletableFuture#supplyAsync} but accepts a task that throws checked exceptions.
+     */
+    public static <T> CompletableFuture<T> supplyAsync(final Callable<T> pTask, final Executor pExecutor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return pTask.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, pExecutor);
+    }
+
+    /**
+     * Strips the {@link CompletionException}/{@link ExecutionException} wrappers added by the futures framework.
+     */
+    public static Throwable unwrap(final Throwable pThrowable) {
+        Throwable cause = pThrowable;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+            && cause.getCause() != null)
+        {
+            cause = cause.getCause();
+        }
+        return cause;
+    }
+
+    /**
+     * A thread pool whose threads may serve several commands in turn, so each task carries its submitter's output.
+     */
+    private static class OutputPropagatingPool extends ThreadPoolExecutor {
+        private OutputPropagatingPool(
+            final int pCoreSize,
+            final int pMaxSize,
+            final long pKeepAliveSeconds,
+            final BlockingQueue<Runnable> pQueue,
+            final ThreadFactory pThreadFactory)
+        {
+            super(pCoreSize, pMaxSize, pKeepAliveSeconds, TimeUnit.SECONDS, pQueue, pThreadFactory);
+        }
+
+        @Override
+        public void execute(final Runnable pTask) {
+            super.execute(ThreadLocalOutput.propagate(pTask));
+        }
+    }
+
+    private static class BoundedExecutor implements Executor {
+        private final Executor _executor;
+        private final int _maxConcurrency;
+        private final Queue<Runnable> _waiting = new ArrayDeque<>();
+        private int _running;
+
+        private BoundedExecutor(final Executor pExecutor, final int pMaxConcurrency) {
+            _executor = pExecutor;
+            _maxConcurrency = pMaxConcurrency;
+        }
+
+        @Override
+        public synchronized void execute(final Runnable pTask) {
+            // queued tasks are started by whichever task finishes first, so capture the submitter's output now
+            _waiting.add(ThreadLocalOutput.propagate(pTask));
+            startWaiting();
+        }
+
+        private synchronized void startWaiting() {
+            while (_running < _maxConcurrency && !_waiting.isEmpty()) {
+                final Runnable task = _waiting.poll();
+                _running++;
+                try {
+                    _executor.execute(() -> {
+                        try {
+                            task.run();
+                        } finally {
+                            finished();
+                        }
+                    });
+                } catch (RejectedExecutionException e) {
+                    _running--;
+                    throw e;
+                }
+            }
+        }
+
+        private synchronized void finished() {
+            _running--;
+            try {
+                startWaiting();
+            } catch (RejectedExecutionException e) {
+                // the shared pool has been shut down, so the waiting tasks can never run
+                _waiting.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,308 @@
+package com.mongodb.atlas.cli.util;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+
+/**
+ * Minimal pull-based JSON tokenizer.  Tokens are read straight off the stream and the text of the current token
+ * is kept in a reusable buffer, so walking a document does not allocate per value unless the caller asks for a
+ * String.  The input is assumed to be well formed; structural errors surface as {@link IOException}s.
+ */
+public class JsonPullParser implements Closeable {
+
+    public enum Token {
+        START_OBJECT,
+        END_OBJECT,
+        START_ARRAY,
+        END_ARRAY,
+        FIELD_NAME,
+        STRING,
+        NUMBER,
+        TRUE,
+        FALSE,
+        NULL
+    }
+
+    private final Reader _reader;
+    private final char[] _buffer = new char[8192];
+    private int _position;
+    private int _limit;
+
+    private char[] _text = new char[64];
+    private int _textLength;
+
+    // true for object scopes, false for array scopes
+    private boolean[] _scopes = new boolean[32];
+    private int _depth;
+    private boolean _expectFieldName;
+
+    private Token _token;
+
+    public JsonPullParser(final Reader pReader) {
+        _reader = pReader;
+    }
+
+    public JsonPullParser(final InputStream pInputStream) {
+        this(new InputStreamReader(pInputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the next token, or null at the end of the document
+     */
+    public Token next() throws IOException {
+        while (true) {
+            final int c = readNonWhitespace();
+            switch (c) {
+                case -1:
+                    _token = null;
+                    return null;
+                case ',':
+                    _expectFieldName = inObject();
+                    continue;
+                case '{':
+                    push(true);
+                    _expectFieldName = true;
+                    return _token = Token.START_OBJECT;
+                case '}':
+                    pop();
+                    _expectFieldName = false;
+                    return _token = Token.END_OBJECT;
+                case '[':
+                    push(false);
+                    _expectFieldName = false;
+                    return _token = Token.START_ARRAY;
+                case ']':
+                    pop();
+                    _expectFieldName = false;
+                    return _token = Token.END_ARRAY;
+                case '"':
+                    readString();
+                    if (_expectFieldName) {
+                        if (readNonWhitespace() != ':') {
+                            throw new IOException("Expected ':' after field name " + getText());
+                        }
+                        _expectFieldName = false;
+                        return _token = Token.FIELD_NAME;
+                    }
+                    return _token = Token.STRING;
+                case 't':
+                    readLiteral("rue");
+                    return _token = Token.TRUE;
+                case 'f':
+                    readLiteral("alse");
+                    return _token = Token.FALSE;
+                case 'n':
+                    readLiteral("ull");
+                    return _token = Token.NULL;
+                default:
+                    if (c == '-' || (c >= '0' && c <= '9')) {
+                        readNumber((char) c);
+                        return _token = Token.NUMBER;
+                    }
+                    throw new IOException("Unexpected character '" + (char) c + "' in JSON input");
+            }
+        }
+    }
+
+    public Token getToken() {
+        return _token;
+    }
+
+    /**
+     * @return the nesting depth after the current token; 1 inside the top level object
+     */
+    public int getDepth() {
+        return _depth;
+    }
+
+    /**
+     * Skips the value that follows the current field name, or the rest of the container that the current token
+     * opened.
+     */
+    public void skipValue() throws IOException {
+        if (_token == Token.FIELD_NAME) {
+            next();
+        }
+        if (_token != Token.START_OBJECT && _token != Token.START_ARRAY) {
+            return;
+        }
+
+        final int depth = _depth;
+        while (_depth >= depth) {
+            if (next() == null) {
+                throw new EOFException("Unexpected end of JSON input");
+            }
+        }
+    }
+
+    public String getText() {
+        return new String(_text, 0, _textLength);
+    }
+
+    public boolean textEquals(final String pValue) {
+        if (pValue.length() != _textLength) {
+            return false;
+        }
+        for (int i = 0; i < _textLength; i++) {
+            if (_text[i] != pValue.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getTextLength() {
+        return _textLength;
+    }
+
+    /**
+     * Copies the text of the current token into the destination, growing it if needed.
+     *
+     * @return the destination, or a larger copy of it
+     */
+    public char[] copyText(final char[] pDestination) {
+        final char[] destination =
+            pDestination.length >= _textLength ? pDestination : Arrays.copyOf(pDestination, _textLength * 2);
+        System.arraycopy(_text, 0, destination, 0, _textLength);
+        return destination;
+    }
+
+    public double getDouble() {
+        return Double.parseDouble(getText());
+    }
+
+    @Override
+    public void close() throws IOException {
+        _reader.close();
+    }
+
+    private boolean inObject() {
+        return _depth > 0 && _scopes[_depth - 1];
+    }
+
+    private void push(final boolean pObject) {
+        if (_depth == _scopes.length) {
+            _scopes = Arrays.copyOf(_scopes, _depth * 2);
+        }
+        _scopes[_depth++] = pObject;
+    }
+
+    private void pop() throws IOException {
+        if (_depth == 0) {
+            throw new IOException("Unbalanced JSON input");
+        }
+        _depth--;
+    }
+
+    private int read() throws IOException {
+        if (_position == _limit) {
+            _limit = _reader.read(_buffer, 0, _buffer.length);
+            _position = 0;
+            if (_limit <= 0) {
+                _limit = 0;
+                return -1;
+            }
+        }
+        return _buffer[_position++];
+    }
+
+    private int readNonWhitespace() throws IOException {
+        int c;
+        do {
+            c = read();
+        } while (c == ' ' || c == '\n' || c == '\r' || c == '\t');
+        return c;
+    }
+
+    private void appendText(final char pChar) {
+        if (_textLength == _text.length) {
+            _text = Arrays.copyOf(_text, _textLength * 2);
+        }
+        _text[_textLength++] = pChar;
+    }
+
+    private void readString() throws IOException {
+        _textLength = 0;
+        while (true) {
+            final int c = read();
+            if (c == -1) {
+                throw new EOFException("Unterminated JSON string");
+            } else if (c == '"') {
+                return;
+            } else if (c == '\\') {
+                final int escaped = read();
+                switch (escaped) {
+                    case 'b':
+                        appendText('\b');
+                        break;
+                    case 'f':
+                        appendText('\f');
+                        break;
+                    case 'n':
+                        appendText('\n');
+                        break;
+                    case 'r':
+                        appendText('\r');
+                        break;
+                    case 't':
+                        appendText('\t');
+                        break;
+                    case 'u':
+                        int codePoint = 0;
+                        for (int i = 0; i < 4; i++) {
+                            final int digit = Character.digit(read(), 16);
+                            if (digit < 0) {
+                                throw new IOException("Invalid unicode escape in JSON string");
+                            }
+                            codePoint = (codePoint << 4) | digit;
+                        }
+                        appendText((char) codePoint);
+                        break;
+                    case -1:
+                        throw new EOFException("Unterminated JSON string");
+                    default:
+                        appendText((char) escaped);
+                }
+            } else {
+                appendText((char) c);
+            }
+        }
+    }
+
+    private void readNumber(final char pFirst) throws IOException {
+        _textLength = 0;
+        appendText(pFirst);
+        while (true) {
+            if (_position == _limit && peekFill() < 0) {
+                return;
+            }
+            final char c = _buffer[_position];
+            if ((c >= '0' && c <= '9') || c == '.' || c == 'e' || c == 'E' || c == '+' || c == '-') {
+                appendText(c);
+                _position++;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private int peekFill() throws IOException {
+        _limit = _reader.read(_buffer, 0, _buffer.length);
+        _position = 0;
+        if (_limit <= 0) {
+            _limit = 0;
+            return -1;
+        }
+        return _limit;
+    }
+
+    private void readLiteral(final String pRemainder) throws IOException {
+        for (int i = 0; i < pRemainder.length(); i++) {
+            if (read() != pRemainder.charAt(i)) {
+                throw new IOException("Invalid JSON literal");
+            }
+        }
+    }
+}
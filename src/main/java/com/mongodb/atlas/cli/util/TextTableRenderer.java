@@ -0,0 +1,295 @@
+package com.mongodb.atlas.cli.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Renders rows of cells as a table with every column padded to its widest cell.
+ *
+ * <p>{@link #toText} produces the plain tab separated table.  An instance renders a sequence of frames of the same
+ * table to a terminal: the first frame is painted in full and each later frame only rewrites the cells that
+ * changed, using cursor addressing, so a refreshing table neither flickers nor resends hundreds of unchanged
+ * rows.  Column widths are maintained incrementally between frames and the table is repainted in full only when
+ * a width changes or the frame is taller than the terminal.</p>
+ */
+public class TextTableRenderer {
+
+    private static final int PADDING = 2;
+    private static final int TAB_WIDTH = 8;
+
+    private static final String HOME = "\033[H";
+    private static final String ERASE_LINE = "\033[K";
+    private static final String ERASE_BELOW = "\033[J";
+
+    private final int _terminalRows;
+    private final StringBuilder _out = new StringBuilder();
+
+    private List<String[]> _cells;
+    private int[] _widths;
+    private int[] _columnStarts;
+    private String _trailer = "";
+
+    public TextTableRenderer() {
+        this(getTerminalRows());
+    }
+
+    /**
+     * @param pTerminalRows the height of the terminal, or 0 if unknown
+     */
+    public TextTableRenderer(final int pTerminalRows) {
+        _terminalRows = pTerminalRows;
+    }
+
+    /**
+     * @return the rows as lines of cells padded to the column width and separated by tabs
+     */
+    public static String toText(final List<List<String>> pRows) {
+        final int[] widths = new int[getColumnCount(pRows)];
+        for (final List<String> row : pRows) {
+            for (int i = 0; i < row.size(); i++) {
+                widths[i] = Math.max(widths[i], row.get(i).length());
+            }
+        }
+
+        final StringBuilder lines = new StringBuilder(pRows.size() * 16 * Math.max(1, widths.length));
+        for (final List<String> row : pRows) {
+            for (int i = 0; i < row.size(); i++) {
+                appendPadded(lines, row.get(i), widths[i] + PADDING);
+                if (i < row.size() - 1) {
+                    lines.append('\t');
+                }
+            }
+            lines.append('\n');
+        }
+        return lines.toString();
+    }
+
+    /**
+     * @param pRows the table
+     * @param pTrailer text shown below the table
+     * @return the terminal output that turns the previous frame into this one
+     */
+    public String renderFrame(final List<List<String>> pRows, final String pTrailer) {
+        _out.setLength(0);
+
+        final List<String[]> previous = _cells;
+        final int[] previousWidths = _widths;
+        final List<String[]> cells = toCells(pRows, getColumnCount(pRows));
+        final int[] widths = previous != null && previousWidths.length == getColumnCount(pRows)
+            ? updateWidths(previous, cells, previousWidths)
+            : computeWidths(cells, getColumnCount(pRows));
+
+        final int lines = cells.size() + countLines(pTrailer);
+        final boolean repaint = previous == null
+            || !Arrays.equals(widths, previousWidths)
+            || (_terminalRows > 0 && lines >= _terminalRows);
+
+        _cells = cells;
+        _widths = widths;
+        _columnStarts = getColumnStarts(widths);
+
+        if (repaint) {
+            repaint(pTrailer);
+        } else {
+            update(previous, pTrailer);
+        }
+        _trailer = pTrailer;
+        return _out.toString();
+    }
+
+    private void repaint(final String pTrailer) {
+        _out.append(HOME);
+        for (final String[] row : _cells) {
+            appendLine(row);
+            _out.append(ERASE_LINE).append('\n');
+        }
+        _out.append(ERASE_BELOW).append(pTrailer);
+    }
+
+    private void update(final List<String[]> pPrevious, final String pTrailer) {
+        for (int row = 0; row < _cells.size(); row++) {
+            final String[] cells = _cells.get(row);
+            if (row >= pPrevious.size()) {
+                moveTo(row, 0);
+                appendLine(cells);
+                _out.append(ERASE_LINE);
+                continue;
+            }
+
+            final String[] previousCells = pPrevious.get(row);
+            for (int column = 0; column < cells.length; column++) {
+                if (!cells[column].equals(previousCells[column])) {
+                    moveTo(row, _columnStarts[column]);
+                    appendPadded(_out, cells[column], getSlotWidth(column));
+                }
+            }
+        }
+
+        if (_cells.size() != pPrevious.size() || !pTrailer.equals(_trailer)) {
+            moveTo(_cells.size(), 0);
+            _out.append(ERASE_BELOW).append(pTrailer);
+        } else {
+            // leave the cursor where a full paint would have
+            moveTo(_cells.size() + countLines(pTrailer), 0);
+        }
+    }
+
+    /**
+     * Writes a row with spaces in place of the tabs of {@link #toText}, landing on the same columns, so that single
+     * cells can later be rewritten at a known position.
+     */
+    private void appendLine(final String[] pCells) {
+        for (int column = 0; column < pCells.length; column++) {
+            appendPadded(_out, pCells[column], getSlotWidth(column));
+        }
+    }
+
+    private int getSlotWidth(final int pColumn) {
+        return pColumn < _columnStarts.length - 1
+            ? _columnStarts[pColumn + 1] - _columnStarts[pColumn]
+            : _widths[pColumn] + PADDING;
+    }
+
+    private void moveTo(final int pRow, final int pColumn) {
+        _out.append("\033[").append(pRow + 1).append(';').append(pColumn + 1).append('H');
+    }
+
+    /**
+     * Grows a column when a changed cell is wider than it and only rescans the columns whose widest cell changed.
+     */
+    private static int[] updateWidths(final List<String[]> pPrevious, final List<String[]> pCells, final int[] pWidths) {
+        final int[] widths = pWidths.clone();
+        final boolean[] rescan = new boolean[widths.length];
+
+        for (int row = 0; row < Math.max(pPrevious.size(), pCells.size()); row++) {
+            final String[] cells = row < pCells.size() ? pCells.get(row) : null;
+            final String[] previousCells = row < pPrevious.size() ? pPrevious.get(row) : null;
+
+            for (int column = 0; column < widths.length; column++) {
+                final String cell = cells != null ? cells[column] : null;
+                final String previousCell = previousCells != null ? previousCells[column] : null;
+                if (cell != null && cell.equals(previousCell)) {
+                    continue;
+                }
+                if (cell != null && cell.length() > widths[column]) {
+                    widths[column] = cell.length();
+                } else if (previousCell != null && previousCell.length() == pWidths[column]) {
+                    rescan[column] = true;
+                }
+            }
+        }
+
+        for (int column = 0; column < widths.length; column++) {
+            if (rescan[column]) {
+                widths[column] = 0;
+                for (final String[] cells : pCells) {
+                    widths[column] = Math.max(widths[column], cells[column].length());
+                }
+            }
+        }
+        return widths;
+    }
+
+    private static int[] computeWidths(final List<String[]> pCells, final int pColumns) {
+        final int[] widths = new int[pColumns];
+        for (final String[] cells : pCells) {
+            for (int column = 0; column < pColumns; column++) {
+                widths[column] = Math.max(widths[column], cells[column].length());
+            }
+        }
+        return widths;
+    }
+
+    /**
+     * @return where each column starts once the tab after the previous, padded column has been expanded
+     */
+    private static int[] getColumnStarts(final int[] pWidths) {
+        final int[] starts = new int[pWidths.length];
+        for (int column = 1; column < pWidths.length; column++) {
+            final int end = starts[column - 1] + pWidths[column - 1] + PADDING;
+            starts[column] = (end / TAB_WIDTH + 1) * TAB_WIDTH;
+        }
+        return starts;
+    }
+
+    private static List<String[]> toCells(final List<List<String>> pRows, final int pColumns) {
+        final List<String[]> cells = new ArrayList<>(pRows.size());
+        for (final List<String> row : pRows) {
+            final String[] rowCells = new String[pColumns];
+            for (int column = 0; column < pColumns; column++) {
+                rowCells[column] = column < row.size() ? row.get(column) : "";
+            }
+            cells.add(rowCells);
+        }
+        return cells;
+    }
+
+    private static int getColumnCount(final List<List<String>> pRows) {
+        int columns = 0;
+        for (final List<String> row : pRows) {
+            columns = Math.max(columns, row.size());
+        }
+        return columns;
+    }
+
+    private static int countLines(final String pText) {
+        int lines = 0;
+        for (int i = 0; i < pText.length(); i++) {
+            if (pText.charAt(i) == '\n') {
+                lines++;
+            }
+        }
+        return lines;
+    }
+
+    private static void appendPadded(final StringBuilder pOut, final String pText, final int pWidth) {
+        pOut.append(pText);
+        for (int i = pText.length(); i < pWidth; i++) {
+            pOut.append(' ');
+        }
+    }
+
+    /**
+     * @return the height of the controlling terminal from {@code LINES} or {@code stty}, or 0 if unknown
+     */
+    private static int getTerminalRows() {
+        final String lines = System.getenv("LINES");
+        if (lines != null) {
+            try {
+                return Integer.parseInt(lines.trim());
+            } catch (NumberFormatException e) {
+                return 0;
+            }
+        }
+
+        final File tty = new File("/dev/tty");
+        if (System.console() == null || !tty.canRead()) {
+            return 0;
+        }
+        try {
+            final Process stty = new ProcessBuilder("stty", "size").redirectInput(tty).start();
+            try (InputStream in = stty.getInputStream()) {
+                if (!stty.waitFor(1, TimeUnit.SECONDS)) {
+                    stty.destroy();
+                    return 0;
+                }
+                final byte[] buffer = new byte[64];
+                final int read = in.read(buffer);
+                final String size = read > 0 ? new String(buffer, 0, read, StandardCharsets.US_ASCII).trim() : "";
+                return size.contains(" ") ? Integer.parseInt(size.substring(0, size.indexOf(' '))) : 0;
+            }
+        } catch (IOException | NumberFormatException e) {
+            return 0;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return 0;
+        }
+    }
+}
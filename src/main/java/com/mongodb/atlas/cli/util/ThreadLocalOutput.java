@@ -0,0 +1,122 @@
+package com.mongodb.atlas.cli.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.Charset;
+
+
+/**
+ * Replaces {@code System.out}/{@code System.err} with streams that write to a per-thread target when one is set
+ * and to the original console streams otherwise.  Lets several commands run in one JVM while keeping their
+ * output apart, without the modules having to know where their output goes.  Pool threads outlive the command
+ * that started them, so the target is not inherited but carried with each task, see {@link #propagate}; the pools
+ * of {@link ConcurrencyUtil} do that for every task they are given.
+ */
+public class ThreadLocalOutput {
+
+    private static final ThreadLocal<OutputStream> _out = new ThreadLocal<>();
+    private static final ThreadLocal<OutputStream> _err = new ThreadLocal<>();
+
+    private static PrintStream _installedOut;
+    private static PrintStream _installedErr;
+    private static Charset _installedCharset;
+
+    /**
+     * Installs the streams, again if something has replaced them since.
+     */
+    public static synchronized void install() {
+        install(Charset.defaultCharset());
+    }
+
+    /**
+     * Installs the streams, again if something has replaced them since or they encode another charset.
+     *
+     * @param pCharset the encoding of what the per-thread targets and the console receive
+     */
+    public static synchronized void install(final Charset pCharset) {
+        if (System.out == _installedOut && System.err == _installedErr && pCharset.equals(_installedCharset)) {
+            return;
+        }
+        try {
+            _installedOut = new PrintStream(new DelegatingOutputStream(_out, System.out), true, pCharset.name());
+            _installedErr = new PrintStream(new DelegatingOutputStream(_err, System.err), true, pCharset.name());
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        _installedCharset = pCharset;
+        System.setOut(_installedOut);
+        System.setErr(_installedErr);
+    }
+
+    /**
+     * Sends everything the current thread writes to {@code System.out}/{@code System.err} to the given streams.
+     */
+    public static void redirect(final OutputStream pOut, final OutputStream pErr) {
+        _out.set(pOut);
+        _err.set(pErr);
+    }
+
+    public static void reset() {
+        System.out.flush();
+        System.err.flush();
+        _out.remove();
+        _err.remove();
+    }
+
+    /**
+     * @return a task that runs with the target of the current thread, whichever thread runs it, and then restores
+     * that thread's own
+     */
+    public static Runnable propagate(final Runnable pTask) {
+        final OutputStream out = _out.get();
+        final OutputStream err = _err.get();
+        if (out == null && err == null) {
+            return pTask;
+        }
+
+        return () -> {
+            final OutputStream previousOut = _out.get();
+            final OutputStream previousErr = _err.get();
+            redirect(out, err);
+            try {
+                pTask.run();
+            } finally {
+                System.out.flush();
+                System.err.flush();
+                redirect(previousOut, previousErr);
+            }
+        };
+    }
+
+    private static class DelegatingOutputStream extends OutputStream {
+        private final ThreadLocal<OutputStream> _target;
+        private final OutputStream _default;
+
+        private DelegatingOutputStream(final ThreadLocal<OutputStream> pTarget, final OutputStream pDefault) {
+            _target = pTarget;
+            _default = pDefault;
+        }
+
+        private OutputStream target() {
+            final OutputStream target = _target.get();
+            return target != null ? target : _default;
+        }
+
+        @Override
+        public void write(final int pByte) throws IOException {
+            target().write(pByte);
+        }
+
+        @Override
+        public void write(final byte[] pBytes, final int pOffset, final int pLength) throws IOException {
+            target().write(pBytes, pOffset, pLength);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            target().flush();
+        }
+    }
+}
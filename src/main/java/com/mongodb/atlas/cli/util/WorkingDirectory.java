@@ -0,0 +1,37 @@
+package com.mongodb.atlas.cli.util;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+
+/**
+ * The directory relative paths of a command's options resolve against.  That is the JVM's own working directory
+ * unless the thread running the command has set another, as the daemon does with the directory of the client that
+ * forwarded the command.
+ */
+public class WorkingDirectory {
+
+    private static final ThreadLocal<Path> _directory = new ThreadLocal<>();
+
+    /**
+     * @param pDirectory an absolute directory
+     */
+    public static void set(final Path pDirectory) {
+        if (!pDirectory.isAbsolute()) {
+            throw new IllegalArgumentException(String.format("Invalid working directory specified: %s", pDirectory));
+        }
+        _directory.set(pDirectory);
+    }
+
+    public static void reset() {
+        _directory.remove();
+    }
+
+    /**
+     * @return the path of a command line option, resolved against the current thread's working directory
+     */
+    public static Path resolve(final String pPath) {
+        final Path directory = _directory.get();
+        return directory != null ? directory.resolve(pPath) : Paths.get(pPath);
+    }
+}
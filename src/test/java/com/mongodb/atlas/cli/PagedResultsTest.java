@@ -0,0 +1,210 @@
+package com.mongodb.atlas.cli;
+
+import junit.framework.TestCase;
+import org.apache.commons.cli.CommandLine;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+
+public class PagedResultsTest extends TestCase {
+
+    private static final Identity IDENTITY = new Identity("user", "key", "G1");
+
+    private static final String LISTING = "https://atlas.test/api/atlas/v1.0/groups/G1/processes";
+
+    public void testFollowsTheNextLink() throws Exception {
+        final FakeFetcher fetcher = new FakeFetcher()
+            .serve(LISTING + "?pageNum=1&itemsPerPage=2", page(0, 2, 5).put("links", new JSONArray()
+                .put(new JSONObject().put("rel", "next").put("href", LISTING + "?cursor=b"))))
+            .serve(LISTING + "?cursor=b", page(2, 4, 5).put("links", new JSONArray()
+                .put(new JSONObject().put("rel", "next").put("href", LISTING + "?cursor=c"))))
+            .serve(LISTING + "?cursor=c", page(4, 5, 5));
+
+        assertEquals(ids(0, 5), drain(new PagedResults(fetcher, IDENTITY, new URI(LISTING), 2)));
+        assertEquals(3, fetcher.getRequests().size());
+        assertTrue(fetcher.getRequests().contains(LISTING + "?cursor=c"));
+    }
+
+    public void testFallsBackToTheTotalCount() throws Exception {
+        final FakeFetcher fetcher = new FakeFetcher()
+            .serve(LISTING + "?pageNum=1&itemsPerPage=2", page(0, 2, 5))
+            .serve(LISTING + "?pageNum=2&itemsPerPage=2", page(2, 4, 5))
+            .serve(LISTING + "?pageNum=3&itemsPerPage=2", page(4, 5, 5));
+
+        final PagedResults results = new PagedResults(fetcher, IDENTITY, new URI(LISTING), 2);
+        assertEquals(ids(0, 5), drain(results));
+        assertEquals(5, results.getTotalCount());
+        assertEquals(3, fetcher.getRequests().size());
+    }
+
+    public void testPageFailureIsRaisedFromHasNextAndNext() throws Exception {
+        final FakeFetcher fetcher = new FakeFetcher()
+            .serve(LISTING + "?pageNum=1&itemsPerPage=2", page(0, 2, 5));
+
+        final PagedResults results = new PagedResults(fetcher, IDENTITY, new URI(LISTING), 2);
+        results.next();
+        results.next();
+        try {
+            results.hasNext();
+            fail("page 2 is not served");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("pageNum=2"));
+        }
+
+        final PagedResults failing = new PagedResults(fetcher, IDENTITY, new URI(LISTING), 2);
+        failing.next();
+        failing.next();
+        try {
+            failing.next();
+            fail("page 2 is not served");
+        } catch (UncheckedIOException e) {
+            assertTrue(e.getCause() instanceof IOException);
+        }
+    }
+
+    public void testEndOfPageFiresAtPageBoundaries() throws Exception {
+        final FakeFetcher fetcher = new FakeFetcher()
+            .serve(LISTING + "?pageNum=1&itemsPerPage=2", page(0, 2, 3))
+            .serve(LISTING + "?pageNum=2&itemsPerPage=2", page(2, 3, 3));
+
+        final PagedResults results = new PagedResults(fetcher, IDENTITY, new URI(LISTING), 2);
+        final List<Boolean> endOfPage = new ArrayList<>();
+        while (results.hasNext()) {
+            results.next();
+            endOfPage.add(results.isEndOfPage());
+        }
+        assertEquals(Arrays.asList(false, true, true), endOfPage);
+    }
+
+    public void testOutputIsFlushedBeforeTheNextPageArrives() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+        final FakeFetcher fetcher = new FakeFetcher()
+            .serve(LISTING + "?pageNum=1&itemsPerPage=2", page(0, 2, 3))
+            .serve(LISTING + "?pageNum=2&itemsPerPage=2", page(2, 3, 3));
+        fetcher.blockUntil(LISTING + "?pageNum=2&itemsPerPage=2", release);
+
+        final PagedResults results = new PagedResults(fetcher, IDENTITY, new URI(LISTING), 2);
+        final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        final PrintStream out = System.out;
+        System.setOut(new PrintStream(captured, true));
+        try {
+            final Thread writer = new Thread(() -> {
+                try {
+                    new CliModule(new String[0]) {
+                        @Override
+                        protected void _execute(final CommandLine pCommandLine) {
+                        }
+                    }.outputPagedResults(results, ResultsWriter.Format.NDJSON);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.start();
+
+            // the first page is written while the second is still being fetched
+            final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (countLines(captured) < 2 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, countLines(captured));
+
+            release.countDown();
+            writer.join(10_000);
+            assertEquals(3, countLines(captured));
+        } finally {
+            release.countDown();
+            System.setOut(out);
+        }
+    }
+
+    private static int countLines(final ByteArrayOutputStream pOut) {
+        final String text = new String(pOut.toByteArray(), StandardCharsets.UTF_8);
+        return text.isEmpty() ? 0 : text.split("\n").length;
+    }
+
+    private static JSONObject page(final int pFrom, final int pTo, final int pTotalCount) {
+        final JSONArray results = new JSONArray();
+        for (final String id : ids(pFrom, pTo)) {
+            results.put(new JSONObject().put("id", id));
+        }
+        return new JSONObject().put("results", results).put("totalCount", pTotalCount);
+    }
+
+    private static List<String> ids(final int pFrom, final int pTo) {
+        final List<String> ids = new ArrayList<>();
+        for (int i = pFrom; i < pTo; i++) {
+            ids.add("host" + i);
+        }
+        return ids;
+    }
+
+    private static List<String> drain(final PagedResults pResults) {
+        final List<String> ids = new ArrayList<>();
+        while (pResults.hasNext()) {
+            ids.add(pResults.next().getString("id"));
+        }
+        return ids;
+    }
+
+    /**
+     * Serves fixed pages by URI; any other URI fails.
+     */
+    private static class FakeFetcher implements ResultsFetcher {
+        private final Map<String, JSONObject> _pages = new ConcurrentHashMap<>();
+        private final Map<String, CountDownLatch> _blocked = new ConcurrentHashMap<>();
+        private final List<String> _requests = Collections.synchronizedList(new ArrayList<>());
+
+        private FakeFetcher serve(final String pURI, final JSONObject pPage) {
+            _pages.put(pURI, pPage);
+            return this;
+        }
+
+        private void blockUntil(final String pURI, final CountDownLatch pRelease) {
+            _blocked.put(pURI, pRelease);
+        }
+
+        private List<String> getRequests() {
+            return new ArrayList<>(_requests);
+        }
+
+        @Override
+        public <T> T getResults(final Identity pCredentials, final URI pURI, final ResponseParser<T> pParser)
+            throws IOException
+        {
+            final String uri = pURI.toString();
+            _requests.add(uri);
+
+            final CountDownLatch release = _blocked.get(uri);
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+            }
+
+            final JSONObject page = _pages.get(uri);
+            if (page == null) {
+                throw new IOException(String.format("No page at %s", uri));
+            }
+            return pParser.parse(new ByteArrayInputStream(page.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+}
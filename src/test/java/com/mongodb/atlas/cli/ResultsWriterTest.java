@@ -0,0 +1,92 @@
+package com.mongodb.atlas.cli;
+
+import junit.framework.TestCase;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+
+public class ResultsWriterTest extends TestCase {
+
+    public void testJsonHasTheShapeOfAPage() throws Exception {
+        final StringWriter out = new StringWriter();
+        final ResultsWriter writer = ResultsWriter.open(ResultsWriter.Format.JSON, out);
+        writer.writeResult(new JSONObject().put("name", "a"));
+        writer.writeResult(new JSONObject().put("name", "b"));
+        writer.endResults(2);
+
+        final JSONObject page = new JSONObject(out.toString());
+        assertEquals(2, page.getJSONArray("results").length());
+        assertEquals("b", page.getJSONArray("results").getJSONObject(1).getString("name"));
+        assertEquals(2, page.getInt("totalCount"));
+
+        final StringWriter empty = new StringWriter();
+        ResultsWriter.open(ResultsWriter.Format.JSON, empty).endResults(-1);
+        assertEquals(0, new JSONObject(empty.toString()).getJSONArray("results").length());
+    }
+
+    public void testNdjsonWritesOneLinePerResult() throws Exception {
+        final StringWriter out = new StringWriter();
+        final ResultsWriter writer = ResultsWriter.open(ResultsWriter.Format.NDJSON, out);
+        writer.writeResult(new JSONObject().put("name", "a").put("nested", new JSONObject().put("x", 1)));
+        writer.writeResult(new JSONObject().put("name", "b"));
+        writer.endResults(2);
+
+        final String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(1, new JSONObject(lines[0]).getJSONObject("nested").getInt("x"));
+        assertEquals("b", new JSONObject(lines[1]).getString("name"));
+    }
+
+    public void testCsvFlattensWithColumnsOfTheFirstResult() throws Exception {
+        final StringWriter out = new StringWriter();
+        final ResultsWriter writer = ResultsWriter.open(ResultsWriter.Format.CSV, out);
+        writer.writeResult(new JSONObject()
+            .put("name", "Cluster0")
+            .put("providerSettings", new JSONObject().put("regionName", "US_EAST_1"))
+            .put("tags", new JSONArray().put("a").put("b"))
+            .put("note", JSONObject.NULL));
+        writer.writeResult(new JSONObject().put("name", "say \"hi\", twice").put("extra", 1));
+        writer.endResults(-1);
+
+        assertEquals("name,note,providerSettings.regionName,tags\n"
+            + "Cluster0,,US_EAST_1,\"[\"\"a\"\",\"\"b\"\"]\"\n"
+            + "\"say \"\"hi\"\", twice\",,,\n", out.toString());
+    }
+
+    public void testCsvWarnsOnceAboutFieldsMissingFromTheHeader() throws Exception {
+        final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        final PrintStream err = System.err;
+        System.setErr(new PrintStream(captured, true, StandardCharsets.UTF_8.name()));
+        try {
+            final ResultsWriter writer = ResultsWriter.open(ResultsWriter.Format.CSV, new StringWriter());
+            writer.writeResult(new JSONObject().put("name", "a"));
+            writer.writeResult(new JSONObject().put("name", "b"));
+            writer.writeResult(new JSONObject().put("name", "c").put("paused", true)
+                .put("mongoURI", new JSONObject().put("host", "c0")));
+            writer.writeResult(new JSONObject().put("name", "d").put("extra", 1));
+            writer.endResults(-1);
+        } finally {
+            System.setErr(err);
+        }
+
+        assertEquals(
+            String.format(
+                "Warning: fields not in the first result are left out of the CSV output: mongoURI.host,paused%n"),
+            new String(captured.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    public void testUnknownFormatIsRejected() {
+        assertEquals(ResultsWriter.Format.NDJSON, ResultsWriter.getFormat("ndjson"));
+        try {
+            ResultsWriter.getFormat("xml");
+            fail("Expected xml to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("xml"));
+        }
+    }
+}
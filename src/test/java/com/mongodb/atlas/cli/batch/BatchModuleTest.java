@@ -0,0 +1,51 @@
+package com.mongodb.atlas.cli.batch;
+
+import junit.framework.TestCase;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class BatchModuleTest extends TestCase {
+
+    public void testParseLineSplitsLikeAShell() {
+        assertEquals(
+            Arrays.asList("clusters", "create", "-cn", "My Cluster", "--regionName", "US_EAST_1"),
+            BatchModule.parseLine("  clusters create -cn \"My Cluster\"\t--regionName US_EAST_1 "));
+        assertEquals(Arrays.asList("a b", "c\"d", "e\\f"), BatchModule.parseLine("'a b' c\\\"d 'e\\f'"));
+        assertEquals(Arrays.asList("list", "a#b"), BatchModule.parseLine("list a#b # the rest is a comment"));
+        assertEquals(Arrays.asList("", "x"), BatchModule.parseLine("\"\" x"));
+        assertTrue(BatchModule.parseLine("# only a comment").isEmpty());
+    }
+
+    public void testUnterminatedQuoteIsRejected() {
+        try {
+            BatchModule.parseLine("clusters list -cn \"Cluster0");
+            fail("Expected the line to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("unterminated quote"));
+        }
+    }
+
+    public void testReadKeepsLineNumbersAndBarriers() throws Exception {
+        final List<BatchModule.Command> commands = BatchModule.read(new BufferedReader(new StringReader(
+            "# setup\natlas clusters list\n\nwait\nclusters status --columns conn\n")));
+
+        assertEquals(3, commands.size());
+        assertEquals(2, commands.get(0).getLineNumber());
+        assertTrue(Arrays.equals(new String[] {"clusters", "list"}, commands.get(0).getArgs()));
+        assertNull(commands.get(1).getArgs());
+        assertEquals(5, commands.get(2).getLineNumber());
+    }
+
+    public void testNestedBatchIsRejectedBeforeAnythingRuns() throws Exception {
+        try {
+            BatchModule.read(new BufferedReader(new StringReader("clusters list\ndaemon --port 9000\n")));
+            fail("Expected the daemon to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("line 2"));
+        }
+    }
+}
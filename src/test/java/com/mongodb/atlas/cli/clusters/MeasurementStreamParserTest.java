@@ -0,0 +1,213 @@
+package com.mongodb.atlas.cli.clusters;
+
+import junit.framework.TestCase;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Compares the streaming measurements parser with the DOM based {@link MeasurementsClient#mapMetrics}.
+ */
+public class MeasurementStreamParserTest extends TestCase {
+
+    private static final String[] METRICS = {
+        "CONNECTIONS",
+        "DB_STORAGE_TOTAL",
+        "DB_DATA_SIZE_TOTAL",
+        "PROCESS_NORMALIZED_CPU_USER",
+        "PROCESS_NORMALIZED_CPU_KERNEL",
+        "CURSORS_TOTAL_OPEN"
+    };
+
+    public void testMatchesDomParser() throws Exception {
+        final byte[] payload = buildPayload(20);
+
+        final Map<String, DataPoint> dom = parseDom(payload);
+        final Map<String, DataPoint> stream = parseStream(payload, MeasurementStreamParser.Aggregate.LAST);
+
+        assertEquals(dom.keySet(), stream.keySet());
+        for (final String metric : dom.keySet()) {
+            assertEquals(dom.get(metric).getTimestamp(), stream.get(metric).getTimestamp());
+            assertEquals(dom.get(metric).getValue(), stream.get(metric).getValue());
+        }
+        // every metric ends with a null point, the previous minute holds the last value
+        assertEquals(Instant.parse("2018-01-01T00:18:00Z"), stream.get("CONNECTIONS").getTimestamp());
+    }
+
+    public void testSkipsUnknownFieldsAndEmptySeries() throws Exception {
+        final String json = "{\"groupId\":\"g\",\"links\":[{\"rel\":\"self\",\"href\":\"h\"}],"
+            + "\"measurements\":[{\"name\":\"CONNECTIONS\",\"units\":\"SCALAR\",\"dataPoints\":[]},"
+            + "{\"dataPoints\":[{\"timestamp\":\"2018-01-01T00:00:00Z\",\"value\":{\"nested\":[1,2]}},"
+            + "{\"timestamp\":\"2018-01-01T00:01:00Z\",\"value\":-1.5e3}],\"name\":\"ESC\\\"APED\\u0041\"}],"
+            + "\"processId\":\"p\"}";
+
+        final Map<String, DataPoint> stream =
+            parseStream(json.getBytes(StandardCharsets.UTF_8), MeasurementStreamParser.Aggregate.LAST);
+
+        assertEquals(1, stream.size());
+        assertEquals(-1500d, stream.get("ESC\"APEDA").getValue());
+    }
+
+    public void testSkipsPointsWithoutTimestamp() throws Exception {
+        final String json = "{\"measurements\":[{\"name\":\"CONNECTIONS\",\"dataPoints\":["
+            + "{\"timestamp\":\"2018-01-01T00:00:00Z\",\"value\":1},"
+            + "{\"timestamp\":null,\"value\":2},"
+            + "{\"value\":3}]}]}";
+        final byte[] payload = json.getBytes(StandardCharsets.UTF_8);
+
+        final Map<String, DataPoint> stream = parseStream(payload, MeasurementStreamParser.Aggregate.LAST);
+        assertEquals(Instant.parse("2018-01-01T00:00:00Z"), stream.get("CONNECTIONS").getTimestamp());
+        assertEquals(1d, stream.get("CONNECTIONS").getValue());
+        assertEquals(1d, parseStream(payload, MeasurementStreamParser.Aggregate.MAX).get("CONNECTIONS").getValue());
+        assertEquals(1d, parseDom(payload).get("CONNECTIONS").getValue());
+    }
+
+    public void testMalformedTimestampIsAParseError() throws Exception {
+        final byte[] payload = ("{\"measurements\":[{\"name\":\"CONNECTIONS\",\"dataPoints\":["
+            + "{\"timestamp\":\"yesterday\",\"value\":1}]}]}").getBytes(StandardCharsets.UTF_8);
+        try {
+            parseStream(payload, MeasurementStreamParser.Aggregate.LAST);
+            fail();
+        } catch (IOException e) {
+            assertEquals("Malformed timestamp: yesterday", e.getMessage());
+        }
+    }
+
+    public void testAggregates() throws Exception {
+        final byte[] payload = buildPayload(5);
+
+        // values for CONNECTIONS are 0, 1, 2, 3 followed by a null point
+        assertEquals(0d, parseStream(payload, MeasurementStreamParser.Aggregate.MIN).get("CONNECTIONS").getValue());
+        assertEquals(3d, parseStream(payload, MeasurementStreamParser.Aggregate.MAX).get("CONNECTIONS").getValue());
+        assertEquals(1.5d, parseStream(payload, MeasurementStreamParser.Aggregate.AVG).get("CONNECTIONS").getValue());
+    }
+
+    public void testListenerReceivesEveryPoint() throws Exception {
+        // more points than the listener buffers start with
+        final byte[] payload = buildPayload(100);
+
+        final Map<String, List<String>> dom = new HashMap<>();
+        final JSONObject response = new JSONObject(new String(payload, StandardCharsets.UTF_8));
+        MeasurementsClient.emitPoints(response.getJSONArray("measurements"), (metric, epochSeconds, values, count) ->
+            dom.put(metric, toPoints(epochSeconds, values, count)));
+
+        final Map<String, List<String>> stream = new HashMap<>();
+        new MeasurementStreamParser(MeasurementStreamParser.Aggregate.LAST, (metric, epochSeconds, values, count) ->
+            stream.put(metric, toPoints(epochSeconds, values, count))).parse(new ByteArrayInputStream(payload));
+
+        assertEquals(dom, stream);
+        assertEquals(99, stream.get("CONNECTIONS").size());
+        assertEquals(Instant.parse("2018-01-01T00:01:00Z").getEpochSecond() + "=2.0",
+            stream.get("DB_STORAGE_TOTAL").get(1));
+    }
+
+    public void testParsersWithoutListenerAreInterchangeable() {
+        assertEquals(new MeasurementStreamParser(), new MeasurementStreamParser());
+        assertEquals(new MeasurementStreamParser().hashCode(), new MeasurementStreamParser().hashCode());
+        assertFalse(new MeasurementStreamParser().equals(
+            new MeasurementStreamParser(MeasurementStreamParser.Aggregate.MAX)));
+
+        final MeasurementStreamParser.PointListener listener = (metric, epochSeconds, values, count) -> { };
+        assertFalse(new MeasurementStreamParser(MeasurementStreamParser.Aggregate.LAST, listener).equals(
+            new MeasurementStreamParser(MeasurementStreamParser.Aggregate.LAST, listener)));
+    }
+
+    public void testMissingMeasurementsFails() {
+        try {
+            parseStream(
+                "{\"detail\":\"error\"}".getBytes(StandardCharsets.UTF_8),
+                MeasurementStreamParser.Aggregate.LAST);
+            fail("Expected the error response to be rejected");
+        } catch (Exception e) {
+            assertTrue(e.getMessage().contains("measurements"));
+        }
+    }
+
+    public void testAllocatesLessThanDomParser() throws Exception {
+        final com.sun.management.ThreadMXBean threadMXBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threadMXBean.isThreadAllocatedMemorySupported()) {
+            return;
+        }
+
+        // a day of PT1M points for every status metric
+        final byte[] payload = buildPayload(24 * 60);
+        for (int i = 0; i < 5; i++) {
+            parseDom(payload);
+            parseStream(payload, MeasurementStreamParser.Aggregate.LAST);
+        }
+
+        final long threadId = Thread.currentThread().getId();
+        long before = threadMXBean.getThreadAllocatedBytes(threadId);
+        parseDom(payload);
+        final long domBytes = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+        before = threadMXBean.getThreadAllocatedBytes(threadId);
+        parseStream(payload, MeasurementStreamParser.Aggregate.LAST);
+        final long streamBytes = threadMXBean.getThreadAllocatedBytes(threadId) - before;
+
+        assertTrue(
+            String.format(
+                "Measurements payload of %d bytes: DOM allocated %d bytes, streaming allocated %d bytes",
+                payload.length,
+                domBytes,
+                streamBytes),
+            streamBytes * 10 < domBytes);
+    }
+
+    private static Map<String, DataPoint> parseDom(final byte[] pPayload) {
+        final JSONObject response = new JSONObject(new String(pPayload, StandardCharsets.UTF_8));
+        return MeasurementsClient.mapMetrics(response.getJSONArray("measurements"));
+    }
+
+    private static Map<String, DataPoint> parseStream(
+        final byte[] pPayload,
+        final MeasurementStreamParser.Aggregate pAggregate) throws Exception
+    {
+        return new MeasurementStreamParser(pAggregate).parse(new ByteArrayInputStream(pPayload));
+    }
+
+    private static List<String> toPoints(final long[] pEpochSeconds, final double[] pValues, final int pCount) {
+        final List<String> points = new ArrayList<>();
+        for (int i = 0; i < pCount; i++) {
+            points.add(pEpochSeconds[i] + "=" + pValues[i]);
+        }
+        return points;
+    }
+
+    private static byte[] buildPayload(final int pPoints) {
+        final JSONArray measurements = new JSONArray();
+        for (int m = 0; m < METRICS.length; m++) {
+            final JSONArray dataPoints = new JSONArray();
+            for (int i = 0; i < pPoints; i++) {
+                final JSONObject dataPoint = new JSONObject();
+                dataPoint.put("timestamp", Instant.parse("2018-01-01T00:00:00Z").plusSeconds(60L * i).toString());
+                dataPoint.put("value", i == pPoints - 1 ? JSONObject.NULL : (Object) (i * (m + 1)));
+                dataPoints.put(dataPoint);
+            }
+
+            final JSONObject measurement = new JSONObject();
+            measurement.put("name", METRICS[m]);
+            measurement.put("units", "SCALAR");
+            measurement.put("dataPoints", dataPoints);
+            measurements.put(measurement);
+        }
+
+        final JSONObject response = new JSONObject();
+        response.put("groupId", "5a0a1e7e0f2912c554080adc");
+        response.put("hostId", "host0.example.com:27017");
+        response.put("granularity", "PT1M");
+        response.put("measurements", measurements);
+        return response.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
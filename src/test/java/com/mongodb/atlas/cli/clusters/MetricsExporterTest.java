@@ -0,0 +1,89 @@
+package com.mongodb.atlas.cli.clusters;
+
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.http.AtlasHttpClient;
+import com.mongodb.atlas.cli.simulator.AtlasSimulator;
+import com.mongodb.atlas.cli.util.ConcurrencyUtil;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+
+public class MetricsExporterTest extends TestCase {
+
+    public void testScrapesServeTheLastPollWithoutApiRequests() throws Exception {
+        final ExecutorService executor = ConcurrencyUtil.newDaemonPool("exporter-test", 4);
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(6)).start()) {
+            final MeasurementsClient client = new MeasurementsClient(
+                AtlasHttpClient.getInstance()::getResults,
+                simulator.getApiUrl() + "/groups");
+            final Map<Identity, StatusRefreshEngine> engines = Collections.singletonMap(
+                new Identity("user", "key", "G1"),
+                new StatusRefreshEngine(client, executor, new StatusPlan(MetricsExporter.COLUMNS)));
+
+            try (MetricsExporter exporter = new MetricsExporter(engines, executor, 60 * 60 * 1000)) {
+                exporter.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+                final long deadline = System.currentTimeMillis() + 30000;
+                while (exporter.getPollCount() == 0 && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(10);
+                }
+                assertEquals(1, exporter.getPollCount());
+
+                final String metricsUrl = "http://localhost:" + exporter.getAddress().getPort() + "/metrics";
+                final long requests = simulator.getRequestCount();
+                final String page = get(metricsUrl, 200);
+                assertEquals(page.replaceAll("(?m)^atlas_exporter_scrapes_total .*$", ""),
+                    get(metricsUrl, 200).replaceAll("(?m)^atlas_exporter_scrapes_total .*$", ""));
+                assertEquals(requests, simulator.getRequestCount());
+
+                assertTrue(page, page.contains("# TYPE atlas_process_connections gauge\n"));
+                assertTrue(page, page.contains("atlas_process_up{group_id=\"G1\",replica_set=\"Cluster0-shard-0\""));
+                assertTrue(page, page.contains("atlas_exporter_poll_errors_total{group_id=\"G1\"} 0\n"));
+                assertTrue(page, page.contains("atlas_exporter_poll_duration_seconds_count 1\n"));
+                int up = 0;
+                for (final String line : page.split("\n")) {
+                    if (line.startsWith("atlas_process_up{") && line.endsWith(" 1")) {
+                        up++;
+                    }
+                }
+                assertEquals(6, up);
+
+                get("http://localhost:" + exporter.getAddress().getPort() + "/", 404);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String get(final String pUrl, final int pExpectedStatus) throws IOException {
+        final HttpURLConnection connection = (HttpURLConnection) new URL(pUrl).openConnection();
+        try {
+            assertEquals(pExpectedStatus, connection.getResponseCode());
+            if (pExpectedStatus != 200) {
+                return "";
+            }
+            assertTrue(connection.getContentType().startsWith("text/plain; version=0.0.4"));
+            final ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream in = connection.getInputStream()) {
+                final byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    body.write(buffer, 0, read);
+                }
+            }
+            return new String(body.toByteArray(), StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
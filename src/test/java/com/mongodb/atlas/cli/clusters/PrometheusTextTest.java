@@ -0,0 +1,36 @@
+package com.mongodb.atlas.cli.clusters;
+
+import junit.framework.TestCase;
+
+
+public class PrometheusTextTest extends TestCase {
+
+    public void testFamilyAndSamples() {
+        final String text = new PrometheusText()
+            .family("atlas_process_up", "Whether the process is up.", "gauge")
+            .sample("atlas_process_up", 1, "group_id", "G1", "process", "host:27017")
+            .sample("atlas_exporter_scrapes_total", 3)
+            .toString();
+
+        assertEquals(
+            "# HELP atlas_process_up Whether the process is up.\n"
+                + "# TYPE atlas_process_up gauge\n"
+                + "atlas_process_up{group_id=\"G1\",process=\"host:27017\"} 1\n"
+                + "atlas_exporter_scrapes_total 3\n",
+            text);
+    }
+
+    public void testLabelValuesAreEscaped() {
+        final String text = new PrometheusText().sample("m", 0, "l", "a\\b\"c\nd").toString();
+
+        assertEquals("m{l=\"a\\\\b\\\"c\\nd\"} 0\n", text);
+    }
+
+    public void testValues() {
+        assertEquals("m 1073741824000\n", new PrometheusText().sample("m", 1073741824000d).toString());
+        assertEquals("m 0.25\n", new PrometheusText().sample("m", 0.25).toString());
+        assertEquals("m NaN\n", new PrometheusText().sample("m", Double.NaN).toString());
+        assertEquals("m +Inf\n", new PrometheusText().sample("m", Double.POSITIVE_INFINITY).toString());
+        assertEquals("m -Inf\n", new PrometheusText().sample("m", Double.NEGATIVE_INFINITY).toString());
+    }
+}
@@ -0,0 +1,22 @@
+package com.mongodb.atlas.cli.clusters;
+
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.concurrent.CompletionException;
+
+
+public class StatusModuleTest extends TestCase {
+
+    public void testGroupErrorIsDescribedByItsCause() {
+        assertEquals(
+            "Unexpected status 500",
+            StatusModule.describe(new CompletionException(new IOException("Unexpected status 500"))));
+    }
+
+    public void testGroupErrorWithoutMessageIsDescribedByItsType() {
+        assertEquals(
+            "java.lang.NullPointerException",
+            StatusModule.describe(new CompletionException(new NullPointerException())));
+    }
+}
@@ -0,0 +1,84 @@
+package com.mongodb.atlas.cli.clusters;
+
+import junit.framework.TestCase;
+
+import java.util.Arrays;
+
+
+public class StatusPlanTest extends TestCase {
+
+    public void testDiskCallsAreSkippedWithoutDiskColumns() {
+        final StatusPlan plan = new StatusPlan(StatusPlan.parseColumns("conn, cpu-trend"));
+
+        assertTrue(Arrays.equals(
+            new String[] {"CONNECTIONS", "PROCESS_NORMALIZED_CPU_USER", "PROCESS_NORMALIZED_CPU_KERNEL"},
+            plan.getProcessMetrics()));
+        assertFalse(plan.needsDisks());
+        assertTrue(plan.needsTrends());
+        assertEquals(1 + 30, plan.getRequestCount(30, 3));
+    }
+
+    public void testDiskColumnsOnlyNeedDiskCalls() {
+        final StatusPlan plan = new StatusPlan(StatusPlan.parseColumns("disk-used"));
+
+        assertFalse(plan.needsProcessMeasurements());
+        assertTrue(Arrays.equals(new String[] {"DISK_PARTITION_SPACE_USED"}, plan.getDiskMetrics()));
+        assertFalse(plan.needsTrends());
+        // two pages of processes, then a listing and three partitions each
+        assertEquals(2 + 150 * (1 + 3), plan.getRequestCount(150, 3));
+    }
+
+    public void testDefaultColumnsNeedEveryEndpoint() {
+        final StatusPlan plan = new StatusPlan(StatusPlan.DEFAULT_COLUMNS);
+
+        assertTrue(Arrays.equals(new String[] {"CONNECTIONS", "DB_DATA_SIZE_TOTAL"}, plan.getProcessMetrics()));
+        assertEquals(MeasurementsClient.DISK_METRICS.length, plan.getDiskMetrics().length);
+        assertEquals(1 + 30 + 30 * 3, plan.getRequestCount(30, 2));
+    }
+
+    public void testTopOnlyFetchesDetailsForTheShownProcesses() {
+        final StatusPlan plan =
+            new StatusPlan(StatusPlan.parseColumns("conn,disk-used"), StatusPlan.Sort.CPU, 20);
+
+        // the ranking column is shown first
+        assertEquals(StatusPlan.Column.CPU, plan.getColumns().get(0));
+        // every process is ranked by cpu, then twenty get connections and their disks; cpu comes from the ranking
+        assertEquals(10 + 1000 + 20 + 20 * (1 + 2), plan.getRequestCount(1000, 2));
+        assertEquals(1 + 5 + 5 + 5 * (1 + 2), plan.getRequestCount(5, 2));
+    }
+
+    public void testSortMetricIsNotFetchedAgainForTheShownProcesses() {
+        final StatusPlan plan = new StatusPlan(StatusPlan.parseColumns("conn"), StatusPlan.Sort.CPU, 3);
+        assertTrue(Arrays.equals(new String[] {"CONNECTIONS"}, plan.getDetailProcessMetrics()));
+
+        final StatusPlan sortOnly = new StatusPlan(StatusPlan.parseColumns("cpu"), StatusPlan.Sort.CPU, 3);
+        assertEquals(0, sortOnly.getDetailProcessMetrics().length);
+        assertEquals(1 + 12, sortOnly.getRequestCount(12, 2));
+    }
+
+    public void testDiskUtilRankingReusesTheDisks() {
+        final StatusPlan plan = new StatusPlan(StatusPlan.parseColumns("conn"), StatusPlan.Sort.DISK_UTIL, 10);
+
+        assertTrue(plan.needsDisks());
+        assertEquals(1 + 50 * (1 + 2) + 10, plan.getRequestCount(50, 2));
+    }
+
+    public void testUnknownSortIsRejected() {
+        try {
+            StatusPlan.Sort.parse("iops");
+            fail("Expected iops to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("iops"));
+        }
+    }
+
+    public void testUnknownColumnIsRejected() {
+        assertEquals(1, StatusPlan.parseColumns("conn,conn").size());
+        try {
+            StatusPlan.parseColumns("conn,iops");
+            fail("Expected iops to be rejected");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("iops"));
+        }
+    }
+}
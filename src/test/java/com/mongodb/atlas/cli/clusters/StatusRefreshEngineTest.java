@@ -0,0 +1,221 @@
+package com.mongodb.atlas.cli.clusters;
+
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.ResponseParser;
+import com.mongodb.atlas.cli.ResultsFetcher;
+import junit.framework.TestCase;
+import org.apache.http.NameValuePair;
+import org.apache.http.client.utils.URLEncodedUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+
+public class StatusRefreshEngineTest extends TestCase {
+
+    private static final Identity IDENTITY = new Identity("user", "key", "G1");
+
+    private static final Instant START = Instant.parse("2018-03-12T14:30:00Z");
+
+    public void testSelectTopReturnsHighestFirst() {
+        final double[] scores = {0.2, 0.9, 0.5, 0.1, 0.7, 0.5};
+
+        assertTrue(Arrays.equals(new int[] {1, 4, 2}, StatusRefreshEngine.selectTop(scores, 3)));
+        assertTrue(Arrays.equals(new int[] {1}, StatusRefreshEngine.selectTop(scores, 1)));
+    }
+
+    public void testSelectTopRanksUnscoredProcessesLast() {
+        final double[] scores = {Double.NaN, 3, Double.NaN, 1};
+
+        assertTrue(Arrays.equals(new int[] {1, 3, 0}, StatusRefreshEngine.selectTop(scores, 3)));
+        assertTrue(Arrays.equals(new int[] {1, 3, 0, 2}, StatusRefreshEngine.selectTop(scores, 10)));
+    }
+
+    public void testSelectTopOfLargeListing() {
+        final double[] scores = new double[10000];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = (i * 7919) % scores.length;
+        }
+
+        final int[] top = StatusRefreshEngine.selectTop(scores, 20);
+        assertEquals(20, top.length);
+        for (int i = 0; i < top.length; i++) {
+            assertEquals(scores.length - 1 - i, scores[top[i]], 0);
+        }
+    }
+
+    public void testLaterPollsOnlyRequestPointsAfterTheLastOne() throws Exception {
+        final FakeFetcher fetcher = new FakeFetcher(2);
+        final StatusRefreshEngine engine = newEngine(fetcher, "conn");
+
+        engine.poll(IDENTITY, START);
+        assertEquals(Arrays.asList("2018-03-12T14:10:00Z", "2018-03-12T14:10:00Z"), fetcher.getMeasurementStarts());
+
+        // the point after 14:29 cannot be complete before 14:31, so nothing is due yet
+        fetcher.clear();
+        engine.poll(IDENTITY, START.plus(Duration.ofSeconds(30)));
+        assertEquals(Collections.emptyList(), fetcher.getMeasurementStarts());
+
+        fetcher.clear();
+        final List<ProcessStatus> statuses = engine.poll(IDENTITY, START.plus(Duration.ofMinutes(2)));
+        assertEquals(Arrays.asList("2018-03-12T14:29:00Z", "2018-03-12T14:29:00Z"), fetcher.getMeasurementStarts());
+        assertEquals(Integer.valueOf(31), statuses.get(0).getConnections());
+    }
+
+    public void testDiskListingsAreOnlyFetchedAgainAfterTheTopologyTtl() throws Exception {
+        final FakeFetcher fetcher = new FakeFetcher(2);
+        final StatusRefreshEngine engine = newEngine(fetcher, "disk-used");
+
+        engine.poll(IDENTITY, START);
+        assertEquals(1, fetcher.count("/processes?"));
+        assertEquals(2, fetcher.count("/disks?"));
+
+        fetcher.clear();
+        engine.poll(IDENTITY, START.plus(Duration.ofMinutes(4)));
+        assertEquals(0, fetcher.count("/processes?"));
+        assertEquals(0, fetcher.count("/disks?"));
+        assertEquals(2, fetcher.count("/disks/data/measurements?"));
+
+        fetcher.clear();
+        engine.poll(IDENTITY, START.plus(Duration.ofMinutes(5)));
+        assertEquals(1, fetcher.count("/processes?"));
+        assertEquals(2, fetcher.count("/disks?"));
+    }
+
+    public void testValuesCarryOverEmptyWindows() throws Exception {
+        final FakeFetcher fetcher = new FakeFetcher(1);
+        final StatusRefreshEngine engine = newEngine(fetcher, "conn");
+
+        assertEquals(Integer.valueOf(29), engine.poll(IDENTITY, START).get(0).getConnections());
+
+        fetcher.setEmpty(true);
+        fetcher.clear();
+        final List<ProcessStatus> statuses = engine.poll(IDENTITY, START.plus(Duration.ofMinutes(3)));
+        assertEquals(Collections.singletonList("2018-03-12T14:29:00Z"), fetcher.getMeasurementStarts());
+        assertFalse(statuses.get(0).isFailed());
+        assertEquals(Integer.valueOf(29), statuses.get(0).getConnections());
+
+        // nothing newer was seen, so the next poll asks from the same point again
+        fetcher.setEmpty(false);
+        fetcher.clear();
+        assertEquals(
+            Integer.valueOf(33),
+            engine.poll(IDENTITY, START.plus(Duration.ofMinutes(4))).get(0).getConnections());
+        assertEquals(Collections.singletonList("2018-03-12T14:29:00Z"), fetcher.getMeasurementStarts());
+    }
+
+    private static StatusRefreshEngine newEngine(final FakeFetcher pFetcher, final String pColumns) {
+        return new StatusRefreshEngine(
+            new MeasurementsClient(pFetcher, "https://atlas.test/api/atlas/v1.0/groups"),
+            Runnable::run,
+            new StatusPlan(StatusPlan.parseColumns(pColumns)));
+    }
+
+    /**
+     * Serves a listing of {@code pProcesses} processes with one partition each, and a point per minute of every
+     * requested window whose value is its minute of the hour; the minute still in progress has no value, like the
+     * API's.
+     */
+    private static class FakeFetcher implements ResultsFetcher {
+        private final int _processes;
+        private final List<URI> _requests = Collections.synchronizedList(new ArrayList<>());
+        private volatile boolean _empty;
+
+        private FakeFetcher(final int pProcesses) {
+            _processes = pProcesses;
+        }
+
+        private void setEmpty(final boolean pEmpty) {
+            _empty = pEmpty;
+        }
+
+        private void clear() {
+            _requests.clear();
+        }
+
+        private int count(final String pPathSuffix) {
+            int count = 0;
+            for (final URI uri : new ArrayList<>(_requests)) {
+                if ((uri.getPath() + "?").endsWith(pPathSuffix)) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private List<String> getMeasurementStarts() {
+            final List<String> starts = new ArrayList<>();
+            for (final URI uri : new ArrayList<>(_requests)) {
+                for (final NameValuePair parameter : URLEncodedUtils.parse(uri, StandardCharsets.UTF_8)) {
+                    if (parameter.getName().equals("start")) {
+                        starts.add(parameter.getValue());
+                    }
+                }
+            }
+            return starts;
+        }
+
+        @Override
+        public <T> T getResults(final Identity pCredentials, final URI pURI, final ResponseParser<T> pParser)
+            throws IOException
+        {
+            _requests.add(pURI);
+            final JSONObject response;
+            if (pURI.getPath().endsWith("/processes")) {
+                final JSONArray processes = new JSONArray();
+                for (int i = 0; i < _processes; i++) {
+                    processes.put(new JSONObject()
+                        .put("id", "host" + i + ":27017")
+                        .put("replicaSetName", "rs0"));
+                }
+                response = new JSONObject().put("results", processes).put("totalCount", _processes);
+            } else if (pURI.getPath().endsWith("/disks")) {
+                response = new JSONObject()
+                    .put("results", new JSONArray().put(new JSONObject().put("partitionName", "data")))
+                    .put("totalCount", 1);
+            } else {
+                response = measurements(pURI);
+            }
+            return pParser.parse(new ByteArrayInputStream(response.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+
+        private JSONObject measurements(final URI pURI) {
+            Instant start = null;
+            Instant end = null;
+            final JSONArray measurements = new JSONArray();
+            for (final NameValuePair parameter : URLEncodedUtils.parse(pURI, StandardCharsets.UTF_8)) {
+                if (parameter.getName().equals("start")) {
+                    start = Instant.parse(parameter.getValue());
+                } else if (parameter.getName().equals("end")) {
+                    end = Instant.parse(parameter.getValue());
+                }
+            }
+
+            for (final NameValuePair parameter : URLEncodedUtils.parse(pURI, StandardCharsets.UTF_8)) {
+                if (!parameter.getName().equals("m")) {
+                    continue;
+                }
+                final JSONArray dataPoints = new JSONArray();
+                for (Instant minute = start; !_empty && minute.isBefore(end); minute = minute.plusSeconds(60)) {
+                    dataPoints.put(new JSONObject()
+                        .put("timestamp", minute.toString())
+                        .put("value", minute.plusSeconds(60).isAfter(end)
+                            ? JSONObject.NULL
+                            : (Object) (minute.getEpochSecond() / 60 % 60)));
+                }
+                measurements.put(new JSONObject().put("name", parameter.getValue()).put("dataPoints", dataPoints));
+            }
+            return new JSONObject().put("measurements", measurements);
+        }
+    }
+}
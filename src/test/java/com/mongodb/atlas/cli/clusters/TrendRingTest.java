@@ -0,0 +1,60 @@
+package com.mongodb.atlas.cli.clusters;
+
+import junit.framework.TestCase;
+
+
+public class TrendRingTest extends TestCase {
+
+    public void testKeepsNewestPoints() {
+        final TrendRing ring = new TrendRing(4);
+        assertTrue(Double.isNaN(ring.getLatest()));
+        assertEquals("", ring.toSparkline());
+
+        for (int i = 0; i < 10; i++) {
+            ring.add(i * 60L, i);
+        }
+        assertEquals(4, ring.size());
+        assertEquals(6 * 60L, ring.getEpochSecond(0));
+        assertEquals(9d, ring.getLatest());
+
+        // the newest minute is replaced, older points are ignored
+        ring.add(9 * 60L, 12);
+        ring.add(2 * 60L, 100);
+        assertEquals(4, ring.size());
+        assertEquals(12d, ring.getLatest());
+        assertEquals(8d, ring.getValueAt(8 * 60L));
+        assertTrue(Double.isNaN(ring.getValueAt(5 * 60L)));
+    }
+
+    public void testRateAndSparkline() {
+        final TrendRing ring = new TrendRing(8);
+        ring.add(0, 10);
+        assertTrue(Double.isNaN(ring.getRatePerMinute(5)));
+
+        ring.add(60, 10);
+        ring.add(120, 10);
+        assertEquals("\u2581\u2581\u2581", ring.toSparkline());
+
+        // a missing minute counts as time, not as a point
+        ring.add(240, 40);
+        assertEquals(7.5, ring.getRatePerMinute(5));
+        assertEquals(15.0, ring.getRatePerMinute(1));
+        assertEquals("\u2581\u2581\u2581\u2588", ring.toSparkline());
+    }
+
+    public void testCpuCombinesUserAndKernel() {
+        final ProcessTrends trends = new ProcessTrends();
+        trends.onPoints("PROCESS_NORMALIZED_CPU_USER", new long[] {0, 60, 120}, new double[] {10, 20, 30}, 3);
+        assertTrue(Double.isNaN(trends.getLatest(ProcessTrends.Trend.CPU)));
+
+        // the kernel series lacks the last minute
+        trends.onPoints("PROCESS_NORMALIZED_CPU_KERNEL", new long[] {0, 60}, new double[] {1, 2}, 2);
+        assertEquals(22d, trends.getLatest(ProcessTrends.Trend.CPU));
+        assertEquals(11d, trends.getRatePerMinute(ProcessTrends.Trend.CPU, 5));
+
+        trends.onPoints("PROCESS_NORMALIZED_CPU_KERNEL", new long[] {60, 120}, new double[] {2, 3}, 2);
+        assertEquals(33d, trends.getLatest(ProcessTrends.Trend.CPU));
+        assertEquals(3, trends.getSparkline(ProcessTrends.Trend.CPU).length());
+        assertTrue(Double.isNaN(trends.getLatest(ProcessTrends.Trend.CURSORS)));
+    }
+}
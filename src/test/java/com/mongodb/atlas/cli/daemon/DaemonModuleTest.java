@@ -0,0 +1,144 @@
+package com.mongodb.atlas.cli.daemon;
+
+import com.mongodb.atlas.cli.AtlasCliApp;
+import com.mongodb.atlas.cli.simulator.AtlasSimulator;
+import junit.framework.TestCase;
+import org.json.JSONObject;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+public class DaemonModuleTest extends TestCase {
+
+    private String _userHome;
+    private Path _home;
+    private PrintStream _out;
+    private PrintStream _err;
+    private Thread _daemon;
+
+    @Override
+    protected void setUp() throws Exception {
+        _userHome = System.getProperty("user.home");
+        _out = System.out;
+        _err = System.err;
+        _home = Files.createTempDirectory("atlas-home");
+        System.setProperty("user.home", _home.toString());
+
+        _daemon = new Thread(() -> AtlasCliApp.run(new String[] {"daemon"}), "daemon-test");
+        _daemon.setDaemon(true);
+        _daemon.start();
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (DaemonModule.getDaemonFile().length() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(DaemonModule.getDaemonFile().length() > 0);
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try {
+            if (DaemonModule.getDaemonFile().exists()) {
+                forward(_home, "daemon", "stop");
+            }
+            _daemon.join(10_000);
+            assertFalse(_daemon.isAlive());
+        } finally {
+            System.setOut(_out);
+            System.setErr(_err);
+            System.setProperty("user.home", _userHome);
+            final File daemonFile = new File(_home.toFile(), ".atlas-daemon");
+            daemonFile.delete();
+            Files.deleteIfExists(_home);
+        }
+    }
+
+    public void testForwardsArgumentsAndFramesOutput() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(6)).start()) {
+            final List<String> frames = forward(_home, "clusters", "list", "-u", "user:key", "-g", "G1",
+                "--base-url", simulator.getApiUrl(), "--no-cache", "--output", "ndjson");
+
+            assertEquals(frames.toString(), "x0", frames.get(frames.size() - 1));
+            final List<String> clusters = new ArrayList<>();
+            for (final String frame : frames.subList(0, frames.size() - 1)) {
+                assertTrue(frames.toString(), frame.startsWith("o"));
+                clusters.add(new JSONObject(frame.substring(1)).getString("name"));
+            }
+            assertEquals(Arrays.asList("Cluster0", "Cluster1"), clusters);
+        }
+    }
+
+    public void testFailingCommandReportsOnStderrAndExitCode() throws Exception {
+        final List<String> frames = forward(_home, "clusters", "bogus", "-u", "user:key", "-g", "G1");
+
+        assertEquals(frames.toString(), "x1", frames.get(frames.size() - 1));
+        boolean stderr = false;
+        for (final String frame : frames) {
+            stderr |= frame.startsWith("e") || frame.startsWith("E");
+            assertFalse(frames.toString(), frame.startsWith("o"));
+        }
+        assertTrue(frames.toString(), stderr);
+    }
+
+    public void testWrongTokenIsIgnored() throws Exception {
+        try (Socket socket = connect()) {
+            final Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            out.write("wrong\n" + _home + "\n2\ndaemon\nstop\n");
+            out.flush();
+            assertNull(new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine());
+        }
+        assertTrue(_daemon.isAlive());
+    }
+
+    /**
+     * Sends a command the way {@code scripts/stub.sh} does.
+     *
+     * @return every frame the daemon answered with, the exit frame last
+     */
+    private static List<String> forward(final Path pDirectory, final String... pArgs) throws Exception {
+        try (Socket socket = connect()) {
+            final Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8);
+            out.write(readDaemonFile()[1] + "\n" + pDirectory + "\n" + pArgs.length + "\n");
+            for (final String arg : pArgs) {
+                out.write(arg + "\n");
+            }
+            out.flush();
+
+            final BufferedReader in =
+                new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            final List<String> frames = new ArrayList<>();
+            String frame;
+            while ((frame = in.readLine()) != null) {
+                frames.add(frame);
+                if (frame.startsWith("x")) {
+                    break;
+                }
+            }
+            return frames;
+        }
+    }
+
+    private static Socket connect() throws Exception {
+        return new Socket(InetAddress.getLoopbackAddress(), Integer.parseInt(readDaemonFile()[0]));
+    }
+
+    private static String[] readDaemonFile() throws Exception {
+        final List<String> lines = Files.readAllLines(DaemonModule.getDaemonFile().toPath(), StandardCharsets.UTF_8);
+        return lines.get(0).trim().split(" ");
+    }
+}
@@ -0,0 +1,51 @@
+package com.mongodb.atlas.cli.daemon;
+
+import junit.framework.TestCase;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+
+
+public class FramedOutputStreamTest extends TestCase {
+
+    public void testLinesAndFragmentsAreFramed() throws Exception {
+        final StringWriter connection = new StringWriter();
+        final FramedOutputStream out = new FramedOutputStream(connection, 'o', 'O');
+
+        out.write("first\nsecond\n\npartial".getBytes(StandardCharsets.UTF_8));
+        assertEquals("ofirst\nosecond\no\n", connection.toString());
+
+        out.flush();
+        assertEquals("ofirst\nosecond\no\nOpartial\n", connection.toString());
+
+        // nothing pending, so a second flush sends no empty fragment
+        out.flush();
+        assertEquals("ofirst\nosecond\no\nOpartial\n", connection.toString());
+    }
+
+    public void testTextIsDecodedAsUtf8() throws Exception {
+        final StringWriter connection = new StringWriter();
+        final FramedOutputStream out = new FramedOutputStream(connection, 'o', 'O');
+
+        out.write("Cl\u00fcster-\u6771\u4eac\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals("oCl\u00fcster-\u6771\u4eac\n", connection.toString());
+    }
+
+    public void testCharacterSplitAcrossWritesIsHeldBackFromAFragment() throws Exception {
+        final StringWriter connection = new StringWriter();
+        final FramedOutputStream out = new FramedOutputStream(connection, 'o', 'O');
+        final byte[] bytes = "a\u6771".getBytes(StandardCharsets.UTF_8);
+
+        out.write(bytes, 0, 2);
+        out.flush();
+        assertEquals("Oa\n", connection.toString());
+
+        out.write(bytes, 2, 1);
+        out.flush();
+        assertEquals("Oa\n", connection.toString());
+
+        out.write(bytes, 3, 1);
+        out.write('\n');
+        assertEquals("Oa\no\u6771\n", connection.toString());
+    }
+}
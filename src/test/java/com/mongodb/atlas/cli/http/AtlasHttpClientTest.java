@@ -0,0 +1,33 @@
+package com.mongodb.atlas.cli.http;
+
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.ResponseParser;
+import com.mongodb.atlas.cli.simulator.AtlasSimulator;
+import com.mongodb.atlas.cli.simulator.LatencyDistribution;
+import junit.framework.TestCase;
+
+import java.net.SocketTimeoutException;
+import java.net.URI;
+
+
+public class AtlasHttpClientTest extends TestCase {
+
+    public void testStalledResponseTimesOut() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config()
+            .setProcesses(3)
+            .setLatency(LatencyDistribution.parse("fixed:5000"))).start();
+             AtlasHttpClient client = new AtlasHttpClient(1000, 200, 1000))
+        {
+            final long start = System.nanoTime();
+            try {
+                client.getResults(
+                    new Identity("user", "key", "G1"),
+                    URI.create(simulator.getApiUrl() + "/groups/G1/clusters"),
+                    ResponseParser.JSON);
+                fail();
+            } catch (SocketTimeoutException e) {
+                assertTrue((System.nanoTime() - start) / 1_000_000 < 4000);
+            }
+        }
+    }
+}
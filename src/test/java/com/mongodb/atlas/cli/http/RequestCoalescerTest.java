@@ -0,0 +1,112 @@
+package com.mongodb.atlas.cli.http;
+
+import com.mongodb.atlas.cli.util.ConcurrencyUtil;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+public class RequestCoalescerTest extends TestCase {
+
+    private final RequestCoalescer _coalescer = new RequestCoalescer();
+
+    public void testConcurrentCallsShareOneRequest() throws Exception {
+        final AtomicInteger requests = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final Object response = new Object();
+
+        final List<CompletableFuture<Object>> calls = startCalls(5, "same", () -> {
+            requests.incrementAndGet();
+            release.await();
+            return response;
+        });
+        awaitCoalesced(4);
+        release.countDown();
+
+        for (final CompletableFuture<Object> call : calls) {
+            assertSame(response, call.join());
+        }
+        assertEquals(1, requests.get());
+
+        // nothing is kept once the request completed
+        assertEquals("again", _coalescer.execute("same", () -> "again"));
+        assertEquals(4, _coalescer.getCoalescedCount());
+    }
+
+    public void testFailureReachesEveryCaller() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        final List<CompletableFuture<Object>> calls = startCalls(3, "failing", () -> {
+            release.await();
+            throw new IOException("unavailable");
+        });
+        awaitCoalesced(2);
+        release.countDown();
+
+        for (final CompletableFuture<Object> call : calls) {
+            try {
+                call.join();
+                fail("Expected the request failure");
+            } catch (CompletionException e) {
+                assertEquals("unavailable", ConcurrencyUtil.unwrap(e).getMessage());
+            }
+        }
+    }
+
+    public void testDifferentKeysAreNotCoalesced() throws Exception {
+        final CountDownLatch release = new CountDownLatch(1);
+
+        // "a" stays in flight until "b" has run
+        final CompletableFuture<Object> a = startCalls(1, "a", () -> {
+            release.await();
+            return "a";
+        }).get(0);
+        assertEquals("b", _coalescer.execute("b", () -> {
+            release.countDown();
+            return "b";
+        }));
+
+        assertEquals("a", a.join());
+        assertEquals(0, _coalescer.getCoalescedCount());
+    }
+
+    private List<CompletableFuture<Object>> startCalls(
+        final int pCount,
+        final String pKey,
+        final BlockingRequest pRequest)
+    {
+        final ExecutorService executor = ConcurrencyUtil.newDaemonPool("coalescer-test", pCount);
+        final List<CompletableFuture<Object>> calls = new ArrayList<>();
+        for (int i = 0; i < pCount; i++) {
+            calls.add(ConcurrencyUtil.supplyAsync(() -> _coalescer.execute(pKey, () -> {
+                try {
+                    return pRequest.execute();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+            }), executor));
+        }
+        executor.shutdown();
+        return calls;
+    }
+
+    private void awaitCoalesced(final long pCount) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (_coalescer.getCoalescedCount() < pCount && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(pCount, _coalescer.getCoalescedCount());
+    }
+
+    @FunctionalInterface
+    private interface BlockingRequest {
+        Object execute() throws IOException, InterruptedException;
+    }
+}
@@ -0,0 +1,89 @@
+package com.mongodb.atlas.cli.http;
+
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.ResponseParser;
+import com.mongodb.atlas.cli.simulator.AtlasSimulator;
+import junit.framework.TestCase;
+
+import java.net.URI;
+
+
+public class RequestMetricsTest extends TestCase {
+
+    public void testEndpointTemplate() throws Exception {
+        assertEquals(
+            "GET /groups/{groupId}/processes/{processId}/disks/{partitionName}/measurements",
+            RequestMetrics.toEndpoint("GET", new URI(
+                "https://cloud.mongodb.com/api/atlas/v1.0/groups/5a0a/processes/host1:27017/disks/data/measurements"
+                    + "?m=DISK_PARTITION_SPACE_USED")));
+        assertEquals(
+            "POST /groups/{groupId}/clusters",
+            RequestMetrics.toEndpoint("POST", new URI("http://localhost:8080/api/atlas/v1.0/groups/5a0a/clusters")));
+    }
+
+    public void testHistogramPercentiles() {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 100; ms++) {
+            histogram.recordNanos(ms * 1_000_000L);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertWithinBucket(50_000, histogram.getPercentileMicros(50));
+        assertWithinBucket(95_000, histogram.getPercentileMicros(95));
+        assertWithinBucket(99_000, histogram.getPercentileMicros(99));
+        assertEquals(0, new LatencyHistogram().getPercentileMicros(99));
+    }
+
+    public void testHistogramBucketBounds() {
+        for (long value = 0; value < 100_000; value += 7) {
+            final int index = LatencyHistogram.indexOf(value);
+            assertTrue(LatencyHistogram.lowerBound(index) <= value);
+            assertTrue(LatencyHistogram.upperBound(index) >= value);
+        }
+    }
+
+    public void testRequestsAreRecordedPerEndpoint() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(3)).start()) {
+            final RequestMetrics before = AtlasHttpClient.getInstance().getMetrics().snapshot();
+            final Identity identity = new Identity("user", "key", "G1");
+
+            AtlasHttpClient.getInstance().getResults(
+                identity,
+                new URI(simulator.getApiUrl() + "/groups/G1/clusters"),
+                ResponseParser.JSON);
+            try {
+                AtlasHttpClient.getInstance().getResults(
+                    identity,
+                    new URI(simulator.getApiUrl() + "/groups/G1/clusters/Missing"),
+                    ResponseParser.JSON);
+                fail();
+            } catch (AtlasApiException e) {
+                assertEquals(404, e.getStatus());
+            }
+
+            final RequestMetrics metrics = AtlasHttpClient.getInstance().getMetrics().since(before);
+            final RequestMetrics.EndpointMetrics clusters = metrics.getEndpoint("GET /groups/{groupId}/clusters");
+            assertEquals(1, clusters.getRequests());
+            assertEquals(1, clusters.getStatusCount(200));
+            assertTrue(clusters.getBytesIn() > 0);
+            assertTrue(clusters.getBytesOut() > 0);
+            assertEquals(1, clusters.getTotal().getCount());
+
+            final RequestMetrics.EndpointMetrics cluster =
+                metrics.getEndpoint("GET /groups/{groupId}/clusters/{clusterName}");
+            assertEquals(1, cluster.getStatusCount(404));
+            assertTrue(metrics.toSummary().contains("404 x1"));
+        }
+    }
+
+    public void testFlightRecorderEventIsBuiltSeparately() {
+        // HttpRequestEvent is compiled outside the release 8 compilation; losing it would silently drop the events
+        assertTrue(HttpRequestEvents.isAvailable());
+        assertNull("no recording is running", HttpRequestEvents.begin());
+    }
+
+    private static void assertWithinBucket(final long pExpected, final long pActual) {
+        assertTrue(pActual + " not within 12.5% of " + pExpected,
+            pActual >= pExpected && pActual <= pExpected * 1.125);
+    }
+}
@@ -0,0 +1,122 @@
+package com.mongodb.atlas.cli.http;
+
+import com.mongodb.atlas.cli.Identity;
+import junit.framework.TestCase;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+public class RequestSchedulerTest extends TestCase {
+
+    private static final URI URI = java.net.URI.create("http://localhost/api/atlas/v1.0/groups/G/clusters");
+
+    public void testThrottledRequestWaitsForRetryAfter() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        final long start = System.nanoTime();
+
+        final String result = RequestScheduler.getInstance().execute(identity("throttled"), true, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new AtlasApiException(URI, 429, "RATE_LIMITED", null, 200);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(2, attempts.get());
+        assertTrue((System.nanoTime() - start) / 1_000_000 >= 200);
+    }
+
+    public void testThrottledPostIsRetried() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+
+        RequestScheduler.getInstance().execute(identity("post-throttled"), false, () -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new AtlasApiException(URI, 429, "RATE_LIMITED", null, 0);
+            }
+            return "ok";
+        });
+
+        assertEquals(2, attempts.get());
+    }
+
+    public void testServerErrorIsRetriedForGetOnly() throws Exception {
+        final AtomicInteger getAttempts = new AtomicInteger();
+        RequestScheduler.getInstance().execute(identity("get-500"), true, () -> {
+            if (getAttempts.incrementAndGet() < 3) {
+                throw new AtlasApiException(URI, 503, null, null, -1);
+            }
+            return "ok";
+        });
+        assertEquals(3, getAttempts.get());
+
+        final AtomicInteger postAttempts = new AtomicInteger();
+        try {
+            RequestScheduler.getInstance().execute(identity("post-500"), false, () -> {
+                postAttempts.incrementAndGet();
+                throw new AtlasApiException(URI, 500, "UNEXPECTED_ERROR", null, -1);
+            });
+            fail();
+        } catch (AtlasApiException e) {
+            assertEquals(500, e.getStatus());
+        }
+        assertEquals(1, postAttempts.get());
+    }
+
+    public void testClientErrorIsNotRetried() throws Exception {
+        final AtomicInteger attempts = new AtomicInteger();
+        try {
+            RequestScheduler.getInstance().execute(identity("404"), true, () -> {
+                attempts.incrementAndGet();
+                throw new AtlasApiException(URI, 404, "CLUSTER_NOT_FOUND", "No cluster named x.", -1);
+            });
+            fail();
+        } catch (AtlasApiException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith("404 CLUSTER_NOT_FOUND: No cluster named x."));
+        }
+        assertEquals(1, attempts.get());
+    }
+
+    public void testRateLimitPacesRequests() throws Exception {
+        final RequestScheduler scheduler = RequestScheduler.getInstance();
+        final long start = System.nanoTime();
+        // a second's burst of 20, then 10 more at 20/s
+        for (int i = 0; i < 30; i++) {
+            scheduler.execute(identity("paced"), true, 20, () -> "ok");
+        }
+        assertTrue((System.nanoTime() - start) / 1_000_000 >= 450);
+    }
+
+    public void testUnlimitedCallerDoesNotLiftAnotherCallersRateLimit() throws Exception {
+        final RequestScheduler scheduler = RequestScheduler.getInstance();
+        final Thread unlimited = new Thread(() -> {
+            try {
+                for (int i = 0; i < 100; i++) {
+                    scheduler.execute(identity("shared"), true, () -> "ok");
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+
+        final long start = System.nanoTime();
+        unlimited.start();
+        for (int i = 0; i < 30; i++) {
+            scheduler.execute(identity("shared"), true, 20, () -> "ok");
+        }
+        assertTrue((System.nanoTime() - start) / 1_000_000 >= 450);
+        unlimited.join();
+    }
+
+    public void testBackoffIsCapped() {
+        for (int attempt = 1; attempt < 40; attempt++) {
+            final long backoff = RequestScheduler.getBackoffMs(attempt);
+            assertTrue(backoff >= 0 && backoff <= 30_000);
+        }
+    }
+
+    private static Identity identity(final String pGroupId) {
+        return new Identity("user", "key", pGroupId);
+    }
+}
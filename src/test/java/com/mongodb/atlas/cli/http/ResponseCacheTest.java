@@ -0,0 +1,198 @@
+package com.mongodb.atlas.cli.http;
+
+import com.mongodb.atlas.cli.Identity;
+import com.mongodb.atlas.cli.ResponseParser;
+import com.mongodb.atlas.cli.simulator.AtlasSimulator;
+import junit.framework.TestCase;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+
+public class ResponseCacheTest extends TestCase {
+
+    private static final Identity IDENTITY = new Identity("user", "key", "G1");
+
+    private Path _directory;
+
+    @Override
+    protected void setUp() throws Exception {
+        _directory = Files.createTempDirectory("atlas-cache");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (Stream<Path> files = Files.list(_directory)) {
+            for (final Path file : files.collect(Collectors.toList())) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(_directory);
+    }
+
+    public void testFreshEntryIsServedWithoutRequest() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(3)).start()) {
+            final ResponseCache cache = new ResponseCache(_directory);
+            final URI uri = clustersUri(simulator);
+
+            final JSONObject first = cache.getResults(IDENTITY, uri, null, ResponseParser.JSON);
+            final JSONObject second = cache.getResults(IDENTITY, uri, null, ResponseParser.JSON);
+            assertEquals(first.toString(), second.toString());
+            assertEquals(1, simulator.getRequestCount());
+
+            // a max age of 0 always asks the API
+            cache.getResults(IDENTITY, uri, 0L, ResponseParser.JSON);
+            assertEquals(2, simulator.getRequestCount());
+        }
+    }
+
+    public void testEntriesAreNotSharedBetweenApiKeys() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(3)).start()) {
+            final ResponseCache cache = new ResponseCache(_directory);
+            final URI uri = clustersUri(simulator);
+
+            cache.getResults(IDENTITY, uri, null, ResponseParser.JSON);
+            cache.getResults(new Identity("user", "revoked", "G1"), uri, null, ResponseParser.JSON);
+            assertEquals(2, simulator.getRequestCount());
+        }
+    }
+
+    public void testConcurrentWritersAndReadersOfOneKey() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(3)).start()) {
+            final ResponseCache cache = new ResponseCache(_directory);
+            final URI uri = clustersUri(simulator);
+            final String expected = cache.getResults(IDENTITY, uri, null, ResponseParser.JSON).toString();
+
+            // writers always refetch and replace the entry while readers keep reading it
+            final List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                final Long maxAgeSeconds = thread % 2 == 0 ? 0L : null;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        try {
+                            assertEquals(
+                                expected,
+                                cache.getResults(IDENTITY, uri, maxAgeSeconds, ResponseParser.JSON).toString());
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }, executor));
+            }
+            for (final CompletableFuture<Void> future : futures) {
+                future.join();
+            }
+
+            assertEquals(1, countFiles(".entry"));
+            assertEquals(0, countFiles(".partial"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testConcurrentWritersEvictDownToTheBound() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(3)).start()) {
+            final URI uri = clustersUri(simulator);
+            new ResponseCache(_directory).getResults(IDENTITY, uri, null, ResponseParser.JSON);
+            final long entryBytes = sizeOfEntries();
+            final ResponseCache cache = new ResponseCache(_directory, entryBytes * 4);
+
+            final List<CompletableFuture<Void>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                final int first = thread * 10;
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (int i = first; i < first + 10; i++) {
+                        try {
+                            cache.getResults(new Identity("user", "key" + i, "G1"), uri, null, ResponseParser.JSON);
+                        } catch (IOException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                }, executor));
+            }
+            for (final CompletableFuture<Void> future : futures) {
+                future.join();
+            }
+
+            // writers that found the lock taken skipped eviction, so the last write settles the bound
+            cache.getResults(IDENTITY, uri, 0L, ResponseParser.JSON);
+            assertTrue(sizeOfEntries() + " > " + entryBytes * 4, sizeOfEntries() <= entryBytes * 4);
+            assertEquals(0, countFiles(".partial"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    public void testEvictionRemovesStalePartialFiles() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(3)).start()) {
+            final Path stale = Files.createFile(_directory.resolve("tmp1.partial"));
+            Files.setLastModifiedTime(stale, FileTime.fromMillis(System.currentTimeMillis() - 60 * 60 * 1000));
+            final Path inProgress = Files.createFile(_directory.resolve("tmp2.partial"));
+
+            new ResponseCache(_directory).getResults(IDENTITY, clustersUri(simulator), null, ResponseParser.JSON);
+
+            assertFalse(Files.exists(stale));
+            assertTrue(Files.exists(inProgress));
+        }
+    }
+
+    public void testDirectoryIsOnlyScannedWhenTheEstimateExceedsTheBound() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(3)).start()) {
+            final URI uri = clustersUri(simulator);
+            new ResponseCache(_directory).getResults(IDENTITY, uri, null, ResponseParser.JSON);
+            final long entryBytes = sizeOfEntries();
+            try (Stream<Path> files = Files.list(_directory)) {
+                for (final Path file : files.collect(Collectors.toList())) {
+                    Files.delete(file);
+                }
+            }
+
+            // the first write of a process scans, later ones only while the estimate is within the bound do not
+            final ResponseCache cache = new ResponseCache(_directory, entryBytes * 3);
+            cache.getResults(new Identity("user", "key0", "G1"), uri, null, ResponseParser.JSON);
+            final Path stale = Files.createFile(_directory.resolve("tmp1.partial"));
+            Files.setLastModifiedTime(stale, FileTime.fromMillis(System.currentTimeMillis() - 60 * 60 * 1000));
+
+            cache.getResults(new Identity("user", "key1", "G1"), uri, null, ResponseParser.JSON);
+            cache.getResults(new Identity("user", "key2", "G1"), uri, null, ResponseParser.JSON);
+            assertTrue(Files.exists(stale));
+
+            cache.getResults(new Identity("user", "key3", "G1"), uri, null, ResponseParser.JSON);
+            assertFalse(Files.exists(stale));
+            assertEquals(3, countFiles(".entry"));
+        }
+    }
+
+    private static URI clustersUri(final AtlasSimulator pSimulator) {
+        return URI.create(pSimulator.getApiUrl() + "/groups/G1/clusters");
+    }
+
+    private long countFiles(final String pSuffix) throws IOException {
+        try (Stream<Path> files = Files.list(_directory)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(pSuffix)).count();
+        }
+    }
+
+    private long sizeOfEntries() throws IOException {
+        long bytes = 0;
+        try (Stream<Path> files = Files.list(_directory)) {
+            for (final Path file : files.filter(p -> p.toString().endsWith(".entry")).collect(Collectors.toList())) {
+                bytes += Files.size(file);
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,133 @@
+package com.mongodb.atlas.cli.http;
+
+import com.mongodb.atlas.cli.ResponseParser;
+import junit.framework.TestCase;
+import org.json.JSONObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+
+public class TrafficRecorderTest extends TestCase {
+
+    private static final String MEASUREMENTS =
+        "http://localhost:8080/api/atlas/v1.0/groups/G1/processes/host:27017/measurements?granularity=PT1M";
+
+    private Path _file;
+
+    @Override
+    protected void setUp() throws Exception {
+        _file = Files.createTempFile("traffic", ".rec");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        Files.deleteIfExists(_file);
+    }
+
+    public void testReplayServesRecordedResponsesInOrder() throws Exception {
+        try (TrafficRecorder recorder = TrafficRecorder.open(_file)) {
+            for (int i = 0; i < 2; i++) {
+                final URI uri = URI.create(MEASUREMENTS + "&start=2017-11-1" + i + "T00:00:00Z&end=now");
+                final JSONObject poll = recorder.get(uri, ResponseParser.JSON, respond("{\"poll\": " + i + "}"));
+                assertEquals(i, poll.getInt("poll"));
+            }
+            recorder.post(URI.create("http://localhost/api/atlas/v1.0/groups/G1/clusters"), () ->
+                new JSONObject().put("name", "Cluster0"));
+        }
+
+        try (TrafficReplay replay = TrafficReplay.open(_file, TrafficReplay.Latency.ZERO)) {
+            // the time window is not part of the key, and the last response repeats once the recorded ones run out
+            final URI uri = URI.create(MEASUREMENTS + "&start=2020-01-01T00:00:00Z");
+            assertEquals(0, replay.getResults(uri, ResponseParser.JSON).getInt("poll"));
+            assertEquals(1, replay.getResults(uri, ResponseParser.JSON).getInt("poll"));
+            assertEquals(1, replay.getResults(uri, ResponseParser.JSON).getInt("poll"));
+            assertEquals("Cluster0", replay.postResults(
+                URI.create("https://cloud.mongodb.com/api/atlas/v1.0/groups/G1/clusters")).getString("name"));
+
+            try {
+                replay.getResults(URI.create(MEASUREMENTS + "&m=CONNECTIONS"), ResponseParser.JSON);
+                fail("Expected a request that was not recorded to fail");
+            } catch (IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("m=CONNECTIONS"));
+            }
+        }
+    }
+
+    public void testErrorsAreReplayedButThrottlingIsNot() throws Exception {
+        final URI missing = URI.create("http://localhost/api/atlas/v1.0/groups/G1/clusters/Missing");
+        final URI throttled = URI.create("http://localhost/api/atlas/v1.0/groups/G1/clusters/Busy");
+        try (TrafficRecorder recorder = TrafficRecorder.open(_file)) {
+            recordError(recorder, missing, new AtlasApiException(missing, 404, "CLUSTER_NOT_FOUND", "No cluster", -1));
+            recordError(recorder, throttled, new AtlasApiException(throttled, 429, "RATE_LIMITED", null, 1000));
+        }
+
+        try (TrafficReplay replay = TrafficReplay.open(_file, TrafficReplay.Latency.ZERO)) {
+            try {
+                replay.getResults(missing, ResponseParser.JSON);
+                fail("Expected the recorded error");
+            } catch (AtlasApiException e) {
+                assertEquals(404, e.getStatus());
+                assertEquals("CLUSTER_NOT_FOUND", e.getErrorCode());
+                assertEquals("No cluster", e.getDetail());
+            }
+            try {
+                replay.getResults(throttled, ResponseParser.JSON);
+                fail("Expected throttling not to be recorded");
+            } catch (AtlasApiException e) {
+                fail("Throttling was recorded");
+            } catch (IOException e) {
+                assertTrue(e.getMessage(), e.getMessage().contains("No recorded response"));
+            }
+        }
+    }
+
+    public void testBodiesAreCompressed() throws Exception {
+        final StringBuilder body = new StringBuilder("{\"dataPoints\": [");
+        for (int i = 0; i < 1000; i++) {
+            body.append(i > 0 ? "," : "").append("{\"timestamp\": \"2017-11-10T00:00:00Z\", \"value\": 42}");
+        }
+        body.append("]}");
+
+        try (TrafficRecorder recorder = TrafficRecorder.open(_file)) {
+            recorder.get(URI.create(MEASUREMENTS), ResponseParser.JSON, respond(body.toString()));
+        }
+        assertTrue(Files.size(_file) < body.length() / 10);
+
+        try (TrafficReplay replay = TrafficReplay.open(_file, TrafficReplay.Latency.RECORDED)) {
+            assertEquals(1000, replay.getResults(URI.create(MEASUREMENTS), ResponseParser.JSON)
+                .getJSONArray("dataPoints").length());
+        }
+    }
+
+    public void testIncompleteRecordingIsRejected() throws Exception {
+        Files.write(_file, new byte[] {0x41, 0x54, 0x52, 0x31, 0, 0, 0, 1});
+        try {
+            TrafficReplay.open(_file, TrafficReplay.Latency.ZERO).close();
+            fail("Expected a recording without an index to be rejected");
+        } catch (IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().contains("not a complete recording"));
+        }
+    }
+
+    private static void recordError(final TrafficRecorder pRecorder, final URI pURI, final AtlasApiException pError)
+        throws IOException
+    {
+        try {
+            pRecorder.get(pURI, ResponseParser.JSON, parser -> {
+                throw pError;
+            });
+            fail("Expected the error to be rethrown");
+        } catch (AtlasApiException e) {
+            assertSame(pError, e);
+        }
+    }
+
+    private static TrafficRecorder.Exchange<JSONObject> respond(final String pBody) {
+        return parser -> parser.parse(new ByteArrayInputStream(pBody.getBytes(StandardCharsets.UTF_8)));
+    }
+}
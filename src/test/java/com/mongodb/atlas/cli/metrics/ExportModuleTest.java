@@ -0,0 +1,143 @@
+package com.mongodb.atlas.cli.metrics;
+
+import com.mongodb.atlas.cli.AtlasCliApp;
+import com.mongodb.atlas.cli.simulator.AtlasSimulator;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class ExportModuleTest extends TestCase {
+
+    private Path _directory;
+
+    // an hour boundary in the past, so every point of the range has a value
+    private final String _end = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(1, ChronoUnit.HOURS).toString();
+
+    @Override
+    protected void setUp() throws Exception {
+        _directory = Files.createTempDirectory("export");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (final Path path : Files.newDirectoryStream(_directory)) {
+            Files.delete(path);
+        }
+        Files.delete(_directory);
+    }
+
+    public void testCsvExport() throws Exception {
+        final Path file = _directory.resolve("metrics.csv");
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(2)).start()) {
+            assertEquals(0, export(simulator, file, "--period", "PT3H", "--window", "PT1H", "--disks"));
+        }
+
+        final List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        assertEquals(CsvSeriesWriter.HEADER, lines.get(0));
+        // 2 processes with 6 metrics and 2 partitions each with 2 metrics, for 180 minutes
+        assertEquals(1 + 180 * (2 * 6 + 2 * 2 * 2), lines.size());
+        assertTrue(lines.get(1), lines.get(1).matches("\\d{4}-.*Z,[^,]+:27017,,CONNECTIONS,\\d+"));
+        assertFalse(Files.exists(_directory.resolve("metrics.csv" + ExportModule.CHECKPOINT_SUFFIX)));
+    }
+
+    public void testInterruptedExportResumes() throws Exception {
+        final Path reference = _directory.resolve("reference.bin");
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(2)).start()) {
+            assertEquals(0, export(simulator, reference, "--period", "PT3H", "--window", "PT1H"));
+        }
+
+        // the process listing and three windows succeed, then the API fails
+        final Path file = _directory.resolve("resumed.bin");
+        final Path checkpoint = _directory.resolve("resumed.bin" + ExportModule.CHECKPOINT_SUFFIX);
+        final AtlasSimulator.Config failing = new AtlasSimulator.Config().setProcesses(2).setRequestLimit(4);
+        try (AtlasSimulator simulator = new AtlasSimulator(failing).start()) {
+            assertEquals(1, export(simulator, file, "--period", "PT3H", "--window", "PT1H"));
+        }
+        assertTrue(Files.exists(checkpoint));
+
+        // the range is taken from the checkpoint, so resuming later still covers the same hours
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(2)).start()) {
+            assertEquals(0, export(simulator, file, "--period", "PT3H", "--window", "PT1H"));
+            assertEquals(1 + 3, simulator.getRequestCount());
+        }
+        assertFalse(Files.exists(checkpoint));
+        assertTrue(Arrays.equals(Files.readAllBytes(reference), Files.readAllBytes(file)));
+
+        int windows = 0;
+        try (BinarySeriesReader reader = new BinarySeriesReader(file)) {
+            SeriesWindow window;
+            while ((window = reader.next()) != null) {
+                windows++;
+                assertEquals(60, window.getCount());
+                assertEquals(MetricsOptions.PROCESS_METRICS.size(), window.getColumns().size());
+                for (final double value : window.getColumn("CONNECTIONS")) {
+                    assertFalse(Double.isNaN(value));
+                }
+            }
+        }
+        assertEquals(2 * 3, windows);
+    }
+
+    public void testExistingFileIsNotOverwritten() throws Exception {
+        final Path file = _directory.resolve("existing.csv");
+        Files.write(file, new byte[] {'x'});
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config()).start()) {
+            assertEquals(1, export(simulator, file, "--period", "PT1H"));
+        }
+        assertEquals(1, Files.size(file));
+    }
+
+    public void testTornCheckpointLineIsIgnored() throws Exception {
+        final Path path = _directory.resolve("torn.checkpoint");
+        try (ExportCheckpoint checkpoint = ExportCheckpoint.open(path, "{}")) {
+            checkpoint.markDone("a", 10);
+            checkpoint.markDone("b", 20);
+        }
+        Files.write(path, "30\tc".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        try (ExportCheckpoint checkpoint = ExportCheckpoint.open(path, "{}")) {
+            assertTrue(checkpoint.isResumed());
+            assertEquals(20, checkpoint.getLength());
+            assertTrue(checkpoint.isDone("b"));
+            assertFalse(checkpoint.isDone("c"));
+            checkpoint.markDone("d", 40);
+        }
+        try (ExportCheckpoint checkpoint = ExportCheckpoint.open(path, "{}")) {
+            assertEquals(40, checkpoint.getLength());
+            assertEquals(3, checkpoint.getDoneCount());
+        }
+
+        try {
+            ExportCheckpoint.open(path, "{\"other\":1}");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private int export(final AtlasSimulator pSimulator, final Path pFile, final String... pArgs) {
+        final String[] common = {"metrics", "export", "-u", "user:key", "-g", "G1", "--base-url",
+            pSimulator.getApiUrl(), "--no-cache", "-pl", "1", "-f", pFile.toString(), "--end", _end,
+            "--format", pFile.toString().endsWith(".bin") ? "binary" : "csv"};
+        final String[] args = Arrays.copyOf(common, common.length + pArgs.length);
+        System.arraycopy(pArgs, 0, args, common.length, pArgs.length);
+
+        final PrintStream err = System.err;
+        System.setErr(new PrintStream(new ByteArrayOutputStream(), true));
+        try {
+            return AtlasCliApp.run(args);
+        } finally {
+            System.setErr(err);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.mongodb.atlas.cli.metrics;
+
+import com.mongodb.atlas.cli.AtlasCliApp;
+import com.mongodb.atlas.cli.simulator.AtlasSimulator;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+
+public class QueryModuleTest extends TestCase {
+
+    private Path _directory;
+
+    private final String _end = Instant.now().truncatedTo(ChronoUnit.HOURS).minus(1, ChronoUnit.HOURS).toString();
+
+    @Override
+    protected void setUp() throws Exception {
+        _directory = Files.createTempDirectory("series");
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        try (Stream<Path> paths = Files.walk(_directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    public void testOnlyGapsAreFetched() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(1)).start()) {
+            // the process listing, then one request for both metrics
+            final String first = query(simulator, "--period", "PT3H");
+            assertEquals(2, simulator.getRequestCount());
+            assertTrue(first, first.matches("(?s).*CONNECTIONS\\s+180\\s.*"));
+            assertTrue(first, first.matches("(?s).*CURSORS_TOTAL_OPEN\\s+180\\s.*"));
+
+            assertEquals(first, query(simulator, "--period", "PT3H"));
+            assertEquals(3, simulator.getRequestCount());
+
+            // widening the range fetches the two hours before it only
+            final String widened = query(simulator, "--period", "PT5H");
+            assertEquals(5, simulator.getRequestCount());
+            assertTrue(widened, widened.matches("(?s).*CONNECTIONS\\s+300\\s.*"));
+
+            final String processId = widened.split("\n")[1].split(" ")[0];
+            assertEquals(widened, query(simulator, "--period", "PT5H", "--offline", "--process", processId));
+            assertEquals(5, simulator.getRequestCount());
+        }
+    }
+
+    public void testSeriesAppendReadAndGaps() throws Exception {
+        final Path directory = _directory.resolve("series");
+        final StoredSeries series = new StoredSeries(directory);
+        assertEquals(1, series.getGaps(0, 600).size());
+
+        // more than one segment's worth
+        final int count = StoredSeries.SEGMENT_POINTS + 10;
+        final long[] epochSeconds = new long[count];
+        final double[] values = new double[count];
+        for (int i = 0; i < count; i++) {
+            epochSeconds[i] = 6000 + i * 60L;
+            values[i] = i;
+        }
+        series.append(epochSeconds, values, count, 6000, 6000 + count * 60L);
+        series.append(new long[] {0}, new double[] {-1}, 1, 0, 600);
+
+        final StoredSeries reopened = new StoredSeries(directory);
+        assertEquals(count + 1, reopened.read(0, Long.MAX_VALUE).length);
+        assertEquals(2, reopened.read(6000 + 5 * 60, 6000 + 7 * 60).length);
+
+        final List<long[]> gaps = reopened.getGaps(0, 7000);
+        assertEquals(1, gaps.size());
+        assertTrue(Arrays.equals(new long[] {600, 6000}, gaps.get(0)));
+
+        // adjacent ranges merge
+        reopened.append(new long[0], new double[0], 0, 600, 6000);
+        assertTrue(new StoredSeries(directory).getGaps(0, 6000 + count * 60L).isEmpty());
+    }
+
+    public void testPercentile() {
+        final double[] values = new double[100];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i + 1;
+        }
+        assertEquals(50.0, QueryModule.getPercentile(values, 50));
+        assertEquals(99.0, QueryModule.getPercentile(values, 99));
+        assertEquals(100.0, QueryModule.getPercentile(values, 100));
+        assertEquals(1.0, QueryModule.getPercentile(values, 0.1));
+    }
+
+    private String query(final AtlasSimulator pSimulator, final String... pArgs) throws IOException {
+        final String[] common = {"metrics", "query", "-u", "user:key", "-g", "G1", "--base-url",
+            pSimulator.getApiUrl(), "--no-cache", "--store-dir", _directory.toString(), "--end", _end,
+            "-m", "CONNECTIONS", "-m", "CURSORS_TOTAL_OPEN"};
+        final String[] args = Arrays.copyOf(common, common.length + pArgs.length);
+        System.arraycopy(pArgs, 0, args, common.length, pArgs.length);
+
+        final PrintStream out = System.out;
+        final PrintStream err = System.err;
+        final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true));
+        System.setErr(new PrintStream(new ByteArrayOutputStream(), true));
+        try {
+            assertEquals(0, AtlasCliApp.run(args));
+        } finally {
+            System.setOut(out);
+            System.setErr(err);
+        }
+        return captured.toString();
+    }
+}
@@ -0,0 +1,588 @@
+package com.mongodb.atlas.cli.simulator;
+
+import com.mongodb.atlas.cli.util.ConcurrencyUtil;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.cli.*;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * Local stand-in for the Atlas API endpoints the CLI uses, for tests and for load testing without network access.
+ * Every group ID resolves to a {@link SyntheticGroup}; responses can be delayed, failed with a 500 or throttled
+ * per group with 429 and {@code Retry-After}, like the real API's per-project rate limit.  No authentication is
+ * required.
+ *
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.mongodb.atlas.cli.simulator.AtlasSimulator \
+ *     -Dexec.args="--processes 3000 --latency lognormal:40:0.5 --rate-limit 100"
+ * </pre>
+ */
+public class AtlasSimulator implements Closeable {
+
+    public static final String API_PATH = "/api/atlas/v1.0";
+
+    private static final Pattern GROUP_PATH = Pattern.compile(API_PATH + "/groups/([^/]+)(/.*)?");
+    private static final Pattern CLUSTER_PATH = Pattern.compile("/clusters/([^/]+)");
+    private static final Pattern MEASUREMENTS_PATH = Pattern.compile("/processes/([^/]+)/measurements");
+    private static final Pattern DISKS_PATH = Pattern.compile("/processes/([^/]+)/disks");
+    private static final Pattern DISK_MEASUREMENTS_PATH =
+        Pattern.compile("/processes/([^/]+)/disks/([^/]+)/measurements");
+
+    private static final List<String> PROCESS_METRICS = Arrays.asList(
+        "CONNECTIONS",
+        "DB_STORAGE_TOTAL",
+        "DB_DATA_SIZE_TOTAL",
+        "PROCESS_NORMALIZED_CPU_USER",
+        "PROCESS_NORMALIZED_CPU_KERNEL",
+        "CURSORS_TOTAL_OPEN");
+
+    private static final List<String> DISK_METRICS = Arrays.asList(
+        "DISK_PARTITION_SPACE_FREE",
+        "DISK_PARTITION_SPACE_USED");
+
+    private static final int DEFAULT_ITEMS_PER_PAGE = 100;
+    private static final int MAX_ITEMS_PER_PAGE = 500;
+    private static final int MAX_DATA_POINTS = 10_000;
+
+    private final Config _config;
+    private final HttpServer _server;
+    private final ExecutorService _executor;
+    private final ConcurrentMap<String, SyntheticGroup> _groups = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, TokenBucket> _rateLimits = new ConcurrentHashMap<>();
+
+    private final AtomicLong _requests = new AtomicLong();
+    private final AtomicLong _throttled = new AtomicLong();
+    private final AtomicLong _failed = new AtomicLong();
+    private final AtomicInteger _inFlight = new AtomicInteger();
+    private final AtomicInteger _maxInFlight = new AtomicInteger();
+
+    public AtlasSimulator(final Config pConfig) throws IOException {
+        _config = pConfig;
+
+        // the JDK server writes headers and body separately, which Nagle and delayed ACKs turn into 40ms stalls
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        _server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), pConfig._port), 128);
+        _executor = ConcurrencyUtil.newDaemonPool("simulator", pConfig._threads);
+        _server.setExecutor(_executor);
+        _server.createContext("/", this::handle);
+    }
+
+    public AtlasSimulator start() {
+        _server.start();
+        return this;
+    }
+
+    public int getPort() {
+        return _server.getAddress().getPort();
+    }
+
+    /**
+     * @return the value to pass to {@code --base-url}
+     */
+    public String getApiUrl() {
+        return "http://localhost:" + getPort() + API_PATH;
+    }
+
+    public long getRequestCount() {
+        return _requests.get();
+    }
+
+    public long getThrottledCount() {
+        return _throttled.get();
+    }
+
+    public long getFailedCount() {
+        return _failed.get();
+    }
+
+    /**
+     * @return the most requests that were being handled at the same time
+     */
+    public int getMaxConcurrentRequests() {
+        return _maxInFlight.get();
+    }
+
+    @Override
+    public void close() {
+        _server.stop(0);
+        _executor.shutdownNow();
+    }
+
+    private void handle(final HttpExchange pExchange) throws IOException {
+        _maxInFlight.accumulateAndGet(_inFlight.incrementAndGet(), Math::max);
+        try {
+            final long request = _requests.incrementAndGet();
+            delay();
+
+            if (_config._requestLimit > 0 && request > _config._requestLimit) {
+                _failed.incrementAndGet();
+                sendError(pExchange, 403, "QUOTA_EXCEEDED", "Simulated request quota exhausted.");
+                return;
+            }
+
+            final Matcher group = GROUP_PATH.matcher(pExchange.getRequestURI().getPath());
+            if (!group.matches()) {
+                sendError(pExchange, 404, "RESOURCE_NOT_FOUND", "Cannot find resource.");
+                return;
+            }
+
+            final String groupId = group.group(1);
+            final long retryAfterMs = _config._rateLimitPerSecond > 0
+                ? _rateLimits.computeIfAbsent(groupId, k -> new TokenBucket(_config._rateLimitPerSecond)).acquire()
+                : 0;
+            if (retryAfterMs > 0) {
+                _throttled.incrementAndGet();
+                pExchange.getResponseHeaders().set("Retry-After", Long.toString((retryAfterMs + 999) / 1000));
+                sendError(pExchange, 429, "RATE_LIMITED", "Too many requests for group " + groupId + ".");
+                return;
+            }
+
+            if (_config._failingPath != null && pExchange.getRequestURI().getPath().contains(_config._failingPath)) {
+                _failed.incrementAndGet();
+                sendError(pExchange, 500, "UNEXPECTED_ERROR", "Simulated failure of " + _config._failingPath + ".");
+                return;
+            }
+
+            if (_config._errorRate > 0 && ThreadLocalRandom.current().nextDouble() < _config._errorRate) {
+                _failed.incrementAndGet();
+                sendError(pExchange, 500, "UNEXPECTED_ERROR", "Simulated failure.");
+                return;
+            }
+
+            final SyntheticGroup syntheticGroup = _groups.computeIfAbsent(
+                groupId,
+                k -> new SyntheticGroup(k, _config._processes, _config._partitions));
+            route(pExchange, syntheticGroup, group.group(2) != null ? group.group(2) : "");
+        } catch (JSONException | IllegalArgumentException | DateTimeParseException e) {
+            sendError(pExchange, 400, "INVALID_QUERY_PARAMETER", e.getMessage());
+        } finally {
+            _inFlight.decrementAndGet();
+            pExchange.close();
+        }
+    }
+
+    private void route(final HttpExchange pExchange, final SyntheticGroup pGroup, final String pPath)
+        throws IOException
+    {
+        final String method = pExchange.getRequestMethod();
+        final Map<String, List<String>> query = parseQuery(pExchange.getRequestURI().getRawQuery());
+        final long now = System.currentTimeMillis();
+        Matcher matcher;
+
+        if (pPath.equals("/clusters") && method.equals("GET")) {
+            sendPage(pExchange, pGroup.getClusters(now), query);
+        } else if (pPath.equals("/clusters") && method.equals("POST")) {
+            final JSONObject cluster = pGroup.createCluster(
+                new JSONObject(readBody(pExchange)),
+                now,
+                now + _config._clusterCreateSeconds * 1000);
+            if (cluster == null) {
+                sendError(pExchange, 409, "DUPLICATE_CLUSTER_NAME", "A cluster with that name already exists.");
+            } else {
+                send(pExchange, 201, cluster);
+            }
+        } else if ((matcher = CLUSTER_PATH.matcher(pPath)).matches() && method.equals("GET")) {
+            final JSONObject cluster = pGroup.getCluster(matcher.group(1), now);
+            if (cluster == null) {
+                sendError(pExchange, 404, "CLUSTER_NOT_FOUND", "No cluster named " + matcher.group(1) + ".");
+            } else {
+                send(pExchange, 200, cluster);
+            }
+        } else if (pPath.equals("/processes") && method.equals("GET")) {
+            final List<JSONObject> processes = new ArrayList<>();
+            for (final String processId : pGroup.getProcessIds()) {
+                processes.add(pGroup.toProcess(processId));
+            }
+            sendPage(pExchange, processes, query);
+        } else if ((matcher = MEASUREMENTS_PATH.matcher(pPath)).matches() && method.equals("GET")
+            && pGroup.hasProcess(matcher.group(1)))
+        {
+            send(pExchange, 200, measurements(pGroup, matcher.group(1), null, PROCESS_METRICS, query));
+        } else if ((matcher = DISKS_PATH.matcher(pPath)).matches() && method.equals("GET")
+            && pGroup.hasProcess(matcher.group(1)))
+        {
+            final List<JSONObject> partitions = new ArrayList<>();
+            for (final String partition : pGroup.getPartitions()) {
+                partitions.add(new JSONObject().put("partitionName", partition));
+            }
+            sendPage(pExchange, partitions, query);
+        } else if ((matcher = DISK_MEASUREMENTS_PATH.matcher(pPath)).matches() && method.equals("GET")
+            && pGroup.hasProcess(matcher.group(1)) && pGroup.getPartitions().contains(matcher.group(2)))
+        {
+            send(pExchange, 200, measurements(pGroup, matcher.group(1), matcher.group(2), DISK_METRICS, query));
+        } else {
+            sendError(pExchange, 404, "RESOURCE_NOT_FOUND", "Cannot find resource " + pPath + ".");
+        }
+    }
+
+    /**
+     * One point per granularity step in the requested window.  Like the real API, the point for the step that is
+     * still in progress has a null value.
+     */
+    private JSONObject measurements(
+        final SyntheticGroup pGroup,
+        final String pProcessId,
+        final String pPartition,
+        final List<String> pDefaultMetrics,
+        final Map<String, List<String>> pQuery)
+    {
+        final Duration granularity = Duration.parse(getParameter(pQuery, "granularity", "PT1M"));
+        final Instant now = Instant.now();
+        final Instant end = pQuery.containsKey("end") ? Instant.parse(getParameter(pQuery, "end", null)) : now;
+        final Instant start = pQuery.containsKey("start")
+            ? Instant.parse(getParameter(pQuery, "start", null))
+            : end.minus(Duration.parse(getParameter(pQuery, "period", "PT1H")));
+
+        final long stepMinutes = Math.max(1, granularity.toMinutes());
+        final long firstMinute = (start.getEpochSecond() + 59) / 60;
+        final long lastMinute = end.getEpochSecond() / 60;
+        final long currentMinute = now.getEpochSecond() / 60;
+        if ((lastMinute - firstMinute) / stepMinutes > MAX_DATA_POINTS) {
+            throw new IllegalArgumentException("Too many data points requested.");
+        }
+
+        final List<String> metrics = pQuery.containsKey("m") ? pQuery.get("m") : pDefaultMetrics;
+        final JSONArray measurements = new JSONArray();
+        for (final String metric : metrics) {
+            final JSONArray dataPoints = new JSONArray();
+            // points are aligned to the granularity like the real API's
+            final long alignedFirstMinute = (firstMinute + stepMinutes - 1) / stepMinutes * stepMinutes;
+            for (long minute = alignedFirstMinute; minute <= lastMinute; minute += stepMinutes) {
+                final JSONObject dataPoint = new JSONObject()
+                    .put("timestamp", Instant.ofEpochSecond(minute * 60).toString());
+                dataPoint.put(
+                    "value",
+                    minute + stepMinutes > currentMinute
+                        ? JSONObject.NULL
+                        : pGroup.getValue(pProcessId, pPartition, metric, minute));
+                dataPoints.put(dataPoint);
+            }
+            measurements.put(new JSONObject()
+                .put("name", metric)
+                .put("units", metric.contains("SPACE") || metric.contains("SIZE") || metric.contains("STORAGE")
+                    ? "BYTES"
+                    : metric.contains("CPU") ? "PERCENT" : "SCALAR")
+                .put("dataPoints", dataPoints));
+        }
+
+        final JSONObject response = new JSONObject()
+            .put("groupId", pGroup.getGroupId())
+            .put("hostId", pProcessId)
+            .put("processId", pProcessId)
+            .put("granularity", granularity.toString())
+            .put("start", start.truncatedTo(ChronoUnit.SECONDS).toString())
+            .put("end", end.truncatedTo(ChronoUnit.SECONDS).toString())
+            .put("measurements", measurements);
+        if (pPartition != null) {
+            response.put("partitionName", pPartition);
+        }
+        return response;
+    }
+
+    private void sendPage(
+        final HttpExchange pExchange,
+        final List<JSONObject> pItems,
+        final Map<String, List<String>> pQuery) throws IOException
+    {
+        final int pageNum = Integer.parseInt(getParameter(pQuery, "pageNum", "1"));
+        final int itemsPerPage = Math.min(
+            MAX_ITEMS_PER_PAGE,
+            Integer.parseInt(getParameter(pQuery, "itemsPerPage", Integer.toString(DEFAULT_ITEMS_PER_PAGE))));
+        if (pageNum < 1 || itemsPerPage < 1) {
+            throw new IllegalArgumentException("Invalid page requested.");
+        }
+
+        final int from = Math.min(pItems.size(), (pageNum - 1) * itemsPerPage);
+        final int to = Math.min(pItems.size(), from + itemsPerPage);
+
+        final String self = "http://" + pExchange.getRequestHeaders().getFirst("Host")
+            + pExchange.getRequestURI().getPath();
+        final JSONArray links = new JSONArray()
+            .put(new JSONObject()
+                .put("rel", "self")
+                .put("href", self + "?pageNum=" + pageNum + "&itemsPerPage=" + itemsPerPage));
+        if (to < pItems.size()) {
+            links.put(new JSONObject()
+                .put("rel", "next")
+                .put("href", self + "?pageNum=" + (pageNum + 1) + "&itemsPerPage=" + itemsPerPage));
+        }
+
+        send(pExchange, 200, new JSONObject()
+            .put("links", links)
+            .put("results", new JSONArray(pItems.subList(from, to)))
+            .put("totalCount", pItems.size()));
+    }
+
+    private void sendError(
+        final HttpExchange pExchange,
+        final int pStatus,
+        final String pErrorCode,
+        final String pDetail) throws IOException
+    {
+        send(pExchange, pStatus, new JSONObject()
+            .put("detail", pDetail)
+            .put("error", pStatus)
+            .put("errorCode", pErrorCode)
+            .put("reason", reasonOf(pStatus)));
+    }
+
+    private static String reasonOf(final int pStatus) {
+        switch (pStatus) {
+            case 400:
+                return "Bad Request";
+            case 404:
+                return "Not Found";
+            case 409:
+                return "Conflict";
+            case 429:
+                return "Too Many Requests";
+            default:
+                return "Internal Server Error";
+        }
+    }
+
+    private static void send(final HttpExchange pExchange, final int pStatus, final JSONObject pBody)
+        throws IOException
+    {
+        final byte[] body = pBody.toString().getBytes(StandardCharsets.UTF_8);
+        pExchange.getResponseHeaders().set("Content-Type", "application/json");
+        pExchange.sendResponseHeaders(pStatus, body.length);
+        try (OutputStream out = pExchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String readBody(final HttpExchange pExchange) throws IOException {
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try (InputStream in = pExchange.getRequestBody()) {
+            final byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                body.write(buffer, 0, read);
+            }
+        }
+        return new String(body.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Map<String, List<String>> parseQuery(final String pRawQuery) throws UnsupportedEncodingException {
+        final Map<String, List<String>> query = new HashMap<>();
+        if (pRawQuery == null || pRawQuery.isEmpty()) {
+            return query;
+        }
+
+        for (final String pair : pRawQuery.split("&")) {
+            final int separator = pair.indexOf('=');
+            final String name = URLDecoder.decode(separator >= 0 ? pair.substring(0, separator) : pair, "UTF-8");
+            final String value = separator >= 0 ? URLDecoder.decode(pair.substring(separator + 1), "UTF-8") : "";
+            query.computeIfAbsent(name, k -> new ArrayList<>()).add(value);
+        }
+        return query;
+    }
+
+    private static String getParameter(
+        final Map<String, List<String>> pQuery,
+        final String pName,
+        final String pDefault)
+    {
+        final List<String> values = pQuery.get(pName);
+        return values != null && !values.isEmpty() ? values.get(0) : pDefault;
+    }
+
+    private void delay() {
+        final long delayMs = _config._latency.sampleMs();
+        if (delayMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(final String[] pArgs) throws Exception {
+        final Options options = new Options();
+        options.addOption(Option.builder().longOpt("port").hasArg(true).desc("Port, default 8080.").build());
+        options.addOption(Option.builder().longOpt("processes").hasArg(true)
+            .desc("Processes per group, default 30.").build());
+        options.addOption(Option.builder().longOpt("partitions").hasArg(true)
+            .desc("Disk partitions per process, default 2.").build());
+        options.addOption(Option.builder().longOpt("latency").hasArg(true)
+            .desc("Latency distribution, e.g. fixed:50, uniform:20:80, normal:50:10, exponential:50 or "
+                + "lognormal:40:0.5.  Default none.").build());
+        options.addOption(Option.builder().longOpt("error-rate").hasArg(true)
+            .desc("Fraction of requests failed with a 500, default 0.").build());
+        options.addOption(Option.builder().longOpt("rate-limit").hasArg(true)
+            .desc("Requests per second allowed per group before answering 429, default unlimited.").build());
+        options.addOption(Option.builder().longOpt("create-seconds").hasArg(true)
+            .desc("Seconds until a created cluster becomes IDLE, default 5.").build());
+        options.addOption(Option.builder().longOpt("threads").hasArg(true)
+            .desc("Request handler threads, default 64.").build());
+
+        final CommandLine commandLine;
+        try {
+            commandLine = new DefaultParser().parse(options, pArgs);
+        } catch (ParseException e) {
+            System.err.println(e.getMessage());
+            new HelpFormatter().printHelp("AtlasSimulator", options);
+            return;
+        }
+
+        final Config config = new Config()
+            .setPort(Integer.parseInt(commandLine.getOptionValue("port", "8080")))
+            .setProcesses(Integer.parseInt(commandLine.getOptionValue("processes", "30")))
+            .setPartitions(Integer.parseInt(commandLine.getOptionValue("partitions", "2")))
+            .setLatency(LatencyDistribution.parse(commandLine.getOptionValue("latency", "none")))
+            .setErrorRate(Double.parseDouble(commandLine.getOptionValue("error-rate", "0")))
+            .setRateLimitPerSecond(Double.parseDouble(commandLine.getOptionValue("rate-limit", "0")))
+            .setClusterCreateSeconds(Long.parseLong(commandLine.getOptionValue("create-seconds", "5")))
+            .setThreads(Integer.parseInt(commandLine.getOptionValue("threads", "64")));
+
+        final AtlasSimulator simulator = new AtlasSimulator(config).start();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.println(String.format(
+            "%d requests, %d throttled, %d failed",
+            simulator.getRequestCount(),
+            simulator.getThrottledCount(),
+            simulator.getFailedCount()))));
+        System.out.println("Atlas API simulator listening on " + simulator.getApiUrl());
+        Thread.currentThread().join();
+    }
+
+    /**
+     * Simulator settings; the defaults answer immediately and never fail.
+     */
+    public static class Config {
+        private int _port;
+        private int _processes = 30;
+        private int _partitions = 2;
+        private LatencyDistribution _latency = LatencyDistribution.NONE;
+        private double _errorRate;
+        private double _rateLimitPerSecond;
+        private long _clusterCreateSeconds = 5;
+        private int _threads = 64;
+        private long _requestLimit;
+        private String _failingPath;
+
+        /**
+         * @param pPort the port to listen on, or 0 (the default) for an ephemeral port
+         */
+        public Config setPort(final int pPort) {
+            _port = pPort;
+            return this;
+        }
+
+        public Config setProcesses(final int pProcesses) {
+            _processes = pProcesses;
+            return this;
+        }
+
+        public Config setPartitions(final int pPartitions) {
+            _partitions = pPartitions;
+            return this;
+        }
+
+        public Config setLatency(final LatencyDistribution pLatency) {
+            _latency = pLatency;
+            return this;
+        }
+
+        public Config setErrorRate(final double pErrorRate) {
+            _errorRate = pErrorRate;
+            return this;
+        }
+
+        public Config setRateLimitPerSecond(final double pRateLimitPerSecond) {
+            _rateLimitPerSecond = pRateLimitPerSecond;
+            return this;
+        }
+
+        public Config setClusterCreateSeconds(final long pClusterCreateSeconds) {
+            _clusterCreateSeconds = pClusterCreateSeconds;
+            return this;
+        }
+
+        public Config setThreads(final int pThreads) {
+            _threads = pThreads;
+            return this;
+        }
+
+        /**
+         * @param pRequestLimit the number of requests served before every further one fails with a 403, or 0
+         * (the default) for no limit; lets tests stop a command part way
+         */
+        public Config setRequestLimit(final long pRequestLimit) {
+            _requestLimit = pRequestLimit;
+            return this;
+        }
+
+        /**
+         * @param pFailingPath a part of the request path, such as a process ID, whose requests always fail with a
+         * 500, or null (the default) for none; lets tests fail one process deterministically
+         */
+        public Config setFailingPath(final String pFailingPath) {
+            _failingPath = pFailingPath;
+            return this;
+        }
+    }
+
+    /**
+     * Allows {@code pRatePerSecond} requests per second with bursts of up to one second's worth.
+     */
+    private static class TokenBucket {
+        private final double _ratePerMs;
+        private final double _capacity;
+        private double _tokens;
+        private long _updatedAtNanos = System.nanoTime();
+
+        private TokenBucket(final double pRatePerSecond) {
+            _ratePerMs = pRatePerSecond / 1000;
+            _capacity = Math.max(1, pRatePerSecond);
+            _tokens = _capacity;
+        }
+
+        /**
+         * @return 0 if a token was taken, otherwise the milliseconds until one is available
+         */
+        private synchronized long acquire() {
+            final long now = System.nanoTime();
+            _tokens = Math.min(_capacity, _tokens + (now - _updatedAtNanos) / 1e6 * _ratePerMs);
+            _updatedAtNanos = now;
+
+            if (_tokens >= 1) {
+                _tokens -= 1;
+                return 0;
+            }
+            return Math.max(1, (long) Math.ceil((1 - _tokens) / _ratePerMs));
+        }
+    }
+}
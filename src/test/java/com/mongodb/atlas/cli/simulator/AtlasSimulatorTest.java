@@ -0,0 +1,276 @@
+package com.mongodb.atlas.cli.simulator;
+
+import com.mongodb.atlas.cli.AtlasCliApp;
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class AtlasSimulatorTest extends TestCase {
+
+    public void testClustersStatusAgainstSimulator() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(6)).start()) {
+            final String output = runCli("clusters", "status", "-u", "user:key", "-g", "G1",
+                "--base-url", simulator.getApiUrl(), "--no-cache");
+
+            assertTrue(output, output.contains("cluster0-shard-00-00-"));
+            assertTrue(output, output.contains("cluster1-shard-00-02-"));
+            assertTrue(output, output.contains("%"));
+        }
+    }
+
+    public void testStatusColumnsOnlyRequestWhatTheyShow() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(6)).start()) {
+            final String plan = runCli("clusters", "status", "-u", "user:key", "-g", "G1",
+                "--base-url", simulator.getApiUrl(), "--no-cache", "--columns", "conn", "--dry-run");
+            assertTrue(plan, plan.contains("G1: 7 requests (1 process listing, 6 process measurements)"));
+            assertEquals(1, simulator.getRequestCount());
+
+            final String output = runCli("clusters", "status", "-u", "user:key", "-g", "G1",
+                "--base-url", simulator.getApiUrl(), "--no-cache", "--columns", "conn");
+            assertEquals(1 + 7, simulator.getRequestCount());
+            assertTrue(output, output.contains("Conn"));
+            assertFalse(output, output.contains("Disk"));
+        }
+    }
+
+    public void testStatusRowsKeepTheListingOrderAndIsolateAFailingProcess() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config()
+            .setProcesses(12)
+            .setLatency(LatencyDistribution.parse("uniform:0:80"))
+            .setFailingPath("/cluster2-shard-00-01-")).start())
+        {
+            final String output = runCli("clusters", "status", "-u", "user:key", "-g", "G1",
+                "--base-url", simulator.getApiUrl(), "--no-cache", "--columns", "conn", "-pl", "12");
+
+            // whatever order the jittered requests complete in, rows follow the listing, one replica set at a time
+            final List<String> hosts = new ArrayList<>();
+            String failedRow = null;
+            int separators = 0;
+            for (final String line : output.split("\n")) {
+                if (line.contains("-shard-00-")) {
+                    hosts.add(line.substring(line.indexOf("cluster"), line.indexOf("cluster") + 21));
+                    if (line.contains("ERR")) {
+                        assertNull(output, failedRow);
+                        failedRow = line;
+                    }
+                } else if (!hosts.isEmpty() && hosts.size() < 12 && line.trim().isEmpty()) {
+                    separators++;
+                }
+            }
+
+            final List<String> expected = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                expected.add(String.format("cluster%d-shard-00-%02d-", i / 3, i % 3));
+            }
+            assertEquals(output, expected, hosts);
+            assertEquals(output, 3, separators);
+            assertNotNull(output, failedRow);
+            assertTrue(failedRow, failedRow.contains("cluster2-shard-00-01-"));
+        }
+    }
+
+    public void testStatusParallelismAppliesToASingleGroup() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config()
+            .setProcesses(32)
+            .setLatency(LatencyDistribution.parse("fixed:200"))).start())
+        {
+            runCli("clusters", "status", "-u", "user:key", "-g", "G1",
+                "--base-url", simulator.getApiUrl(), "--no-cache", "--columns", "conn", "-pl", "16");
+
+            assertEquals(16, simulator.getMaxConcurrentRequests());
+        }
+    }
+
+    public void testStatusTopOnlyFetchesDetailsForTheTopProcesses() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(12)).start()) {
+            final String output = runCli("clusters", "status", "-u", "user:key", "-g", "G1",
+                "--base-url", simulator.getApiUrl(), "--no-cache", "--columns", "conn", "--top", "3");
+
+            // a listing, a cpu request per process, then connections for the top three
+            assertEquals(1 + 12 + 3, simulator.getRequestCount());
+            assertTrue(output, output.contains("CPU"));
+            int rows = 0;
+            for (final String line : output.split("\n")) {
+                if (line.contains("-shard-00-")) {
+                    rows++;
+                }
+            }
+            assertEquals(3, rows);
+        }
+    }
+
+    public void testStatusTopReusesTheRankingForTheSortColumn() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(12)).start()) {
+            final String output = runCli("clusters", "status", "-u", "user:key", "-g", "G1",
+                "--base-url", simulator.getApiUrl(), "--no-cache", "--columns", "cpu", "--top", "3");
+
+            // the cpu ranking already holds everything the cpu column shows
+            assertEquals(1 + 12, simulator.getRequestCount());
+            assertTrue(output, output.contains("CPU"));
+        }
+    }
+
+    public void testStatusReplaysARecording() throws Exception {
+        final Path recording = Files.createTempFile("status", ".rec");
+        try {
+            final String recorded;
+            try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(6)).start()) {
+                recorded = runCli("clusters", "status", "-u", "user:key", "-g", "G1",
+                    "--base-url", simulator.getApiUrl(), "--no-cache", "--record", recording.toString());
+            }
+
+            // the simulator is gone, so every response has to come from the recording
+            final String replayed = runCli("clusters", "status", "-u", "user:key", "-g", "G1",
+                "--base-url", "http://localhost:1/api/atlas/v1.0", "--replay", recording.toString(),
+                "--replay-latency", "zero");
+            assertEquals(recorded, replayed);
+        } finally {
+            Files.deleteIfExists(recording);
+        }
+    }
+
+    public void testBatchPrintsEachCommandInOrder() throws Exception {
+        final Path commands = Files.createTempFile("commands", ".txt");
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(6)).start()) {
+            final String common = " -u user:key -g G1 --base-url " + simulator.getApiUrl() + " --no-cache";
+            Files.write(commands, Arrays.asList(
+                "# one JVM for all of these",
+                "clusters status --columns conn" + common,
+                "atlas clusters list --output ndjson" + common,
+                "wait",
+                "clusters list -cn Cluster1 --output csv" + common), StandardCharsets.UTF_8);
+
+            final String output = runCli("batch", "--file", commands.toString(), "--parallelism", "3");
+
+            final String[] lines = output.split("\n");
+            int previous = 0;
+            for (final String line : lines) {
+                assertTrue(line, line.matches("\\[[235]\\] .*"));
+                final int lineNumber = line.charAt(1) - '0';
+                assertTrue(output, lineNumber >= previous);
+                previous = lineNumber;
+            }
+            assertTrue(output, output.contains("[2] ReplicaSet"));
+            assertTrue(output, output.contains("[3] {") && output.contains("\"name\":\"Cluster0\""));
+            assertTrue(output, output.contains("[5] backupEnabled,"));
+        } finally {
+            Files.deleteIfExists(commands);
+        }
+    }
+
+    public void testClustersListAgainstSimulator() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config().setProcesses(9)).start()) {
+            final String output = runCli("clusters", "list", "-u", "user:key", "-g", "G1",
+                "--base-url", simulator.getApiUrl() + "/", "--no-cache");
+
+            assertTrue(output, output.contains("Cluster0"));
+            assertTrue(output, output.contains("Cluster2"));
+        }
+    }
+
+    public void testErrorResponseIsReportedNotParsed() throws Exception {
+        try (AtlasSimulator simulator = new AtlasSimulator(new AtlasSimulator.Config()).start()) {
+            final PrintStream err = System.err;
+            final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+            System.setErr(new PrintStream(captured, true));
+            try {
+                assertEquals(1, AtlasCliApp.run(new String[] {"clusters", "list", "-u", "user:key", "-g", "G1",
+                    "-cn", "Missing", "--base-url", simulator.getApiUrl(), "--no-cache"}));
+            } finally {
+                System.setErr(err);
+            }
+            assertTrue(captured.toString(), captured.toString().contains("404 CLUSTER_NOT_FOUND"));
+        }
+    }
+
+    public void testCreateFromFileWaitsUntilIdle() throws Exception {
+        final AtlasSimulator.Config config = new AtlasSimulator.Config().setProcesses(3).setClusterCreateSeconds(1);
+        final Path specs = Files.createTempFile("clusters", ".json");
+        try (AtlasSimulator simulator = new AtlasSimulator(config).start()) {
+            Files.write(specs, ("[{\"name\": \"Fleet0\"}, {\"name\": \"Fleet1\"}, {\"name\": \"Fleet2\"},"
+                + " {\"name\": \"Cluster0\"}]").getBytes(StandardCharsets.UTF_8));
+
+            final PrintStream out = System.out;
+            final PrintStream err = System.err;
+            final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+            final ByteArrayOutputStream capturedErr = new ByteArrayOutputStream();
+            System.setOut(new PrintStream(captured, true));
+            System.setErr(new PrintStream(capturedErr, true));
+            try {
+                // Cluster0 already exists, so the command fails after the others are created
+                assertEquals(1, AtlasCliApp.run(new String[] {"clusters", "create", "-u", "user:key", "-g", "G1",
+                    "--from-file", specs.toString(), "--interval", "1", "--base-url", simulator.getApiUrl()}));
+            } finally {
+                System.setOut(out);
+                System.setErr(err);
+            }
+
+            final String output = captured.toString();
+            assertTrue(output, output.contains("Fleet1\tCREATING"));
+            assertTrue(output, output.contains("Fleet2\tIDLE"));
+            assertTrue(output, output.contains("3 of 3 clusters IDLE"));
+            assertTrue(capturedErr.toString(), capturedErr.toString().contains("Cluster0: "));
+            assertTrue(capturedErr.toString(), capturedErr.toString().contains("1 of 4 clusters could not be created"));
+
+            // four creates, then one listing per poll rather than one request per cluster
+            assertTrue(String.valueOf(simulator.getRequestCount()), simulator.getRequestCount() <= 4 + 4);
+        } finally {
+            Files.delete(specs);
+        }
+    }
+
+    public void testRateLimitAnswers429WithRetryAfter() throws Exception {
+        final AtlasSimulator.Config config = new AtlasSimulator.Config().setRateLimitPerSecond(1);
+        try (AtlasSimulator simulator = new AtlasSimulator(config).start()) {
+            final URL url = new URL(simulator.getApiUrl() + "/groups/G1/clusters");
+
+            assertEquals(200, ((HttpURLConnection) url.openConnection()).getResponseCode());
+
+            final HttpURLConnection throttled = (HttpURLConnection) url.openConnection();
+            assertEquals(429, throttled.getResponseCode());
+            assertEquals("1", throttled.getHeaderField("Retry-After"));
+            assertEquals(1, simulator.getThrottledCount());
+
+            // the limit is per group
+            final URL otherGroup = new URL(simulator.getApiUrl() + "/groups/G2/clusters");
+            assertEquals(200, ((HttpURLConnection) otherGroup.openConnection()).getResponseCode());
+        }
+    }
+
+    public void testLatencyDistributionParse() {
+        assertEquals(0, LatencyDistribution.parse("none").sampleMs());
+        assertEquals(25, LatencyDistribution.parse("fixed:25").sampleMs());
+
+        final long uniform = LatencyDistribution.parse("uniform:10:20").sampleMs();
+        assertTrue(uniform >= 10 && uniform <= 20);
+
+        try {
+            LatencyDistribution.parse("gamma:1");
+            fail();
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    private static String runCli(final String... pArgs) {
+        final PrintStream out = System.out;
+        final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(captured, true));
+        try {
+            assertEquals(0, AtlasCliApp.run(pArgs));
+        } finally {
+            System.setOut(out);
+        }
+        return captured.toString();
+    }
+}
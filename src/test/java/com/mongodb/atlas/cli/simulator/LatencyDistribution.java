@@ -0,0 +1,55 @@
+package com.mongodb.atlas.cli.simulator;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+
+/**
+ * Response delay of the simulator, in milliseconds.  Parsed from {@code none}, {@code fixed:<ms>},
+ * {@code uniform:<min>:<max>}, {@code normal:<mean>:<stddev>}, {@code exponential:<mean>} or
+ * {@code lognormal:<median>:<sigma>}; the long tail of the last two is closest to what the real API shows.
+ */
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    LatencyDistribution NONE = () -> 0;
+
+    long sampleMs();
+
+    static LatencyDistribution parse(final String pSpec) {
+        final String[] parts = pSpec.split(":");
+        try {
+            switch (parts[0]) {
+                case "none":
+                    return NONE;
+                case "fixed": {
+                    final long ms = Long.parseLong(parts[1]);
+                    return () -> ms;
+                }
+                case "uniform": {
+                    final long min = Long.parseLong(parts[1]);
+                    final long max = Long.parseLong(parts[2]);
+                    return () -> ThreadLocalRandom.current().nextLong(min, max + 1);
+                }
+                case "normal": {
+                    final double mean = Double.parseDouble(parts[1]);
+                    final double stddev = Double.parseDouble(parts[2]);
+                    return () -> Math.max(0, Math.round(mean + stddev * ThreadLocalRandom.current().nextGaussian()));
+                }
+                case "exponential": {
+                    final double mean = Double.parseDouble(parts[1]);
+                    return () -> Math.round(-mean * Math.log(1 - ThreadLocalRandom.current().nextDouble()));
+                }
+                case "lognormal": {
+                    final double mu = Math.log(Double.parseDouble(parts[1]));
+                    final double sigma = Double.parseDouble(parts[2]);
+                    return () -> Math.round(Math.exp(mu + sigma * ThreadLocalRandom.current().nextGaussian()));
+                }
+                default:
+                    break;
+            }
+        } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException(String.format("Invalid latency distribution specified: %s", pSpec));
+    }
+}
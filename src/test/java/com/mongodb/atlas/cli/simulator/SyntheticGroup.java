@@ -0,0 +1,187 @@
+package com.mongodb.atlas.cli.simulator;
+
+import org.json.JSONObject;
+
+import java.util.*;
+
+
+/**
+ * A generated Atlas project: three member replica sets (one per cluster) spread over the configured number of
+ * processes, each with its disk partitions.  Any group ID works and always produces the same topology, and metric
+ * values are a deterministic function of process, metric and minute so repeated runs are comparable.
+ */
+class SyntheticGroup {
+
+    private static final String[] PARTITION_NAMES = {"data", "journal", "logs"};
+
+    private final String _groupId;
+    private final List<String> _processIds = new ArrayList<>();
+    private final Map<String, String> _replicaSets = new HashMap<>();
+    private final List<String> _partitions = new ArrayList<>();
+    private final Map<String, ClusterState> _clusters = new LinkedHashMap<>();
+
+    SyntheticGroup(final String pGroupId, final int pProcesses, final int pPartitions) {
+        _groupId = pGroupId;
+
+        final String domain = Long.toHexString(mix(pGroupId.hashCode()) & 0xfffffL);
+        for (int i = 0; i < pProcesses; i++) {
+            final int cluster = i / 3;
+            final String processId = String.format(
+                "cluster%d-shard-00-%02d-%s.mongodb.net:27017",
+                cluster,
+                i % 3,
+                domain);
+            _processIds.add(processId);
+            _replicaSets.put(processId, String.format("Cluster%d-shard-0", cluster));
+
+            if (i % 3 == 0) {
+                _clusters.put("Cluster" + cluster, new ClusterState(newCluster("Cluster" + cluster), 0));
+            }
+        }
+
+        for (int i = 0; i < pPartitions; i++) {
+            _partitions.add(i < PARTITION_NAMES.length ? PARTITION_NAMES[i] : "data" + i);
+        }
+    }
+
+    String getGroupId() {
+        return _groupId;
+    }
+
+    List<String> getProcessIds() {
+        return _processIds;
+    }
+
+    boolean hasProcess(final String pProcessId) {
+        return _replicaSets.containsKey(pProcessId);
+    }
+
+    List<String> getPartitions() {
+        return _partitions;
+    }
+
+    JSONObject toProcess(final String pProcessId) {
+        final String hostname = pProcessId.substring(0, pProcessId.indexOf(':'));
+        return new JSONObject()
+            .put("created", "2018-01-16T21:42:12Z")
+            .put("groupId", _groupId)
+            .put("hostname", hostname)
+            .put("id", pProcessId)
+            .put("lastPing", "2018-03-12T14:20:01Z")
+            .put("port", 27017)
+            .put("replicaSetName", _replicaSets.get(pProcessId))
+            .put("typeName", pProcessId.contains("-00-00-") ? "REPLICA_PRIMARY" : "REPLICA_SECONDARY")
+            .put("userAlias", hostname)
+            .put("version", "3.6.3");
+    }
+
+    synchronized List<JSONObject> getClusters(final long pNowMs) {
+        final List<JSONObject> clusters = new ArrayList<>();
+        for (final ClusterState cluster : _clusters.values()) {
+            clusters.add(cluster.toJson(pNowMs));
+        }
+        return clusters;
+    }
+
+    synchronized JSONObject getCluster(final String pName, final long pNowMs) {
+        final ClusterState cluster = _clusters.get(pName);
+        return cluster != null ? cluster.toJson(pNowMs) : null;
+    }
+
+    /**
+     * @return the new cluster, or null if the name is taken
+     */
+    synchronized JSONObject createCluster(final JSONObject pRequest, final long pNowMs, final long pIdleAtMs) {
+        final String name = pRequest.getString("name");
+        if (_clusters.containsKey(name)) {
+            return null;
+        }
+
+        final JSONObject cluster = newCluster(name);
+        if (pRequest.has("providerSettings")) {
+            cluster.put("providerSettings", pRequest.getJSONObject("providerSettings"));
+        }
+        if (pRequest.has("backupEnabled")) {
+            cluster.put("backupEnabled", pRequest.get("backupEnabled"));
+        }
+
+        final ClusterState state = new ClusterState(cluster, pIdleAtMs);
+        _clusters.put(name, state);
+        return state.toJson(pNowMs);
+    }
+
+    private JSONObject newCluster(final String pName) {
+        return new JSONObject()
+            .put("name", pName)
+            .put("groupId", _groupId)
+            .put("clusterType", "REPLICASET")
+            .put("mongoDBVersion", "3.6.3")
+            .put("diskSizeGB", 40)
+            .put("numShards", 1)
+            .put("replicationFactor", 3)
+            .put("backupEnabled", false)
+            .put("providerSettings", new JSONObject()
+                .put("providerName", "AWS")
+                .put("instanceSizeName", "M30")
+                .put("regionName", "US_EAST_1"));
+    }
+
+    /**
+     * @return the value of a process or partition metric for the minute starting at {@code pEpochMinute}
+     */
+    double getValue(final String pProcessId, final String pPartition, final String pMetric, final long pEpochMinute) {
+        final long processSeed = mix(pProcessId.hashCode() * 31L + (pPartition != null ? pPartition.hashCode() : 0));
+        final double size = unit(processSeed);
+        final double jitter = unit(mix(processSeed * 31 + pMetric.hashCode()) + pEpochMinute);
+
+        switch (pMetric) {
+            case "CONNECTIONS":
+                return Math.round(50 + 450 * size + 40 * jitter);
+            case "DB_DATA_SIZE_TOTAL":
+                return Math.round(1e9 + 5e11 * size + 1e6 * jitter);
+            case "DB_STORAGE_TOTAL":
+                return Math.round(1.3 * (1e9 + 5e11 * size) + 1e6 * jitter);
+            case "PROCESS_NORMALIZED_CPU_USER":
+                return 5 + 60 * size + 10 * jitter;
+            case "PROCESS_NORMALIZED_CPU_KERNEL":
+                return 1 + 10 * size + 2 * jitter;
+            case "CURSORS_TOTAL_OPEN":
+                return Math.round(20 * size + 5 * jitter);
+            case "DISK_PARTITION_SPACE_USED":
+                return Math.round(getDiskTotal(size) * (0.1 + 0.8 * size) + 1e6 * jitter);
+            case "DISK_PARTITION_SPACE_FREE":
+                return Math.round(getDiskTotal(size) * (0.9 - 0.8 * size) - 1e6 * jitter);
+            default:
+                return 100 * jitter;
+        }
+    }
+
+    private static double getDiskTotal(final double pSize) {
+        return 40e9 + 2e12 * pSize;
+    }
+
+    private static long mix(final long pSeed) {
+        long z = pSeed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static double unit(final long pSeed) {
+        return (mix(pSeed) >>> 11) * 0x1.0p-53;
+    }
+
+    private static class ClusterState {
+        private final JSONObject _cluster;
+        private final long _idleAtMs;
+
+        private ClusterState(final JSONObject pCluster, final long pIdleAtMs) {
+            _cluster = pCluster;
+            _idleAtMs = pIdleAtMs;
+        }
+
+        private JSONObject toJson(final long pNowMs) {
+            return new JSONObject(_cluster.toString()).put("stateName", pNowMs >= _idleAtMs ? "IDLE" : "CREATING");
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.mongodb.atlas.cli.util;
+
+import junit.framework.TestCase;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+public class ConcurrencyUtilTest extends TestCase {
+
+    public void testBoundedExecutorCapsConcurrency() throws Exception {
+        final ExecutorService pool = ConcurrencyUtil.newDaemonPool("test", 8);
+        try {
+            final Executor bounded = ConcurrencyUtil.newBoundedExecutor(pool, 2);
+            final AtomicInteger running = new AtomicInteger();
+            final AtomicInteger maxRunning = new AtomicInteger();
+            final CountDownLatch done = new CountDownLatch(20);
+
+            for (int i = 0; i < 20; i++) {
+                bounded.execute(() -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    try {
+                        Thread.sleep(5);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                });
+            }
+
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+            assertEquals(2, maxRunning.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public void testBoundedExecutorsShareOnePool() throws Exception {
+        final ExecutorService pool = ConcurrencyUtil.newDaemonPool("test", 2);
+        try {
+            final Executor first = ConcurrencyUtil.newBoundedExecutor(pool, 1);
+            final Executor second = ConcurrencyUtil.newBoundedExecutor(pool, 1);
+            final CountDownLatch release = new CountDownLatch(1);
+            final CountDownLatch secondRan = new CountDownLatch(1);
+
+            // a queue of blocked tasks in the first executor must not keep the second one from running
+            for (int i = 0; i < 5; i++) {
+                first.execute(() -> {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+            second.execute(secondRan::countDown);
+
+            assertTrue(secondRan.await(10, TimeUnit.SECONDS));
+            release.countDown();
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    public void testReusedPoolThreadPrintsWhereEachSubmitterPrints() throws Exception {
+        final PrintStream originalOut = System.out;
+        final PrintStream originalErr = System.err;
+        final ExecutorService pool = ConcurrencyUtil.newDaemonPool("test", 1);
+        try {
+            ThreadLocalOutput.install();
+            final ByteArrayOutputStream first = new ByteArrayOutputStream();
+            final ByteArrayOutputStream second = new ByteArrayOutputStream();
+
+            // the single pool thread is created by the first command and then serves the second
+            ThreadLocalOutput.redirect(first, new ByteArrayOutputStream());
+            pool.submit(() -> System.out.println("first")).get();
+            ThreadLocalOutput.redirect(second, new ByteArrayOutputStream());
+            pool.submit(() -> System.out.println("second")).get();
+            ThreadLocalOutput.reset();
+
+            assertEquals("first" + System.lineSeparator(), first.toString("UTF-8"));
+            assertEquals("second" + System.lineSeparator(), second.toString("UTF-8"));
+        } finally {
+            ThreadLocalOutput.reset();
+            pool.shutdownNow();
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.mongodb.atlas.cli.util;
+
+import junit.framework.TestCase;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+
+public class TextTableRendererTest extends TestCase {
+
+    public void testToTextMatchesFormattedTable() {
+        final List<List<String>> rows = table(20, 0);
+
+        // the format based rendering this replaced
+        final StringBuilder expected = new StringBuilder();
+        final int[] widths = new int[rows.get(0).size()];
+        rows.forEach(r -> {
+            for (int i = 0; i < r.size(); i++) {
+                widths[i] = Math.max(widths[i], r.get(i).length());
+            }
+        });
+        rows.forEach(r -> {
+            for (int i = 0; i < r.size(); i++) {
+                expected.append(String.format("%1$-" + (widths[i] + 2) + "s", r.get(i)))
+                    .append(i < r.size() - 1 ? "\t" : "");
+            }
+            expected.append("\n");
+        });
+
+        assertEquals(expected.toString(), TextTableRenderer.toText(rows));
+    }
+
+    public void testUnchangedFrameOnlyMovesCursor() {
+        final TextTableRenderer renderer = new TextTableRenderer(0);
+        renderer.renderFrame(table(10, 0), "");
+
+        assertEquals("\033[12;1H", renderer.renderFrame(table(10, 0), ""));
+    }
+
+    public void testChangedCellIsRewrittenInPlace() {
+        final TextTableRenderer renderer = new TextTableRenderer(0);
+        final Screen screen = new Screen();
+        screen.apply(renderer.renderFrame(table(10, 0), "err\n"));
+
+        final List<List<String>> changed = table(10, 0);
+        changed.get(3).set(2, "999");
+        final String frame = renderer.renderFrame(changed, "err\n");
+
+        assertFalse(frame.contains("\033[2J"));
+        assertFalse(frame.contains("host"));
+        assertTrue(frame.contains("999"));
+        screen.apply(frame);
+        assertEquals(expand(changed, "err\n"), screen.toString());
+    }
+
+    public void testFramesPaintTheSameScreenAsFullRender() {
+        final TextTableRenderer renderer = new TextTableRenderer(0);
+        final Screen screen = new Screen();
+
+        // growing and shrinking columns, rows and trailers
+        final int[][] frames = {{10, 0}, {10, 1}, {12, 1}, {12, 2}, {8, 2}, {8, 3}, {8, 0}};
+        for (final int[] frame : frames) {
+            final List<List<String>> rows = table(frame[0], frame[1]);
+            final String trailer = frame[1] % 2 == 1 ? "G1: failed\n" : "";
+            screen.apply(renderer.renderFrame(rows, trailer));
+            assertEquals(expand(rows, trailer), screen.toString());
+        }
+    }
+
+    public void testFrameTallerThanTerminalIsRepainted() {
+        final TextTableRenderer renderer = new TextTableRenderer(5);
+        renderer.renderFrame(table(10, 0), "");
+
+        assertTrue(renderer.renderFrame(table(10, 0), "").startsWith("\033[H"));
+    }
+
+    private static List<List<String>> table(final int pRows, final int pVariant) {
+        final List<List<String>> rows = new ArrayList<>();
+        rows.add(Arrays.asList("ReplicaSet", "Host", "Conn", "Disk Utl"));
+        for (int i = 0; i < pRows; i++) {
+            rows.add(new ArrayList<>(Arrays.asList(
+                "Cluster" + i / 3,
+                "host" + i + (pVariant == 2 && i == 1 ? "-with-a-long-name" : ""),
+                Integer.toString(100 + i * pVariant),
+                (pVariant == 3 ? 5 : 50 + i) + "%")));
+        }
+        return rows;
+    }
+
+    /**
+     * @return the screen a full paint of the table leaves: tabs expanded and trailing spaces dropped
+     */
+    private static String expand(final List<List<String>> pRows, final String pTrailer) {
+        final Screen screen = new Screen();
+        screen.apply(TextTableRenderer.toText(pRows) + pTrailer);
+        return screen.toString();
+    }
+
+    /**
+     * Just enough of a terminal for the sequences the renderer writes.
+     */
+    private static class Screen {
+        private final List<StringBuilder> _lines = new ArrayList<>();
+        private int _row;
+        private int _column;
+
+        private void apply(final String pOutput) {
+            int i = 0;
+            while (i < pOutput.length()) {
+                final char c = pOutput.charAt(i++);
+                if (c == '\033') {
+                    final int end = indexOfFinal(pOutput, i + 1);
+                    final String parameters = pOutput.substring(i + 1, end);
+                    final char command = pOutput.charAt(end);
+                    i = end + 1;
+
+                    if (command == 'H') {
+                        final String[] position = parameters.isEmpty() ? new String[] {"1", "1"} : parameters.split(";");
+                        _row = Integer.parseInt(position[0]) - 1;
+                        _column = Integer.parseInt(position[1]) - 1;
+                    } else if (command == 'K') {
+                        final StringBuilder line = line(_row);
+                        line.setLength(Math.min(line.length(), _column));
+                    } else if (command == 'J') {
+                        if (parameters.equals("2")) {
+                            _lines.clear();
+                        } else {
+                            line(_row).setLength(Math.min(line(_row).length(), _column));
+                            while (_lines.size() > _row + 1) {
+                                _lines.remove(_lines.size() - 1);
+                            }
+                        }
+                    }
+                } else if (c == '\n') {
+                    _row++;
+                    _column = 0;
+                } else if (c == '\t') {
+                    _column = (_column / 8 + 1) * 8;
+                } else {
+                    final StringBuilder line = line(_row);
+                    while (line.length() <= _column) {
+                        line.append(' ');
+                    }
+                    line.setCharAt(_column++, c);
+                }
+            }
+        }
+
+        private static int indexOfFinal(final String pOutput, final int pFrom) {
+            int i = pFrom;
+            while (!Character.isLetter(pOutput.charAt(i))) {
+                i++;
+            }
+            return i;
+        }
+
+        private StringBuilder line(final int pRow) {
+            while (_lines.size() <= pRow) {
+                _lines.add(new StringBuilder());
+            }
+            return _lines.get(pRow);
+        }
+
+        @Override
+        public String toString() {
+            final StringBuilder screen = new StringBuilder();
+            for (final StringBuilder line : _lines) {
+                int end = line.length();
+                while (end > 0 && line.charAt(end - 1) == ' ') {
+                    end--;
+                }
+                screen.append(line, 0, end).append('\n');
+            }
+            // lines past the end of the output are blank either way
+            int end = screen.length();
+            while (end > 0 && screen.charAt(end - 1) == '\n') {
+                end--;
+            }
+            return screen.substring(0, end);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.mongodb.atlas.cli.util;
+
+import junit.framework.TestCase;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+
+public class WorkingDirectoryTest extends TestCase {
+
+    public void testResolvesAgainstTheThreadsDirectory() throws Exception {
+        final Path directory = Paths.get("/tmp/caller").toAbsolutePath();
+        WorkingDirectory.set(directory);
+        try {
+            assertEquals(directory.resolve("fleet.json"), WorkingDirectory.resolve("fleet.json"));
+            assertEquals(Paths.get("/data/export.ndjson"), WorkingDirectory.resolve("/data/export.ndjson"));
+
+            // other threads keep the JVM's directory
+            final Path[] other = new Path[1];
+            final Thread thread = new Thread(() -> other[0] = WorkingDirectory.resolve("fleet.json"));
+            thread.start();
+            thread.join();
+            assertEquals(Paths.get("fleet.json"), other[0]);
+        } finally {
+            WorkingDirectory.reset();
+        }
+        assertEquals(Paths.get("fleet.json"), WorkingDirectory.resolve("fleet.json"));
+    }
+
+    public void testRejectsRelativeDirectory() {
+        try {
+            WorkingDirectory.set(Paths.get("relative"));
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().startsWith("Invalid working directory specified"));
+        }
+    }
+}